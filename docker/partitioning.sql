@@ -0,0 +1,44 @@
+-- Variante particionada por día de transactions y audit_log (PostgreSQL 12+).
+-- Opcional: sustituye las tablas creadas por init.sql en una base de datos vacía.
+-- Con simulator.retention.<tabla>.partitioned=true el job de retención crea las
+-- particiones futuras (<tabla>_pYYYYMMDD) y desacopla y elimina las caducadas.
+
+DROP TABLE IF EXISTS transactions;
+DROP TABLE IF EXISTS audit_log;
+
+-- La clave de partición debe formar parte de las restricciones únicas
+CREATE TABLE transactions (
+    id BIGINT NOT NULL DEFAULT nextval('transaction_seq'),
+    transaction_id VARCHAR(255) NOT NULL,
+    message_type VARCHAR(50) NOT NULL,
+    sender VARCHAR(255) NOT NULL,
+    receiver VARCHAR(255) NOT NULL,
+    amount DECIMAL(15,2),
+    currency VARCHAR(3),
+    status VARCHAR(20) DEFAULT 'PENDING',
+    raw_message TEXT,
+    raw_message_compressed BYTEA,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    UNIQUE (transaction_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE audit_log (
+    id BIGINT NOT NULL DEFAULT nextval('transaction_seq'),
+    transaction_id VARCHAR(255),
+    action VARCHAR(50),
+    details TEXT,
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- Recoge filas fuera de las particiones creadas por el job. Con una partición DEFAULT
+-- PostgreSQL no admite DETACH ... CONCURRENTLY, así que el job usa el DETACH normal
+CREATE TABLE IF NOT EXISTS transactions_default PARTITION OF transactions DEFAULT;
+CREATE TABLE IF NOT EXISTS audit_log_default PARTITION OF audit_log DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_transactions_status ON transactions(status);
+CREATE INDEX IF NOT EXISTS idx_transactions_created_at ON transactions(created_at);
+CREATE INDEX IF NOT EXISTS idx_audit_log_transaction_id ON audit_log(transaction_id);
+CREATE INDEX IF NOT EXISTS idx_audit_log_timestamp ON audit_log(timestamp);
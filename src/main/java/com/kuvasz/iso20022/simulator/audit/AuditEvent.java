@@ -0,0 +1,42 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+/**
+ * Evento de auditoría preasignado en un slot del ring buffer. Los productores sobrescriben
+ * sus campos en lugar de crear objetos nuevos; los consumidores no deben retener la
+ * referencia más allá de {@code onEvent}.
+ */
+public final class AuditEvent {
+
+    private String transactionId;
+    private String action;
+    private String details;
+    private long timestampMillis;
+
+    void set(String transactionId, String action, String details, long timestampMillis) {
+        this.transactionId = transactionId;
+        this.action = action;
+        this.details = details;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditEvent{transactionId='" + transactionId + "', action='" + action + "'}";
+    }
+}
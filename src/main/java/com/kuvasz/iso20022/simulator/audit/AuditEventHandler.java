@@ -0,0 +1,22 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+/**
+ * Consumidor de eventos de auditoría. Cada handler tiene su propio hilo y su propia
+ * secuencia, y recibe todos los eventos publicados en orden; {@code endOfBatch} marca el
+ * último evento disponible en ese momento, punto natural para hacer flush.
+ */
+public interface AuditEventHandler {
+
+    void onEvent(AuditEvent event, long sequence, boolean endOfBatch) throws Exception;
+
+    /**
+     * Invocado una vez tras procesar el último evento al detener el pipeline
+     */
+    default void onShutdown() {
+    }
+
+    /**
+     * Nombre corto usado en el hilo consumidor y en la etiqueta de métricas
+     */
+    String getName();
+}
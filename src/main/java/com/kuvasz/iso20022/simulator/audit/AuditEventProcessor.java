@@ -0,0 +1,90 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bucle consumidor de un handler: espera con la estrategia configurada, entrega en un
+ * único lote todos los eventos publicados de forma contigua y solo entonces avanza su
+ * secuencia, liberando los slots para los productores.
+ */
+public final class AuditEventProcessor implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditEventProcessor.class);
+
+    private final AuditRingBuffer ringBuffer;
+    private final AuditEventHandler handler;
+    private final Sequence sequence = new Sequence();
+    private volatile boolean running = true;
+
+    public AuditEventProcessor(AuditRingBuffer ringBuffer, AuditEventHandler handler) {
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+    }
+
+    @Override
+    public void run() {
+        WaitStrategy waitStrategy = ringBuffer.getWaitStrategy();
+        long next = sequence.get() + 1;
+
+        while (true) {
+            long available = waitStrategy.waitFor(next, ringBuffer.getCursorSequence(), this::isRunning);
+            if (available < next) {
+                if (!running) {
+                    break;
+                }
+                continue;
+            }
+
+            long highest = ringBuffer.getHighestPublishedSequence(next, available);
+            if (highest < next) {
+                // Reclamada pero aún no publicada por su productor
+                Thread.onSpinWait();
+                continue;
+            }
+
+            for (long current = next; current <= highest; current++) {
+                try {
+                    handler.onEvent(ringBuffer.get(current), current, current == highest);
+                } catch (Exception e) {
+                    logger.error("Audit handler {} failed on sequence {}", handler.getName(), current, e);
+                }
+            }
+            sequence.set(highest);
+            next = highest + 1;
+        }
+
+        try {
+            handler.onShutdown();
+        } catch (Exception e) {
+            logger.warn("Audit handler {} failed on shutdown: {}", handler.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Detiene el bucle en cuanto no queden eventos publicados pendientes
+     */
+    public void halt() {
+        running = false;
+        ringBuffer.getWaitStrategy().signalAllWhenBlocking();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public Sequence getSequence() {
+        return sequence;
+    }
+
+    public AuditEventHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Eventos reclamados en el ring que este consumidor aún no ha procesado
+     */
+    public long getLag() {
+        return ringBuffer.getCursor() - sequence.get();
+    }
+}
@@ -0,0 +1,193 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties.Audit.OverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pipeline asíncrono de auditoría.
+ *
+ * Las etapas de procesamiento publican eventos en un {@link AuditRingBuffer} preasignado
+ * sin tocar base de datos; un consumidor JDBC los persiste en batches en audit_log y,
+ * opcionalmente, otro los copia a un fichero JSON Lines. Cada consumidor avanza a su
+ * ritmo y el más lento marca cuándo puede reutilizarse un slot.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AuditPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditPipeline.class);
+
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final SimulatorProperties.Audit config;
+    private final AuditRingBuffer ringBuffer;
+    private final List<AuditEventProcessor> processors = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    private final Counter publishedCounter;
+    private final Counter droppedCounter;
+
+    private volatile boolean running;
+
+    @Autowired
+    public AuditPipeline(DataSource dataSource, SimulatorProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, defaultHandlers(dataSource, properties.getAudit(), meterRegistry));
+    }
+
+    public AuditPipeline(SimulatorProperties properties, MeterRegistry meterRegistry, List<AuditEventHandler> handlers) {
+        this.config = properties.getAudit();
+        this.ringBuffer = new AuditRingBuffer(nextPowerOfTwo(config.getRingSize()),
+            WaitStrategy.create(config.getWaitStrategy()));
+
+        for (AuditEventHandler handler : handlers) {
+            AuditEventProcessor processor = new AuditEventProcessor(ringBuffer, handler);
+            ringBuffer.addGatingSequences(processor.getSequence());
+            processors.add(processor);
+            Gauge.builder("simulator.audit.consumer.lag", processor, AuditEventProcessor::getLag)
+                .description("Eventos publicados pendientes de procesar por el consumidor")
+                .tag("consumer", handler.getName())
+                .register(meterRegistry);
+        }
+
+        this.publishedCounter = Counter.builder("simulator.audit.events")
+            .tag("outcome", "published").register(meterRegistry);
+        this.droppedCounter = Counter.builder("simulator.audit.events")
+            .tag("outcome", "dropped").register(meterRegistry);
+        Gauge.builder("simulator.audit.ring.occupancy", ringBuffer, AuditRingBuffer::getOccupancy)
+            .description("Slots ocupados del ring buffer de auditoría")
+            .register(meterRegistry);
+        Gauge.builder("simulator.audit.ring.capacity", ringBuffer, AuditRingBuffer::getBufferSize)
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (AuditEventProcessor processor : processors) {
+            Thread thread = new Thread(processor, "audit-" + processor.getHandler().getName());
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        logger.info("Audit pipeline started with {} consumer(s), ring size {}, wait strategy {}",
+            processors.size(), ringBuffer.getBufferSize(), config.getWaitStrategy());
+    }
+
+    /**
+     * Deja de aceptar eventos, espera a que los consumidores drenen el ring y los detiene
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (!isDrained() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        for (AuditEventProcessor processor : processors) {
+            processor.halt();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threads.clear();
+    }
+
+    /**
+     * Publica un evento de auditoría sin bloquear salvo con política BLOCK y el ring lleno
+     *
+     * @return true si el evento fue aceptado, false si se descartó
+     */
+    public boolean publish(String transactionId, String action, String details) {
+        if (!running) {
+            droppedCounter.increment();
+            return false;
+        }
+
+        long sequence = ringBuffer.tryNext();
+        if (sequence < 0 && config.getOverflowPolicy() == OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + config.getOfferTimeout().toNanos();
+            while (sequence < 0 && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+                sequence = ringBuffer.tryNext();
+            }
+        }
+        if (sequence < 0) {
+            droppedCounter.increment();
+            logger.debug("Audit ring buffer full, dropping {} event for {}", action, transactionId);
+            return false;
+        }
+
+        ringBuffer.get(sequence).set(transactionId, action, details, System.currentTimeMillis());
+        ringBuffer.publish(sequence);
+        publishedCounter.increment();
+        return true;
+    }
+
+    public long getOccupancy() {
+        return ringBuffer.getOccupancy();
+    }
+
+    public int getRingSize() {
+        return ringBuffer.getBufferSize();
+    }
+
+    private boolean isDrained() {
+        long cursor = ringBuffer.getCursor();
+        for (AuditEventProcessor processor : processors) {
+            if (processor.getSequence().get() < cursor) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<AuditEventHandler> defaultHandlers(DataSource dataSource, SimulatorProperties.Audit config,
+                                                           MeterRegistry meterRegistry) {
+        List<AuditEventHandler> handlers = new ArrayList<>();
+        handlers.add(new JdbcAuditEventHandler(dataSource, config.getBatchSize(), meterRegistry));
+        if (config.getFile() != null && !config.getFile().isBlank()) {
+            try {
+                handlers.add(new FileAuditEventHandler(Path.of(config.getFile())));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open audit file " + config.getFile(), e);
+            }
+        }
+        return handlers;
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+}
@@ -0,0 +1,139 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Ring buffer de eventos de auditoría al estilo Disruptor.
+ *
+ * Los slots se preasignan una sola vez. Los productores reclaman una secuencia con un CAS
+ * sobre el cursor, rellenan el slot y lo marcan como disponible en un array de rondas;
+ * cada consumidor avanza su propia {@link Sequence} y el productor nunca sobrescribe un
+ * slot que el consumidor más lento no haya procesado.
+ */
+public final class AuditRingBuffer {
+
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final AuditEvent[] entries;
+    private final int[] availableRounds;
+    private final int mask;
+    private final int indexShift;
+    private final WaitStrategy waitStrategy;
+
+    private final Sequence cursor = new Sequence();
+    private final Sequence cachedGatingSequence = new Sequence();
+    private volatile Sequence[] gatingSequences = new Sequence[0];
+
+    public AuditRingBuffer(int bufferSize, WaitStrategy waitStrategy) {
+        if (Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Ring buffer size must be a power of 2: " + bufferSize);
+        }
+        this.entries = new AuditEvent[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            entries[i] = new AuditEvent();
+        }
+        this.availableRounds = new int[bufferSize];
+        Arrays.fill(availableRounds, -1);
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Registra las secuencias de los consumidores que limitan el avance de los productores
+     */
+    public synchronized void addGatingSequences(Sequence... sequences) {
+        Sequence[] updated = Arrays.copyOf(gatingSequences, gatingSequences.length + sequences.length);
+        System.arraycopy(sequences, 0, updated, gatingSequences.length, sequences.length);
+        for (Sequence sequence : sequences) {
+            sequence.set(cursor.get());
+        }
+        gatingSequences = updated;
+    }
+
+    /**
+     * Reclama la siguiente secuencia sin esperar
+     *
+     * @return la secuencia reclamada, o -1 si el buffer está lleno
+     */
+    public long tryNext() {
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - entries.length;
+            if (wrapPoint > cachedGatingSequence.get()) {
+                long minimum = getMinimumGatingSequence(current);
+                cachedGatingSequence.set(minimum);
+                if (wrapPoint > minimum) {
+                    return -1;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    public AuditEvent get(long sequence) {
+        return entries[(int) sequence & mask];
+    }
+
+    /**
+     * Marca la secuencia como disponible para los consumidores
+     */
+    public void publish(long sequence) {
+        AVAILABLE.setRelease(availableRounds, (int) sequence & mask, (int) (sequence >>> indexShift));
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    public boolean isAvailable(long sequence) {
+        return (int) AVAILABLE.getAcquire(availableRounds, (int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    /**
+     * Mayor secuencia publicada de forma contigua en [lowerBound, availableSequence]. Con
+     * varios productores una secuencia reclamada puede no estar publicada todavía.
+     */
+    public long getHighestPublishedSequence(long lowerBound, long availableSequence) {
+        for (long sequence = lowerBound; sequence <= availableSequence; sequence++) {
+            if (!isAvailable(sequence)) {
+                return sequence - 1;
+            }
+        }
+        return availableSequence;
+    }
+
+    Sequence getCursorSequence() {
+        return cursor;
+    }
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public int getBufferSize() {
+        return entries.length;
+    }
+
+    /**
+     * Eventos reclamados que el consumidor más lento aún no ha procesado
+     */
+    public long getOccupancy() {
+        long current = cursor.get();
+        return current - getMinimumGatingSequence(current);
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    private long getMinimumGatingSequence(long defaultValue) {
+        long minimum = defaultValue;
+        for (Sequence sequence : gatingSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+}
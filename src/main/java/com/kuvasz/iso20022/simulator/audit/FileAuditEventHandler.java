@@ -0,0 +1,89 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Copia los eventos de auditoría a un fichero JSON Lines de solo escritura al final.
+ * El buffer se vacía al final de cada lote del ring buffer.
+ */
+public class FileAuditEventHandler implements AuditEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileAuditEventHandler.class);
+
+    private final Path path;
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder(256);
+
+    public FileAuditEventHandler(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public void onEvent(AuditEvent event, long sequence, boolean endOfBatch) throws IOException {
+        line.setLength(0);
+        line.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(event.getTimestampMillis())).append('"');
+        appendField("transactionId", event.getTransactionId());
+        appendField("action", event.getAction());
+        appendField("details", event.getDetails());
+        line.append("}\n");
+        writer.append(line);
+        if (endOfBatch) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void onShutdown() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("Could not close audit file {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    private void appendField(String name, String value) {
+        line.append(",\"").append(name).append("\":");
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,143 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persiste los eventos en la tabla audit_log en batches JDBC. El batch se cierra al final
+ * de cada lote del ring buffer o al alcanzar {@code batch-size}, lo que ocurra antes.
+ */
+public class JdbcAuditEventHandler implements AuditEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcAuditEventHandler.class);
+
+    static final String INSERT_SQL =
+        "INSERT INTO audit_log (transaction_id, action, details, timestamp) VALUES (?, ?, ?, ?)";
+
+    private static final int MAX_ACTION_LENGTH = 50;
+
+    private final DataSource dataSource;
+    private final int batchSize;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private int pending;
+    private long batchStartNanos;
+
+    public JdbcAuditEventHandler(DataSource dataSource, int batchSize, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
+
+        this.flushTimer = Timer.builder("simulator.audit.flush.latency")
+            .description("Latencia de cada batch insertado en audit_log")
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("simulator.audit.batch.size")
+            .description("Eventos de auditoría por batch persistido")
+            .register(meterRegistry);
+        this.writtenCounter = Counter.builder("simulator.audit.records")
+            .tag("outcome", "written").register(meterRegistry);
+        this.failedCounter = Counter.builder("simulator.audit.records")
+            .tag("outcome", "failed").register(meterRegistry);
+    }
+
+    @Override
+    public void onEvent(AuditEvent event, long sequence, boolean endOfBatch) {
+        try {
+            if (statement == null) {
+                batchStartNanos = System.nanoTime();
+                connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+                statement = connection.prepareStatement(INSERT_SQL);
+            }
+            statement.setString(1, event.getTransactionId());
+            statement.setString(2, truncate(event.getAction()));
+            statement.setString(3, event.getDetails());
+            statement.setTimestamp(4, new Timestamp(event.getTimestampMillis()));
+            statement.addBatch();
+            pending++;
+        } catch (SQLException e) {
+            failedCounter.increment();
+            logger.warn("Could not bind audit event {}: {}", sequence, e.getMessage());
+            if (statement == null && connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException closeError) {
+                    logger.debug("Could not close audit connection: {}", closeError.getMessage());
+                }
+                connection = null;
+            }
+        }
+
+        if (endOfBatch || pending >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onShutdown() {
+        flush();
+    }
+
+    @Override
+    public String getName() {
+        return "jdbc";
+    }
+
+    private void flush() {
+        if (statement == null) {
+            return;
+        }
+        int count = pending;
+        try {
+            if (count > 0) {
+                statement.executeBatch();
+                connection.commit();
+                writtenCounter.increment(count);
+                batchSizeSummary.record(count);
+            }
+        } catch (SQLException e) {
+            failedCounter.increment(count);
+            logger.warn("Could not persist batch of {} audit events: {}", count, e.getMessage());
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                logger.debug("Audit batch rollback failed: {}", rollbackError.getMessage());
+            }
+        } finally {
+            close();
+            flushTimer.record(System.nanoTime() - batchStartNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void close() {
+        try {
+            statement.close();
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Could not close audit connection: {}", e.getMessage());
+        }
+        statement = null;
+        connection = null;
+        pending = 0;
+    }
+
+    private static String truncate(String action) {
+        return action != null && action.length() > MAX_ACTION_LENGTH ? action.substring(0, MAX_ACTION_LENGTH) : action;
+    }
+}
@@ -0,0 +1,130 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Estrategia con la que un consumidor espera a que el cursor del ring buffer alcance una
+ * secuencia. Cambia latencia por consumo de CPU: BUSY_SPIN y YIELDING ocupan un núcleo,
+ * SLEEPING y BLOCKING lo liberan a costa de algunos microsegundos de latencia.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Espera hasta que {@code cursor >= sequence} o hasta que {@code running} sea false
+     *
+     * @return el valor del cursor observado, que puede ser menor que {@code sequence} si se detuvo
+     */
+    long waitFor(long sequence, Sequence cursor, BooleanSupplier running);
+
+    /**
+     * Despierta a los consumidores bloqueados tras publicar
+     */
+    default void signalAllWhenBlocking() {
+    }
+
+    static WaitStrategy create(SimulatorProperties.Audit.WaitStrategyType type) {
+        return switch (type) {
+            case BUSY_SPIN -> new BusySpin();
+            case YIELDING -> new Yielding();
+            case SLEEPING -> new Sleeping();
+            case BLOCKING -> new Blocking();
+        };
+    }
+
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier running) {
+            long available;
+            while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+                Thread.onSpinWait();
+            }
+            return available;
+        }
+    }
+
+    final class Yielding implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier running) {
+            int counter = SPIN_TRIES;
+            long available;
+            while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+                if (counter > 0) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return available;
+        }
+    }
+
+    final class Sleeping implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 100;
+        private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier running) {
+            int counter = SPIN_TRIES + YIELD_TRIES;
+            long available;
+            while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+                if (counter > YIELD_TRIES) {
+                    counter--;
+                    Thread.onSpinWait();
+                } else if (counter > 0) {
+                    counter--;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+            return available;
+        }
+    }
+
+    final class Blocking implements WaitStrategy {
+        // Despertar periódico para observar la parada aunque nadie publique
+        private static final long AWAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, BooleanSupplier running) {
+            long available = cursor.get();
+            if (available >= sequence) {
+                return available;
+            }
+            lock.lock();
+            try {
+                while ((available = cursor.get()) < sequence && running.getAsBoolean()) {
+                    published.awaitNanos(AWAIT_NANOS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
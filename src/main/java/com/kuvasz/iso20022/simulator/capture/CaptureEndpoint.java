@@ -0,0 +1,51 @@
+package com.kuvasz.iso20022.simulator.capture;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Endpoint {@code /actuator/captures}:
+ * GET lista las capturas, lentas y muestreadas, sin payload,
+ * GET {@code /{id}} descarga el XML capturado y DELETE vacía los anillos.
+ *
+ * Devuelve payloads con datos de clientes y no tiene autenticación propia, por lo que está
+ * deshabilitado por defecto: se activa con {@code management.endpoint.captures.enabled=true}
+ * y añadiéndolo a {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.capture", name = "enabled", havingValue = "true")
+@Endpoint(id = "captures", enableByDefault = false)
+public class CaptureEndpoint {
+
+    private final SlowMessageCapture capture;
+
+    public CaptureEndpoint(SlowMessageCapture capture) {
+        this.capture = capture;
+    }
+
+    @ReadOperation
+    public List<CapturedMessage> captures() {
+        return capture.list(null);
+    }
+
+    @ReadOperation(produces = "application/xml")
+    public WebEndpointResponse<Resource> payload(@Selector long id) {
+        return capture.get(id)
+            .map(captured -> new WebEndpointResponse<Resource>(new ByteArrayResource(capture.payload(captured))))
+            .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @DeleteOperation
+    public void clear() {
+        capture.clear();
+    }
+}
@@ -0,0 +1,37 @@
+package com.kuvasz.iso20022.simulator.capture;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Mensaje capturado: resumen del MessageContext, tiempos por etapa y payload recibido,
+ * truncado a {@code max-payload-size} y opcionalmente comprimido con PayloadCodec.
+ *
+ * @param id        secuencia de captura, única entre ambos anillos
+ * @param totalMs   latencia total, persistencia incluida
+ * @param stagesMs  milisegundos por etapa del pipeline
+ * @param allocatedBytes memoria asignada en las etapas síncronas; -1 si no se midió
+ * @param cpuMs     tiempo de CPU en las etapas síncronas; -1 si no se midió
+ * @param payloadSize bytes UTF-8 del payload original, antes de truncar
+ * @param storedSize  bytes retenidos en el anillo
+ */
+public record CapturedMessage(long id, Reason reason, Instant capturedAt, String messageId, String messageType,
+                              String messageName, String senderId, String receiverId,
+                              LocalDateTime creationDateTime, Map<String, String> properties, String status,
+                              int errorCount, double totalMs, Map<String, Double> stagesMs, long allocatedBytes,
+                              double cpuMs, int payloadSize,
+                              int storedSize, boolean truncated, boolean compressed, @JsonIgnore byte[] payload) {
+
+    /**
+     * Motivo de la captura
+     */
+    public enum Reason {
+        /** Supera el umbral de latencia */
+        SLOW,
+        /** Muestra aleatoria de los mensajes normales */
+        SAMPLED
+    }
+}
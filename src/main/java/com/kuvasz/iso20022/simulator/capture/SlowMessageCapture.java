@@ -0,0 +1,244 @@
+package com.kuvasz.iso20022.simulator.capture;
+
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.metrics.ResourceAccounting;
+import com.kuvasz.iso20022.simulator.metrics.StageTimings;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Anillos acotados con los mensajes que superan {@code simulator.capture.slow-threshold}
+ * y una muestra aleatoria de los normales, para reproducir las entradas lentas.
+ *
+ * Cada mensaje cuesta una comparación y, con muestreo, un número aleatorio; solo los
+ * capturados copian el payload (truncado y comprimido). La copia se hace en el hilo que
+ * completa el mensaje, por lo que se limita a {@code max-per-second} capturas: si todos los
+ * mensajes pasan a ser lentos, el resto solo se cuenta. Los lentos y los muestreados van
+ * en anillos separados para que el muestreo no desplace a los lentos. Los payloads se
+ * descargan en claro por {@code /actuator/captures/{id}}, listos como fixture de benchmark.
+ *
+ * Los payloads contienen datos de clientes: la captura está deshabilitada por defecto.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.capture", name = "enabled", havingValue = "true")
+public class SlowMessageCapture {
+
+    static final String METER = "simulator.capture.messages";
+    static final String THROTTLED_METER = "simulator.capture.throttled";
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private final SimulatorProperties.Capture config;
+    private final PayloadCodec payloadCodec;
+    private final long thresholdNanos;
+    private final int maxPayloadBytes;
+    private final int maxPerSecond;
+    private final LongSupplier nanoClock;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Ring slow;
+    private final Ring sampled;
+    private final Counter slowCounter;
+    private final Counter sampledCounter;
+    private final Counter throttledCounter;
+
+    // Ventana de un segundo para max-per-second; el reinicio no es atómico con la cuenta,
+    // así que en el cambio de ventana el límite es aproximado
+    private final AtomicLong windowSecond = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    @Autowired
+    public SlowMessageCapture(SimulatorProperties properties, PayloadCodec payloadCodec, MeterRegistry meterRegistry) {
+        this(properties, payloadCodec, meterRegistry, System::nanoTime);
+    }
+
+    SlowMessageCapture(SimulatorProperties properties, PayloadCodec payloadCodec, MeterRegistry meterRegistry,
+                       LongSupplier nanoClock) {
+        this.config = properties.getCapture();
+        this.payloadCodec = payloadCodec;
+        this.nanoClock = nanoClock;
+        this.thresholdNanos = config.getSlowThreshold().toNanos();
+        this.maxPayloadBytes = (int) Math.min(Integer.MAX_VALUE, config.getMaxPayloadSize().toBytes());
+        this.maxPerSecond = config.getMaxPerSecond();
+        this.slow = new Ring(config.getSlowCapacity());
+        this.sampled = new Ring(config.getSampleCapacity());
+        this.slowCounter = Counter.builder(METER)
+            .description("Mensajes capturados por motivo")
+            .tag("reason", "slow")
+            .register(meterRegistry);
+        this.sampledCounter = Counter.builder(METER)
+            .description("Mensajes capturados por motivo")
+            .tag("reason", "sampled")
+            .register(meterRegistry);
+        this.throttledCounter = Counter.builder(THROTTLED_METER)
+            .description("Mensajes lentos o muestreados no capturados por superar max-per-second")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Decide si el mensaje se captura y, en ese caso, lo guarda
+     *
+     * @param context null si el mensaje no llegó a parsearse o no pasa por validación
+     */
+    public void offer(MessageContext context, ProcessingResult result, String payload, StageTimings timings,
+                      long totalNanos) {
+        CapturedMessage.Reason reason;
+        if (totalNanos >= thresholdNanos) {
+            reason = CapturedMessage.Reason.SLOW;
+        } else if (config.getSampleRate() > 0 && ThreadLocalRandom.current().nextDouble() < config.getSampleRate()) {
+            reason = CapturedMessage.Reason.SAMPLED;
+        } else {
+            return;
+        }
+        if (!tryAcquire()) {
+            throttledCounter.increment();
+            return;
+        }
+        CapturedMessage captured = capture(reason, context, result, payload, timings, totalNanos);
+        if (reason == CapturedMessage.Reason.SLOW) {
+            slow.add(captured);
+            slowCounter.increment();
+        } else {
+            sampled.add(captured);
+            sampledCounter.increment();
+        }
+    }
+
+    /**
+     * Capturas retenidas, las más recientes primero
+     *
+     * @param reason null para ambos anillos
+     */
+    public List<CapturedMessage> list(CapturedMessage.Reason reason) {
+        List<CapturedMessage> captures = new ArrayList<>();
+        if (reason != CapturedMessage.Reason.SAMPLED) {
+            slow.collect(captures);
+        }
+        if (reason != CapturedMessage.Reason.SLOW) {
+            sampled.collect(captures);
+        }
+        captures.sort(Comparator.comparingLong(CapturedMessage::id).reversed());
+        return captures;
+    }
+
+    public Optional<CapturedMessage> get(long id) {
+        return list(null).stream().filter(captured -> captured.id() == id).findFirst();
+    }
+
+    /**
+     * Payload capturado en claro (truncado si superaba el límite)
+     */
+    public byte[] payload(CapturedMessage captured) {
+        return captured.compressed() ? payloadCodec.decode(captured.payload()) : captured.payload();
+    }
+
+    public void clear() {
+        slow.clear();
+        sampled.clear();
+    }
+
+    private boolean tryAcquire() {
+        long second = nanoClock.getAsLong() / SECOND_NANOS;
+        long current = windowSecond.get();
+        if (current != second && windowSecond.compareAndSet(current, second)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= maxPerSecond;
+    }
+
+    private CapturedMessage capture(CapturedMessage.Reason reason, MessageContext context, ProcessingResult result,
+                                    String payload, StageTimings timings, long totalNanos) {
+        byte[] bytes = payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int payloadSize = bytes.length;
+        boolean truncated = bytes.length > maxPayloadBytes;
+        if (truncated) {
+            byte[] head = new byte[maxPayloadBytes];
+            System.arraycopy(bytes, 0, head, 0, maxPayloadBytes);
+            bytes = head;
+        }
+        String messageType = result.getMessageType();
+        boolean compressed = false;
+        if (config.isCompress()) {
+            byte[] encoded = payloadCodec.encode(messageType, bytes);
+            if (PayloadCodec.isEncoded(encoded) && encoded.length < bytes.length) {
+                bytes = encoded;
+                compressed = true;
+            }
+        }
+
+        return new CapturedMessage(sequence.incrementAndGet(), reason, Instant.now(), result.getMessageId(),
+            messageType, context != null ? context.getMessageName() : null,
+            context != null ? context.getSenderId() : null, context != null ? context.getReceiverId() : null,
+            context != null ? context.getCreationDateTime() : null, properties(context),
+            result.getStatus() != null ? result.getStatus().name() : null,
+            result.getErrors() != null ? result.getErrors().size() : 0, totalNanos / 1_000_000.0,
+            timings.toMillis(), timings.totalAllocatedBytes(), cpuMillis(timings), payloadSize, bytes.length,
+            truncated, compressed, bytes);
+    }
+
+    private static double cpuMillis(StageTimings timings) {
+        long cpuNanos = timings.totalCpuNanos();
+        return cpuNanos == ResourceAccounting.UNAVAILABLE ? -1 : cpuNanos / 1_000_000.0;
+    }
+
+    private static Map<String, String> properties(MessageContext context) {
+        if (context == null || context.getProperties() == null || context.getProperties().isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> properties = new LinkedHashMap<>();
+        context.getProperties().forEach((key, value) -> properties.put(key, String.valueOf(value)));
+        return Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     * Anillo de capacidad fija; la escritura sobrescribe la captura más antigua
+     */
+    private static final class Ring {
+        private final AtomicReferenceArray<CapturedMessage> slots;
+        private final AtomicLong cursor = new AtomicLong();
+
+        private Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        private void add(CapturedMessage captured) {
+            slots.set((int) (cursor.getAndIncrement() % slots.length()), captured);
+        }
+
+        private void collect(List<CapturedMessage> target) {
+            for (int i = 0; i < slots.length(); i++) {
+                CapturedMessage captured = slots.get(i);
+                if (captured != null) {
+                    target.add(captured);
+                }
+            }
+        }
+
+        private void clear() {
+            for (int i = 0; i < slots.length(); i++) {
+                slots.set(i, null);
+            }
+        }
+    }
+}
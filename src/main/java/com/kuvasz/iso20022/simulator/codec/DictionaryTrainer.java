@@ -0,0 +1,94 @@
+package com.kuvasz.iso20022.simulator.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Entrena diccionarios de compresión a partir de mensajes de ejemplo.
+ *
+ * Los mensajes se dividen en tokens (etiquetas con su indentación y textos). Se conservan
+ * los tokens presentes en una fracción mínima de las muestras, priorizando por bytes
+ * ahorrables (ocurrencias × longitud), y se emiten en orden de primera aparición para
+ * que las secuencias habituales de etiquetas queden contiguas en el diccionario.
+ */
+public final class DictionaryTrainer {
+
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\s*<[^>]*>|[^<]+");
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final double MIN_DOCUMENT_FREQUENCY = 0.1;
+
+    private DictionaryTrainer() {
+    }
+
+    /**
+     * Entrena un diccionario de hasta {@code maxSize} bytes
+     */
+    public static byte[] train(List<String> samples, int maxSize) {
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException("At least one sample is required to train a dictionary");
+        }
+
+        Map<String, TokenStats> stats = new LinkedHashMap<>();
+        for (String sample : samples) {
+            Set<String> seen = new HashSet<>();
+            Matcher matcher = TOKEN_PATTERN.matcher(sample);
+            while (matcher.find()) {
+                String token = matcher.group();
+                if (token.length() < MIN_TOKEN_LENGTH) {
+                    continue;
+                }
+                TokenStats tokenStats = stats.computeIfAbsent(token, t -> new TokenStats(stats.size()));
+                tokenStats.occurrences++;
+                if (seen.add(token)) {
+                    tokenStats.documents++;
+                }
+            }
+        }
+
+        int minDocuments = Math.max(1, (int) Math.ceil(samples.size() * MIN_DOCUMENT_FREQUENCY));
+        List<Map.Entry<String, TokenStats>> candidates = new ArrayList<>();
+        for (Map.Entry<String, TokenStats> entry : stats.entrySet()) {
+            if (entry.getValue().documents >= minDocuments) {
+                candidates.add(entry);
+            }
+        }
+
+        candidates.sort(Comparator.comparingLong(
+            (Map.Entry<String, TokenStats> e) -> e.getValue().occurrences * (long) e.getKey().length()).reversed());
+
+        List<Map.Entry<String, TokenStats>> selected = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, TokenStats> candidate : candidates) {
+            int length = candidate.getKey().getBytes(StandardCharsets.UTF_8).length;
+            if (size + length <= maxSize) {
+                selected.add(candidate);
+                size += length;
+            }
+        }
+
+        selected.sort(Comparator.comparingInt(e -> e.getValue().firstSeen));
+        StringBuilder dictionary = new StringBuilder(size);
+        for (Map.Entry<String, TokenStats> entry : selected) {
+            dictionary.append(entry.getKey());
+        }
+        return dictionary.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class TokenStats {
+        private final int firstSeen;
+        private long occurrences;
+        private int documents;
+
+        private TokenStats(int firstSeen) {
+            this.firstSeen = firstSeen;
+        }
+    }
+}
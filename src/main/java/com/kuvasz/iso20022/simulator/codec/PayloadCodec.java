@@ -0,0 +1,376 @@
+package com.kuvasz.iso20022.simulator.codec;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Codec de payloads XML con DEFLATE y diccionario precargado por familia de mensaje.
+ *
+ * Formato: {@code [0xFF 0x5A][version:byte][dictionaryId:int][originalLength:int]} seguido
+ * del flujo DEFLATE sin envoltorio zlib. El prefijo 0xFF no es válido en UTF-8, por lo que
+ * {@link #decode} distingue payloads comprimidos de XML en claro y devuelve estos últimos
+ * sin cambios; así conviven datos antiguos y nuevos en journal y base de datos.
+ *
+ * Los diccionarios se entrenan al arrancar con las muestras de {@code codec/samples/*.xml}
+ * y pueden reentrenarse en caliente. Un diccionario reentrenado se guarda en
+ * {@code dictionary-directory} antes de activarse, y al arrancar se cargan todos los guardados
+ * (el más reciente de cada familia queda activo): lo comprimido con ellos en journal, base de
+ * datos o capturas sigue siendo legible tras un reinicio. Los anteriores se conservan para
+ * poder descomprimir.
+ *
+ * Deflater e Inflater reservan memoria nativa de zlib: se reutilizan desde un pool acotado
+ * y los que no caben en él se liberan con {@code end()} al devolverlos.
+ */
+@Component
+public class PayloadCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayloadCodec.class);
+
+    private static final byte MAGIC_0 = (byte) 0xFF;
+    private static final byte MAGIC_1 = 0x5A;
+    private static final byte VERSION = 1;
+    static final int HEADER_SIZE = 11;
+    private static final int NO_DICTIONARY = 0;
+    private static final int BUFFER_SIZE = 8192;
+    private static final String SAMPLES_LOCATION = "classpath:codec/samples/*.xml";
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    // <familia>-<epoch millis>-<id>.dict: el orden por nombre es el orden de entrenamiento
+    private static final Pattern STORED_DICTIONARY = Pattern.compile("(.+)-(\\d{13})-([0-9a-f]{8})\\.dict");
+
+    private final SimulatorProperties.Codec config;
+    private final Map<String, PayloadDictionary> activeDictionaries = new ConcurrentHashMap<>();
+    private final Map<Integer, PayloadDictionary> dictionariesById = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    public PayloadCodec(SimulatorProperties properties) {
+        this.config = properties.getCodec();
+        loadBundledDictionaries();
+        loadStoredDictionaries();
+    }
+
+    /**
+     * Libera la memoria nativa de los compresores del pool
+     */
+    @PreDestroy
+    public void close() {
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Entrena un diccionario para la familia del tipo de mensaje indicado, lo guarda en
+     * {@code dictionary-directory} y solo entonces lo activa
+     *
+     * @throws IllegalStateException si no hay directorio configurado
+     * @throws UncheckedIOException si no se pudo guardar; el diccionario activo no cambia
+     */
+    public PayloadDictionary train(String messageType, List<String> samples) {
+        if (config.getDictionaryDirectory() == null || config.getDictionaryDirectory().isBlank()) {
+            throw new IllegalStateException(
+                "simulator.codec.dictionary-directory is required to train dictionaries at runtime");
+        }
+        PayloadDictionary dictionary = trainDictionary(messageType, samples);
+        try {
+            store(dictionary);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store payload dictionary " + dictionary, e);
+        }
+        activate(dictionary);
+        logger.info("Trained payload dictionary for {} from {} samples: {} bytes", dictionary.getFamily(),
+            samples.size(), dictionary.size());
+        return dictionary;
+    }
+
+    private PayloadDictionary trainDictionary(String messageType, List<String> samples) {
+        byte[] content = DictionaryTrainer.train(samples, (int) config.getDictionarySize().toBytes());
+        return new PayloadDictionary(familyOf(messageType), content);
+    }
+
+    private void activate(PayloadDictionary dictionary) {
+        dictionariesById.put(dictionary.getId(), dictionary);
+        activeDictionaries.put(dictionary.getFamily(), dictionary);
+    }
+
+    /**
+     * Escribe el diccionario en un temporal, lo sincroniza y lo renombra de forma atómica
+     */
+    private void store(PayloadDictionary dictionary) throws IOException {
+        Path directory = Path.of(config.getDictionaryDirectory());
+        Files.createDirectories(directory);
+        String name = String.format("%s-%013d-%08x.dict", dictionary.getFamily(), System.currentTimeMillis(),
+            dictionary.getId());
+        Path temporary = directory.resolve(name + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer content = ByteBuffer.wrap(dictionary.content());
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Optional<PayloadDictionary> getDictionary(String messageType) {
+        return Optional.ofNullable(activeDictionaries.get(familyOf(messageType)));
+    }
+
+    public byte[] encode(String messageType, String xml) {
+        return encode(messageType, xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Comprime el payload con el diccionario de su familia. Los payloads por debajo de
+     * {@code min-payload-size} se devuelven en claro.
+     */
+    public byte[] encode(String messageType, byte[] payload) {
+        if (payload.length < config.getMinPayloadSize().toBytes()) {
+            return payload;
+        }
+        PayloadDictionary dictionary = messageType != null ? activeDictionaries.get(familyOf(messageType)) : null;
+
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(config.getLevel(), true);
+        }
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary.content());
+            }
+            deflater.setInput(payload);
+            deflater.finish();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(HEADER_SIZE + payload.length / 4);
+            output.writeBytes(header(dictionary != null ? dictionary.getId() : NO_DICTIONARY, payload.length));
+            byte[] buffer = buffers.get();
+            while (!deflater.finished()) {
+                int written = deflater.deflate(buffer);
+                output.write(buffer, 0, written);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.reset();
+            if (!deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Versión comprimida de un payload para almacenarla en columnas binarias.
+     *
+     * @return null si el codec está deshabilitado o el payload no supera el umbral mínimo
+     */
+    public byte[] encodeForStorage(String messageType, String xml) {
+        if (!config.isEnabled() || xml == null) {
+            return null;
+        }
+        byte[] encoded = encode(messageType, xml);
+        return isEncoded(encoded) ? encoded : null;
+    }
+
+    /**
+     * Descomprime un payload; los payloads en claro se devuelven tal cual. La longitud de la
+     * cabecera se comprueba contra {@code max-decoded-size} antes de reservar memoria, para
+     * que un registro corrupto no provoque un OutOfMemoryError.
+     */
+    public byte[] decode(byte[] encoded) {
+        if (!isEncoded(encoded)) {
+            return encoded;
+        }
+        ByteBuffer header = ByteBuffer.wrap(encoded, 3, HEADER_SIZE - 3);
+        int dictionaryId = header.getInt();
+        int originalLength = header.getInt();
+        if (originalLength < 0 || originalLength > config.getMaxDecodedSize().toBytes()) {
+            throw new IllegalArgumentException("Compressed payload declares " + originalLength
+                + " bytes, outside the limit of " + config.getMaxDecodedSize().toBytes());
+        }
+
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            setDictionary(inflater, dictionaryId);
+            inflater.setInput(encoded, HEADER_SIZE, encoded.length - HEADER_SIZE);
+            return inflate(inflater, originalLength);
+        } finally {
+            inflater.reset();
+            if (!inflaters.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static byte[] inflate(Inflater inflater, int originalLength) {
+        byte[] decoded = new byte[originalLength];
+        try {
+            int position = 0;
+            while (position < originalLength && !inflater.finished()) {
+                int read = inflater.inflate(decoded, position, originalLength - position);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                position += read;
+            }
+            if (position != originalLength) {
+                throw new IllegalArgumentException("Truncated compressed payload: expected " + originalLength
+                    + " bytes, got " + position);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed payload", e);
+        }
+        return decoded;
+    }
+
+    public String decodeToString(byte[] encoded) {
+        return new String(decode(encoded), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Envuelve un flujo con descompresión incremental, para replay sin materializar el payload.
+     * Si el flujo no está comprimido se devuelve su contenido sin transformar.
+     */
+    public InputStream decodingStream(InputStream source) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(source, HEADER_SIZE);
+        byte[] header = input.readNBytes(HEADER_SIZE);
+        if (!isEncoded(header)) {
+            input.unread(header);
+            return input;
+        }
+
+        Inflater inflater = new Inflater(true);
+        setDictionary(inflater, ByteBuffer.wrap(header, 3, 4).getInt());
+        return new InflaterInputStream(input, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    public static boolean isEncoded(byte[] payload) {
+        return payload.length >= HEADER_SIZE && payload[0] == MAGIC_0 && payload[1] == MAGIC_1
+            && payload[2] == VERSION;
+    }
+
+    /**
+     * Familia del mensaje: "pacs.008.001.08" -> "pacs.008"
+     */
+    static String familyOf(String messageType) {
+        int first = messageType.indexOf('.');
+        int second = first >= 0 ? messageType.indexOf('.', first + 1) : -1;
+        return (second > 0 ? messageType.substring(0, second) : messageType).toLowerCase();
+    }
+
+    private void setDictionary(Inflater inflater, int dictionaryId) {
+        if (dictionaryId == NO_DICTIONARY) {
+            return;
+        }
+        PayloadDictionary dictionary = dictionariesById.get(dictionaryId);
+        if (dictionary == null) {
+            throw new IllegalStateException(String.format("Unknown payload dictionary %08x", dictionaryId));
+        }
+        inflater.setDictionary(dictionary.content());
+    }
+
+    private static byte[] header(int dictionaryId, int originalLength) {
+        return ByteBuffer.allocate(HEADER_SIZE)
+            .put(MAGIC_0).put(MAGIC_1).put(VERSION)
+            .putInt(dictionaryId)
+            .putInt(originalLength)
+            .array();
+    }
+
+    private void loadBundledDictionaries() {
+        try {
+            Resource[] samples = new PathMatchingResourcePatternResolver().getResources(SAMPLES_LOCATION);
+            for (Resource sample : samples) {
+                String filename = sample.getFilename();
+                if (filename == null) {
+                    continue;
+                }
+                String xml = new String(sample.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                // Se derivan siempre de las mismas muestras, así que no hace falta guardarlos
+                activate(trainDictionary(filename.substring(0, filename.length() - ".xml".length()), List.of(xml)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load payload dictionary samples", e);
+        }
+    }
+
+    private void loadStoredDictionaries() {
+        if (config.getDictionaryDirectory() == null || config.getDictionaryDirectory().isBlank()) {
+            return;
+        }
+        Path directory = Path.of(config.getDictionaryDirectory());
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                Matcher matcher = STORED_DICTIONARY.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                PayloadDictionary dictionary = new PayloadDictionary(matcher.group(1), Files.readAllBytes(file));
+                if (dictionary.getId() != Integer.parseUnsignedInt(matcher.group(3), 16)) {
+                    logger.warn("Ignoring payload dictionary {}: content does not match its id", file.getFileName());
+                    continue;
+                }
+                activate(dictionary);
+                logger.debug("Loaded payload dictionary {} from {}", dictionary, file.getFileName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load payload dictionaries from " + directory, e);
+        }
+    }
+}
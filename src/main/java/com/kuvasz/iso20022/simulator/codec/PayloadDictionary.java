@@ -0,0 +1,49 @@
+package com.kuvasz.iso20022.simulator.codec;
+
+import java.util.zip.CRC32;
+
+/**
+ * Diccionario de compresión entrenado para una familia de mensajes (p.ej. pacs.008).
+ * El identificador se deriva del contenido y viaja en la cabecera de cada payload.
+ */
+public final class PayloadDictionary {
+
+    private final int id;
+    private final String family;
+    private final byte[] content;
+
+    public PayloadDictionary(String family, byte[] content) {
+        this.family = family;
+        this.content = content.clone();
+        this.id = idOf(content);
+    }
+
+    static int idOf(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        int id = (int) crc.getValue();
+        // El id 0 se reserva para payloads comprimidos sin diccionario
+        return id != 0 ? id : 1;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    public int size() {
+        return content.length;
+    }
+
+    byte[] content() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PayloadDictionary{family='%s', id=%08x, size=%d}", family, id, content.length);
+    }
+}
@@ -1,12 +1,28 @@
 package com.kuvasz.iso20022.simulator.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kuvasz.iso20022.simulator.export.ExportFormat;
+import com.kuvasz.iso20022.simulator.export.ExportRequest;
+import com.kuvasz.iso20022.simulator.export.TransactionExportService;
+import com.kuvasz.iso20022.simulator.service.MessageProcessingService;
+import com.kuvasz.iso20022.simulator.util.LogContext;
+import com.kuvasz.iso20022.simulator.util.StructuredLogger;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_XML;
@@ -19,6 +35,19 @@ import static org.springframework.web.reactive.function.server.RequestPredicates
 @EnableConfigurationProperties(SimulatorProperties.class)
 public class ApplicationConfig {
 
+    private final MessageProcessingService processingService;
+    private final TransactionExportService exportService;
+    private final StructuredLogger structuredLogger;
+    private final ObjectMapper objectMapper;
+
+    public ApplicationConfig(MessageProcessingService processingService, TransactionExportService exportService,
+                             StructuredLogger structuredLogger, ObjectMapper objectMapper) {
+        this.processingService = processingService;
+        this.exportService = exportService;
+        this.structuredLogger = structuredLogger;
+        this.objectMapper = objectMapper;
+    }
+
     /**
      * Configuración de rutas funcionales para WebFlux
      */
@@ -28,7 +57,9 @@ public class ApplicationConfig {
             .route(GET("/health"), this::healthCheck)
             .andRoute(GET("/api/v1/info"), this::apiInfo)
             .andRoute(POST("/api/v1/iso20022/process")
-                .and(accept(APPLICATION_XML)), this::processMessage);
+                .and(accept(APPLICATION_XML)), this::processMessage)
+            .andRoute(GET("/api/v1/transactions/export"), this::exportTransactions)
+            .andRoute(POST("/api/v1/transactions/export/file"), this::exportTransactionsToFile);
     }
 
     /**
@@ -50,11 +81,79 @@ public class ApplicationConfig {
     }
 
     /**
-     * Placeholder para procesamiento de mensajes ISO 20022
+     * Procesamiento de mensajes ISO 20022: responde con el reporte de estado generado.
+     * El contexto de logging de la petición viaja en el Context de Reactor y el ID de
+     * correlación se devuelve en la cabecera {@code X-Correlation-ID}.
      */
     private Mono<ServerResponse> processMessage(org.springframework.web.reactive.function.server.ServerRequest request) {
+        long startNanos = System.nanoTime();
+        LogContext logContext = LogContext.forRequest(
+            request.headers().firstHeader(LogContext.CORRELATION_HEADER),
+            request.remoteAddress().map(address -> address.getAddress() != null
+                ? address.getAddress().getHostAddress() : address.getHostString()).orElse(null),
+            request.headers().firstHeader(HttpHeaders.USER_AGENT));
+
+        return request.bodyToMono(String.class)
+            .flatMap(processingService::process)
+            .doOnEach(structuredLogger.onResult(startNanos))
+            .flatMap(result -> ServerResponse.ok()
+                .contentType(APPLICATION_XML)
+                .header(LogContext.CORRELATION_HEADER, logContext.getCorrelationId())
+                .bodyValue(result.getProcessedMessage()))
+            .contextWrite(logContext.write());
+    }
+
+    /**
+     * Exportación de transacciones en streaming (chunks HTTP):
+     * ?format=camt053|camt052|csv&date=AAAA-MM-DD o &from=...&to=..., &status opcional
+     */
+    private Mono<ServerResponse> exportTransactions(ServerRequest request) {
+        ExportRequest exportRequest;
+        try {
+            exportRequest = toExportRequest(request);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return badRequest(e);
+        }
         return ServerResponse.ok()
-            .contentType(APPLICATION_XML)
-            .bodyValue("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Response><Status>PLACEHOLDER</Status></Response>");
+            .contentType(MediaType.parseMediaType(exportRequest.getFormat().getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportRequest.getFileName() + "\"")
+            .body(exportService.stream(exportRequest, request.exchange().getResponse().bufferFactory()), DataBuffer.class);
+    }
+
+    /**
+     * Exportación de transacciones a un fichero en el directorio de exportaciones
+     */
+    private Mono<ServerResponse> exportTransactionsToFile(ServerRequest request) {
+        ExportRequest exportRequest;
+        try {
+            exportRequest = toExportRequest(request);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return badRequest(e);
+        }
+        return Mono.fromCallable(() -> exportService.exportToFile(exportRequest))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(path -> ServerResponse.ok()
+                .contentType(APPLICATION_JSON)
+                .bodyValue(objectMapper.createObjectNode()
+                    .put("file", path.toAbsolutePath().toString().replace('\\', '/'))));
+    }
+
+    private Mono<ServerResponse> badRequest(RuntimeException e) {
+        return ServerResponse.badRequest()
+            .contentType(APPLICATION_JSON)
+            .bodyValue(objectMapper.createObjectNode().put("error", e.getMessage()));
+    }
+
+    private ExportRequest toExportRequest(ServerRequest request) {
+        ExportFormat format = ExportFormat.fromParameter(request.queryParam("format").orElse("csv"));
+        String status = request.queryParam("status").orElse(null);
+        if (request.queryParam("from").isPresent() || request.queryParam("to").isPresent()) {
+            return new ExportRequest(format,
+                LocalDateTime.parse(request.queryParam("from").orElseThrow(() -> new IllegalArgumentException("Missing 'from'"))),
+                LocalDateTime.parse(request.queryParam("to").orElseThrow(() -> new IllegalArgumentException("Missing 'to'"))),
+                status);
+        }
+        LocalDate day = request.queryParam("date").map(LocalDate::parse).orElse(LocalDate.now());
+        return ExportRequest.forDay(format, day, status);
     }
 }
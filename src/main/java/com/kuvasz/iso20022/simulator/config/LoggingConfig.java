@@ -0,0 +1,26 @@
+package com.kuvasz.iso20022.simulator.config;
+
+import com.kuvasz.iso20022.simulator.logging.LogRateLimiter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Beans de logging compartidos. Habilita además el {@code TaskScheduler} de Spring Boot,
+ * que usan las tareas periódicas en lugar de crear hilos propios.
+ */
+@Configuration
+@EnableScheduling
+public class LoggingConfig {
+
+    /**
+     * Limitador de logs de error repetidos ({@code simulator.logging.suppression}); al ser un
+     * MeterBinder, Spring Boot registra sus contadores
+     */
+    @Bean
+    public LogRateLimiter logRateLimiter(SimulatorProperties properties) {
+        SimulatorProperties.Logging.Suppression config = properties.getLogging().getSuppression();
+        return new LogRateLimiter(new LogRateLimiter.Policy(config.isEnabled(), config.getBurst(),
+            config.getRefillInterval(), config.getSummaryInterval(), config.getMaxSignatures()));
+    }
+}
@@ -1,12 +1,19 @@
 package com.kuvasz.iso20022.simulator.config;
 
+import com.kuvasz.iso20022.simulator.corpus.Defect;
+import com.kuvasz.iso20022.simulator.logging.MeteredAsyncAppender;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -25,6 +32,48 @@ public class SimulatorProperties {
     @Valid
     private Database database = new Database();
     
+    @Valid
+    private Persistence persistence = new Persistence();
+    
+    @Valid
+    private Journal journal = new Journal();
+    
+    @Valid
+    private Codec codec = new Codec();
+    
+    @Valid
+    private Ledger ledger = new Ledger();
+    
+    @Valid
+    private StatusStore statusStore = new StatusStore();
+    
+    @Valid
+    private Audit audit = new Audit();
+    
+    @Valid
+    private Export export = new Export();
+    
+    @Valid
+    private Retention retention = new Retention();
+    
+    @Valid
+    private Metrics metrics = new Metrics();
+    
+    @Valid
+    private Logging logging = new Logging();
+    
+    @Valid
+    private Jfr jfr = new Jfr();
+    
+    @Valid
+    private Capture capture = new Capture();
+    
+    @Valid
+    private LoadTest loadTest = new LoadTest();
+    
+    @Valid
+    private Corpus corpus = new Corpus();
+    
     // Getters y Setters
     public Performance getPerformance() { return performance; }
     public void setPerformance(Performance performance) { this.performance = performance; }
@@ -35,6 +84,48 @@ public class SimulatorProperties {
     public Database getDatabase() { return database; }
     public void setDatabase(Database database) { this.database = database; }
     
+    public Persistence getPersistence() { return persistence; }
+    public void setPersistence(Persistence persistence) { this.persistence = persistence; }
+    
+    public Journal getJournal() { return journal; }
+    public void setJournal(Journal journal) { this.journal = journal; }
+    
+    public Codec getCodec() { return codec; }
+    public void setCodec(Codec codec) { this.codec = codec; }
+    
+    public Ledger getLedger() { return ledger; }
+    public void setLedger(Ledger ledger) { this.ledger = ledger; }
+    
+    public StatusStore getStatusStore() { return statusStore; }
+    public void setStatusStore(StatusStore statusStore) { this.statusStore = statusStore; }
+    
+    public Audit getAudit() { return audit; }
+    public void setAudit(Audit audit) { this.audit = audit; }
+    
+    public Export getExport() { return export; }
+    public void setExport(Export export) { this.export = export; }
+    
+    public Retention getRetention() { return retention; }
+    public void setRetention(Retention retention) { this.retention = retention; }
+    
+    public Metrics getMetrics() { return metrics; }
+    public void setMetrics(Metrics metrics) { this.metrics = metrics; }
+    
+    public Logging getLogging() { return logging; }
+    public void setLogging(Logging logging) { this.logging = logging; }
+    
+    public Jfr getJfr() { return jfr; }
+    public void setJfr(Jfr jfr) { this.jfr = jfr; }
+    
+    public Capture getCapture() { return capture; }
+    public void setCapture(Capture capture) { this.capture = capture; }
+    
+    public LoadTest getLoadTest() { return loadTest; }
+    public void setLoadTest(LoadTest loadTest) { this.loadTest = loadTest; }
+    
+    public Corpus getCorpus() { return corpus; }
+    public void setCorpus(Corpus corpus) { this.corpus = corpus; }
+    
     /**
      * Configuración de performance y concurrencia
      */
@@ -51,6 +142,12 @@ public class SimulatorProperties {
         @Min(1)
         private int queueCapacity = 1000;
         
+        /**
+         * Suelta el DOM tras la validación y el XML del contexto tras persistirlo, para
+         * retener menos memoria por mensaje en curso
+         */
+        private boolean releaseAfterUse = true;
+        
         // Getters y Setters
         public int getMaxConcurrentRequests() { return maxConcurrentRequests; }
         public void setMaxConcurrentRequests(int maxConcurrentRequests) { this.maxConcurrentRequests = maxConcurrentRequests; }
@@ -63,6 +160,9 @@ public class SimulatorProperties {
         
         public int getQueueCapacity() { return queueCapacity; }
         public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        
+        public boolean isReleaseAfterUse() { return releaseAfterUse; }
+        public void setReleaseAfterUse(boolean releaseAfterUse) { this.releaseAfterUse = releaseAfterUse; }
     }
     
     /**
@@ -75,6 +175,11 @@ public class SimulatorProperties {
         private boolean validateSchema = true;
         private boolean enableStrictValidation = false;
         
+        /**
+         * Indexa el mensaje al parsear y decodifica cada campo y el DOM al leerlos por primera vez
+         */
+        private boolean lazyContext = false;
+        
         @NotNull
         private Set<String> supportedMessages = Set.of("pain.001", "pacs.008", "camt.056");
         
@@ -88,6 +193,9 @@ public class SimulatorProperties {
         public boolean isEnableStrictValidation() { return enableStrictValidation; }
         public void setEnableStrictValidation(boolean enableStrictValidation) { this.enableStrictValidation = enableStrictValidation; }
         
+        public boolean isLazyContext() { return lazyContext; }
+        public void setLazyContext(boolean lazyContext) { this.lazyContext = lazyContext; }
+        
         public Set<String> getSupportedMessages() { return supportedMessages; }
         public void setSupportedMessages(Set<String> supportedMessages) { this.supportedMessages = supportedMessages; }
     }
@@ -115,4 +223,1088 @@ public class SimulatorProperties {
         public int getMaxLifetime() { return maxLifetime; }
         public void setMaxLifetime(int maxLifetime) { this.maxLifetime = maxLifetime; }
     }
+    
+    /**
+     * Configuración de persistencia de transacciones procesadas
+     */
+    public static class Persistence {
+        @Valid
+        private WriteBehind writeBehind = new WriteBehind();
+        
+        @Valid
+        private R2dbc r2dbc = new R2dbc();
+        
+        // Getters y Setters
+        public WriteBehind getWriteBehind() { return writeBehind; }
+        public void setWriteBehind(WriteBehind writeBehind) { this.writeBehind = writeBehind; }
+        
+        public R2dbc getR2dbc() { return r2dbc; }
+        public void setR2dbc(R2dbc r2dbc) { this.r2dbc = r2dbc; }
+    }
+    
+    /**
+     * Configuración del journal write-behind hacia la tabla transactions
+     */
+    public static class WriteBehind {
+        
+        /**
+         * Política aplicada cuando la cola de escritura está llena
+         */
+        public enum OverflowPolicy {
+            /** Espera hasta offerTimeout a que se libere espacio y luego descarta, fuera del event loop */
+            BLOCK,
+            /** Descarta el registro inmediatamente y lo cuenta */
+            DROP,
+            /** Escribe el registro de forma síncrona, fuera del event loop */
+            CALLER_RUNS
+        }
+        
+        private boolean enabled = true;
+        
+        @Min(1)
+        private int queueCapacity = 10000;
+        
+        @Min(1)
+        private int batchSize = 500;
+        
+        @NotNull
+        private Duration flushInterval = Duration.ofMillis(200);
+        
+        @Min(1)
+        private int writerThreads = 1;
+        
+        @NotNull
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+        
+        @NotNull
+        private Duration offerTimeout = Duration.ofMillis(50);
+        
+        // Getters y Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public Duration getFlushInterval() { return flushInterval; }
+        public void setFlushInterval(Duration flushInterval) { this.flushInterval = flushInterval; }
+        
+        public int getWriterThreads() { return writerThreads; }
+        public void setWriterThreads(int writerThreads) { this.writerThreads = writerThreads; }
+        
+        public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) { this.overflowPolicy = overflowPolicy; }
+        
+        public Duration getOfferTimeout() { return offerTimeout; }
+        public void setOfferTimeout(Duration offerTimeout) { this.offerTimeout = offerTimeout; }
+    }
+    
+    /**
+     * Configuración del pool de conexiones reactivas (perfil r2dbc)
+     */
+    public static class R2dbc {
+        @NotNull
+        private String url = "r2dbc:h2:mem:///testdb?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+        
+        private String username = "sa";
+        private String password = "";
+        
+        @Min(0)
+        private int initialSize = 5;
+        
+        @Min(1)
+        private int maxSize = 20;
+        
+        @NotNull
+        private Duration maxIdleTime = Duration.ofMinutes(10);
+        
+        @NotNull
+        private Duration maxAcquireTime = Duration.ofSeconds(5);
+        
+        // Getters y Setters
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+        
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+        
+        public int getInitialSize() { return initialSize; }
+        public void setInitialSize(int initialSize) { this.initialSize = initialSize; }
+        
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+        
+        public Duration getMaxIdleTime() { return maxIdleTime; }
+        public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+        
+        public Duration getMaxAcquireTime() { return maxAcquireTime; }
+        public void setMaxAcquireTime(Duration maxAcquireTime) { this.maxAcquireTime = maxAcquireTime; }
+    }
+    
+    /**
+     * Configuración del journal local de mensajes aceptados (segmentos mapeados en memoria)
+     */
+    public static class Journal {
+        
+        /**
+         * Política de sincronización a disco de los segmentos
+         */
+        public enum FsyncPolicy {
+            /** Sin fsync explícito: el sistema operativo decide cuándo escribir las páginas */
+            NONE,
+            /** Group commit: un único fsync periódico confirma todos los registros pendientes */
+            GROUP,
+            /** fsync después de cada registro */
+            ALWAYS
+        }
+        
+        private boolean enabled = false;
+        
+        @NotNull
+        private String directory = "data/journal";
+        
+        @NotNull
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        
+        @NotNull
+        private FsyncPolicy fsyncPolicy = FsyncPolicy.GROUP;
+        
+        @NotNull
+        private Duration fsyncInterval = Duration.ofMillis(5);
+        
+        /** Segmentos conservados en disco; al rotar se borra el más antiguo */
+        @Min(1)
+        private int maxSegments = 16;
+        
+        // Getters y Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public String getDirectory() { return directory; }
+        public void setDirectory(String directory) { this.directory = directory; }
+        
+        public DataSize getSegmentSize() { return segmentSize; }
+        public void setSegmentSize(DataSize segmentSize) { this.segmentSize = segmentSize; }
+        
+        public FsyncPolicy getFsyncPolicy() { return fsyncPolicy; }
+        public void setFsyncPolicy(FsyncPolicy fsyncPolicy) { this.fsyncPolicy = fsyncPolicy; }
+        
+        public Duration getFsyncInterval() { return fsyncInterval; }
+        public void setFsyncInterval(Duration fsyncInterval) { this.fsyncInterval = fsyncInterval; }
+        
+        public int getMaxSegments() { return maxSegments; }
+        public void setMaxSegments(int maxSegments) { this.maxSegments = maxSegments; }
+    }
+    
+    /**
+     * Configuración de la compresión con diccionario de los payloads XML almacenados
+     */
+    public static class Codec {
+        
+        private boolean enabled = false;
+        
+        @Min(1)
+        @Max(9)
+        private int level = 6;
+        
+        @NotNull
+        private DataSize minPayloadSize = DataSize.ofBytes(256);
+        
+        @NotNull
+        private DataSize dictionarySize = DataSize.ofKilobytes(32);
+        
+        /** Tamaño máximo que puede declarar la cabecera de un payload comprimido al descomprimirlo */
+        @NotNull
+        private DataSize maxDecodedSize = DataSize.ofMegabytes(64);
+        
+        /** Directorio de los diccionarios reentrenados; vacío impide reentrenar en caliente */
+        private String dictionaryDirectory = "";
+        
+        // Getters y Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public int getLevel() { return level; }
+        public void setLevel(int level) { this.level = level; }
+        
+        public DataSize getMinPayloadSize() { return minPayloadSize; }
+        public void setMinPayloadSize(DataSize minPayloadSize) { this.minPayloadSize = minPayloadSize; }
+        
+        public DataSize getDictionarySize() { return dictionarySize; }
+        public void setDictionarySize(DataSize dictionarySize) { this.dictionarySize = dictionarySize; }
+        
+        public DataSize getMaxDecodedSize() { return maxDecodedSize; }
+        public void setMaxDecodedSize(DataSize maxDecodedSize) { this.maxDecodedSize = maxDecodedSize; }
+        
+        public String getDictionaryDirectory() { return dictionaryDirectory; }
+        public void setDictionaryDirectory(String dictionaryDirectory) { this.dictionaryDirectory = dictionaryDirectory; }
+    }
+    
+    /**
+     * Configuración del ledger de liquidación en memoria sobre la tabla accounts
+     */
+    public static class Ledger {
+        
+        private boolean enabled = false;
+        
+        @NotNull
+        private Duration flushInterval = Duration.ofSeconds(1);
+        
+        private boolean rejectUnknownAccounts = false;
+        
+        // Getters y Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public Duration getFlushInterval() { return flushInterval; }
+        public void setFlushInterval(Duration flushInterval) { this.flushInterval = flushInterval; }
+        
+        public boolean isRejectUnknownAccounts() { return rejectUnknownAccounts; }
+        public void setRejectUnknownAccounts(boolean rejectUnknownAccounts) { this.rejectUnknownAccounts = rejectUnknownAccounts; }
+    }
+    
+    /**
+     * Configuración del almacén off-heap de estados de transacción (consultas pacs.028)
+     */
+    public static class StatusStore {
+        
+        private boolean enabled = true;
+        
+        /** Número de slots; se redondea a la siguiente potencia de 2 */
+        @Min(16)
+        private int capacity = 262_144;
+        
+        @DecimalMin("0.1")
+        @DecimalMax("0.95")
+        private double maxLoadFactor = 0.75;
+        
+        // Getters y Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+        
+        public double getMaxLoadFactor() { return maxLoadFactor; }
+        public void setMaxLoadFactor(double maxLoadFactor) { this.maxLoadFactor = maxLoadFactor; }
+    }
+    
+    /**
+     * Configuración del pipeline asíncrono de auditoría (ring buffer hacia audit_log)
+     */
+    public static class Audit {
+        
+        /**
+         * Estrategia de espera de los consumidores del ring buffer
+         */
+        public enum WaitStrategyType {
+            /** Espera activa: mínima latencia, ocupa un núcleo por consumidor */
+            BUSY_SPIN,
+            /** Espera activa breve y después Thread.yield */
+            YIELDING,
+            /** Espera activa, yield y finalmente park de 100µs */
+            SLEEPING,
+            /** Lock y condición: sin consumo de CPU en reposo, mayor latencia */
+            BLOCKING
+        }
+        
+        /**
+         * Comportamiento del productor cuando el ring buffer está lleno
+         */
+        public enum OverflowPolicy {
+            /** Aparca al productor hasta offerTimeout a que se libere un slot y luego descarta */
+            BLOCK,
+            /** Descarta y cuenta el evento inmediatamente, sin detener al productor */
+            DROP
+        }
+        
+        private boolean enabled = true;
+        
+        /** Número de slots del ring buffer; se redondea a la siguiente potencia de 2 */
+        @Min(16)
+        private int ringSize = 8192;
+        
+        @Min(1)
+        private int batchSize = 256;
+        
+        @NotNull
+        private WaitStrategyType waitStrategy = WaitStrategyType.SLEEPING;
+        
+        @NotNull
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+        
+        @NotNull
+        private Duration offerTimeout = Duration.ofMillis(10);
+        
+        /** Fichero JSON Lines donde copiar los eventos; vacío para deshabilitarlo */
+        private String file = "";
+        
+        // Getters y Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public int getRingSize() { return ringSize; }
+        public void setRingSize(int ringSize) { this.ringSize = ringSize; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public WaitStrategyType getWaitStrategy() { return waitStrategy; }
+        public void setWaitStrategy(WaitStrategyType waitStrategy) { this.waitStrategy = waitStrategy; }
+        
+        public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) { this.overflowPolicy = overflowPolicy; }
+        
+        public Duration getOfferTimeout() { return offerTimeout; }
+        public void setOfferTimeout(Duration offerTimeout) { this.offerTimeout = offerTimeout; }
+        
+        public String getFile() { return file; }
+        public void setFile(String file) { this.file = file; }
+    }
+    
+    /**
+     * Configuración de la exportación de transacciones (camt.053, camt.052, CSV)
+     */
+    public static class Export {
+        
+        /** Filas que el driver trae por cada ida y vuelta del cursor */
+        @Min(1)
+        private int fetchSize = 1000;
+        
+        /** Tamaño aproximado de cada chunk HTTP */
+        @NotNull
+        private DataSize chunkSize = DataSize.ofKilobytes(64);
+        
+        @NotNull
+        private String directory = "data/exports";
+        
+        /** Identificador de cuenta usado en Acct/Id de los extractos camt */
+        @NotNull
+        private String statementAccount = "SIMULATOR-ACCOUNT";
+        
+        // Getters y Setters
+        public int getFetchSize() { return fetchSize; }
+        public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+        
+        public DataSize getChunkSize() { return chunkSize; }
+        public void setChunkSize(DataSize chunkSize) { this.chunkSize = chunkSize; }
+        
+        public String getDirectory() { return directory; }
+        public void setDirectory(String directory) { this.directory = directory; }
+        
+        public String getStatementAccount() { return statementAccount; }
+        public void setStatementAccount(String statementAccount) { this.statementAccount = statementAccount; }
+    }
+    
+    /**
+     * Configuración de la retención y purga de transactions y audit_log
+     */
+    public static class Retention {
+        
+        private boolean enabled = false;
+        
+        /** Intervalo entre ejecuciones del job de purga */
+        @NotNull
+        private Duration interval = Duration.ofHours(1);
+        
+        /** Filas borradas por cada transacción corta */
+        @Min(1)
+        private int batchSize = 1000;
+        
+        /** Pausa entre batches para ceder la base de datos a las inserciones */
+        @NotNull
+        private Duration batchPause = Duration.ofMillis(50);
+        
+        /** Registros pendientes en el write-behind a partir de los cuales el job se detiene a esperar */
+        @Min(0)
+        private int maxInsertBacklog = 1000;
+        
+        /** Tiempo máximo de una ejecución; el resto se purga en la siguiente */
+        @NotNull
+        private Duration maxRunTime = Duration.ofMinutes(5);
+        
+        @Valid
+        private Table transactions = new Table(Duration.ofDays(30));
+        
+        @Valid
+        private Table auditLog = new Table(Duration.ofDays(7));
+        
+        /**
+         * Retención de una tabla concreta
+         */
+        public static class Table {
+            
+            private boolean enabled = true;
+            
+            @NotNull
+            private Duration retention;
+            
+            /** Tabla con particiones diarias declarativas (solo PostgreSQL): se purga desacoplando particiones */
+            private boolean partitioned = false;
+            
+            /** Particiones futuras que se crean por adelantado cuando la tabla está particionada */
+            @Min(0)
+            private int precreateDays = 3;
+            
+            public Table() {
+                this(Duration.ofDays(30));
+            }
+            
+            public Table(Duration retention) {
+                this.retention = retention;
+            }
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public Duration getRetention() { return retention; }
+            public void setRetention(Duration retention) { this.retention = retention; }
+            
+            public boolean isPartitioned() { return partitioned; }
+            public void setPartitioned(boolean partitioned) { this.partitioned = partitioned; }
+            
+            public int getPrecreateDays() { return precreateDays; }
+            public void setPrecreateDays(int precreateDays) { this.precreateDays = precreateDays; }
+        }
+        
+        // Getters y Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public Duration getInterval() { return interval; }
+        public void setInterval(Duration interval) { this.interval = interval; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public Duration getBatchPause() { return batchPause; }
+        public void setBatchPause(Duration batchPause) { this.batchPause = batchPause; }
+        
+        public int getMaxInsertBacklog() { return maxInsertBacklog; }
+        public void setMaxInsertBacklog(int maxInsertBacklog) { this.maxInsertBacklog = maxInsertBacklog; }
+        
+        public Duration getMaxRunTime() { return maxRunTime; }
+        public void setMaxRunTime(Duration maxRunTime) { this.maxRunTime = maxRunTime; }
+        
+        public Table getTransactions() { return transactions; }
+        public void setTransactions(Table transactions) { this.transactions = transactions; }
+        
+        public Table getAuditLog() { return auditLog; }
+        public void setAuditLog(Table auditLog) { this.auditLog = auditLog; }
+    }
+    
+    /**
+     * Configuración de las métricas por etapa del pipeline de procesamiento
+     */
+    public static class Metrics {
+        
+        /** Límites SLO publicados como buckets de histograma en los timers de etapa */
+        @NotNull
+        private List<Duration> sloBuckets = List.of(Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(50), Duration.ofMillis(100));
+        
+        /** Publica además el histograma completo para calcular percentiles en Prometheus */
+        private boolean percentileHistogram = true;
+        
+        /** Tipos de mensaje distintos con series propias; el resto se agrupa como "other" */
+        @Min(1)
+        private int maxMessageTypes = 32;
+        
+        @Valid
+        private Windows windows = new Windows();
+        
+        @Valid
+        private Resources resources = new Resources();
+        
+        @Valid
+        private Rules rules = new Rules();
+        
+        /**
+         * Ventanas deslizantes de TPS y latencia (LatencyWindows), expuestas en /actuator/latency
+         */
+        public static class Windows {
+            
+            private boolean enabled = true;
+            
+            /** Recorders por tipo de mensaje; 0 = uno por procesador */
+            @Min(0)
+            private int stripes = 0;
+            
+            /** Precisión de los histogramas: 2 dígitos = error relativo del 1% */
+            @Min(1)
+            @Max(3)
+            private int significantDigits = 2;
+            
+            /** Periodo del snapshot de rendimiento en el log; 0 lo desactiva */
+            @NotNull
+            private Duration logInterval = Duration.ofSeconds(10);
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public int getStripes() { return stripes; }
+            public void setStripes(int stripes) { this.stripes = stripes; }
+            
+            public int getSignificantDigits() { return significantDigits; }
+            public void setSignificantDigits(int significantDigits) { this.significantDigits = significantDigits; }
+            
+            public Duration getLogInterval() { return logInterval; }
+            public void setLogInterval(Duration logInterval) { this.logInterval = logInterval; }
+        }
+        
+        /**
+         * Memoria asignada y tiempo de CPU por etapa (ResourceAccounting), pensado para canarios
+         */
+        public static class Resources {
+            
+            private boolean enabled = false;
+            
+            /** Mide también el tiempo de CPU del hilo, más caro que la memoria asignada */
+            private boolean cpuTime = true;
+            
+            /** Fracción de los mensajes medidos */
+            @DecimalMin("0.0")
+            @DecimalMax("1.0")
+            private double sampleRate = 1.0;
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public boolean isCpuTime() { return cpuTime; }
+            public void setCpuTime(boolean cpuTime) { this.cpuTime = cpuTime; }
+            
+            public double getSampleRate() { return sampleRate; }
+            public void setSampleRate(double sampleRate) { this.sampleRate = sampleRate; }
+        }
+        
+        /**
+         * Coste y violaciones por regla de negocio (RuleProfiler), expuestos en /actuator/rules
+         */
+        public static class Rules {
+            
+            private boolean enabled = true;
+            
+            /** Mide también el tiempo de CPU del hilo en cada regla (~1 µs por regla) */
+            private boolean cpuTime = false;
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public boolean isCpuTime() { return cpuTime; }
+            public void setCpuTime(boolean cpuTime) { this.cpuTime = cpuTime; }
+        }
+        
+        // Getters y Setters
+        public List<Duration> getSloBuckets() { return sloBuckets; }
+        public void setSloBuckets(List<Duration> sloBuckets) { this.sloBuckets = sloBuckets; }
+        
+        public boolean isPercentileHistogram() { return percentileHistogram; }
+        public void setPercentileHistogram(boolean percentileHistogram) { this.percentileHistogram = percentileHistogram; }
+        
+        public int getMaxMessageTypes() { return maxMessageTypes; }
+        public void setMaxMessageTypes(int maxMessageTypes) { this.maxMessageTypes = maxMessageTypes; }
+        
+        public Windows getWindows() { return windows; }
+        public void setWindows(Windows windows) { this.windows = windows; }
+        
+        public Resources getResources() { return resources; }
+        public void setResources(Resources resources) { this.resources = resources; }
+        
+        public Rules getRules() { return rules; }
+        public void setRules(Rules rules) { this.rules = rules; }
+    }
+    
+    /**
+     * Configuración del logging; logback-spring.xml lee estas claves con springProperty
+     */
+    public static class Logging {
+        
+        @Valid
+        private Async async = new Async();
+        
+        @Valid
+        private Suppression suppression = new Suppression();
+        
+        /**
+         * Appenders asíncronos del perfil prod (MeteredAsyncAppender)
+         */
+        public static class Async {
+            
+            @Min(1)
+            private int queueSize = MeteredAsyncAppender.DEFAULT_QUEUE_SIZE;
+            
+            /** Huecos libres por debajo de los cuales se descartan los eventos inferiores a WARN */
+            @Min(0)
+            private int discardingThreshold = MeteredAsyncAppender.DEFAULT_QUEUE_SIZE / 5;
+            
+            @NotNull
+            private MeteredAsyncAppender.OverflowPolicy overflowPolicy = MeteredAsyncAppender.OverflowPolicy.DROP_BELOW_WARN;
+            
+            /** Milisegundos para vaciar la cola al parar la aplicación */
+            @Min(0)
+            private int maxFlushTime = 1000;
+            
+            /** Milisegundos que WARN y ERROR esperan hueco con DROP_BELOW_WARN antes de descartarse */
+            @Min(0)
+            private int maxBlockTime = 100;
+            
+            public int getQueueSize() { return queueSize; }
+            public void setQueueSize(int queueSize) { this.queueSize = queueSize; }
+            
+            public int getDiscardingThreshold() { return discardingThreshold; }
+            public void setDiscardingThreshold(int discardingThreshold) { this.discardingThreshold = discardingThreshold; }
+            
+            public MeteredAsyncAppender.OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+            public void setOverflowPolicy(MeteredAsyncAppender.OverflowPolicy overflowPolicy) { this.overflowPolicy = overflowPolicy; }
+            
+            public int getMaxFlushTime() { return maxFlushTime; }
+            public void setMaxFlushTime(int maxFlushTime) { this.maxFlushTime = maxFlushTime; }
+            
+            public int getMaxBlockTime() { return maxBlockTime; }
+            public void setMaxBlockTime(int maxBlockTime) { this.maxBlockTime = maxBlockTime; }
+        }
+        
+        /**
+         * Supresión de logs de error repetidos por firma (LogRateLimiter)
+         */
+        public static class Suppression {
+            
+            private boolean enabled = true;
+            
+            /** Ocurrencias de cada firma que se escriben completas antes de empezar a suprimir */
+            @Min(1)
+            private int burst = 5;
+            
+            /** Una ocurrencia completa adicional por firma cada este intervalo */
+            @NotNull
+            private Duration refillInterval = Duration.ofSeconds(10);
+            
+            /** Frecuencia de las líneas "Suppressed N similar" */
+            @NotNull
+            private Duration summaryInterval = Duration.ofSeconds(30);
+            
+            @Min(1)
+            private int maxSignatures = 256;
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public int getBurst() { return burst; }
+            public void setBurst(int burst) { this.burst = burst; }
+            
+            public Duration getRefillInterval() { return refillInterval; }
+            public void setRefillInterval(Duration refillInterval) { this.refillInterval = refillInterval; }
+            
+            public Duration getSummaryInterval() { return summaryInterval; }
+            public void setSummaryInterval(Duration summaryInterval) { this.summaryInterval = summaryInterval; }
+            
+            public int getMaxSignatures() { return maxSignatures; }
+            public void setMaxSignatures(int maxSignatures) { this.maxSignatures = maxSignatures; }
+        }
+        
+        // Getters y Setters
+        public Async getAsync() { return async; }
+        public void setAsync(Async async) { this.async = async; }
+        
+        public Suppression getSuppression() { return suppression; }
+        public void setSuppression(Suppression suppression) { this.suppression = suppression; }
+    }
+    
+    /**
+     * Grabaciones JDK Flight Recorder con los eventos del pipeline (endpoint /actuator/jfr)
+     */
+    public static class Jfr {
+        
+        private boolean enabled = true;
+        
+        /** Inicia al arrancar una grabación continua en anillo, limitada por maxAge y maxSize */
+        private boolean continuous = false;
+        
+        /** Configuración base del JDK: "default" (~1% de overhead) o "profile" */
+        @NotNull
+        private String settings = "default";
+        
+        @NotNull
+        private Duration maxAge = Duration.ofMinutes(30);
+        
+        @NotNull
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+        
+        /** Duración mínima de las etapas registradas; 0 registra todos los mensajes */
+        @NotNull
+        private Duration eventThreshold = Duration.ZERO;
+        
+        /** Directorio donde se vuelcan las grabaciones */
+        @NotNull
+        private String directory = "data/jfr";
+        
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public boolean isContinuous() { return continuous; }
+        public void setContinuous(boolean continuous) { this.continuous = continuous; }
+        
+        public String getSettings() { return settings; }
+        public void setSettings(String settings) { this.settings = settings; }
+        
+        public Duration getMaxAge() { return maxAge; }
+        public void setMaxAge(Duration maxAge) { this.maxAge = maxAge; }
+        
+        public DataSize getMaxSize() { return maxSize; }
+        public void setMaxSize(DataSize maxSize) { this.maxSize = maxSize; }
+        
+        public Duration getEventThreshold() { return eventThreshold; }
+        public void setEventThreshold(Duration eventThreshold) { this.eventThreshold = eventThreshold; }
+        
+        public String getDirectory() { return directory; }
+        public void setDirectory(String directory) { this.directory = directory; }
+    }
+    
+    /**
+     * Captura de mensajes lentos y muestra de los normales (SlowMessageCapture)
+     */
+    public static class Capture {
+        
+        /** Los payloads capturados contienen datos de clientes */
+        private boolean enabled = false;
+        
+        /** Latencia total, persistencia incluida, a partir de la cual se captura el mensaje */
+        @NotNull
+        private Duration slowThreshold = Duration.ofMillis(250);
+        
+        /** Fracción de los mensajes por debajo del umbral que se captura como referencia */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double sampleRate = 0.001;
+        
+        @Min(1)
+        private int slowCapacity = 128;
+        
+        @Min(1)
+        private int sampleCapacity = 64;
+        
+        /** Los payloads mayores se truncan */
+        @NotNull
+        private DataSize maxPayloadSize = DataSize.ofKilobytes(256);
+        
+        /** Comprime el payload capturado con PayloadCodec */
+        private boolean compress = true;
+        
+        /** Capturas por segundo como máximo; la copia y compresión se hacen al completar el mensaje */
+        @Min(1)
+        private int maxPerSecond = 10;
+        
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public Duration getSlowThreshold() { return slowThreshold; }
+        public void setSlowThreshold(Duration slowThreshold) { this.slowThreshold = slowThreshold; }
+        
+        public double getSampleRate() { return sampleRate; }
+        public void setSampleRate(double sampleRate) { this.sampleRate = sampleRate; }
+        
+        public int getSlowCapacity() { return slowCapacity; }
+        public void setSlowCapacity(int slowCapacity) { this.slowCapacity = slowCapacity; }
+        
+        public int getSampleCapacity() { return sampleCapacity; }
+        public void setSampleCapacity(int sampleCapacity) { this.sampleCapacity = sampleCapacity; }
+        
+        public DataSize getMaxPayloadSize() { return maxPayloadSize; }
+        public void setMaxPayloadSize(DataSize maxPayloadSize) { this.maxPayloadSize = maxPayloadSize; }
+        
+        public boolean isCompress() { return compress; }
+        public void setCompress(boolean compress) { this.compress = compress; }
+        
+        public int getMaxPerSecond() { return maxPerSecond; }
+        public void setMaxPerSecond(int maxPerSecond) { this.maxPerSecond = maxPerSecond; }
+    }
+    
+    /**
+     * Generador de carga en modelo abierto (perfil "loadtest", LoadTestRunner)
+     */
+    public static class LoadTest {
+        
+        /**
+         * Forma de la tasa de llegadas
+         */
+        public enum Shape {
+            /** {@code rate} durante {@code duration} */
+            CONSTANT,
+            /** De {@code startRate} a {@code rate} linealmente durante {@code duration} */
+            RAMP,
+            /** {@code steps} escalones de {@code stepDuration}, desde {@code startRate} sumando {@code stepIncrement} */
+            STEP
+        }
+        
+        /**
+         * Mensajes enviados
+         */
+        public enum Messages {
+            /** pacs.008 mínimo de una transacción */
+            TEMPLATE,
+            /** Corpus sintético descrito por {@code simulator.corpus}, con MsgId propios de la prueba */
+            CORPUS
+        }
+        
+        /** URL del endpoint de proceso; vacía = el servidor embebido en el puerto local */
+        private String targetUrl = "";
+        
+        @NotNull
+        private Shape shape = Shape.CONSTANT;
+        
+        /** Tasa objetivo en mensajes por segundo (final en RAMP) */
+        @DecimalMin("0.1")
+        private double rate = 1000;
+        
+        /** Tasa inicial de RAMP y STEP */
+        @DecimalMin("0.1")
+        private double startRate = 100;
+        
+        @NotNull
+        private Duration duration = Duration.ofSeconds(60);
+        
+        @DecimalMin("0.0")
+        private double stepIncrement = 100;
+        
+        @NotNull
+        private Duration stepDuration = Duration.ofSeconds(30);
+        
+        @Min(1)
+        private int steps = 5;
+        
+        /** Calentamiento a la tasa inicial, excluido de los resultados */
+        @NotNull
+        private Duration warmup = Duration.ofSeconds(10);
+        
+        /** Peticiones en curso a partir de las cuales las nuevas se cuentan como error sin enviarse */
+        @Min(1)
+        private int maxInFlight = 10_000;
+        
+        @Min(1)
+        private int connections = 256;
+        
+        @NotNull
+        private Duration requestTimeout = Duration.ofSeconds(10);
+        
+        /** Periodo de la línea de progreso en el log */
+        @NotNull
+        private Duration reportInterval = Duration.ofSeconds(1);
+        
+        /** Directorio del resumen CSV y de los histogramas .hgrm */
+        @NotNull
+        private String outputDirectory = "target/loadtest";
+        
+        /** Cierra la aplicación al terminar la prueba */
+        private boolean exitOnFinish = true;
+        
+        @NotNull
+        private Messages messages = Messages.TEMPLATE;
+        
+        public String getTargetUrl() { return targetUrl; }
+        public void setTargetUrl(String targetUrl) { this.targetUrl = targetUrl; }
+        
+        public Shape getShape() { return shape; }
+        public void setShape(Shape shape) { this.shape = shape; }
+        
+        public double getRate() { return rate; }
+        public void setRate(double rate) { this.rate = rate; }
+        
+        public double getStartRate() { return startRate; }
+        public void setStartRate(double startRate) { this.startRate = startRate; }
+        
+        public Duration getDuration() { return duration; }
+        public void setDuration(Duration duration) { this.duration = duration; }
+        
+        public double getStepIncrement() { return stepIncrement; }
+        public void setStepIncrement(double stepIncrement) { this.stepIncrement = stepIncrement; }
+        
+        public Duration getStepDuration() { return stepDuration; }
+        public void setStepDuration(Duration stepDuration) { this.stepDuration = stepDuration; }
+        
+        public int getSteps() { return steps; }
+        public void setSteps(int steps) { this.steps = steps; }
+        
+        public Duration getWarmup() { return warmup; }
+        public void setWarmup(Duration warmup) { this.warmup = warmup; }
+        
+        public int getMaxInFlight() { return maxInFlight; }
+        public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+        
+        public int getConnections() { return connections; }
+        public void setConnections(int connections) { this.connections = connections; }
+        
+        public Duration getRequestTimeout() { return requestTimeout; }
+        public void setRequestTimeout(Duration requestTimeout) { this.requestTimeout = requestTimeout; }
+        
+        public Duration getReportInterval() { return reportInterval; }
+        public void setReportInterval(Duration reportInterval) { this.reportInterval = reportInterval; }
+        
+        public String getOutputDirectory() { return outputDirectory; }
+        public void setOutputDirectory(String outputDirectory) { this.outputDirectory = outputDirectory; }
+        
+        public boolean isExitOnFinish() { return exitOnFinish; }
+        public void setExitOnFinish(boolean exitOnFinish) { this.exitOnFinish = exitOnFinish; }
+        
+        public Messages getMessages() { return messages; }
+        public void setMessages(Messages messages) { this.messages = messages; }
+    }
+    
+    /**
+     * Corpus sintético de mensajes (SyntheticMessageGenerator); el perfil "corpus" lo escribe
+     * en disco y la prueba de carga puede enviarlo
+     */
+    public static class Corpus {
+        
+        /**
+         * Organización del corpus en disco
+         */
+        public enum Layout {
+            /** Un fichero .xml por mensaje, en subdirectorios de 1000 */
+            FILES,
+            /** Un único corpus.ndxml con un mensaje compacto por línea */
+            LINES
+        }
+        
+        /** Tipos de mensaje (pacs.008, pain.001, pacs.004, camt.053), repartidos por igual */
+        @NotNull
+        private List<String> messageTypes = List.of("pacs.008");
+        
+        /** Versiones de namespace, por ejemplo pacs.008.001.10; sin ninguna de un tipo se usa la de defecto */
+        @NotNull
+        private List<String> namespaceVersions = List.of();
+        
+        @Min(1)
+        private int minTransactions = 1;
+        
+        @Min(1)
+        private int maxTransactions = 1;
+        
+        /** Si no es 0, se añaden transacciones hasta alcanzar este tamaño e ignora min/max-transactions */
+        @NotNull
+        private DataSize targetSize = DataSize.ofBytes(0);
+        
+        /** Longitud de los nombres de deudor y acreedor */
+        @Min(1)
+        @Max(140)
+        private int minNameLength = 8;
+        
+        @Min(1)
+        @Max(140)
+        private int maxNameLength = 35;
+        
+        /** Longitud del concepto no estructurado (Ustrd); 0 = sin RmtInf */
+        @Min(0)
+        @Max(140)
+        private int remittanceLength = 0;
+        
+        /** Monedas, de la más a la menos frecuente */
+        @NotNull
+        private List<String> currencies = List.of("EUR", "USD", "GBP", "CHF", "JPY");
+        
+        /** Exponente Zipf del reparto de monedas; 0 = uniforme */
+        @DecimalMin("0.0")
+        private double currencySkew = 1.0;
+        
+        /** BICs distintos generados a partir de la semilla */
+        @Min(1)
+        private int bicCount = 50;
+        
+        /** Exponente Zipf del reparto de BICs; 0 = uniforme */
+        @DecimalMin("0.0")
+        private double bicSkew = 1.0;
+        
+        /** Fracción de mensajes con un error inyectado, repartidos a intervalos regulares */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double errorRate = 0.0;
+        
+        /** Errores que se inyectan, uno al azar por mensaje inválido */
+        @NotNull
+        private List<Defect> defects = List.of(Defect.BIC, Defect.CURRENCY, Defect.AMOUNT, Defect.MESSAGE_ID);
+        
+        /** Prefijo de MsgId y demás identificadores */
+        @NotNull
+        private String idPrefix = "SYN";
+        
+        private long seed = 20022;
+        
+        /** Mensajes que escribe el perfil "corpus" */
+        @Min(1)
+        private long count = 10_000;
+        
+        @NotNull
+        private Layout layout = Layout.FILES;
+        
+        @NotNull
+        private String outputDirectory = "target/corpus";
+        
+        /** Cierra la aplicación al terminar de escribir el corpus */
+        private boolean exitOnFinish = true;
+        
+        public List<String> getMessageTypes() { return messageTypes; }
+        public void setMessageTypes(List<String> messageTypes) { this.messageTypes = messageTypes; }
+        
+        public List<String> getNamespaceVersions() { return namespaceVersions; }
+        public void setNamespaceVersions(List<String> namespaceVersions) { this.namespaceVersions = namespaceVersions; }
+        
+        public int getMinTransactions() { return minTransactions; }
+        public void setMinTransactions(int minTransactions) { this.minTransactions = minTransactions; }
+        
+        public int getMaxTransactions() { return maxTransactions; }
+        public void setMaxTransactions(int maxTransactions) { this.maxTransactions = maxTransactions; }
+        
+        public DataSize getTargetSize() { return targetSize; }
+        public void setTargetSize(DataSize targetSize) { this.targetSize = targetSize; }
+        
+        public int getMinNameLength() { return minNameLength; }
+        public void setMinNameLength(int minNameLength) { this.minNameLength = minNameLength; }
+        
+        public int getMaxNameLength() { return maxNameLength; }
+        public void setMaxNameLength(int maxNameLength) { this.maxNameLength = maxNameLength; }
+        
+        public int getRemittanceLength() { return remittanceLength; }
+        public void setRemittanceLength(int remittanceLength) { this.remittanceLength = remittanceLength; }
+        
+        public List<String> getCurrencies() { return currencies; }
+        public void setCurrencies(List<String> currencies) { this.currencies = currencies; }
+        
+        public double getCurrencySkew() { return currencySkew; }
+        public void setCurrencySkew(double currencySkew) { this.currencySkew = currencySkew; }
+        
+        public int getBicCount() { return bicCount; }
+        public void setBicCount(int bicCount) { this.bicCount = bicCount; }
+        
+        public double getBicSkew() { return bicSkew; }
+        public void setBicSkew(double bicSkew) { this.bicSkew = bicSkew; }
+        
+        public double getErrorRate() { return errorRate; }
+        public void setErrorRate(double errorRate) { this.errorRate = errorRate; }
+        
+        public List<Defect> getDefects() { return defects; }
+        public void setDefects(List<Defect> defects) { this.defects = defects; }
+        
+        public String getIdPrefix() { return idPrefix; }
+        public void setIdPrefix(String idPrefix) { this.idPrefix = idPrefix; }
+        
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+        
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+        
+        public Layout getLayout() { return layout; }
+        public void setLayout(Layout layout) { this.layout = layout; }
+        
+        public String getOutputDirectory() { return outputDirectory; }
+        public void setOutputDirectory(String outputDirectory) { this.outputDirectory = outputDirectory; }
+        
+        public boolean isExitOnFinish() { return exitOnFinish; }
+        public void setExitOnFinish(boolean exitOnFinish) { this.exitOnFinish = exitOnFinish; }
+    }
 }
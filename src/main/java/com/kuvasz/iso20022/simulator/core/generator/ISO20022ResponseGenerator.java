@@ -229,33 +229,14 @@ public class ISO20022ResponseGenerator implements ResponseGenerator {
      * Mapea el estado de procesamiento interno a códigos ISO 20022
      */
     private String mapProcessingStatusToISO(ProcessingResult.Status status) {
-        return switch (status) {
-            case SUCCESS -> "ACCP";  // Accepted
-            case WARNING -> "ACSP";  // Accepted Settlement In Process
-            case ERROR -> "RJCT";    // Rejected
-            case VALIDATION_FAILED -> "RJCT"; // Rejected
-            default -> "PDNG";       // Pending
-        };
+        return StatusCodeMapper.statusCode(status);
     }
 
     /**
      * Genera un código de razón de estado basado en el resultado del procesamiento
      */
     private String generateStatusReason(ProcessingResult processingResult) {
-        if (processingResult.hasErrors()) {
-            // Analizar el primer error para determinar el código de razón
-            ValidationError firstError = processingResult.getErrors().get(0);
-            return switch (firstError.getType()) {
-                case STRUCTURAL -> "DS02"; // Format Error
-                case BUSINESS_RULE -> "RR04"; // Regulatory Reason
-                case FORMAT -> "FF01"; // Invalid File Format
-                case MISSING_FIELD -> "AM05"; // Duplication
-                case INVALID_VALUE -> "RF01"; // Not Unique Transaction Reference
-                case SCHEMA_VIOLATION -> "DS02"; // Format Error
-                default -> "MS03"; // Reason Not Specified
-            };
-        }
-        return "";
+        return StatusCodeMapper.reasonCode(processingResult);
     }
 
     /**
@@ -0,0 +1,56 @@
+package com.kuvasz.iso20022.simulator.core.generator;
+
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.model.ValidationError;
+
+import java.util.regex.Pattern;
+
+/**
+ * Traduce el resultado del procesamiento a los códigos de estado (ExternalPaymentTransactionStatus1Code)
+ * y de razón (ExternalStatusReason1Code) de ISO 20022. Lo comparten el generador de respuestas y el
+ * almacén de estados.
+ */
+public final class StatusCodeMapper {
+
+    private static final Pattern ISO_REASON_CODE = Pattern.compile("[A-Z]{2}\\d{2}");
+
+    private StatusCodeMapper() {
+    }
+
+    /**
+     * Mapea el estado de procesamiento interno a códigos ISO 20022
+     */
+    public static String statusCode(ProcessingResult.Status status) {
+        return switch (status) {
+            case SUCCESS -> "ACCP";  // Accepted
+            case WARNING -> "ACSP";  // Accepted Settlement In Process
+            case ERROR -> "RJCT";    // Rejected
+            case VALIDATION_FAILED -> "RJCT"; // Rejected
+            default -> "PDNG";       // Pending
+        };
+    }
+
+    /**
+     * Código de razón de estado basado en el primer error del resultado, o "" si no hay errores
+     */
+    public static String reasonCode(ProcessingResult processingResult) {
+        if (processingResult.hasErrors()) {
+            // Analizar el primer error para determinar el código de razón
+            ValidationError firstError = processingResult.getErrors().get(0);
+            // Los errores que ya traen un código ISO (p.ej. AM04 del ledger) se propagan tal cual
+            if (firstError.getCode() != null && ISO_REASON_CODE.matcher(firstError.getCode()).matches()) {
+                return firstError.getCode();
+            }
+            return switch (firstError.getType()) {
+                case STRUCTURAL -> "DS02"; // Format Error
+                case BUSINESS_RULE -> "RR04"; // Regulatory Reason
+                case FORMAT -> "FF01"; // Invalid File Format
+                case MISSING_FIELD -> "AM05"; // Duplication
+                case INVALID_VALUE -> "RF01"; // Not Unique Transaction Reference
+                case SCHEMA_VIOLATION -> "DS02"; // Format Error
+                default -> "MS03"; // Reason Not Specified
+            };
+        }
+        return "";
+    }
+}
@@ -1,15 +1,21 @@
 package com.kuvasz.iso20022.simulator.core.parser;
 
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
 import com.kuvasz.iso20022.simulator.exception.ParsingException;
+import com.kuvasz.iso20022.simulator.logging.LogRateLimiter;
+import com.kuvasz.iso20022.simulator.logging.RateLimitedLogger;
 import com.kuvasz.iso20022.simulator.model.MessageContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -23,18 +29,47 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
- * Parser genérico para mensajes ISO 20022 usando DOM
+ * Parser genérico para mensajes ISO 20022 usando DOM.
+ *
+ * Con {@code simulator.iso20022.lazy-context} el mensaje no se convierte en DOM al parsear: se
+ * indexa en una pasada ({@link XmlTokenIndex}) y se devuelve un {@link LazyMessageContext} que
+ * decodifica cada campo, y el DOM, cuando alguna etapa lo lee por primera vez.
  */
 @Component
 public class GenericXMLParser implements MessageParser {
     
     private static final Logger logger = LoggerFactory.getLogger(GenericXMLParser.class);
+    // Los errores de parseo los provoca el cliente: se limitan por firma
+    private RateLimitedLogger errorLogger = RateLimitedLogger.of(logger);
+    
+    static final ErrorHandler SILENT_ERROR_HANDLER = new ErrorHandler() {
+        @Override
+        public void warning(SAXParseException exception) {
+        }
+        
+        /**
+         * Errores recuperables: como el handler por defecto del JDK, no rechazan el mensaje;
+         * solo los errores fatales (XML mal formado) lo hacen
+         */
+        @Override
+        public void error(SAXParseException exception) {
+            logger.debug("Recoverable XML error at line {}: {}", exception.getLineNumber(), exception.getMessage());
+        }
+        
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+    };
     
     private final DocumentBuilderFactory documentBuilderFactory;
     private final XPathFactory xPathFactory;
+    private final boolean lazyContext;
     
     // Namespaces comunes de ISO 20022
     private static final String NAMESPACE_PAIN_001 = "urn:iso:std:iso:20022:tech:xsd:pain.001.001.03";
@@ -42,6 +77,16 @@ public class GenericXMLParser implements MessageParser {
     private static final String NAMESPACE_CAMT_053 = "urn:iso:std:iso:20022:tech:xsd:camt.053.001.02";
     
     public GenericXMLParser() {
+        this(false);
+    }
+    
+    @Autowired
+    public GenericXMLParser(SimulatorProperties properties) {
+        this(properties.getIso20022().isLazyContext());
+    }
+    
+    public GenericXMLParser(boolean lazyContext) {
+        this.lazyContext = lazyContext;
         this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
         this.documentBuilderFactory.setNamespaceAware(true);
         this.documentBuilderFactory.setValidating(false);
@@ -59,76 +104,108 @@ public class GenericXMLParser implements MessageParser {
         this.xPathFactory = XPathFactory.newInstance();
     }
     
+    @Autowired(required = false)
+    public void setLogRateLimiter(LogRateLimiter logRateLimiter) {
+        this.errorLogger = RateLimitedLogger.of(logger, logRateLimiter);
+    }
+    
     @Override
     public MessageContext parse(String xmlContent) throws ParsingException {
+        ParseOutcome outcome = tryParse(xmlContent);
+        if (outcome instanceof ParseOutcome.Rejected rejected) {
+            throw rejected.toException();
+        }
+        return ((ParseOutcome.Parsed) outcome).context();
+    }
+    
+    /**
+     * Parsea sin lanzar excepciones propias: un XML malformado se devuelve como rechazo.
+     * Solo la SAXException del parser JDK lleva stack trace; no se envuelve dos veces.
+     */
+    @Override
+    public ParseOutcome tryParse(String xmlContent) {
         if (xmlContent == null || xmlContent.trim().isEmpty()) {
-            throw new ParsingException("XML content is null or empty");
+            return ParseOutcome.rejected("XML content is null or empty", null);
         }
         
+        logger.debug("Starting XML parsing for message of length: {}", xmlContent.length());
+        long startTime = System.currentTimeMillis();
+        
+        MessageContext context;
         try {
-            logger.debug("Starting XML parsing for message of length: {}", xmlContent.length());
-            long startTime = System.currentTimeMillis();
-            
-            Document document = parseXMLDocument(xmlContent);
-            MessageContext context = extractMessageContext(document, xmlContent);
-            
-            long parseTime = System.currentTimeMillis() - startTime;
-            logger.debug("XML parsing completed in {}ms for message: {}", parseTime, context.getMessageId());
-            
-            return context;
-            
-        } catch (Exception e) {
+            context = lazyContext ? extractLazyContext(XmlTokenIndex.build(xmlContent))
+                : extractMessageContext(parseXMLDocument(xmlContent), xmlContent);
+        } catch (SAXException e) {
+            errorLogger.error("Error parsing XML message", e);
+            return ParseOutcome.rejected("Failed to parse XML message: XML parsing error: " + e.getMessage(), e);
+        } catch (ParserConfigurationException | IOException e) {
+            // No depende del mensaje: es un fallo del entorno
             logger.error("Error parsing XML message", e);
-            throw new ParsingException("Failed to parse XML message: " + e.getMessage(), e);
+            return ParseOutcome.rejected("Failed to parse XML message: " + e.getMessage(), e);
         }
+        
+        long parseTime = System.currentTimeMillis() - startTime;
+        logger.debug("XML parsing completed in {}ms for message: {}", parseTime, context.getMessageId());
+        
+        return ParseOutcome.parsed(context);
     }
     
-    private Document parseXMLDocument(String xmlContent) throws ParsingException {
+    private Document parseXMLDocument(String xmlContent) throws ParserConfigurationException, SAXException, IOException {
+        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+        // Sin el handler por defecto, que escribe cada error fatal en stderr
+        documentBuilder.setErrorHandler(SILENT_ERROR_HANDLER);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(xmlContent.getBytes(StandardCharsets.UTF_8));
+        return documentBuilder.parse(inputStream);
+    }
+    
+    /**
+     * DOM de un contexto lazy, construido cuando una etapa lo pide; el índice ya comprobó que el
+     * XML está bien formado, así que un fallo aquí es excepcional y se deja el documento a null
+     */
+    private Document parseDeferredDocument(String xmlContent) {
         try {
-            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(xmlContent.getBytes(StandardCharsets.UTF_8));
-            return documentBuilder.parse(inputStream);
-            
-        } catch (ParserConfigurationException e) {
-            throw new ParsingException("Parser configuration error: " + e.getMessage(), e);
-        } catch (SAXException e) {
-            throw new ParsingException("XML parsing error: " + e.getMessage(), e);
-        } catch (IOException e) {
-            throw new ParsingException("I/O error while parsing XML: " + e.getMessage(), e);
+            return parseXMLDocument(xmlContent);
+        } catch (SAXException | ParserConfigurationException | IOException e) {
+            errorLogger.warn("Deferred DOM parsing failed: {}", e.getMessage());
+            return null;
         }
     }
-      private MessageContext extractMessageContext(Document document, String originalXml) throws ParsingException {
+    
+    private MessageContext extractLazyContext(XmlTokenIndex index) {
+        LazyMessageContext context = new LazyMessageContext(index, this::parseDeferredDocument);
+        determineMessageType(index.localName(0), index.rootNamespace(), context);
+        extractNamespaces(index.rootNamespace(), context);
+        return context;
+    }
+    
+    private MessageContext extractMessageContext(Document document, String originalXml) {
         Element rootElement = document.getDocumentElement();
         
         MessageContext context = new MessageContext();
         context.setOriginalXml(originalXml);
         context.setParsedDocument(document); // Set the parsed document
         
-        try {
-            // Extraer información básica del mensaje
-            extractBasicMessageInfo(rootElement, context);
-            
-            // Extract message name from the root element's first child (if it's not Document)
-            extractMessageName(rootElement, context);
-            
-            // Extraer identificadores de negocio
-            extractBusinessIdentifiers(document, context);
-            
-            // Extraer información de participantes
-            extractParticipants(document, context);
-            
-            // Determinar el tipo de mensaje basado en el namespace y elemento raíz
-            determineMessageType(rootElement, context);
-            
-            // Extract and set namespaces
-            extractNamespaces(rootElement, context);
-            
-            return context;
-            
-        } catch (Exception e) {
-            logger.error("Error extracting message context", e);
-            throw new ParsingException("Failed to extract message context: " + e.getMessage(), e);
-        }
+        // Cada extractor captura sus propios errores: un campo ausente no rechaza el mensaje
+        
+        // Extraer información básica del mensaje
+        extractBasicMessageInfo(rootElement, context);
+        
+        // Extract message name from the root element's first child (if it's not Document)
+        extractMessageName(rootElement, context);
+        
+        // Extraer identificadores de negocio
+        extractBusinessIdentifiers(document, context);
+        
+        // Extraer información de participantes
+        extractParticipants(document, context);
+        
+        // Determinar el tipo de mensaje basado en el namespace y elemento raíz
+        determineMessageType(rootElement.getLocalName(), rootElement.getNamespaceURI(), context);
+        
+        // Extract and set namespaces
+        extractNamespaces(rootElement.getNamespaceURI(), context);
+        
+        return context;
     }    private void extractBasicMessageInfo(Element rootElement, MessageContext context) {
         // Extract Message ID from XML first, fallback to UUID if not found
         try {
@@ -169,10 +246,21 @@ public class GenericXMLParser implements MessageParser {
                 context.setBusinessMessageIdentifier(msgId);
             }
             
-            // Intentar extraer End to End Identification
-            String endToEndId = extractTextByXPath(document, xpath, "//EndToEndId");
-            if (endToEndId != null) {
-                context.addProperty("endToEndId", endToEndId);
+            // End to End Identification: la primera y, para el almacén de estados, todas
+            NodeList endToEndNodes = (NodeList) xpath.evaluate("//*[local-name()='EndToEndId']", document,
+                XPathConstants.NODESET);
+            List<String> endToEndIds = new ArrayList<>(endToEndNodes.getLength());
+            for (int i = 0; i < endToEndNodes.getLength(); i++) {
+                String endToEndId = endToEndNodes.item(i).getTextContent().trim();
+                if (i == 0 && !endToEndId.isEmpty()) {
+                    context.addProperty("endToEndId", endToEndId);
+                }
+                if (!endToEndId.isEmpty()) {
+                    endToEndIds.add(endToEndId);
+                }
+            }
+            if (!endToEndIds.isEmpty()) {
+                context.addProperty("endToEndIds", List.copyOf(endToEndIds));
             }
             
             // Intentar extraer Instruction Identification
@@ -180,7 +268,19 @@ public class GenericXMLParser implements MessageParser {
             if (instrId != null) {
                 context.addProperty("instructionId", instrId);
             }
-            
+
+            // Intentar extraer el primer monto y su moneda (para persistencia)
+            String amount = extractTextByXPath(document, xpath,
+                "(//*[local-name()='IntrBkSttlmAmt'] | //*[local-name()='InstdAmt'])[1]");
+            if (amount != null && !amount.trim().isEmpty()) {
+                context.addProperty("amount", amount.trim());
+                String currency = extractTextByXPath(document, xpath,
+                    "(//*[local-name()='IntrBkSttlmAmt'] | //*[local-name()='InstdAmt'])[1]/@Ccy");
+                if (currency != null && !currency.trim().isEmpty()) {
+                    context.addProperty("currency", currency.trim());
+                }
+            }
+
         } catch (Exception e) {
             logger.debug("Could not extract business identifiers: {}", e.getMessage());
         }
@@ -201,14 +301,15 @@ public class GenericXMLParser implements MessageParser {
             if (creditorName != null) {
                 context.setReceiverId(creditorName);
             }
+
+            // Cuentas deudora y acreedora (IBAN u Othr/Id), usadas por el ledger de liquidación
+            addAccountProperty(document, xpath, context, "DbtrAcct", "debtorAccount");
+            addAccountProperty(document, xpath, context, "CdtrAcct", "creditorAccount");
             
         } catch (Exception e) {
             logger.debug("Could not extract participant information: {}", e.getMessage());
         }
-    }      private void determineMessageType(Element rootElement, MessageContext context) {
-        String localName = rootElement.getLocalName();
-        String namespaceURI = rootElement.getNamespaceURI();
-        
+    }      private void determineMessageType(String localName, String namespaceURI, MessageContext context) {
         String messageType = "unknown";
         
         if (namespaceURI != null) {
@@ -220,6 +321,8 @@ public class GenericXMLParser implements MessageParser {
                 messageType = extractMessageTypeFromNamespace(namespaceURI, "pacs");
             } else if (namespaceURI.contains("pacs.004")) {
                 messageType = extractMessageTypeFromNamespace(namespaceURI, "pacs");
+            } else if (namespaceURI.contains("pacs.028")) {
+                messageType = extractMessageTypeFromNamespace(namespaceURI, "pacs");
             } else if (namespaceURI.contains("camt.053")) {
                 messageType = extractMessageTypeFromNamespace(namespaceURI, "camt");
             } else if (localName != null) {
@@ -230,6 +333,8 @@ public class GenericXMLParser implements MessageParser {
                     messageType = "pacs.008";
                 } else if (localName.contains("PmtRtr")) {
                     messageType = "pacs.004";
+                } else if (localName.contains("FIToFIPmtStsReq")) {
+                    messageType = "pacs.028";
                 } else if (localName.contains("BkToCstmrStmt")) {
                     messageType = "camt.053";
                 }
@@ -268,6 +373,17 @@ public class GenericXMLParser implements MessageParser {
         return null;
     }
     
+    private void addAccountProperty(Document document, XPath xpath, MessageContext context,
+                                    String element, String property) {
+        String account = extractTextByXPath(document, xpath,
+            "(//*[local-name()='" + element + "']/*[local-name()='Id']/*[local-name()='IBAN'] | "
+                + "//*[local-name()='" + element + "']/*[local-name()='Id']/*[local-name()='Othr']"
+                + "/*[local-name()='Id'])[1]");
+        if (account != null && !account.trim().isEmpty()) {
+            context.addProperty(property, account.trim());
+        }
+    }
+
     private String extractTextByXPath(Document document, XPath xpath, String expression) {
         try {
             return (String) xpath.evaluate(expression, document, XPathConstants.STRING);
@@ -277,7 +393,7 @@ public class GenericXMLParser implements MessageParser {
         }
     }
     
-    private LocalDateTime parseISO20022DateTime(String dateTimeStr) throws DateTimeParseException {
+    static LocalDateTime parseISO20022DateTime(String dateTimeStr) throws DateTimeParseException {
         // ISO 20022 usa formato ISO 8601: 2023-12-25T10:30:00Z o 2023-12-25T10:30:00+02:00
         try {
             // Intentar diferentes formatos comunes
@@ -352,9 +468,8 @@ public class GenericXMLParser implements MessageParser {
         }
     }
     
-    private void extractNamespaces(Element rootElement, MessageContext context) {
+    private void extractNamespaces(String namespaceURI, MessageContext context) {
         try {
-            String namespaceURI = rootElement.getNamespaceURI();
             if (namespaceURI != null) {
                 context.addNamespace("", namespaceURI); // Default namespace
             }
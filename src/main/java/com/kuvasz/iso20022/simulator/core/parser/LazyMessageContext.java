@@ -0,0 +1,318 @@
+package com.kuvasz.iso20022.simulator.core.parser;
+
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import org.w3c.dom.Document;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * {@link MessageContext} respaldado por un {@link XmlTokenIndex}: al parsear solo se fijan el
+ * MsgId, el tipo, el nombre y el namespace del mensaje; remitente, receptor, fecha de
+ * creación, identificadores de negocio, importe, cuentas y el propio DOM se decodifican la
+ * primera vez que se leen, con los mismos valores que extrae {@link GenericXMLParser} en modo
+ * eager. Lo que se asigna con los setters prevalece sobre el índice.
+ *
+ * Como el contexto eager, lo usa una petición a la vez y no está sincronizado. Al soltar el
+ * XML original se decodifica lo pendiente y se suelta también el índice.
+ */
+final class LazyMessageContext extends MessageContext {
+
+    private static final int SENDER = 1;
+    private static final int RECEIVER = 1 << 1;
+    private static final int CREATION_DATE_TIME = 1 << 2;
+    private static final int BUSINESS_MESSAGE_IDENTIFIER = 1 << 3;
+    private static final int END_TO_END_ID = 1 << 4;
+    private static final int INSTRUCTION_ID = 1 << 5;
+    private static final int AMOUNT = 1 << 6;
+    private static final int DEBTOR_ACCOUNT = 1 << 7;
+    private static final int CREDITOR_ACCOUNT = 1 << 8;
+    private static final int END_TO_END_IDS = 1 << 9;
+    private static final int DOCUMENT = 1 << 10;
+
+    private static final int PROPERTIES = END_TO_END_ID | INSTRUCTION_ID | AMOUNT | DEBTOR_ACCOUNT | CREDITOR_ACCOUNT
+        | END_TO_END_IDS;
+
+    private XmlTokenIndex index;
+    private final Function<String, Document> documentParser;
+    private int resolved;
+
+    /**
+     * @param documentParser construye el DOM del XML original la primera vez que se pide, o null si falla
+     */
+    LazyMessageContext(XmlTokenIndex index, Function<String, Document> documentParser) {
+        this.index = index;
+        this.documentParser = documentParser;
+        setOriginalXml(index.xml());
+
+        int messageId = first(element -> index.hasLocalName(element, "MsgId")
+            || index.hasLocalName(element, "MessageIdentification"));
+        String id = messageId >= 0 ? index.text(messageId).trim() : "";
+        setMessageId(id.isEmpty() ? UUID.randomUUID().toString() : id);
+
+        int messageElement = "Document".equals(index.localName(0)) ? index.firstChild(0) : 0;
+        setMessageName(index.localName(messageElement >= 0 ? messageElement : 0));
+    }
+
+    @Override
+    public String getSenderId() {
+        if (pending(SENDER)) {
+            super.setSenderId(unqualifiedName("Dbtr", "InitgPty"));
+        }
+        return super.getSenderId();
+    }
+
+    @Override
+    public void setSenderId(String senderId) {
+        resolved |= SENDER;
+        super.setSenderId(senderId);
+    }
+
+    @Override
+    public String getReceiverId() {
+        if (pending(RECEIVER)) {
+            super.setReceiverId(unqualifiedName("Cdtr", null));
+        }
+        return super.getReceiverId();
+    }
+
+    @Override
+    public void setReceiverId(String receiverId) {
+        resolved |= RECEIVER;
+        super.setReceiverId(receiverId);
+    }
+
+    @Override
+    public LocalDateTime getCreationDateTime() {
+        if (pending(CREATION_DATE_TIME)) {
+            // Como getElementsByTagName: descendientes del raíz con ese nombre cualificado
+            int element = first(candidate -> candidate > 0 && index.hasQualifiedName(candidate, "CreDtTm"));
+            String creationTime = element >= 0 ? index.text(element) : null;
+            if (creationTime != null && !creationTime.isEmpty()) {
+                try {
+                    super.setCreationDateTime(GenericXMLParser.parseISO20022DateTime(creationTime));
+                } catch (DateTimeParseException e) {
+                    // Se conserva el instante de creación del contexto
+                }
+            }
+        }
+        return super.getCreationDateTime();
+    }
+
+    @Override
+    public void setCreationDateTime(LocalDateTime creationDateTime) {
+        resolved |= CREATION_DATE_TIME;
+        super.setCreationDateTime(creationDateTime);
+    }
+
+    @Override
+    public String getBusinessMessageIdentifier() {
+        if (pending(BUSINESS_MESSAGE_IDENTIFIER)) {
+            int element = first(candidate -> index.hasUnqualifiedName(candidate, "MsgId")
+                || index.hasUnqualifiedName(candidate, "MessageIdentification"));
+            super.setBusinessMessageIdentifier(element >= 0 ? index.text(element) : "");
+        }
+        return super.getBusinessMessageIdentifier();
+    }
+
+    @Override
+    public void setBusinessMessageIdentifier(String businessMessageIdentifier) {
+        resolved |= BUSINESS_MESSAGE_IDENTIFIER;
+        super.setBusinessMessageIdentifier(businessMessageIdentifier);
+    }
+
+    @Override
+    public Document getParsedDocument() {
+        if (pending(DOCUMENT)) {
+            super.setParsedDocument(documentParser.apply(getOriginalXml()));
+        }
+        return super.getParsedDocument();
+    }
+
+    @Override
+    public void setParsedDocument(Document parsedDocument) {
+        resolved |= DOCUMENT;
+        super.setParsedDocument(parsedDocument);
+    }
+
+    @Override
+    public void releaseParsedDocument() {
+        resolved |= DOCUMENT;
+        super.releaseParsedDocument();
+    }
+
+    @Override
+    public void releaseOriginalXml() {
+        resolveProperties();
+        getSenderId();
+        getReceiverId();
+        getCreationDateTime();
+        getBusinessMessageIdentifier();
+        resolved |= DOCUMENT;
+        index = null;
+        super.releaseOriginalXml();
+    }
+
+    @Override
+    public Map<String, Object> getProperties() {
+        resolveProperties();
+        return super.getProperties();
+    }
+
+    @Override
+    public void setProperties(Map<String, Object> properties) {
+        resolved |= PROPERTIES;
+        super.setProperties(properties);
+    }
+
+    @Override
+    public void addProperty(String key, Object value) {
+        resolved |= property(key);
+        super.addProperty(key, value);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        int property = property(key);
+        if (property != 0 && pending(property)) {
+            resolveProperty(property);
+        }
+        return super.getProperty(key);
+    }
+
+    /**
+     * Indica si el campo está por decodificar y lo marca como decodificado
+     */
+    private boolean pending(int field) {
+        if ((resolved & field) != 0 || index == null) {
+            return false;
+        }
+        resolved |= field;
+        return true;
+    }
+
+    private void resolveProperties() {
+        for (int property = END_TO_END_ID; property <= END_TO_END_IDS; property <<= 1) {
+            if (pending(property)) {
+                resolveProperty(property);
+            }
+        }
+    }
+
+    private void resolveProperty(int property) {
+        switch (property) {
+            case END_TO_END_ID -> {
+                String endToEndId = firstLocalText("EndToEndId");
+                if (!endToEndId.isEmpty()) {
+                    super.addProperty("endToEndId", endToEndId);
+                }
+            }
+            case INSTRUCTION_ID -> {
+                int element = first(candidate -> index.hasUnqualifiedName(candidate, "InstrId"));
+                super.addProperty("instructionId", element >= 0 ? index.text(element) : "");
+            }
+            case AMOUNT -> {
+                int element = first(candidate -> index.hasLocalName(candidate, "IntrBkSttlmAmt")
+                    || index.hasLocalName(candidate, "InstdAmt"));
+                String amount = element >= 0 ? index.text(element).trim() : "";
+                if (!amount.isEmpty()) {
+                    super.addProperty("amount", amount);
+                    String currency = index.attribute(element, "Ccy");
+                    if (currency != null && !currency.trim().isEmpty()) {
+                        super.addProperty("currency", currency.trim());
+                    }
+                }
+            }
+            case DEBTOR_ACCOUNT -> addAccount("DbtrAcct", "debtorAccount");
+            case CREDITOR_ACCOUNT -> addAccount("CdtrAcct", "creditorAccount");
+            case END_TO_END_IDS -> {
+                List<String> endToEndIds = new ArrayList<>();
+                for (int element = 0; element < index.count(); element++) {
+                    if (index.hasLocalName(element, "EndToEndId")) {
+                        String endToEndId = index.text(element).trim();
+                        if (!endToEndId.isEmpty()) {
+                            endToEndIds.add(endToEndId);
+                        }
+                    }
+                }
+                if (!endToEndIds.isEmpty()) {
+                    super.addProperty("endToEndIds", List.copyOf(endToEndIds));
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown property field " + property);
+        }
+    }
+
+    /**
+     * IBAN o Othr/Id bajo {@code account}/Id, el primero en orden de documento
+     */
+    private void addAccount(String account, String property) {
+        int element = first(candidate -> {
+            int parent = index.parent(candidate);
+            if (index.hasLocalName(candidate, "IBAN")) {
+                return parent >= 0 && index.hasLocalName(parent, "Id") && hasParent(parent, account);
+            }
+            if (index.hasLocalName(candidate, "Id") && parent >= 0 && index.hasLocalName(parent, "Othr")) {
+                int id = index.parent(parent);
+                return id >= 0 && index.hasLocalName(id, "Id") && hasParent(id, account);
+            }
+            return false;
+        });
+        String value = element >= 0 ? index.text(element).trim() : "";
+        if (!value.isEmpty()) {
+            super.addProperty(property, value);
+        }
+    }
+
+    private boolean hasParent(int element, String localName) {
+        int parent = index.parent(element);
+        return parent >= 0 && index.hasLocalName(parent, localName);
+    }
+
+    /**
+     * {@code //parent/Nm} sin namespace, como las expresiones XPath del parser eager
+     */
+    private String unqualifiedName(String parent, String alternativeParent) {
+        int element = first(candidate -> {
+            if (!index.hasUnqualifiedName(candidate, "Nm")) {
+                return false;
+            }
+            int owner = index.parent(candidate);
+            return owner >= 0 && (index.hasUnqualifiedName(owner, parent)
+                || alternativeParent != null && index.hasUnqualifiedName(owner, alternativeParent));
+        });
+        return element >= 0 ? index.text(element) : "";
+    }
+
+    private String firstLocalText(String localName) {
+        int element = first(candidate -> index.hasLocalName(candidate, localName));
+        return element >= 0 ? index.text(element).trim() : "";
+    }
+
+    private int first(IntPredicate matches) {
+        for (int element = 0; element < index.count(); element++) {
+            if (matches.test(element)) {
+                return element;
+            }
+        }
+        return -1;
+    }
+
+    private static int property(String key) {
+        return switch (key) {
+            case "endToEndId" -> END_TO_END_ID;
+            case "instructionId" -> INSTRUCTION_ID;
+            case "amount", "currency" -> AMOUNT;
+            case "debtorAccount" -> DEBTOR_ACCOUNT;
+            case "creditorAccount" -> CREDITOR_ACCOUNT;
+            case "endToEndIds" -> END_TO_END_IDS;
+            default -> 0;
+        };
+    }
+}
@@ -17,6 +17,21 @@ public interface MessageParser {
      */
     MessageContext parse(String xmlContent) throws ParsingException;
     
+    /**
+     * Parsea un mensaje devolviendo el rechazo como valor; es el camino del pipeline, donde
+     * los mensajes malformados son un resultado habitual
+     * 
+     * @param xmlContent el contenido XML del mensaje
+     * @return el contexto parseado o el motivo del rechazo
+     */
+    default ParseOutcome tryParse(String xmlContent) {
+        try {
+            return ParseOutcome.parsed(parse(xmlContent));
+        } catch (ParsingException e) {
+            return ParseOutcome.rejected(e.getMessage(), e.getCause());
+        }
+    }
+    
     /**
      * Verifica si este parser puede procesar el tipo de mensaje dado
      * 
@@ -0,0 +1,40 @@
+package com.kuvasz.iso20022.simulator.core.parser;
+
+import com.kuvasz.iso20022.simulator.exception.ParsingException;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+
+/**
+ * Resultado de parsear un mensaje: el contexto extraído o el motivo del rechazo.
+ *
+ * Un XML malformado es un resultado esperado en el simulador, no un fallo del programa,
+ * por lo que se devuelve como valor en lugar de lanzar y capturar excepciones.
+ */
+public sealed interface ParseOutcome {
+
+    static ParseOutcome parsed(MessageContext context) {
+        return new Parsed(context);
+    }
+
+    static ParseOutcome rejected(String message, Throwable cause) {
+        return new Rejected(ParsingException.ERROR_CODE, message, cause);
+    }
+
+    /**
+     * Mensaje parseado correctamente
+     */
+    record Parsed(MessageContext context) implements ParseOutcome {
+    }
+
+    /**
+     * Mensaje rechazado; {@code cause} es la excepción del parser XML, si la hubo
+     */
+    record Rejected(String errorCode, String message, Throwable cause) implements ParseOutcome {
+
+        /**
+         * Excepción equivalente, sin stack trace propio, para la API basada en excepciones
+         */
+        public ParsingException toException() {
+            return ParsingException.expected(message, cause);
+        }
+    }
+}
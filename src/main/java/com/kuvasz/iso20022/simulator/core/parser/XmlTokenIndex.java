@@ -0,0 +1,706 @@
+package com.kuvasz.iso20022.simulator.core.parser;
+
+import org.xml.sax.SAXParseException;
+
+import java.util.Arrays;
+
+/**
+ * Índice estructural compacto de un mensaje XML: de cada elemento, en orden de documento,
+ * los offsets sobre el texto original de su etiqueta de apertura, del fin de su nombre y de
+ * su contenido, el índice del elemento padre y unos flags, todo en un único {@code int[]}.
+ *
+ * Se construye en una sola pasada que comprueba que el XML está bien formado (etiquetas
+ * emparejadas, referencias a entidades predefinidas o de carácter, caracteres válidos,
+ * prefijos declarados y sin DOCTYPE, como el parser DOM) y después permite decodificar el
+ * texto o un atributo de un elemento solo cuando se piden.
+ */
+final class XmlTokenIndex {
+
+    // Campos de cada elemento en el array
+    private static final int START = 0;
+    private static final int NAME_END = 1;
+    private static final int CONTENT_START = 2;
+    private static final int CONTENT_END = 3;
+    private static final int PARENT = 4;
+    private static final int FLAGS = 5;
+    private static final int STRIDE = 6;
+
+    private static final int PREFIXED = 1;
+    // Hay un namespace por defecto no vacío en el ámbito del elemento
+    private static final int DEFAULT_NAMESPACE = 1 << 1;
+    // El contenido es solo texto sin referencias ni \r: su valor es un substring del original
+    private static final int PLAIN_TEXT = 1 << 2;
+
+    private final String xml;
+    private final int[] elements;
+    private final int count;
+    private final String rootNamespace;
+
+    private XmlTokenIndex(String xml, int[] elements, int count) {
+        this.xml = xml;
+        this.elements = elements;
+        this.count = count;
+        this.rootNamespace = namespaceOf(0);
+    }
+
+    /**
+     * Indexa el mensaje o lanza la misma excepción SAX que el parser DOM si no está bien formado
+     */
+    static XmlTokenIndex build(String xml) throws SAXParseException {
+        return new Scanner(xml).scan();
+    }
+
+    String xml() {
+        return xml;
+    }
+
+    /**
+     * Número de elementos; el 0 es el raíz
+     */
+    int count() {
+        return count;
+    }
+
+    int parent(int element) {
+        return elements[element * STRIDE + PARENT];
+    }
+
+    /**
+     * Primer elemento hijo, o -1 si no tiene
+     */
+    int firstChild(int element) {
+        return element + 1 < count && parent(element + 1) == element ? element + 1 : -1;
+    }
+
+    /**
+     * Namespace del elemento raíz, o null si no tiene
+     */
+    String rootNamespace() {
+        return rootNamespace;
+    }
+
+    String localName(int element) {
+        int base = element * STRIDE;
+        return xml.substring(localNameStart(element), elements[base + NAME_END]);
+    }
+
+    /**
+     * Nombre local igual a {@code name}, en cualquier namespace ({@code local-name()} de XPath)
+     */
+    boolean hasLocalName(int element, String name) {
+        int start = localNameStart(element);
+        return elements[element * STRIDE + NAME_END] - start == name.length() && xml.startsWith(name, start);
+    }
+
+    /**
+     * Nombre cualificado igual a {@code name} ({@code getElementsByTagName} de DOM)
+     */
+    boolean hasQualifiedName(int element, String name) {
+        int base = element * STRIDE;
+        int start = elements[base + START] + 1;
+        return elements[base + NAME_END] - start == name.length() && xml.startsWith(name, start);
+    }
+
+    /**
+     * Elemento sin namespace llamado {@code name}, lo que selecciona un paso {@code //name} de XPath
+     */
+    boolean hasUnqualifiedName(int element, String name) {
+        return (elements[element * STRIDE + FLAGS] & (PREFIXED | DEFAULT_NAMESPACE)) == 0
+            && hasQualifiedName(element, name);
+    }
+
+    /**
+     * Valor de texto del elemento: el texto de todos sus descendientes, con las referencias y
+     * las secciones CDATA decodificadas y los saltos de línea normalizados
+     */
+    String text(int element) {
+        int base = element * STRIDE;
+        int from = elements[base + CONTENT_START];
+        int to = elements[base + CONTENT_END];
+        if ((elements[base + FLAGS] & PLAIN_TEXT) != 0) {
+            return xml.substring(from, to);
+        }
+        StringBuilder text = new StringBuilder(to - from);
+        int position = from;
+        while (position < to) {
+            char c = xml.charAt(position);
+            if (c == '<') {
+                if (xml.startsWith("<![CDATA[", position)) {
+                    int end = xml.indexOf("]]>", position);
+                    appendNormalized(text, position + 9, end);
+                    position = end + 3;
+                } else if (xml.startsWith("<!--", position)) {
+                    position = xml.indexOf("-->", position) + 3;
+                } else if (xml.startsWith("<?", position)) {
+                    position = xml.indexOf("?>", position) + 2;
+                } else {
+                    position = tagEnd(position);
+                }
+            } else if (c == '&') {
+                position = appendReference(xml, text, position);
+            } else if (c == '\r') {
+                text.append('\n');
+                position += position + 1 < to && xml.charAt(position + 1) == '\n' ? 2 : 1;
+            } else {
+                text.append(c);
+                position++;
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Valor normalizado de un atributo sin prefijo, o null si el elemento no lo tiene
+     */
+    String attribute(int element, String name) {
+        return attribute(xml, elements[element * STRIDE + NAME_END], name);
+    }
+
+    /**
+     * Busca el atributo en una etiqueta de apertura ya validada, desde el fin de su nombre
+     */
+    private static String attribute(String xml, int position, String name) {
+        while (true) {
+            while (isWhitespace(xml.charAt(position))) {
+                position++;
+            }
+            char c = xml.charAt(position);
+            if (c == '>' || c == '/') {
+                return null;
+            }
+            int nameStart = position;
+            while (xml.charAt(position) != '=' && !isWhitespace(xml.charAt(position))) {
+                position++;
+            }
+            boolean matches = position - nameStart == name.length() && xml.startsWith(name, nameStart);
+            while (xml.charAt(position) != '"' && xml.charAt(position) != '\'') {
+                position++;
+            }
+            char quote = xml.charAt(position);
+            int valueEnd = xml.indexOf(quote, position + 1);
+            if (matches) {
+                return attributeValue(xml, position + 1, valueEnd);
+            }
+            position = valueEnd + 1;
+        }
+    }
+
+    private static String attributeValue(String xml, int from, int to) {
+        StringBuilder value = new StringBuilder(to - from);
+        int position = from;
+        while (position < to) {
+            char c = xml.charAt(position);
+            if (c == '&') {
+                position = appendReference(xml, value, position);
+                continue;
+            }
+            if (c == '\r' && position + 1 < to && xml.charAt(position + 1) == '\n') {
+                position++;
+            }
+            value.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+            position++;
+        }
+        return value.toString();
+    }
+
+    private int localNameStart(int element) {
+        int base = element * STRIDE;
+        int start = elements[base + START] + 1;
+        if ((elements[base + FLAGS] & PREFIXED) != 0) {
+            start = xml.indexOf(':', start) + 1;
+        }
+        return start;
+    }
+
+    private String namespaceOf(int element) {
+        int base = element * STRIDE;
+        String declaration = "xmlns";
+        if ((elements[base + FLAGS] & PREFIXED) != 0) {
+            int start = elements[base + START] + 1;
+            declaration = "xmlns:" + xml.substring(start, xml.indexOf(':', start));
+        }
+        String namespace = attribute(element, declaration);
+        return namespace == null || namespace.isEmpty() ? null : namespace;
+    }
+
+    private int tagEnd(int position) {
+        char quote = 0;
+        while (true) {
+            char c = xml.charAt(position++);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return position;
+            }
+        }
+    }
+
+    private void appendNormalized(StringBuilder text, int from, int to) {
+        for (int position = from; position < to; position++) {
+            char c = xml.charAt(position);
+            if (c == '\r') {
+                text.append('\n');
+                if (position + 1 < to && xml.charAt(position + 1) == '\n') {
+                    position++;
+                }
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    /**
+     * Decodifica la referencia que empieza en {@code position}, ya validada al indexar
+     */
+    private static int appendReference(String xml, StringBuilder text, int position) {
+        int end = xml.indexOf(';', position);
+        if (xml.charAt(position + 1) == '#') {
+            boolean hex = xml.charAt(position + 2) == 'x';
+            text.appendCodePoint(Integer.parseInt(xml, position + (hex ? 3 : 2), end, hex ? 16 : 10));
+        } else {
+            text.append(switch (xml.substring(position + 1, end)) {
+                case "lt" -> '<';
+                case "gt" -> '>';
+                case "amp" -> '&';
+                case "quot" -> '"';
+                default -> '\'';
+            });
+        }
+        return end + 1;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+    }
+
+    /**
+     * Pasada única sobre el texto que construye el índice y rechaza el XML mal formado
+     */
+    private static final class Scanner {
+
+        private final String xml;
+        private final int length;
+        private int position;
+        private int[] elements;
+        private int count;
+        private int[] stack = new int[32];
+        private int depth;
+
+        Scanner(String xml) {
+            this.xml = xml;
+            this.length = xml.length();
+            // Un elemento cada ~40 caracteres en los mensajes ISO 20022 habituales
+            this.elements = new int[Math.max(16, length / 40) * STRIDE];
+        }
+
+        XmlTokenIndex scan() throws SAXParseException {
+            if (length > 0 && xml.charAt(0) == '\uFEFF') {
+                position = 1;
+            }
+            if (xml.startsWith("<?xml", position) && position + 5 < length && isWhitespace(xml.charAt(position + 5))) {
+                position = skipPast("?>", position + 5, "XML declaration");
+            }
+            misc();
+            if (position >= length) {
+                throw error("Premature end of file.");
+            }
+            if (xml.charAt(position) != '<') {
+                throw error("Content is not allowed in prolog.");
+            }
+            if (xml.startsWith("<!DOCTYPE", position)) {
+                throw error("DOCTYPE is disallowed.");
+            }
+            startTag(-1);
+            while (depth > 0) {
+                content();
+                if (position >= length) {
+                    throw error("XML document structures must start and end within the same entity.");
+                }
+                if (xml.startsWith("</", position)) {
+                    endTag();
+                } else if (xml.startsWith("<!--", position)) {
+                    clearPlainText(stack[depth - 1]);
+                    comment();
+                } else if (xml.startsWith("<![CDATA[", position)) {
+                    clearPlainText(stack[depth - 1]);
+                    position = skipPast("]]>", position + 9, "CDATA section");
+                } else if (xml.startsWith("<?", position)) {
+                    clearPlainText(stack[depth - 1]);
+                    processingInstruction();
+                } else if (xml.startsWith("<!", position)) {
+                    throw error("The markup in the document preceding the root element must be well-formed.");
+                } else {
+                    clearPlainText(stack[depth - 1]);
+                    startTag(stack[depth - 1]);
+                }
+            }
+            misc();
+            if (position < length) {
+                throw error("Content is not allowed in trailing section.");
+            }
+            return new XmlTokenIndex(xml, elements, count);
+        }
+
+        /**
+         * Espacios, comentarios e instrucciones de proceso antes o después del raíz
+         */
+        private void misc() throws SAXParseException {
+            while (position < length) {
+                char c = xml.charAt(position);
+                if (isWhitespace(c)) {
+                    position++;
+                } else if (xml.startsWith("<!--", position)) {
+                    comment();
+                } else if (xml.startsWith("<?", position)) {
+                    processingInstruction();
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void startTag(int parent) throws SAXParseException {
+            int start = position++;
+            int nameStart = position;
+            boolean prefixed = name();
+            int nameEnd = position;
+            int flags = PLAIN_TEXT | (prefixed ? PREFIXED : 0)
+                | (parent >= 0 ? elements[parent * STRIDE + FLAGS] & DEFAULT_NAMESPACE : 0);
+
+            boolean prefixedAttributes = false;
+            while (true) {
+                boolean separated = whitespace();
+                if (position >= length) {
+                    throw error("XML document structures must start and end within the same entity.");
+                }
+                char c = xml.charAt(position);
+                if (c == '>' || c == '/') {
+                    break;
+                }
+                if (!separated) {
+                    throw error("Element type \"" + xml.substring(nameStart, nameEnd)
+                        + "\" must be followed by either attribute specifications, \">\" or \"/>\".");
+                }
+                int attributeStart = position;
+                boolean prefixedAttribute = name();
+                int attributeEnd = position;
+                whitespace();
+                if (position >= length || xml.charAt(position) != '=') {
+                    throw error("Attribute name \"" + xml.substring(attributeStart, attributeEnd)
+                        + "\" must be followed by the ' = ' character.");
+                }
+                position++;
+                whitespace();
+                char quote = position < length ? xml.charAt(position) : 0;
+                if (quote != '"' && quote != '\'') {
+                    throw error("Open quote is expected for attribute \"" + xml.substring(attributeStart, attributeEnd)
+                        + "\".");
+                }
+                int valueStart = ++position;
+                attributeValue(quote);
+                int valueEnd = position++;
+
+                if (attributeEnd - attributeStart == 5 && xml.startsWith("xmlns", attributeStart)) {
+                    flags = valueEnd > valueStart ? flags | DEFAULT_NAMESPACE : flags & ~DEFAULT_NAMESPACE;
+                } else if (prefixedAttribute && !xml.startsWith("xmlns:", attributeStart)) {
+                    prefixedAttributes = true;
+                }
+            }
+
+            int element = add(start, nameEnd, parent, flags);
+            if (prefixed) {
+                checkPrefixBound(element, nameStart);
+            }
+            if (prefixedAttributes) {
+                checkAttributePrefixesBound(element, nameEnd);
+            }
+            if (xml.charAt(position) == '/') {
+                if (position + 1 >= length || xml.charAt(position + 1) != '>') {
+                    throw error("Element type \"" + xml.substring(nameStart, nameEnd)
+                        + "\" must be followed by either attribute specifications, \">\" or \"/>\".");
+                }
+                position += 2;
+                elements[element * STRIDE + CONTENT_START] = position;
+                elements[element * STRIDE + CONTENT_END] = position;
+                return;
+            }
+            position++;
+            elements[element * STRIDE + CONTENT_START] = position;
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+            stack[depth++] = element;
+        }
+
+        private void endTag() throws SAXParseException {
+            int element = stack[depth - 1];
+            int base = element * STRIDE;
+            int end = position;
+            position += 2;
+            int nameStart = position;
+            name();
+            int expectedStart = elements[base + START] + 1;
+            int expectedLength = elements[base + NAME_END] - expectedStart;
+            if (position - nameStart != expectedLength || !xml.regionMatches(nameStart, xml, expectedStart, expectedLength)) {
+                String expected = xml.substring(expectedStart, expectedStart + expectedLength);
+                throw error("The element type \"" + expected + "\" must be terminated by the matching end-tag \"</"
+                    + expected + ">\".");
+            }
+            whitespace();
+            if (position >= length || xml.charAt(position) != '>') {
+                throw error("The end-tag for element type \"" + xml.substring(nameStart, nameStart + expectedLength)
+                    + "\" must end with a '>' delimiter.");
+            }
+            position++;
+            elements[base + CONTENT_END] = end;
+            depth--;
+        }
+
+        /**
+         * Texto hasta el siguiente '<'
+         */
+        private void content() throws SAXParseException {
+            int element = stack[depth - 1];
+            while (position < length) {
+                char c = xml.charAt(position);
+                if (c == '<') {
+                    return;
+                }
+                if (c == '&') {
+                    reference();
+                    clearPlainText(element);
+                    continue;
+                }
+                if (c < 0x20) {
+                    if (c == '\r') {
+                        clearPlainText(element);
+                    } else if (c != '\n' && c != '\t') {
+                        throw invalidCharacter(c, "element content");
+                    }
+                } else if (c == '>') {
+                    if (position >= 2 && xml.charAt(position - 1) == ']' && xml.charAt(position - 2) == ']') {
+                        throw error("The character sequence \"]]>\" must not appear in content unless used to mark "
+                            + "the end of a CDATA section.");
+                    }
+                } else if (c >= '\uFFFE') {
+                    throw invalidCharacter(c, "element content");
+                }
+                position++;
+            }
+        }
+
+        private void attributeValue(char quote) throws SAXParseException {
+            while (position < length) {
+                char c = xml.charAt(position);
+                if (c == quote) {
+                    return;
+                }
+                if (c == '<') {
+                    throw error("The value of attribute must not contain the '<' character.");
+                }
+                if (c == '&') {
+                    reference();
+                    continue;
+                }
+                if ((c < 0x20 && c != '\n' && c != '\t' && c != '\r') || c >= '\uFFFE') {
+                    throw invalidCharacter(c, "attribute value");
+                }
+                position++;
+            }
+            throw error("XML document structures must start and end within the same entity.");
+        }
+
+        /**
+         * Referencia de carácter o a una de las cinco entidades predefinidas
+         */
+        private void reference() throws SAXParseException {
+            int end = xml.indexOf(';', position);
+            if (end < 0 || end - position > 16) {
+                throw error("The entity reference must end with the ';' delimiter.");
+            }
+            if (xml.charAt(position + 1) == '#') {
+                boolean hex = position + 2 < end && xml.charAt(position + 2) == 'x';
+                int codePoint;
+                try {
+                    codePoint = Integer.parseInt(xml, position + (hex ? 3 : 2), end, hex ? 16 : 10);
+                } catch (NumberFormatException e) {
+                    throw error("A character reference must be a decimal or hexadecimal number.");
+                }
+                if (!isXmlCharacter(codePoint)) {
+                    throw error("Character reference \"" + xml.substring(position, end + 1)
+                        + "\" is an invalid XML character.");
+                }
+            } else {
+                String entity = xml.substring(position + 1, end);
+                switch (entity) {
+                    case "lt", "gt", "amp", "quot", "apos" -> {
+                    }
+                    default -> throw error("The entity \"" + entity + "\" was referenced, but not declared.");
+                }
+            }
+            position = end + 1;
+        }
+
+        private void comment() throws SAXParseException {
+            int end = xml.indexOf("--", position + 4);
+            if (end < 0) {
+                throw error("XML document structures must start and end within the same entity.");
+            }
+            if (end + 2 >= length || xml.charAt(end + 2) != '>') {
+                throw error("The string \"--\" is not permitted within comments.");
+            }
+            position = end + 3;
+        }
+
+        private void processingInstruction() throws SAXParseException {
+            position += 2;
+            int targetStart = position;
+            name();
+            if (position - targetStart == 3 && xml.regionMatches(true, targetStart, "xml", 0, 3)) {
+                throw error("The processing instruction target matching \"[xX][mM][lL]\" is not allowed.");
+            }
+            position = skipPast("?>", position, "processing instruction");
+        }
+
+        /**
+         * Nombre XML; devuelve si lleva prefijo
+         */
+        private boolean name() throws SAXParseException {
+            int start = position;
+            int colon = -1;
+            while (position < length) {
+                char c = xml.charAt(position);
+                boolean valid = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c >= 0x80
+                    || position > start && (c >= '0' && c <= '9' || c == '-' || c == '.');
+                if (c == ':' && colon < 0 && position > start) {
+                    colon = position;
+                } else if (!valid) {
+                    break;
+                }
+                position++;
+            }
+            if (position == start || colon == position - 1) {
+                throw error("The markup in the document must be well-formed: a name was expected.");
+            }
+            return colon > 0;
+        }
+
+        private boolean whitespace() {
+            int start = position;
+            while (position < length && isWhitespace(xml.charAt(position))) {
+                position++;
+            }
+            return position > start;
+        }
+
+        private int skipPast(String terminator, int from, String construct) throws SAXParseException {
+            int end = xml.indexOf(terminator, from);
+            if (end < 0) {
+                throw error("The " + construct + " must end with \"" + terminator + "\".");
+            }
+            return end + terminator.length();
+        }
+
+        private int add(int start, int nameEnd, int parent, int flags) {
+            if ((count + 1) * STRIDE > elements.length) {
+                elements = Arrays.copyOf(elements, elements.length * 2);
+            }
+            int base = count * STRIDE;
+            elements[base + START] = start;
+            elements[base + NAME_END] = nameEnd;
+            elements[base + PARENT] = parent;
+            elements[base + FLAGS] = flags;
+            return count++;
+        }
+
+        private void clearPlainText(int element) {
+            elements[element * STRIDE + FLAGS] &= ~PLAIN_TEXT;
+        }
+
+        private void checkPrefixBound(int element, int nameStart) throws SAXParseException {
+            String prefix = xml.substring(nameStart, xml.indexOf(':', nameStart));
+            if (!isBound(element, prefix)) {
+                throw error("The prefix \"" + prefix + "\" for element \""
+                    + xml.substring(nameStart, elements[element * STRIDE + NAME_END]) + "\" is not bound.");
+            }
+        }
+
+        private void checkAttributePrefixesBound(int element, int from) throws SAXParseException {
+            int position = from;
+            while (true) {
+                while (isWhitespace(xml.charAt(position))) {
+                    position++;
+                }
+                if (xml.charAt(position) == '>' || xml.charAt(position) == '/') {
+                    return;
+                }
+                int nameStart = position;
+                int colon = -1;
+                while (xml.charAt(position) != '=' && !isWhitespace(xml.charAt(position))) {
+                    if (xml.charAt(position) == ':' && colon < 0) {
+                        colon = position;
+                    }
+                    position++;
+                }
+                if (colon > 0 && !xml.startsWith("xmlns:", nameStart)) {
+                    String prefix = xml.substring(nameStart, colon);
+                    if (!isBound(element, prefix)) {
+                        throw error("The prefix \"" + prefix + "\" for attribute \"" + xml.substring(nameStart, position)
+                            + "\" associated with an element type \""
+                            + xml.substring(elements[element * STRIDE + START] + 1, from) + "\" is not bound.");
+                    }
+                }
+                while (xml.charAt(position) != '"' && xml.charAt(position) != '\'') {
+                    position++;
+                }
+                position = xml.indexOf(xml.charAt(position), position + 1) + 1;
+            }
+        }
+
+        /**
+         * El prefijo está declarado en el elemento o en un ascendiente
+         */
+        private boolean isBound(int element, String prefix) {
+            if (prefix.equals("xml")) {
+                return true;
+            }
+            String declaration = "xmlns:" + prefix;
+            for (int ancestor = element; ancestor >= 0; ancestor = elements[ancestor * STRIDE + PARENT]) {
+                String namespace = attribute(xml, elements[ancestor * STRIDE + NAME_END], declaration);
+                if (namespace != null) {
+                    return !namespace.isEmpty();
+                }
+            }
+            return false;
+        }
+
+        private SAXParseException invalidCharacter(char c, String where) {
+            return error("An invalid XML character (Unicode: 0x" + Integer.toHexString(c) + ") was found in the "
+                + where + " of the document.");
+        }
+
+        private SAXParseException error(String message) {
+            int line = 1;
+            int lineStart = 0;
+            int end = Math.min(position, length);
+            for (int i = 0; i < end; i++) {
+                if (xml.charAt(i) == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+            }
+            return new SAXParseException(message, null, null, line, end - lineStart + 1);
+        }
+
+        private static boolean isXmlCharacter(int codePoint) {
+            return codePoint == 0x9 || codePoint == 0xA || codePoint == 0xD
+                || codePoint >= 0x20 && codePoint <= 0xD7FF
+                || codePoint >= 0xE000 && codePoint <= 0xFFFD
+                || codePoint >= 0x10000 && codePoint <= 0x10FFFF;
+        }
+    }
+}
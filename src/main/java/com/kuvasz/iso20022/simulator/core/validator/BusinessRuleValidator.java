@@ -1,19 +1,19 @@
 package com.kuvasz.iso20022.simulator.core.validator;
 
 import com.kuvasz.iso20022.simulator.exception.ValidationException;
+import com.kuvasz.iso20022.simulator.metrics.RuleProfiler;
 import com.kuvasz.iso20022.simulator.model.MessageContext;
 import com.kuvasz.iso20022.simulator.model.ValidationError;
+import com.kuvasz.iso20022.simulator.logging.LogRateLimiter;
+import com.kuvasz.iso20022.simulator.logging.RateLimitedLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathFactory;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
@@ -23,13 +23,26 @@ import java.util.regex.Pattern;
 
 /**
  * Validador de reglas de negocio específicas ISO 20022
+ *
+ * Cada regla es una {@link ValidationRule} con nombre, medida por separado cuando hay un
+ * {@link RuleProfiler}. Las expresiones XPath se compilan por hilo ({@link XPathQuery}).
  */
 @Component
 public class BusinessRuleValidator implements MessageValidator {
     
     private static final Logger logger = LoggerFactory.getLogger(BusinessRuleValidator.class);
+    private RateLimitedLogger errorLogger = RateLimitedLogger.of(logger);
     
-    private final XPathFactory xPathFactory;
+    private static final XPathQuery DATES = new XPathQuery(
+        "//*[local-name()='CreDtTm'] | //*[local-name()='ReqdExctnDt'] | //*[local-name()='IntrBkSttlmDt']");
+    private static final XPathQuery AMOUNTS = new XPathQuery(
+        "//*[local-name()='InstdAmt'] | //*[local-name()='TtlIntrBkSttlmAmt'] | //*[local-name()='Amt']");
+    private static final XPathQuery CURRENCIES = new XPathQuery("//@Ccy");
+    private static final XPathQuery BIC_CODES = new XPathQuery("//*[local-name()='BICFI'] | //*[local-name()='BIC']");
+    private static final XPathQuery GROUP_HEADER_MSG_ID =
+        new XPathQuery("//*[local-name()='GrpHdr']/*[local-name()='MsgId']");
+    private static final XPathQuery GROUP_HEADER_CREATION_DATE =
+        new XPathQuery("//*[local-name()='GrpHdr']/*[local-name()='CreDtTm']");
     
     // Patrones de validación
     private static final Pattern BIC_PATTERN = Pattern.compile("^[A-Z]{6}[A-Z0-9]{2}([A-Z0-9]{3})?$");
@@ -40,74 +53,87 @@ public class BusinessRuleValidator implements MessageValidator {
         "USD", "EUR", "GBP", "JPY", "CHF", "CAD", "AUD", "CNY", "CLP", "MXN", "BRL", "ARS"
     );
     
-    public BusinessRuleValidator() {
-        this.xPathFactory = XPathFactory.newInstance();
+    // Validaciones específicas por tipo de mensaje primero, luego las comunes
+    private final ValidationRules rules = new ValidationRules(BusinessRuleValidator.class.getSimpleName(), List.of(
+        ValidationRule.when("painHeader", type -> type.toLowerCase().startsWith("pain"), this::validatePainMessage),
+        ValidationRule.when("pacsHeader", type -> type.toLowerCase().startsWith("pacs"), this::validatePacsMessage),
+        ValidationRule.when("camtHeader", type -> type.toLowerCase().startsWith("camt"), this::validateCamtMessage),
+        ValidationRule.always("dates", this::validateDates),
+        ValidationRule.always("amounts", this::validateAmounts),
+        ValidationRule.always("currencies", this::validateCurrencies),
+        ValidationRule.always("bicCodes", this::validateBICCodes)
+    ));
+    
+    @Autowired(required = false)
+    public void setRuleProfiler(RuleProfiler ruleProfiler) {
+        rules.profileWith(ruleProfiler);
+    }
+    
+    @Autowired(required = false)
+    public void setLogRateLimiter(LogRateLimiter logRateLimiter) {
+        this.errorLogger = RateLimitedLogger.of(logger, logRateLimiter);
+    }
+    
+    /**
+     * Nombres de las reglas en orden de evaluación
+     */
+    public List<String> getRuleNames() {
+        return rules.names();
     }
     
     @Override
     public List<ValidationError> validate(MessageContext context) throws ValidationException {
+        ValidationOutcome outcome = check(context);
+        if (outcome instanceof ValidationOutcome.Aborted aborted) {
+            throw aborted.toException();
+        }
+        return outcome.errors();
+    }
+    
+    @Override
+    public ValidationOutcome check(MessageContext context) {
         List<ValidationError> errors = new ArrayList<>();
         
         try {
             Document document = context.getParsedDocument();            if (document == null) {
                 errors.add(ValidationError.businessRuleError("DOCUMENT_NULL", "Parsed document is null", "document"));
-                return errors;
-            }
-            
-            String messageType = context.getMessageType();
-              // Validaciones específicas por tipo de mensaje
-            if (messageType != null) {
-                String lowerMessageType = messageType.toLowerCase();
-                if (lowerMessageType.startsWith("pain")) {
-                    validatePainMessage(document, errors);
-                } else if (lowerMessageType.startsWith("pacs")) {
-                    validatePacsMessage(document, errors);
-                } else if (lowerMessageType.startsWith("camt")) {
-                    validateCamtMessage(document, errors);
-                }
+                return ValidationOutcome.of(errors);
             }
             
-            // Validaciones comunes
-            validateDates(document, errors);
-            validateAmounts(document, errors);
-            validateCurrencies(document, errors);
-            validateBICCodes(document, errors);
+            rules.apply(context.getMessageType(), document, errors);
               } catch (Exception e) {
-            logger.error("Error during business rule validation", e);
-            throw new ValidationException("Business rule validation failed: " + e.getMessage());
+            errorLogger.error("Error during business rule validation", e);
+            return ValidationOutcome.aborted("Business rule validation failed: " + e.getMessage());
         }
         
-        return errors;
+        return ValidationOutcome.of(errors);
     }
     
     private void validatePainMessage(Document document, List<ValidationError> errors) {
         // Validaciones específicas para mensajes PAIN (Payment Initiation)
-        validateXPathExists(document, "//GrpHdr/MsgId", "PAIN_MSG_ID_MISSING", 
+        validateXPathExists(document, GROUP_HEADER_MSG_ID, "//GrpHdr/MsgId", "PAIN_MSG_ID_MISSING", 
             "Group Header Message ID is required", errors);
-        validateXPathExists(document, "//GrpHdr/CreDtTm", "PAIN_CREATION_DATE_MISSING", 
+        validateXPathExists(document, GROUP_HEADER_CREATION_DATE, "//GrpHdr/CreDtTm", "PAIN_CREATION_DATE_MISSING", 
             "Creation Date Time is required", errors);
     }
     
     private void validatePacsMessage(Document document, List<ValidationError> errors) {
         // Validaciones específicas para mensajes PACS (Payment Clearing and Settlement)
-        validateXPathExists(document, "//GrpHdr/MsgId", "PACS_MSG_ID_MISSING", 
+        validateXPathExists(document, GROUP_HEADER_MSG_ID, "//GrpHdr/MsgId", "PACS_MSG_ID_MISSING", 
             "Group Header Message ID is required", errors);
-        validateXPathExists(document, "//GrpHdr/CreDtTm", "PACS_CREATION_DATE_MISSING", 
+        validateXPathExists(document, GROUP_HEADER_CREATION_DATE, "//GrpHdr/CreDtTm", "PACS_CREATION_DATE_MISSING", 
             "Creation Date Time is required", errors);
     }
     
     private void validateCamtMessage(Document document, List<ValidationError> errors) {
         // Validaciones específicas para mensajes CAMT (Cash Management)
-        validateXPathExists(document, "//GrpHdr/MsgId", "CAMT_MSG_ID_MISSING", 
+        validateXPathExists(document, GROUP_HEADER_MSG_ID, "//GrpHdr/MsgId", "CAMT_MSG_ID_MISSING", 
             "Group Header Message ID is required", errors);
-        validateXPathExists(document, "//GrpHdr/CreDtTm", "CAMT_CREATION_DATE_MISSING", 
+        validateXPathExists(document, GROUP_HEADER_CREATION_DATE, "//GrpHdr/CreDtTm", "CAMT_CREATION_DATE_MISSING", 
             "Creation Date Time is required", errors);
     }    private void validateDates(Document document, List<ValidationError> errors) {
         try {
-            XPath xpath = xPathFactory.newXPath();
-            // Use more specific XPath that doesn't rely on namespace prefixes
-            XPathExpression expr = xpath.compile("//*[local-name()='CreDtTm'] | //*[local-name()='ReqdExctnDt'] | //*[local-name()='IntrBkSttlmDt']");
-            NodeList dateNodes = (NodeList) expr.evaluate(document, XPathConstants.NODESET);
+            NodeList dateNodes = DATES.nodes(document);
             
             for (int i = 0; i < dateNodes.getLength(); i++) {
                 Node dateNode = dateNodes.item(i);
@@ -129,9 +155,7 @@ public class BusinessRuleValidator implements MessageValidator {
     }
       private void validateAmounts(Document document, List<ValidationError> errors) {
         try {
-            XPath xpath = xPathFactory.newXPath();
-            XPathExpression expr = xpath.compile("//*[local-name()='InstdAmt'] | //*[local-name()='TtlIntrBkSttlmAmt'] | //*[local-name()='Amt']");
-            NodeList amountNodes = (NodeList) expr.evaluate(document, XPathConstants.NODESET);
+            NodeList amountNodes = AMOUNTS.nodes(document);
             
             for (int i = 0; i < amountNodes.getLength(); i++) {
                 Node amountNode = amountNodes.item(i);
@@ -162,9 +186,7 @@ public class BusinessRuleValidator implements MessageValidator {
     }
       private void validateCurrencies(Document document, List<ValidationError> errors) {
         try {
-            XPath xpath = xPathFactory.newXPath();
-            XPathExpression expr = xpath.compile("//@Ccy");
-            NodeList currencyNodes = (NodeList) expr.evaluate(document, XPathConstants.NODESET);
+            NodeList currencyNodes = CURRENCIES.nodes(document);
             
             for (int i = 0; i < currencyNodes.getLength(); i++) {
                 Node currencyNode = currencyNodes.item(i);
@@ -182,9 +204,7 @@ public class BusinessRuleValidator implements MessageValidator {
     }
       private void validateBICCodes(Document document, List<ValidationError> errors) {
         try {
-            XPath xpath = xPathFactory.newXPath();
-            XPathExpression expr = xpath.compile("//*[local-name()='BICFI'] | //*[local-name()='BIC']");
-            NodeList bicNodes = (NodeList) expr.evaluate(document, XPathConstants.NODESET);
+            NodeList bicNodes = BIC_CODES.nodes(document);
             
             for (int i = 0; i < bicNodes.getLength(); i++) {
                 Node bicNode = bicNodes.item(i);
@@ -200,17 +220,11 @@ public class BusinessRuleValidator implements MessageValidator {
             logger.warn("Error validating BIC codes: {}", e.getMessage());
         }
     }
-      private void validateXPathExists(Document document, String xpathExpression, 
+      private void validateXPathExists(Document document, XPathQuery query, String xpathExpression,
                                    String errorCode, String errorMessage, List<ValidationError> errors) {
         try {
-            XPath xpath = xPathFactory.newXPath();
-            // Convert simple xpath to namespace-aware version
-            String namespaceAwareXPath = xpathExpression
-                .replace("//GrpHdr/MsgId", "//*[local-name()='GrpHdr']/*[local-name()='MsgId']")
-                .replace("//GrpHdr/CreDtTm", "//*[local-name()='GrpHdr']/*[local-name()='CreDtTm']");
-            
-            XPathExpression expr = xpath.compile(namespaceAwareXPath);
-            NodeList nodes = (NodeList) expr.evaluate(document, XPathConstants.NODESET);
+            // La consulta es la versión sin prefijos de xpathExpression, que se usa en el error
+            NodeList nodes = query.nodes(document);
             
             if (nodes.getLength() == 0) {
                 errors.add(ValidationError.businessRuleError(errorCode, errorMessage, xpathExpression));
@@ -20,6 +20,22 @@ public interface MessageValidator {
      */
     List<ValidationError> validate(MessageContext context) throws ValidationException;
     
+    /**
+     * Valida un mensaje devolviendo también la validación abortada como valor.
+     * Los validadores del simulador lo implementan sin excepciones; esta implementación
+     * por defecto solo adapta validadores basados en {@link #validate}
+     * 
+     * @param context el contexto del mensaje a validar
+     * @return el resultado de la validación
+     */
+    default ValidationOutcome check(MessageContext context) {
+        try {
+            return ValidationOutcome.of(validate(context));
+        } catch (ValidationException e) {
+            return ValidationOutcome.aborted(e.getErrorCode(), e.getMessage());
+        }
+    }
+    
     /**
      * Verifica si este validador puede procesar el tipo de mensaje dado
      * 
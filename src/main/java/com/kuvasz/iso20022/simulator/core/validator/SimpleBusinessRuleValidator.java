@@ -1,17 +1,18 @@
 package com.kuvasz.iso20022.simulator.core.validator;
 
 import com.kuvasz.iso20022.simulator.exception.ValidationException;
+import com.kuvasz.iso20022.simulator.metrics.RuleProfiler;
 import com.kuvasz.iso20022.simulator.model.MessageContext;
 import com.kuvasz.iso20022.simulator.model.ValidationError;
+import com.kuvasz.iso20022.simulator.logging.LogRateLimiter;
+import com.kuvasz.iso20022.simulator.logging.RateLimitedLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,13 +21,23 @@ import java.util.regex.Pattern;
 /**
  * Validador de reglas de negocio para mensajes ISO 20022.
  * Implementa validaciones específicas del dominio financiero según los estándares ISO 20022.
+ *
+ * Cada regla es una {@link ValidationRule} con nombre, medida por separado cuando hay un
+ * {@link RuleProfiler}. Las expresiones XPath se compilan por hilo ({@link XPathQuery}).
  */
 @Component
 public class SimpleBusinessRuleValidator implements MessageValidator {
 
     private static final Logger logger = LoggerFactory.getLogger(SimpleBusinessRuleValidator.class);
+    private RateLimitedLogger errorLogger = RateLimitedLogger.of(logger);
     
-    private final XPath xpath = XPathFactory.newInstance().newXPath();
+    private static final XPathQuery MSG_ID = new XPathQuery("//*[local-name()='MsgId']");
+    private static final XPathQuery AMOUNTS =
+        new XPathQuery("//*[local-name()='Amt' or local-name()='InstdAmt' or local-name()='EqvtAmt']");
+    private static final XPathQuery CURRENCIES = new XPathQuery("//*[local-name()='Ccy'] | //@Ccy");
+    private static final XPathQuery BIC_CODES =
+        new XPathQuery("//*[contains(local-name(), 'BIC') or contains(local-name(), 'BICFI')]");
+    private static final XPathQuery PAYMENT_INFO = new XPathQuery("//*[local-name()='PmtInf']");
     
     // Patrones de validación
     private static final Pattern BIC_PATTERN = Pattern.compile("^[A-Z]{6}[A-Z0-9]{2}([A-Z0-9]{3})?$");
@@ -36,10 +47,48 @@ public class SimpleBusinessRuleValidator implements MessageValidator {
     private static final List<String> VALID_CURRENCIES = List.of(
         "USD", "EUR", "GBP", "JPY", "AUD", "CAD", "CHF", "CNY", "SEK", "NZD",
         "MXN", "SGD", "HKD", "NOK", "TRY", "RUB", "INR", "BRL", "ZAR", "KRW"
-    );@Override
+    );
+    
+    // Validaciones comunes primero, luego las específicas por tipo de mensaje
+    private final ValidationRules rules = new ValidationRules(SimpleBusinessRuleValidator.class.getSimpleName(), List.of(
+        ValidationRule.always("messageIdentification", this::validateMessageIdentification),
+        ValidationRule.always("amounts", this::validateAmounts),
+        ValidationRule.always("currencies", this::validateCurrencies),
+        ValidationRule.always("bicCodes", this::validateBICCodes),
+        ValidationRule.when("paymentInstructions",
+            type -> type.startsWith("pacs.008") || type.startsWith("pain.001"), this::validatePaymentInstructions)
+    ));
+    
+    @Autowired(required = false)
+    public void setRuleProfiler(RuleProfiler ruleProfiler) {
+        rules.profileWith(ruleProfiler);
+    }
+    
+    @Autowired(required = false)
+    public void setLogRateLimiter(LogRateLimiter logRateLimiter) {
+        this.errorLogger = RateLimitedLogger.of(logger, logRateLimiter);
+    }
+    
+    /**
+     * Nombres de las reglas en orden de evaluación
+     */
+    public List<String> getRuleNames() {
+        return rules.names();
+    }
+    
+    @Override
     public List<ValidationError> validate(MessageContext context) throws ValidationException {
+        ValidationOutcome outcome = check(context);
+        if (outcome instanceof ValidationOutcome.Aborted aborted) {
+            throw aborted.toException();
+        }
+        return outcome.errors();
+    }
+    
+    @Override
+    public ValidationOutcome check(MessageContext context) {
         if (context == null) {
-            throw new ValidationException("Contexto de mensaje es null");
+            return ValidationOutcome.aborted("Contexto de mensaje es null");
         }
         
         logger.debug("Iniciando validación de reglas de negocio para mensaje: {}", context.getMessageId());
@@ -49,27 +98,18 @@ public class SimpleBusinessRuleValidator implements MessageValidator {
         Document document = context.getParsedDocument();
         
         if (document == null) {
-            throw new ValidationException("Documento XML no disponible para validación de reglas de negocio");
+            return ValidationOutcome.aborted("Documento XML no disponible para validación de reglas de negocio");
         }
         
         try {
-            // Validaciones comunes para todos los tipos de mensaje
-            validateMessageIdentification(document, errors);
-            validateAmounts(document, errors);
-            validateCurrencies(document, errors);
-            validateBICCodes(document, errors);
-            
-            // Validaciones específicas por tipo de mensaje
-            if (messageType.startsWith("pacs.008") || messageType.startsWith("pain.001")) {
-                validatePaymentInstructions(document, errors);
-            }
+            rules.apply(messageType, document, errors);
             
             logger.debug("Validación de reglas de negocio completada. Errores encontrados: {}", errors.size());
-            return errors;
+            return ValidationOutcome.of(errors);
             
         } catch (Exception e) {
-            logger.error("Error durante la validación de reglas de negocio", e);
-            throw new ValidationException("Error en validación de reglas de negocio: " + e.getMessage());
+            errorLogger.error("Error durante la validación de reglas de negocio", e);
+            return ValidationOutcome.aborted("Error en validación de reglas de negocio: " + e.getMessage());
         }
     }
 
@@ -89,7 +129,7 @@ public class SimpleBusinessRuleValidator implements MessageValidator {
     }    private void validateMessageIdentification(Document document, List<ValidationError> errors) {
         try {
             // Use local-name() to handle namespaced elements
-            NodeList msgIdNodes = (NodeList) xpath.evaluate("//*[local-name()='MsgId']", document, XPathConstants.NODESET);
+            NodeList msgIdNodes = MSG_ID.nodes(document);
             
             for (int i = 0; i < msgIdNodes.getLength(); i++) {
                 String msgId = msgIdNodes.item(i).getTextContent();
@@ -113,8 +153,7 @@ public class SimpleBusinessRuleValidator implements MessageValidator {
     }    private void validateAmounts(Document document, List<ValidationError> errors) {
         try {
             // Use local-name() to handle namespaced elements - check for common amount field names
-            NodeList amountNodes = (NodeList) xpath.evaluate("//*[local-name()='Amt' or local-name()='InstdAmt' or local-name()='EqvtAmt']", 
-                document, XPathConstants.NODESET);
+            NodeList amountNodes = AMOUNTS.nodes(document);
             
             for (int i = 0; i < amountNodes.getLength(); i++) {
                 String amount = amountNodes.item(i).getTextContent();
@@ -144,7 +183,7 @@ public class SimpleBusinessRuleValidator implements MessageValidator {
     }    private void validateCurrencies(Document document, List<ValidationError> errors) {
         try {
             // Use local-name() to handle namespaced elements and also check for Ccy attributes
-            NodeList currencyNodes = (NodeList) xpath.evaluate("//*[local-name()='Ccy'] | //@Ccy", document, XPathConstants.NODESET);
+            NodeList currencyNodes = CURRENCIES.nodes(document);
             
             for (int i = 0; i < currencyNodes.getLength(); i++) {
                 String currency = currencyNodes.item(i).getTextContent();
@@ -168,8 +207,7 @@ public class SimpleBusinessRuleValidator implements MessageValidator {
 
     private void validateBICCodes(Document document, List<ValidationError> errors) {
         try {
-            NodeList bicNodes = (NodeList) xpath.evaluate("//*[contains(local-name(), 'BIC') or contains(local-name(), 'BICFI')]", 
-                document, XPathConstants.NODESET);
+            NodeList bicNodes = BIC_CODES.nodes(document);
             
             for (int i = 0; i < bicNodes.getLength(); i++) {
                 String bic = bicNodes.item(i).getTextContent();
@@ -188,7 +226,7 @@ public class SimpleBusinessRuleValidator implements MessageValidator {
     }    private void validatePaymentInstructions(Document document, List<ValidationError> errors) {
         try {
             // Use local-name() to handle namespaced elements
-            NodeList paymentInfoNodes = (NodeList) xpath.evaluate("//*[local-name()='PmtInf']", document, XPathConstants.NODESET);
+            NodeList paymentInfoNodes = PAYMENT_INFO.nodes(document);
             
             if (paymentInfoNodes.getLength() == 0) {
                 errors.add(ValidationError.missingFieldError("PmtInf"));
@@ -3,8 +3,11 @@ package com.kuvasz.iso20022.simulator.core.validator;
 import com.kuvasz.iso20022.simulator.exception.ValidationException;
 import com.kuvasz.iso20022.simulator.model.MessageContext;
 import com.kuvasz.iso20022.simulator.model.ValidationError;
+import com.kuvasz.iso20022.simulator.logging.LogRateLimiter;
+import com.kuvasz.iso20022.simulator.logging.RateLimitedLogger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import org.xml.sax.SAXException;
@@ -31,6 +34,7 @@ import java.util.Map;
 public class StructuralValidator implements MessageValidator {
     
     private static final Logger logger = LoggerFactory.getLogger(StructuralValidator.class);
+    private RateLimitedLogger errorLogger = RateLimitedLogger.of(logger);
     
     private final SchemaFactory schemaFactory;
     private final Map<String, Schema> schemaCache;
@@ -56,14 +60,29 @@ public class StructuralValidator implements MessageValidator {
             logger.warn("Could not configure schema factory security features: {}", e.getMessage());
         }
     }
-      @Override
+    
+    @Autowired(required = false)
+    public void setLogRateLimiter(LogRateLimiter logRateLimiter) {
+        this.errorLogger = RateLimitedLogger.of(logger, logRateLimiter);
+    }
+    
+    @Override
     public List<ValidationError> validate(MessageContext context) throws ValidationException {
+        ValidationOutcome outcome = check(context);
+        if (outcome instanceof ValidationOutcome.Aborted aborted) {
+            throw aborted.toException();
+        }
+        return outcome.errors();
+    }
+    
+    @Override
+    public ValidationOutcome check(MessageContext context) {
         if (context == null) {
-            throw new ValidationException("MessageContext cannot be null");
+            return ValidationOutcome.aborted("MessageContext cannot be null");
         }
         
         if (context.getOriginalXml() == null) {
-            throw new ValidationException("Document is required for structural validation");
+            return ValidationOutcome.aborted("Document is required for structural validation");
         }
         
         List<ValidationError> errors = new ArrayList<>();
@@ -71,7 +90,7 @@ public class StructuralValidator implements MessageValidator {
         String messageType = context.getMessageType();
         if (messageType == null || "UNKNOWN".equals(messageType)) {
             logger.debug("Skipping structural validation for unknown message type");
-            return errors; // No hay errores, pero tampoco validación
+            return ValidationOutcome.VALID; // No hay errores, pero tampoco validación
         }
         
         try {
@@ -90,12 +109,12 @@ public class StructuralValidator implements MessageValidator {
             logger.debug("Structural validation completed in {}ms with {} errors", validationTime, errors.size());
             
         } catch (Exception e) {
-            logger.error("Error during structural validation", e);
+            errorLogger.error("Error during structural validation", e);
             errors.add(ValidationError.structuralError("VALIDATION_ERROR", 
                 "Internal validation error: " + e.getMessage(), "/"));
         }
         
-        return errors;
+        return ValidationOutcome.of(errors);
     }
     
     private Schema getSchemaForMessageType(String messageType) {
@@ -166,7 +185,7 @@ public class StructuralValidator implements MessageValidator {
             errors.add(ValidationError.structuralError("SCHEMA_VALIDATION_FAILED", 
                 "Schema validation failed: " + e.getMessage(), "/"));
         } catch (IOException e) {
-            logger.error("I/O error during schema validation", e);
+            errorLogger.error("I/O error during schema validation", e);
             errors.add(ValidationError.structuralError("IO_ERROR", 
                 "I/O error during validation: " + e.getMessage(), "/"));
         }
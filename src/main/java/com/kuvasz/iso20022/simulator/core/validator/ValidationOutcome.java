@@ -0,0 +1,56 @@
+package com.kuvasz.iso20022.simulator.core.validator;
+
+import com.kuvasz.iso20022.simulator.exception.ValidationException;
+import com.kuvasz.iso20022.simulator.model.ValidationError;
+
+import java.util.List;
+
+/**
+ * Resultado de un validador: válido, inválido con sus errores, o validación abortada
+ * porque el mensaje no permite validar (p.ej. sin documento parseado).
+ */
+public sealed interface ValidationOutcome {
+
+    ValidationOutcome VALID = new Valid();
+
+    /**
+     * Errores de validación; vacío si el mensaje es válido o la validación se abortó
+     */
+    List<ValidationError> errors();
+
+    static ValidationOutcome of(List<ValidationError> errors) {
+        return errors.isEmpty() ? VALID : new Invalid(errors);
+    }
+
+    static ValidationOutcome aborted(String errorCode, String message) {
+        return new Aborted(errorCode, message);
+    }
+
+    static ValidationOutcome aborted(String message) {
+        return new Aborted(ValidationException.ERROR_CODE, message);
+    }
+
+    record Valid() implements ValidationOutcome {
+        @Override
+        public List<ValidationError> errors() {
+            return List.of();
+        }
+    }
+
+    record Invalid(List<ValidationError> errors) implements ValidationOutcome {
+    }
+
+    record Aborted(String errorCode, String message) implements ValidationOutcome {
+        @Override
+        public List<ValidationError> errors() {
+            return List.of();
+        }
+
+        /**
+         * Excepción equivalente, sin stack trace propio, para la API basada en excepciones
+         */
+        public ValidationException toException() {
+            return ValidationException.expected(message);
+        }
+    }
+}
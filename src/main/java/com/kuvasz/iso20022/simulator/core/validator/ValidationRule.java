@@ -0,0 +1,39 @@
+package com.kuvasz.iso20022.simulator.core.validator;
+
+import com.kuvasz.iso20022.simulator.model.ValidationError;
+import org.w3c.dom.Document;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Regla de negocio con nombre propio, para poder medirla por separado
+ *
+ * @param name      nombre estable de la regla, usado como etiqueta de métricas
+ * @param appliesTo tipos de mensaje a los que se aplica (recibe null si el tipo no se conoce)
+ * @param check     comprobación; añade los errores encontrados a la lista
+ */
+public record ValidationRule(String name, Predicate<String> appliesTo, Check check) {
+
+    /**
+     * Comprobación de una regla sobre el documento ya parseado
+     */
+    @FunctionalInterface
+    public interface Check {
+        void apply(Document document, List<ValidationError> errors);
+    }
+
+    /**
+     * Regla que se aplica a todos los tipos de mensaje
+     */
+    public static ValidationRule always(String name, Check check) {
+        return new ValidationRule(name, messageType -> true, check);
+    }
+
+    /**
+     * Regla que se aplica a los tipos de mensaje aceptados por el predicado, nunca a un tipo null
+     */
+    public static ValidationRule when(String name, Predicate<String> appliesTo, Check check) {
+        return new ValidationRule(name, messageType -> messageType != null && appliesTo.test(messageType), check);
+    }
+}
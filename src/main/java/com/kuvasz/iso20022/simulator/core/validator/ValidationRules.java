@@ -0,0 +1,67 @@
+package com.kuvasz.iso20022.simulator.core.validator;
+
+import com.kuvasz.iso20022.simulator.metrics.ResourceAccounting;
+import com.kuvasz.iso20022.simulator.metrics.RuleProfiler;
+import com.kuvasz.iso20022.simulator.model.ValidationError;
+import org.w3c.dom.Document;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reglas de un validador, evaluadas en orden. Con un {@link RuleProfiler} cada regla se mide
+ * por separado; sin él la evaluación no lee ningún reloj.
+ */
+final class ValidationRules {
+
+    private final String validator;
+    private final ValidationRule[] rules;
+    // Se publican las sondas antes que el profiler: quien ve el profiler ve sus sondas
+    private volatile RuleProfiler.Probe[] probes;
+    private volatile RuleProfiler profiler;
+
+    ValidationRules(String validator, List<ValidationRule> rules) {
+        this.validator = validator;
+        this.rules = rules.toArray(new ValidationRule[0]);
+    }
+
+    void profileWith(RuleProfiler profiler) {
+        RuleProfiler.Probe[] created = new RuleProfiler.Probe[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            created[i] = profiler.probe(validator, rules[i].name());
+        }
+        this.probes = created;
+        this.profiler = profiler;
+    }
+
+    List<String> names() {
+        return Arrays.stream(rules).map(ValidationRule::name).toList();
+    }
+
+    /**
+     * Aplica las reglas que corresponden al tipo de mensaje
+     */
+    void apply(String messageType, Document document, List<ValidationError> errors) {
+        RuleProfiler current = profiler;
+        RuleProfiler.Probe[] currentProbes = probes;
+        for (int i = 0; i < rules.length; i++) {
+            ValidationRule rule = rules[i];
+            if (!rule.appliesTo().test(messageType)) {
+                continue;
+            }
+            if (current == null) {
+                rule.check().apply(document, errors);
+                continue;
+            }
+            int before = errors.size();
+            long cpuStart = current.cpuNanos();
+            long start = System.nanoTime();
+            rule.check().apply(document, errors);
+            long elapsed = System.nanoTime() - start;
+            long cpu = cpuStart != ResourceAccounting.UNAVAILABLE
+                ? current.cpuNanos() - cpuStart
+                : cpuStart;
+            currentProbes[i].record(elapsed, cpu, errors.size() - before);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.kuvasz.iso20022.simulator.core.validator;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Expresión XPath compilada una vez por hilo.
+ *
+ * Ni XPathFactory, ni XPath ni XPathExpression son seguros entre hilos, y los validadores
+ * y el manejador de consultas de estado son singletons que el pipeline invoca en paralelo; compartir una instancia puede mezclar
+ * el estado de dos evaluaciones. Cada hilo compila su copia la primera vez que la usa.
+ */
+public final class XPathQuery {
+
+    private static final ThreadLocal<XPath> XPATHS = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+    private final String expression;
+    private final ThreadLocal<XPathExpression> compiled;
+
+    /**
+     * @throws IllegalArgumentException si la expresión no compila
+     */
+    public XPathQuery(String expression) {
+        this.expression = expression;
+        // Se compila ya para que una expresión inválida falle al crear el validador
+        XPathExpression first = compile(expression);
+        this.compiled = ThreadLocal.withInitial(() -> compile(expression));
+        this.compiled.set(first);
+    }
+
+    public NodeList nodes(Document document) throws XPathExpressionException {
+        return (NodeList) compiled.get().evaluate(document, XPathConstants.NODESET);
+    }
+
+    public String string(Document document) throws XPathExpressionException {
+        return (String) compiled.get().evaluate(document, XPathConstants.STRING);
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    private static XPathExpression compile(String expression) {
+        try {
+            return XPATHS.get().compile(expression);
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("Invalid XPath expression: " + expression, e);
+        }
+    }
+}
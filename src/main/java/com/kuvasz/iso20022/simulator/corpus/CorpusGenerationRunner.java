@@ -0,0 +1,55 @@
+package com.kuvasz.iso20022.simulator.corpus;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Escribe el corpus de {@code simulator.corpus} al arrancar con el perfil {@code corpus}:
+ * <pre>
+ * java -jar simulator.jar --spring.profiles.active=corpus \
+ *      --simulator.corpus.message-types=pacs.008,pain.001,pacs.004,camt.053 \
+ *      --simulator.corpus.count=1000000 --simulator.corpus.layout=LINES --simulator.corpus.error-rate=0.05
+ * </pre>
+ */
+@Component
+@Profile("corpus")
+public class CorpusGenerationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorpusGenerationRunner.class);
+
+    private final SimulatorProperties.Corpus config;
+    private final ConfigurableApplicationContext context;
+
+    public CorpusGenerationRunner(SimulatorProperties properties, ConfigurableApplicationContext context) {
+        this.config = properties.getCorpus();
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        SyntheticMessageGenerator generator = new SyntheticMessageGenerator(config, config.getIdPrefix(),
+            config.getLayout() == SimulatorProperties.Corpus.Layout.LINES);
+        Path output = Path.of(config.getOutputDirectory());
+        logger.info("Writing {} synthetic messages {} (seed {}, error rate {}) to {}", config.getCount(),
+            config.getMessageTypes(), config.getSeed(), config.getErrorRate(), output.toAbsolutePath());
+
+        CorpusWriter.Summary summary = CorpusWriter.write(generator, config.getCount(), output, config.getLayout());
+        logger.info("Corpus written: {} messages ({} invalid), {} MB in {} ms ({} MB/s)", summary.messages(),
+            summary.invalid(), summary.bytes() >> 20, summary.elapsedNanos() / 1_000_000,
+            Math.round(summary.megabytesPerSecond()));
+
+        if (config.isExitOnFinish()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
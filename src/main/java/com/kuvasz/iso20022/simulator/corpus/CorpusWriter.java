@@ -0,0 +1,104 @@
+package com.kuvasz.iso20022.simulator.corpus;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Escribe en disco un corpus de {@link SyntheticMessageGenerator}, mensaje a mensaje, sin
+ * retenerlo en memoria, junto con un {@code manifest.csv} que indica de cada mensaje dónde
+ * está, su tipo, número de transacciones, tamaño y error inyectado.
+ *
+ * Con {@link SimulatorProperties.Corpus.Layout#FILES} cada mensaje va en
+ * {@code 00000/000000000.xml} (1000 por subdirectorio); con
+ * {@link SimulatorProperties.Corpus.Layout#LINES} todos van en {@code corpus.ndxml}, un
+ * mensaje compacto por línea, más cómodo para corpus de varios GB.
+ */
+public final class CorpusWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorpusWriter.class);
+
+    static final String LINES_FILE = "corpus.ndxml";
+    static final String MANIFEST_FILE = "manifest.csv";
+
+    private static final int MESSAGES_PER_DIRECTORY = 1000;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long PROGRESS_INTERVAL_NANOS = 10_000_000_000L;
+
+    /**
+     * Resultado de la escritura; {@code bytes} sin contar el manifiesto
+     */
+    public record Summary(Path directory, long messages, long invalid, long bytes, long elapsedNanos) {
+
+        public double megabytesPerSecond() {
+            return elapsedNanos > 0 ? bytes / 1e6 / (elapsedNanos / 1e9) : 0;
+        }
+    }
+
+    private CorpusWriter() {
+    }
+
+    /**
+     * Escribe los mensajes 0..count-1 en {@code directory}, sustituyendo los ficheros de un corpus anterior
+     */
+    public static Summary write(SyntheticMessageGenerator generator, long count, Path directory,
+                                SimulatorProperties.Corpus.Layout layout) throws IOException {
+        boolean lines = layout == SimulatorProperties.Corpus.Layout.LINES;
+        if (lines && !generator.isCompact()) {
+            throw new IllegalArgumentException("The LINES layout needs a compact generator");
+        }
+        Files.createDirectories(directory);
+
+        long start = System.nanoTime();
+        long nextProgress = start + PROGRESS_INTERVAL_NANOS;
+        long invalid = 0;
+        long bytes = 0;
+        try (Writer manifest = writer(directory.resolve(MANIFEST_FILE));
+             Writer corpus = lines ? writer(directory.resolve(LINES_FILE)) : null) {
+            manifest.write("sequence,location,message_id,message_type,transactions,bytes,defect\n");
+            for (long sequence = 0; sequence < count; sequence++) {
+                SyntheticMessage message = generator.generate(sequence);
+                String location;
+                if (lines) {
+                    corpus.write(message.xml());
+                    corpus.write('\n');
+                    location = LINES_FILE + ":" + (sequence + 1);
+                } else {
+                    location = String.format(Locale.ROOT, "%05d/%09d.xml", sequence / MESSAGES_PER_DIRECTORY, sequence);
+                    Path file = directory.resolve(location);
+                    if (sequence % MESSAGES_PER_DIRECTORY == 0) {
+                        Files.createDirectories(file.getParent());
+                    }
+                    Files.writeString(file, message.xml(), StandardCharsets.UTF_8);
+                }
+                bytes += message.xml().length();
+                if (!message.valid()) {
+                    invalid++;
+                }
+                manifest.write(message.sequence() + "," + location + "," + message.messageId() + ","
+                    + message.messageType() + "," + message.transactions() + "," + message.xml().length() + ","
+                    + (message.valid() ? "" : message.defect().name()) + "\n");
+
+                long now = System.nanoTime();
+                if (now >= nextProgress) {
+                    logger.info("Corpus progress: {}/{} messages, {} MB", sequence + 1, count, bytes >> 20);
+                    nextProgress = now + PROGRESS_INTERVAL_NANOS;
+                }
+            }
+        }
+        return new Summary(directory, count, invalid, bytes, System.nanoTime() - start);
+    }
+
+    private static Writer writer(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,21 @@
+package com.kuvasz.iso20022.simulator.corpus;
+
+/**
+ * Error que {@link SyntheticMessageGenerator} inyecta en un mensaje inválido, con la etapa
+ * del pipeline que debe rechazarlo
+ */
+public enum Defect {
+
+    /** BIC del agente deudor con formato incorrecto en una transacción: reglas bicCodes */
+    BIC,
+    /** Moneda inexistente en una transacción: reglas currencies */
+    CURRENCY,
+    /** Importe negativo en una transacción: reglas amounts */
+    AMOUNT,
+    /** Cabecera sin MsgId: messageIdentification y las reglas de cabecera */
+    MESSAGE_ID,
+    /** CreDtTm de la cabecera fuera de ISO 8601: solo la regla dates de BusinessRuleValidator */
+    CREATION_DATE,
+    /** Documento truncado, XML mal formado: el parser */
+    MALFORMED
+}
@@ -0,0 +1,16 @@
+package com.kuvasz.iso20022.simulator.corpus;
+
+/**
+ * Mensaje generado por {@link SyntheticMessageGenerator}
+ *
+ * @param messageId   MsgId de la cabecera; no aparece en el XML si el error es {@link Defect#MESSAGE_ID}
+ * @param messageType tipo con versión, por ejemplo {@code pacs.008.001.08}
+ * @param defect      error inyectado, null si el mensaje es válido
+ */
+public record SyntheticMessage(long sequence, String messageId, String messageType, int transactions, Defect defect,
+                               String xml) {
+
+    public boolean valid() {
+        return defect == null;
+    }
+}
@@ -0,0 +1,684 @@
+package com.kuvasz.iso20022.simulator.corpus;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Generador de mensajes ISO 20022 sintéticos (pacs.008, pain.001, pacs.004 y camt.053) para
+ * pruebas, benchmarks y pruebas de carga.
+ *
+ * Cada mensaje depende solo de la semilla y de su número de secuencia, así que el corpus es
+ * reproducible y se puede generar en cualquier orden o en paralelo sin guardarlo en memoria.
+ * Los parámetros son los de {@code simulator.corpus}: número de transacciones o tamaño
+ * objetivo, longitud de nombres y conceptos, versiones de namespace, reparto Zipf de monedas
+ * y BICs y proporción de mensajes con un error inyectado ({@link Defect}).
+ *
+ * Los mensajes válidos pasan el parser y las reglas de {@code SimpleBusinessRuleValidator} y
+ * {@code BusinessRuleValidator} siempre que las monedas configuradas estén en sus listas;
+ * la estructura es la misma en todas las versiones de namespace, no la de cada XSD. Todo el
+ * contenido es ASCII, de modo que la longitud del XML es también su tamaño en bytes.
+ */
+public final class SyntheticMessageGenerator {
+
+    private static final Pattern ID_PREFIX = Pattern.compile("[A-Za-z0-9-]{1,20}");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 15, 10, 30);
+    private static final long SECONDS_PER_YEAR = 365L * 24 * 3600;
+
+    private static final String[] COUNTRIES = {"DE", "FR", "GB", "US", "CH", "ES", "IT", "NL", "BE", "JP", "CL", "MX", "BR"};
+    private static final String[] RETURN_REASONS = {"AC04", "AC06", "AM04", "MD07", "MS03"};
+    private static final String UPPERCASE = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String ALPHANUMERIC = UPPERCASE + "0123456789";
+    private static final String LOWERCASE = "abcdefghijklmnopqrstuvwxyz";
+    private static final String INVALID_CURRENCY = "XYZ";
+
+    // Importes log-uniformes entre 1.00 y 1 000 000.00
+    private static final double LOG_MIN_CENTS = Math.log(100);
+    private static final double LOG_MAX_CENTS = Math.log(100_000_000);
+
+    // Tamaño aproximado de cabecera y cierre, descontado del tamaño objetivo
+    private static final int ENVELOPE_BYTES = 512;
+
+    private final List<SyntheticMessageType> types;
+    private final Map<SyntheticMessageType, String[]> versions = new EnumMap<>(SyntheticMessageType.class);
+    private final int minTransactions;
+    private final int maxTransactions;
+    private final long targetBytes;
+    private final int minNameLength;
+    private final int maxNameLength;
+    private final int remittanceLength;
+    private final String[] currencies;
+    private final Zipf currencyChoice;
+    private final String[] bics;
+    private final Zipf bicChoice;
+    private final double errorRate;
+    private final Defect[] defects;
+    private final String idPrefix;
+    private final long seed;
+    private final boolean compact;
+    private final Map<SyntheticMessageType, Integer> transactionBytes;
+
+    /**
+     * Generador con el prefijo de identificadores configurado y XML indentado
+     */
+    public SyntheticMessageGenerator(SimulatorProperties.Corpus config) {
+        this(config, config.getIdPrefix(), false);
+    }
+
+    /**
+     * @param idPrefix prefijo de MsgId y demás identificadores, hasta 20 caracteres [A-Za-z0-9-]
+     * @param compact  sin indentación ni saltos de línea: un mensaje por línea
+     */
+    public SyntheticMessageGenerator(SimulatorProperties.Corpus config, String idPrefix, boolean compact) {
+        if (config.getMessageTypes().isEmpty()) {
+            throw new IllegalArgumentException("At least one message type is required");
+        }
+        if (config.getMinTransactions() > config.getMaxTransactions()) {
+            throw new IllegalArgumentException("min-transactions is greater than max-transactions");
+        }
+        if (config.getMinNameLength() > config.getMaxNameLength()) {
+            throw new IllegalArgumentException("min-name-length is greater than max-name-length");
+        }
+        if (config.getCurrencies().isEmpty()) {
+            throw new IllegalArgumentException("At least one currency is required");
+        }
+        if (config.getErrorRate() > 0 && config.getDefects().isEmpty()) {
+            throw new IllegalArgumentException("error-rate needs at least one defect kind");
+        }
+        if (!ID_PREFIX.matcher(idPrefix).matches()) {
+            throw new IllegalArgumentException("Invalid id prefix: " + idPrefix);
+        }
+
+        this.types = config.getMessageTypes().stream().map(SyntheticMessageType::of).distinct().toList();
+        for (SyntheticMessageType type : types) {
+            String[] configured = config.getNamespaceVersions().stream()
+                .map(version -> version.trim().toLowerCase(Locale.ROOT))
+                .filter(version -> SyntheticMessageType.of(version) == type)
+                .toArray(String[]::new);
+            versions.put(type, configured.length > 0 ? configured : new String[] {type.defaultVersion()});
+        }
+        this.minTransactions = config.getMinTransactions();
+        this.maxTransactions = config.getMaxTransactions();
+        this.targetBytes = config.getTargetSize().toBytes();
+        this.minNameLength = config.getMinNameLength();
+        this.maxNameLength = config.getMaxNameLength();
+        this.remittanceLength = config.getRemittanceLength();
+        this.currencies = config.getCurrencies().stream().map(c -> c.trim().toUpperCase(Locale.ROOT)).toArray(String[]::new);
+        this.currencyChoice = new Zipf(currencies.length, config.getCurrencySkew());
+        this.bics = bicPool(config.getBicCount(), config.getSeed());
+        this.bicChoice = new Zipf(bics.length, config.getBicSkew());
+        this.errorRate = config.getErrorRate();
+        this.defects = config.getDefects().toArray(new Defect[0]);
+        this.idPrefix = idPrefix;
+        this.seed = config.getSeed();
+        this.compact = compact;
+        this.transactionBytes = sampleTransactionBytes();
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * XML del mensaje número {@code sequence}
+     */
+    public String message(long sequence) {
+        return generate(sequence).xml();
+    }
+
+    /**
+     * Mensaje número {@code sequence}; la misma semilla y secuencia dan siempre el mismo mensaje
+     */
+    public SyntheticMessage generate(long sequence) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + sequence);
+        SyntheticMessageType type = types.get(random.nextInt(types.size()));
+        String[] typeVersions = versions.get(type);
+        String version = typeVersions[random.nextInt(typeVersions.length)];
+        Defect defect = isInvalid(sequence) ? defects[random.nextInt(defects.length)] : null;
+
+        Message message = new Message(type, idPrefix + "-" + sequence,
+            BASE_TIME.plusSeconds(Math.floorMod(sequence, SECONDS_PER_YEAR)), defect, random);
+        Xml body = new Xml(new StringBuilder(initialCapacity()), compact, type == SyntheticMessageType.CAMT_053 ? 3 : 2);
+        int transactions = transactions(message, body);
+
+        Xml xml = new Xml(new StringBuilder(body.out.length() + ENVELOPE_BYTES * 2), compact, 0);
+        xml.out.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        xml.newline();
+        xml.indent();
+        xml.out.append("<Document xmlns=\"").append(SyntheticMessageType.namespace(version)).append("\">");
+        xml.newline();
+        xml.depth++;
+        xml.start(type.root());
+        header(message, xml, transactions);
+        xml.out.append(body.out);
+        if (type == SyntheticMessageType.CAMT_053) {
+            xml.end("Stmt");
+        }
+        xml.end(type.root());
+        if (defect != Defect.MALFORMED) {
+            xml.end("Document");
+        }
+        return new SyntheticMessage(sequence, message.id, version, transactions, defect, xml.out.toString());
+    }
+
+    /**
+     * Mensajes con error repartidos a intervalos regulares: exactamente {@code errorRate} de
+     * cualquier tramo de secuencias, redondeando
+     */
+    boolean isInvalid(long sequence) {
+        return errorRate > 0 && Math.floor((sequence + 1) * errorRate) > Math.floor(sequence * errorRate);
+    }
+
+    private int initialCapacity() {
+        return (int) Math.min(targetBytes > 0 ? targetBytes + 4096 : 1024L * maxTransactions, Integer.MAX_VALUE - 64);
+    }
+
+    /**
+     * Escribe las transacciones y acumula la suma de control; devuelve cuántas son
+     */
+    private int transactions(Message message, Xml body) {
+        SplittableRandom random = message.random;
+        long bodyBytes = Math.max(0, targetBytes - ENVELOPE_BYTES);
+        // Con tamaño objetivo, las transacciones que caben según el tamaño medio del tipo
+        int planned = targetBytes > 0
+            ? (int) Math.max(1, Math.min(Integer.MAX_VALUE, bodyBytes / transactionBytes.get(message.type)))
+            : minTransactions + random.nextInt(maxTransactions - minTransactions + 1);
+        boolean transactionDefect = message.defect == Defect.BIC || message.defect == Defect.CURRENCY
+            || message.defect == Defect.AMOUNT;
+        int defectIndex = transactionDefect ? random.nextInt(planned) : -1;
+
+        int count = 0;
+        while (count < planned || body.out.length() < bodyBytes) {
+            transaction(body, new Transaction(message, count + 1, count == defectIndex ? message.defect : null));
+            count++;
+        }
+        return count;
+    }
+
+    private void transaction(Xml xml, Transaction transaction) {
+        switch (transaction.message.type) {
+            case PACS_008 -> creditTransfer(xml, transaction);
+            case PAIN_001 -> paymentInformation(xml, transaction);
+            case PACS_004 -> paymentReturn(xml, transaction);
+            case CAMT_053 -> statementEntry(xml, transaction);
+            default -> throw new IllegalStateException("Unknown message type " + transaction.message.type);
+        }
+        transaction.message.controlSum += transaction.cents;
+    }
+
+    /**
+     * Tamaño de una transacción de muestra de cada tipo, para repartir el error con tamaño objetivo
+     */
+    private Map<SyntheticMessageType, Integer> sampleTransactionBytes() {
+        Map<SyntheticMessageType, Integer> sizes = new EnumMap<>(SyntheticMessageType.class);
+        for (SyntheticMessageType type : types) {
+            Message sample = new Message(type, idPrefix + "-0", BASE_TIME, null, new SplittableRandom(seed));
+            Xml xml = new Xml(new StringBuilder(4096), compact, type == SyntheticMessageType.CAMT_053 ? 3 : 2);
+            transaction(xml, new Transaction(sample, 1, null));
+            sizes.put(type, xml.out.length());
+        }
+        return sizes;
+    }
+
+    private void header(Message message, Xml xml, int transactions) {
+        xml.start("GrpHdr");
+        if (message.defect != Defect.MESSAGE_ID) {
+            xml.element("MsgId", message.id);
+        }
+        xml.element("CreDtTm", message.defect == Defect.CREATION_DATE
+            ? message.created.format(DATE) + " " + message.created.toLocalTime()
+            : message.created.format(DATE_TIME));
+        switch (message.type) {
+            case PACS_008 -> {
+                xml.element("NbOfTxs", Integer.toString(transactions));
+                xml.leafStart("CtrlSum");
+                appendAmount(xml.out, message.controlSum);
+                xml.leafEnd("CtrlSum");
+                xml.start("SttlmInf");
+                xml.element("SttlmMtd", "CLRG");
+                xml.end("SttlmInf");
+                agent(xml, "InstgAgt", bic(message.random));
+                agent(xml, "InstdAgt", bic(message.random));
+            }
+            case PAIN_001 -> {
+                xml.element("NbOfTxs", Integer.toString(transactions));
+                xml.leafStart("CtrlSum");
+                appendAmount(xml.out, message.controlSum);
+                xml.leafEnd("CtrlSum");
+                party(xml, "InitgPty", message.random, false);
+            }
+            case PACS_004 -> {
+                xml.element("NbOfTxs", Integer.toString(transactions));
+                xml.start("SttlmInf");
+                xml.element("SttlmMtd", "CLRG");
+                xml.end("SttlmInf");
+                agent(xml, "InstgAgt", bic(message.random));
+                agent(xml, "InstdAgt", bic(message.random));
+            }
+            case CAMT_053 -> {
+                xml.end("GrpHdr");
+                xml.start("Stmt");
+                xml.element("Id", "STMT-" + message.id);
+                xml.element("CreDtTm", message.created.format(DATE_TIME));
+                xml.start("Acct");
+                xml.start("Id");
+                xml.leafStart("IBAN");
+                appendIban(xml.out, message.random);
+                xml.leafEnd("IBAN");
+                xml.end("Id");
+                xml.element("Ccy", currency(message.random));
+                xml.end("Acct");
+                xml.start("Bal");
+                xml.start("Tp");
+                xml.start("CdOrPrtry");
+                xml.element("Cd", "OPBD");
+                xml.end("CdOrPrtry");
+                xml.end("Tp");
+                xml.amount("Amt", currency(message.random), cents(message.random));
+                xml.element("CdtDbtInd", "CRDT");
+                xml.start("Dt");
+                xml.element("Dt", message.created.format(DATE));
+                xml.end("Dt");
+                xml.end("Bal");
+                return;
+            }
+            default -> throw new IllegalStateException("Unknown message type " + message.type);
+        }
+        xml.end("GrpHdr");
+    }
+
+    private void creditTransfer(Xml xml, Transaction tx) {
+        xml.start("CdtTrfTxInf");
+        xml.start("PmtId");
+        xml.element("InstrId", "INSTR-" + tx.id);
+        xml.element("EndToEndId", "E2E-" + tx.id);
+        xml.element("TxId", "TX-" + tx.id);
+        xml.end("PmtId");
+        xml.amount("IntrBkSttlmAmt", tx.currency, tx.cents);
+        xml.amount("InstdAmt", tx.currency, tx.cents);
+        xml.element("ChrgBr", "SLEV");
+        party(xml, "Dbtr", tx.random, false);
+        account(xml, "DbtrAcct", tx.random);
+        agent(xml, "DbtrAgt", tx.debtorAgent);
+        agent(xml, "CdtrAgt", tx.creditorAgent);
+        party(xml, "Cdtr", tx.random, false);
+        account(xml, "CdtrAcct", tx.random);
+        remittance(xml, tx.random);
+        // SimpleBusinessRuleValidator exige PmtInf en pacs.008
+        xml.start("PmtInf");
+        xml.element("PmtInfId", "PMT-" + tx.id);
+        xml.end("PmtInf");
+        xml.end("CdtTrfTxInf");
+    }
+
+    private void paymentInformation(Xml xml, Transaction tx) {
+        xml.start("PmtInf");
+        xml.element("PmtInfId", "PMT-" + tx.id);
+        xml.element("PmtMtd", "TRF");
+        xml.element("NbOfTxs", "1");
+        xml.element("CtrlSum", amountText(tx.cents));
+        xml.indent();
+        xml.out.append("<ReqdExctnDt><DtTm>").append(tx.message.created.plusDays(1).toLocalDate().format(DATE))
+            .append("T00:00:00</DtTm></ReqdExctnDt>");
+        xml.newline();
+        party(xml, "Dbtr", tx.random, false);
+        account(xml, "DbtrAcct", tx.random);
+        agent(xml, "DbtrAgt", tx.debtorAgent);
+        xml.start("CdtTrfTxInf");
+        xml.start("PmtId");
+        xml.element("InstrId", "INSTR-" + tx.id);
+        xml.element("EndToEndId", "E2E-" + tx.id);
+        xml.end("PmtId");
+        xml.wrappedAmount("Amt", "InstdAmt", tx.currency, tx.cents);
+        agent(xml, "CdtrAgt", tx.creditorAgent);
+        party(xml, "Cdtr", tx.random, false);
+        account(xml, "CdtrAcct", tx.random);
+        remittance(xml, tx.random);
+        xml.end("CdtTrfTxInf");
+        xml.end("PmtInf");
+    }
+
+    private void paymentReturn(Xml xml, Transaction tx) {
+        xml.start("TxInf");
+        xml.element("RtrId", "RTR-" + tx.id);
+        xml.element("OrgnlEndToEndId", "E2E-" + tx.id);
+        xml.element("OrgnlTxId", "TX-" + tx.id);
+        xml.amount("RtrdIntrBkSttlmAmt", tx.currency, tx.cents);
+        xml.start("RtrRsnInf");
+        xml.start("Rsn");
+        xml.element("Cd", RETURN_REASONS[tx.random.nextInt(RETURN_REASONS.length)]);
+        xml.end("Rsn");
+        xml.end("RtrRsnInf");
+        xml.start("OrgnlTxRef");
+        xml.wrappedAmount("Amt", "InstdAmt", tx.currency, tx.cents);
+        party(xml, "Dbtr", tx.random, true);
+        agent(xml, "DbtrAgt", tx.debtorAgent);
+        agent(xml, "CdtrAgt", tx.creditorAgent);
+        party(xml, "Cdtr", tx.random, true);
+        xml.end("OrgnlTxRef");
+        xml.end("TxInf");
+    }
+
+    private void statementEntry(Xml xml, Transaction tx) {
+        xml.start("Ntry");
+        xml.element("NtryRef", "NTRY-" + tx.id);
+        xml.amount("Amt", tx.currency, tx.cents);
+        xml.element("CdtDbtInd", tx.random.nextBoolean() ? "CRDT" : "DBIT");
+        xml.start("Sts");
+        xml.element("Cd", "BOOK");
+        xml.end("Sts");
+        xml.start("BookgDt");
+        xml.element("Dt", tx.message.created.format(DATE));
+        xml.end("BookgDt");
+        xml.element("AcctSvcrRef", "REF-" + tx.id);
+        xml.start("NtryDtls");
+        xml.start("TxDtls");
+        xml.start("Refs");
+        xml.element("EndToEndId", "E2E-" + tx.id);
+        xml.end("Refs");
+        xml.start("RltdPties");
+        party(xml, "Dbtr", tx.random, true);
+        party(xml, "Cdtr", tx.random, true);
+        xml.end("RltdPties");
+        xml.start("RltdAgts");
+        agent(xml, "DbtrAgt", tx.debtorAgent);
+        agent(xml, "CdtrAgt", tx.creditorAgent);
+        xml.end("RltdAgts");
+        remittance(xml, tx.random);
+        xml.end("TxDtls");
+        xml.end("NtryDtls");
+        xml.end("Ntry");
+    }
+
+    private void agent(Xml xml, String name, String bic) {
+        xml.start(name);
+        xml.start("FinInstnId");
+        xml.element("BICFI", bic);
+        xml.end("FinInstnId");
+        xml.end(name);
+    }
+
+    /**
+     * Parte con nombre; {@code choice} añade el nivel Pty de pacs.004 y camt.053
+     */
+    private void party(Xml xml, String name, SplittableRandom random, boolean choice) {
+        xml.start(name);
+        if (choice) {
+            xml.start("Pty");
+        }
+        xml.leafStart("Nm");
+        appendText(xml.out, random, minNameLength + random.nextInt(maxNameLength - minNameLength + 1));
+        xml.leafEnd("Nm");
+        if (choice) {
+            xml.end("Pty");
+        }
+        xml.end(name);
+    }
+
+    private void account(Xml xml, String name, SplittableRandom random) {
+        xml.start(name);
+        xml.start("Id");
+        xml.leafStart("IBAN");
+        appendIban(xml.out, random);
+        xml.leafEnd("IBAN");
+        xml.end("Id");
+        xml.end(name);
+    }
+
+    private void remittance(Xml xml, SplittableRandom random) {
+        if (remittanceLength == 0) {
+            return;
+        }
+        xml.start("RmtInf");
+        xml.leafStart("Ustrd");
+        appendText(xml.out, random, remittanceLength);
+        xml.leafEnd("Ustrd");
+        xml.end("RmtInf");
+    }
+
+    private String bic(SplittableRandom random) {
+        return bics[bicChoice.next(random)];
+    }
+
+    private String currency(SplittableRandom random) {
+        return currencies[currencyChoice.next(random)];
+    }
+
+    private static long cents(SplittableRandom random) {
+        return Math.round(Math.exp(LOG_MIN_CENTS + random.nextDouble() * (LOG_MAX_CENTS - LOG_MIN_CENTS)));
+    }
+
+    private static String amountText(long cents) {
+        StringBuilder text = new StringBuilder(16);
+        appendAmount(text, cents);
+        return text.toString();
+    }
+
+    private static void appendAmount(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        out.append(cents / 100).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+
+    private static void appendIban(StringBuilder out, SplittableRandom random) {
+        out.append(COUNTRIES[random.nextInt(COUNTRIES.length)]);
+        for (int i = 0; i < 20; i++) {
+            out.append((char) ('0' + random.nextInt(10)));
+        }
+    }
+
+    /**
+     * Palabras de 3 a 10 letras separadas por espacios, sin espacios en los extremos
+     */
+    private static void appendText(StringBuilder out, SplittableRandom random, int length) {
+        int wordLeft = 3 + random.nextInt(8);
+        boolean wordStart = true;
+        for (int i = 0; i < length; i++) {
+            if (wordLeft <= 0 && i < length - 1) {
+                out.append(' ');
+                wordLeft = 3 + random.nextInt(8);
+                wordStart = true;
+                continue;
+            }
+            char letter = LOWERCASE.charAt(random.nextInt(LOWERCASE.length()));
+            out.append(wordStart ? Character.toUpperCase(letter) : letter);
+            wordStart = false;
+            wordLeft--;
+        }
+    }
+
+    /**
+     * BICs válidos y deterministas: entidad, país, localidad y, a veces, sucursal
+     */
+    private static String[] bicPool(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5EED_B1C0_DE5L);
+        String[] pool = new String[count];
+        StringBuilder bic = new StringBuilder(11);
+        for (int i = 0; i < count; i++) {
+            bic.setLength(0);
+            for (int j = 0; j < 4; j++) {
+                bic.append(UPPERCASE.charAt(random.nextInt(UPPERCASE.length())));
+            }
+            bic.append(COUNTRIES[random.nextInt(COUNTRIES.length)]);
+            for (int j = 0; j < 2; j++) {
+                bic.append(ALPHANUMERIC.charAt(random.nextInt(ALPHANUMERIC.length())));
+            }
+            int branch = random.nextInt(3);
+            if (branch == 1) {
+                bic.append("XXX");
+            } else if (branch == 2) {
+                for (int j = 0; j < 3; j++) {
+                    bic.append(ALPHANUMERIC.charAt(random.nextInt(ALPHANUMERIC.length())));
+                }
+            }
+            pool[i] = bic.toString();
+        }
+        return pool;
+    }
+
+    /**
+     * Estado de un mensaje en generación
+     */
+    private static final class Message {
+        private final SyntheticMessageType type;
+        private final String id;
+        private final LocalDateTime created;
+        private final Defect defect;
+        private final SplittableRandom random;
+        private long controlSum;
+
+        private Message(SyntheticMessageType type, String id, LocalDateTime created, Defect defect,
+                        SplittableRandom random) {
+            this.type = type;
+            this.id = id;
+            this.created = created;
+            this.defect = defect;
+            this.random = random;
+        }
+    }
+
+    /**
+     * Valores de una transacción, con el error ya aplicado si le toca
+     */
+    private final class Transaction {
+        private final Message message;
+        private final SplittableRandom random;
+        private final String id;
+        private final long cents;
+        private final String currency;
+        private final String debtorAgent;
+        private final String creditorAgent;
+
+        private Transaction(Message message, int index, Defect defect) {
+            this.message = message;
+            this.random = message.random;
+            this.id = message.id + "-" + index;
+            long amount = cents(random);
+            this.cents = defect == Defect.AMOUNT ? -amount : amount;
+            String ccy = currency(random);
+            this.currency = defect == Defect.CURRENCY ? INVALID_CURRENCY : ccy;
+            String debtor = bic(random);
+            this.debtorAgent = defect == Defect.BIC ? debtor.substring(0, 4) + "-" + debtor.substring(4) : debtor;
+            this.creditorAgent = bic(random);
+        }
+    }
+
+    /**
+     * Reparto Zipf sobre índices 0..n-1: el peso de i es 1/(i+1)^exponente
+     */
+    private static final class Zipf {
+        private final double[] cumulative;
+
+        private Zipf(int size, double exponent) {
+            cumulative = new double[size];
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                total += 1.0 / Math.pow(i + 1, exponent);
+                cumulative[i] = total;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= total;
+            }
+        }
+
+        private int next(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+
+    /**
+     * Escritura de elementos con indentación opcional
+     */
+    private static final class Xml {
+        private static final String SPACES = " ".repeat(256);
+
+        private final StringBuilder out;
+        private final boolean compact;
+        private int depth;
+
+        private Xml(StringBuilder out, boolean compact, int depth) {
+            this.out = out;
+            this.compact = compact;
+            this.depth = depth;
+        }
+
+        private void start(String name) {
+            indent();
+            out.append('<').append(name).append('>');
+            newline();
+            depth++;
+        }
+
+        private void end(String name) {
+            depth--;
+            indent();
+            out.append("</").append(name).append('>');
+            newline();
+        }
+
+        private void element(String name, String value) {
+            leafStart(name);
+            out.append(value);
+            leafEnd(name);
+        }
+
+        private void leafStart(String name) {
+            indent();
+            out.append('<').append(name).append('>');
+        }
+
+        private void leafEnd(String name) {
+            out.append("</").append(name).append('>');
+            newline();
+        }
+
+        private void amount(String name, String currency, long cents) {
+            indent();
+            out.append('<').append(name).append(" Ccy=\"").append(currency).append("\">");
+            appendAmount(out, cents);
+            leafEnd(name);
+        }
+
+        /**
+         * Importe dentro de un elemento contenedor, en una línea: las reglas leen el texto del
+         * contenedor (Amt) sin recortar espacios
+         */
+        private void wrappedAmount(String wrapper, String name, String currency, long cents) {
+            indent();
+            out.append('<').append(wrapper).append("><").append(name).append(" Ccy=\"").append(currency).append("\">");
+            appendAmount(out, cents);
+            out.append("</").append(name).append("></").append(wrapper).append('>');
+            newline();
+        }
+
+        private void indent() {
+            if (!compact) {
+                out.append(SPACES, 0, Math.min(depth * 4, SPACES.length()));
+            }
+        }
+
+        private void newline() {
+            if (!compact) {
+                out.append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.kuvasz.iso20022.simulator.corpus;
+
+import java.util.Locale;
+
+/**
+ * Tipos de mensaje que sabe generar {@link SyntheticMessageGenerator}
+ */
+public enum SyntheticMessageType {
+
+    PACS_008("pacs.008", "001.08", "FIToFICstmrCdtTrf"),
+    PAIN_001("pain.001", "001.09", "CstmrCdtTrfInitn"),
+    PACS_004("pacs.004", "001.09", "PmtRtr"),
+    CAMT_053("camt.053", "001.08", "BkToCstmrStmt");
+
+    private static final String NAMESPACE_PREFIX = "urn:iso:std:iso:20022:tech:xsd:";
+
+    private final String family;
+    private final String defaultVersion;
+    private final String root;
+
+    SyntheticMessageType(String family, String defaultVersion, String root) {
+        this.family = family;
+        this.defaultVersion = family + "." + defaultVersion;
+        this.root = root;
+    }
+
+    /**
+     * Tipo sin versión, por ejemplo {@code pacs.008}
+     */
+    public String family() {
+        return family;
+    }
+
+    /**
+     * Versión usada si no se configura otra, por ejemplo {@code pacs.008.001.08}
+     */
+    public String defaultVersion() {
+        return defaultVersion;
+    }
+
+    /**
+     * Elemento bajo {@code Document}
+     */
+    public String root() {
+        return root;
+    }
+
+    static String namespace(String version) {
+        return NAMESPACE_PREFIX + version;
+    }
+
+    /**
+     * Tipo de {@code pacs.008}, {@code pacs.008.001.10} o {@code PACS_008}
+     */
+    public static SyntheticMessageType of(String name) {
+        String value = name.trim();
+        for (SyntheticMessageType type : values()) {
+            if (type.name().equalsIgnoreCase(value) || value.toLowerCase(Locale.ROOT).startsWith(type.family)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported synthetic message type: " + name);
+    }
+}
@@ -1,7 +1,11 @@
 package com.kuvasz.iso20022.simulator.exception;
 
 /**
- * Excepción base para errores relacionados con ISO 20022
+ * Excepción base para errores relacionados con ISO 20022.
+ *
+ * Las subclases ofrecen variantes sin stack trace para fallos esperados (mensajes
+ * inválidos), cuyo coste dominante sería {@code fillInStackTrace}; el stack trace se
+ * reserva para los errores inesperados.
  */
 public class ISO20022Exception extends Exception {
     
@@ -44,6 +48,16 @@ public class ISO20022Exception extends Exception {
         this.messageId = messageId;
     }
     
+    /**
+     * Constructor para variantes sin stack trace ni excepciones suprimidas
+     */
+    protected ISO20022Exception(String errorCode, String message, String messageId, Throwable cause,
+                                boolean writableStackTrace) {
+        super(message, cause, false, writableStackTrace);
+        this.errorCode = errorCode;
+        this.messageId = messageId;
+    }
+    
     public String getErrorCode() {
         return errorCode;
     }
@@ -8,45 +8,60 @@ import java.util.List;
  */
 public class ParsingException extends ISO20022Exception {
     
+    public static final String ERROR_CODE = "PARSING_ERROR";
+    
     private final List<ValidationError> validationErrors;
     private final String xpath;
     
     public ParsingException(String message) {
-        super("PARSING_ERROR", message);
+        super(ERROR_CODE, message);
         this.validationErrors = null;
         this.xpath = null;
     }
     
     public ParsingException(String message, Throwable cause) {
-        super("PARSING_ERROR", message, cause);
+        super(ERROR_CODE, message, cause);
         this.validationErrors = null;
         this.xpath = null;
     }
     
     public ParsingException(String message, String messageId) {
-        super("PARSING_ERROR", message, messageId);
+        super(ERROR_CODE, message, messageId);
         this.validationErrors = null;
         this.xpath = null;
     }
     
     public ParsingException(String message, String xpath, String messageId) {
-        super("PARSING_ERROR", message, messageId);
+        super(ERROR_CODE, message, messageId);
         this.xpath = xpath;
         this.validationErrors = null;
     }
     
     public ParsingException(String message, List<ValidationError> validationErrors) {
-        super("PARSING_ERROR", message);
+        super(ERROR_CODE, message);
         this.validationErrors = validationErrors;
         this.xpath = null;
     }
     
     public ParsingException(String message, List<ValidationError> validationErrors, String messageId) {
-        super("PARSING_ERROR", message, messageId);
+        super(ERROR_CODE, message, messageId);
         this.validationErrors = validationErrors;
         this.xpath = null;
     }
     
+    private ParsingException(String message, Throwable cause, boolean writableStackTrace) {
+        super(ERROR_CODE, message, null, cause, writableStackTrace);
+        this.validationErrors = null;
+        this.xpath = null;
+    }
+    
+    /**
+     * Rechazo esperado de un mensaje malformado, sin stack trace propio
+     */
+    public static ParsingException expected(String message, Throwable cause) {
+        return new ParsingException(message, cause, false);
+    }
+    
     public List<ValidationError> getValidationErrors() {
         return validationErrors;
     }
@@ -8,38 +8,52 @@ import java.util.List;
  */
 public class ValidationException extends ISO20022Exception {
     
+    public static final String ERROR_CODE = "VALIDATION_ERROR";
+    
     private final List<ValidationError> validationErrors;
     
     public ValidationException(String message) {
-        super("VALIDATION_ERROR", message);
+        super(ERROR_CODE, message);
         this.validationErrors = null;
     }
     
     public ValidationException(String message, String messageId) {
-        super("VALIDATION_ERROR", message, messageId);
+        super(ERROR_CODE, message, messageId);
         this.validationErrors = null;
     }
     
     public ValidationException(String message, List<ValidationError> validationErrors) {
-        super("VALIDATION_ERROR", message);
+        super(ERROR_CODE, message);
         this.validationErrors = validationErrors;
     }
     
     public ValidationException(String message, List<ValidationError> validationErrors, String messageId) {
-        super("VALIDATION_ERROR", message, messageId);
+        super(ERROR_CODE, message, messageId);
         this.validationErrors = validationErrors;
     }
     
     public ValidationException(ValidationError error) {
-        super("VALIDATION_ERROR", error.getMessage());
+        super(ERROR_CODE, error.getMessage());
         this.validationErrors = List.of(error);
     }
     
     public ValidationException(ValidationError error, String messageId) {
-        super("VALIDATION_ERROR", error.getMessage(), messageId);
+        super(ERROR_CODE, error.getMessage(), messageId);
         this.validationErrors = List.of(error);
     }
     
+    private ValidationException(String message, boolean writableStackTrace) {
+        super(ERROR_CODE, message, null, null, writableStackTrace);
+        this.validationErrors = null;
+    }
+    
+    /**
+     * Validación abortada por un mensaje que no permite validar, sin stack trace
+     */
+    public static ValidationException expected(String message) {
+        return new ValidationException(message, false);
+    }
+    
     public List<ValidationError> getValidationErrors() {
         return validationErrors;
     }
@@ -0,0 +1,180 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Exportación como extracto camt.053 o informe camt.052 escrito con StAX: cada
+ * transacción es un Ntry y nada del documento se mantiene en memoria.
+ *
+ * TxsSummry se rellena con un agregado previo por divisa ({@link ExportTotals}) porque debe
+ * preceder a los apuntes. Cuenta solo los apuntes contabilizados y Sum, que no lleva divisa,
+ * se omite si hay más de una; los saldos (Bal) se omiten al no existir un saldo de cuenta
+ * del simulador.
+ */
+class CamtExportWriter implements TransactionExportWriter {
+
+    private static final DateTimeFormatter ISO_DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private final ExportFormat format;
+    private final String account;
+    private final XMLStreamWriter xml;
+
+    CamtExportWriter(ExportFormat format, OutputStream output, String account) throws IOException {
+        this.format = format;
+        this.account = account;
+        try {
+            this.xml = OUTPUT_FACTORY.createXMLStreamWriter(output, "UTF-8");
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not create XML writer: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void writeHeader(ExportRequest request, ExportTotals totals) throws IOException {
+        String now = LocalDateTime.now().format(ISO_DATETIME_FORMATTER);
+        String messageId = "SIM" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
+        try {
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeCharacters("\n");
+            xml.writeStartElement("Document");
+            xml.writeDefaultNamespace(format.getNamespace());
+            xml.writeStartElement(format == ExportFormat.CAMT_053 ? "BkToCstmrStmt" : "BkToCstmrAcctRpt");
+
+            xml.writeStartElement("GrpHdr");
+            element("MsgId", messageId);
+            element("CreDtTm", now);
+            xml.writeEndElement();
+
+            xml.writeStartElement(format == ExportFormat.CAMT_053 ? "Stmt" : "Rpt");
+            element("Id", messageId);
+            element("CreDtTm", now);
+            xml.writeStartElement("FrToDt");
+            element("FrDtTm", request.getFrom().format(ISO_DATETIME_FORMATTER));
+            element("ToDtTm", request.getTo().format(ISO_DATETIME_FORMATTER));
+            xml.writeEndElement();
+            xml.writeStartElement("Acct");
+            xml.writeStartElement("Id");
+            xml.writeStartElement("Othr");
+            element("Id", account);
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndElement();
+
+            xml.writeStartElement("TxsSummry");
+            xml.writeStartElement("TtlNtries");
+            element("NbOfNtries", Long.toString(totals.getBookedCount()));
+            BigDecimal sum = totals.getSingleCurrencySum();
+            if (sum != null) {
+                element("Sum", sum.toPlainString());
+            }
+            xml.writeEndElement();
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not write camt header: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void writeRow(ExportRow row) throws IOException {
+        try {
+            xml.writeStartElement("Ntry");
+            element("NtryRef", row.getTransactionId());
+            xml.writeStartElement("Amt");
+            xml.writeAttribute("Ccy", row.getCurrency() != null ? row.getCurrency() : "XXX");
+            xml.writeCharacters(row.getAmount() != null ? row.getAmount().toPlainString() : "0.00");
+            xml.writeEndElement();
+            // pain.001 es una orden emitida por el cliente (cargo); el resto son abonos recibidos
+            element("CdtDbtInd", row.getMessageType() != null && row.getMessageType().startsWith("pain.001")
+                ? "DBIT" : "CRDT");
+            xml.writeStartElement("Sts");
+            element("Cd", entryStatus(row.getStatus()));
+            xml.writeEndElement();
+            if (row.getCreatedAt() != null) {
+                xml.writeStartElement("BookgDt");
+                element("DtTm", row.getCreatedAt().format(ISO_DATETIME_FORMATTER));
+                xml.writeEndElement();
+            }
+            xml.writeStartElement("BkTxCd");
+            xml.writeStartElement("Prtry");
+            element("Cd", row.getMessageType());
+            xml.writeEndElement();
+            xml.writeEndElement();
+
+            xml.writeStartElement("NtryDtls");
+            xml.writeStartElement("TxDtls");
+            xml.writeStartElement("Refs");
+            element("MsgId", row.getTransactionId());
+            xml.writeEndElement();
+            xml.writeStartElement("RltdPties");
+            party("Dbtr", row.getSender());
+            party("Cdtr", row.getReceiver());
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndElement();
+
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not write camt entry " + row.getTransactionId() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void writeFooter() throws IOException {
+        try {
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not write camt footer: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        try {
+            xml.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not flush camt writer: " + e.getMessage(), e);
+        }
+    }
+
+    private void party(String role, String name) throws XMLStreamException {
+        xml.writeStartElement(role);
+        xml.writeStartElement("Pty");
+        element("Nm", name != null ? name : "UNKNOWN");
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private void element(String name, String value) throws XMLStreamException {
+        xml.writeStartElement(name);
+        if (value != null) {
+            xml.writeCharacters(value);
+        }
+        xml.writeEndElement();
+    }
+
+    /**
+     * Mapea el estado de procesamiento al ExternalEntryStatus1Code
+     */
+    private static String entryStatus(String status) {
+        if (ExportTotals.isBooked(status)) {
+            return "BOOK";
+        }
+        if ("PENDING".equals(status)) {
+            return "PDNG";
+        }
+        return "INFO";
+    }
+}
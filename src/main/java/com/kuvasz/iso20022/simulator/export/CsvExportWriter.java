@@ -0,0 +1,86 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exportación CSV (RFC 4180) con cabecera
+ */
+class CsvExportWriter implements TransactionExportWriter {
+
+    static final String HEADER = "transaction_id,message_type,sender,receiver,amount,currency,status,created_at";
+
+    private final Writer writer;
+
+    CsvExportWriter(OutputStream output) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 8192);
+    }
+
+    @Override
+    public void writeHeader(ExportRequest request, ExportTotals totals) throws IOException {
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void writeRow(ExportRow row) throws IOException {
+        writeField(row.getTransactionId());
+        writer.write(',');
+        writeField(row.getMessageType());
+        writer.write(',');
+        writeField(row.getSender());
+        writer.write(',');
+        writeField(row.getReceiver());
+        writer.write(',');
+        if (row.getAmount() != null) {
+            writer.write(row.getAmount().toPlainString());
+        }
+        writer.write(',');
+        writeField(row.getCurrency());
+        writer.write(',');
+        writeField(row.getStatus());
+        writer.write(',');
+        if (row.getCreatedAt() != null) {
+            writer.write(row.getCreatedAt().toString());
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void writeFooter() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
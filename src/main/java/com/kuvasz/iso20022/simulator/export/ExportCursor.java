@@ -0,0 +1,149 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Cursor de servidor sobre la tabla transactions que escribe las filas en el writer del
+ * formato pedido. Con autocommit desactivado y fetchSize, PostgreSQL devuelve las filas
+ * por bloques en lugar de materializar el resultado completo en la JVM.
+ */
+final class ExportCursor implements AutoCloseable {
+
+    private static final String BOOKED_CONDITION = "status IN ('" + String.join("', '", ExportTotals.BOOKED_STATUSES) + "')";
+
+    private static final String SUMMARY_SQL =
+        "SELECT currency, COUNT(CASE WHEN " + BOOKED_CONDITION + " THEN 1 END), "
+            + "COALESCE(SUM(CASE WHEN " + BOOKED_CONDITION + " THEN amount END), 0) "
+            + "FROM transactions WHERE created_at >= ? AND created_at < ?";
+
+    private static final String SELECT_SQL =
+        "SELECT " + ExportRow.COLUMNS + " FROM transactions WHERE created_at >= ? AND created_at < ?";
+
+    private final ExportRequest request;
+    private final ExportRow row = new ExportRow();
+
+    private Connection connection;
+    private boolean previousAutoCommit;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private TransactionExportWriter writer;
+
+    private final ExportTotals totals = new ExportTotals();
+    private long rowsWritten;
+    private boolean finished;
+
+    ExportCursor(ExportRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Abre la conexión y el cursor y escribe la cabecera en {@code output}
+     */
+    void open(DataSource dataSource, int fetchSize, OutputStream output, String account)
+        throws SQLException, IOException {
+        connection = dataSource.getConnection();
+        previousAutoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        connection.setReadOnly(true);
+
+        try (PreparedStatement summary = connection.prepareStatement(withStatusFilter(SUMMARY_SQL) + " GROUP BY currency")) {
+            bindFilter(summary);
+            try (ResultSet groups = summary.executeQuery()) {
+                while (groups.next()) {
+                    totals.add(groups.getString(1), groups.getLong(2), groups.getBigDecimal(3));
+                }
+            }
+        }
+
+        statement = connection.prepareStatement(withStatusFilter(SELECT_SQL) + " ORDER BY id",
+            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        bindFilter(statement);
+        resultSet = statement.executeQuery();
+
+        writer = TransactionExportWriter.create(request.getFormat(), output, account);
+        writer.writeHeader(request, totals);
+    }
+
+    /**
+     * Escribe hasta {@code maxRows} filas; al agotar el cursor escribe el pie
+     *
+     * @return false cuando la exportación ha terminado
+     */
+    boolean writeRows(int maxRows) throws SQLException, IOException {
+        if (finished) {
+            return false;
+        }
+        for (int i = 0; i < maxRows; i++) {
+            if (!resultSet.next()) {
+                writer.writeFooter();
+                finished = true;
+                return false;
+            }
+            row.load(resultSet);
+            writer.writeRow(row);
+            rowsWritten++;
+        }
+        return true;
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    ExportTotals getTotals() {
+        return totals;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (statement != null) {
+                statement.close();
+            }
+        } catch (SQLException ignored) {
+            // El cierre de la conexión libera igualmente el cursor
+        }
+        if (connection != null) {
+            try {
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(previousAutoCommit);
+            } catch (SQLException ignored) {
+                // La conexión se descarta a continuación
+            }
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Nada más que hacer
+            }
+            connection = null;
+        }
+    }
+
+    private String withStatusFilter(String sql) {
+        return request.hasStatus() ? sql + " AND status = ?" : sql;
+    }
+
+    private void bindFilter(PreparedStatement statement) throws SQLException {
+        statement.setTimestamp(1, Timestamp.valueOf(request.getFrom()));
+        statement.setTimestamp(2, Timestamp.valueOf(request.getTo()));
+        if (request.hasStatus()) {
+            statement.setString(3, request.getStatus());
+        }
+    }
+}
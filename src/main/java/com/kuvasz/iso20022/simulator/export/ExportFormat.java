@@ -0,0 +1,60 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import java.util.Locale;
+
+/**
+ * Formatos de exportación de transacciones
+ */
+public enum ExportFormat {
+
+    /** Extracto de cuenta (BkToCstmrStmt) */
+    CAMT_053("urn:iso:std:iso:20022:tech:xsd:camt.053.001.08", "xml", "application/xml"),
+    /** Informe intradía de cuenta (BkToCstmrAcctRpt) */
+    CAMT_052("urn:iso:std:iso:20022:tech:xsd:camt.052.001.08", "xml", "application/xml"),
+    CSV(null, "csv", "text/csv");
+
+    private final String namespace;
+    private final String fileExtension;
+    private final String contentType;
+
+    ExportFormat(String namespace, String fileExtension, String contentType) {
+        this.namespace = namespace;
+        this.fileExtension = fileExtension;
+        this.contentType = contentType;
+    }
+
+    /**
+     * Acepta "camt.053", "camt053", "CAMT_053" o "csv"
+     */
+    public static ExportFormat fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        String normalized = value.trim().toUpperCase(Locale.ROOT).replace('.', '_');
+        return switch (normalized) {
+            case "CAMT_053", "CAMT053" -> CAMT_053;
+            case "CAMT_052", "CAMT052" -> CAMT_052;
+            case "CSV" -> CSV;
+            default -> throw new IllegalArgumentException("Unsupported export format: " + value);
+        };
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Etiqueta corta para nombres de fichero y métricas (camt053, camt052, csv)
+     */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT).replace("_", "");
+    }
+}
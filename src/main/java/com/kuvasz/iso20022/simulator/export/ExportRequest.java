@@ -0,0 +1,85 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Criterios de una exportación: formato, intervalo [from, to) sobre created_at y,
+ * opcionalmente, el estado de las transacciones
+ */
+public final class ExportRequest {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    private final ExportFormat format;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final String status;
+
+    public ExportRequest(ExportFormat format, LocalDateTime from, LocalDateTime to, String status) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Export range is empty: " + from + " - " + to);
+        }
+        this.format = format;
+        this.from = from;
+        this.to = to;
+        this.status = status;
+    }
+
+    /**
+     * Exportación diaria: todas las transacciones creadas en {@code day}
+     */
+    public static ExportRequest forDay(ExportFormat format, LocalDate day, String status) {
+        return new ExportRequest(format, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), status);
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean hasStatus() {
+        return status != null && !status.isBlank();
+    }
+
+    /**
+     * Nombre de fichero sugerido, distinto para cada combinación de criterios, p.ej.
+     * transactions-camt053-2024-01-15.xml o
+     * transactions-csv-20240115T090000_20240115T120000-RJCT.csv
+     */
+    public String getFileName() {
+        StringBuilder name = new StringBuilder("transactions-").append(format.tag()).append('-');
+        if (isWholeDay()) {
+            name.append(from.toLocalDate());
+        } else {
+            name.append(FILE_TIMESTAMP.format(from)).append('_').append(FILE_TIMESTAMP.format(to));
+        }
+        if (hasStatus()) {
+            // El estado llega de la petición: solo caracteres seguros en un nombre de fichero
+            name.append('-').append(status.trim().replaceAll("[^A-Za-z0-9]", "_"));
+        }
+        return name.append('.').append(format.getFileExtension()).toString();
+    }
+
+    private boolean isWholeDay() {
+        return from.toLocalTime().equals(LocalTime.MIDNIGHT) && to.equals(from.plusDays(1));
+    }
+
+    @Override
+    public String toString() {
+        return "ExportRequest{format=" + format + ", from=" + from + ", to=" + to + ", status=" + status + "}";
+    }
+}
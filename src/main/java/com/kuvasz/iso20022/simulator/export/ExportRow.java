@@ -0,0 +1,70 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Fila de exportación mutable y reutilizada para todo el cursor, de modo que recorrer
+ * millones de filas no crea un objeto por fila
+ */
+public final class ExportRow {
+
+    static final String COLUMNS =
+        "transaction_id, message_type, sender, receiver, amount, currency, status, created_at";
+
+    private String transactionId;
+    private String messageType;
+    private String sender;
+    private String receiver;
+    private BigDecimal amount;
+    private String currency;
+    private String status;
+    private LocalDateTime createdAt;
+
+    void load(ResultSet resultSet) throws SQLException {
+        transactionId = resultSet.getString(1);
+        messageType = resultSet.getString(2);
+        sender = resultSet.getString(3);
+        receiver = resultSet.getString(4);
+        amount = resultSet.getBigDecimal(5);
+        currency = resultSet.getString(6);
+        status = resultSet.getString(7);
+        Timestamp created = resultSet.getTimestamp(8);
+        createdAt = created != null ? created.toLocalDateTime() : null;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getMessageType() {
+        return messageType;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public String getReceiver() {
+        return receiver;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
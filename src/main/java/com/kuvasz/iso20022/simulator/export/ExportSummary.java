@@ -0,0 +1,50 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Resultado de una exportación: filas y bytes escritos y duración
+ */
+public final class ExportSummary {
+
+    private final long rows;
+    private final Map<String, BigDecimal> sumByCurrency;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    ExportSummary(long rows, Map<String, BigDecimal> sumByCurrency, long bytes, long elapsedNanos) {
+        this.rows = rows;
+        this.sumByCurrency = sumByCurrency;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Importe de los apuntes contabilizados por divisa
+     */
+    public Map<String, BigDecimal> getSumByCurrency() {
+        return sumByCurrency;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rows * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportSummary{rows=" + rows + ", bytes=" + bytes + ", elapsedMs=" + elapsedNanos / 1_000_000 + "}";
+    }
+}
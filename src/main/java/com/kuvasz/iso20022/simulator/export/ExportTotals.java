@@ -0,0 +1,57 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Totales de apuntes contabilizados de una exportación, por divisa. Solo cuentan las
+ * transacciones aceptadas ({@link #BOOKED_STATUSES}); las rechazadas se exportan como
+ * apuntes informativos pero no suman, y nunca se suman importes de divisas distintas.
+ */
+public final class ExportTotals {
+
+    /** Estados de procesamiento que se exportan como apuntes contabilizados (BOOK) */
+    static final List<String> BOOKED_STATUSES = List.of("SUCCESS", "WARNING");
+
+    private static final String UNKNOWN_CURRENCY = "XXX";
+
+    private final Map<String, BigDecimal> sumByCurrency = new TreeMap<>();
+    private long bookedCount;
+
+    static boolean isBooked(String status) {
+        return BOOKED_STATUSES.contains(status);
+    }
+
+    void add(String currency, long count, BigDecimal sum) {
+        if (count == 0) {
+            return;
+        }
+        bookedCount += count;
+        sumByCurrency.merge(currency != null ? currency : UNKNOWN_CURRENCY,
+            sum != null ? sum : BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public long getBookedCount() {
+        return bookedCount;
+    }
+
+    /**
+     * Suma de los apuntes contabilizados por divisa, ordenada por código
+     */
+    public Map<String, BigDecimal> getSumByCurrency() {
+        return Collections.unmodifiableMap(sumByCurrency);
+    }
+
+    /**
+     * Suma total si todos los apuntes contabilizados son de la misma divisa; null en otro caso
+     */
+    public BigDecimal getSingleCurrencySum() {
+        if (sumByCurrency.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        return sumByCurrency.size() == 1 ? sumByCurrency.values().iterator().next() : null;
+    }
+}
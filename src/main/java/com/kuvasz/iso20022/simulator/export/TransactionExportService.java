@@ -0,0 +1,245 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exporta transacciones procesadas como camt.053, camt.052 o CSV en memoria constante.
+ *
+ * Las filas se leen con un cursor JDBC ({@code fetch-size}) y se escriben directamente en
+ * el writer del formato. Hacia HTTP la exportación es un Flux de chunks de
+ * {@code chunk-size} generados bajo demanda: el cursor solo avanza cuando el cliente pide
+ * el siguiente chunk, por lo que un cliente lento no acumula datos en memoria.
+ */
+@Service
+public class TransactionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionExportService.class);
+
+    // Filas escritas entre comprobaciones del tamaño del chunk
+    private static final int ROWS_PER_CHECK = 64;
+
+    private final DataSource dataSource;
+    private final SimulatorProperties.Export config;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeExports = new AtomicInteger();
+
+    public TransactionExportService(DataSource dataSource, SimulatorProperties properties, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.config = properties.getExport();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("simulator.export.active", activeExports, AtomicInteger::get)
+            .description("Exportaciones en curso")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Escribe la exportación completa en {@code output} de forma bloqueante
+     */
+    public ExportSummary exportTo(ExportRequest request, OutputStream output) throws IOException {
+        long startTime = System.nanoTime();
+        activeExports.incrementAndGet();
+        CountingOutputStream counting = new CountingOutputStream(output);
+        boolean success = false;
+        try (ExportCursor cursor = new ExportCursor(request)) {
+            cursor.open(dataSource, config.getFetchSize(), counting, config.getStatementAccount());
+            // El writer vacía su buffer en el stream a medida que se llena
+            cursor.writeRows(Integer.MAX_VALUE);
+            counting.flush();
+            success = true;
+            return record(request, cursor, counting.getCount(), startTime, true);
+        } catch (SQLException e) {
+            throw new IOException("Export query failed: " + e.getMessage(), e);
+        } finally {
+            activeExports.decrementAndGet();
+            if (!success) {
+                recordFailure(request, startTime);
+            }
+        }
+    }
+
+    /**
+     * Exporta a un fichero en {@code simulator.export.directory}. Se escribe en un fichero
+     * temporal que se renombra al terminar, así nunca se observa un fichero a medias. Cada
+     * exportación tiene su propio temporal, de modo que dos exportaciones simultáneas no se pisan.
+     */
+    public Path exportToFile(ExportRequest request) throws IOException {
+        Path directory = Path.of(config.getDirectory());
+        Files.createDirectories(directory);
+        Path target = directory.resolve(request.getFileName());
+        Path temporary = Files.createTempFile(directory, request.getFileName() + ".", ".part");
+
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporary), 64 * 1024)) {
+            ExportSummary summary = exportTo(request, output);
+            logger.info("Exported {} transactions ({} bytes) to {} in {} ms", summary.getRows(), summary.getBytes(),
+                target, TimeUnit.NANOSECONDS.toMillis(summary.getElapsedNanos()));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        return Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Exportación como flujo de chunks para respuestas HTTP
+     */
+    public Flux<DataBuffer> stream(ExportRequest request, DataBufferFactory bufferFactory) {
+        int chunkSize = (int) config.getChunkSize().toBytes();
+
+        return Flux.<DataBuffer, StreamState>generate(
+                () -> openStream(request, chunkSize),
+                (state, sink) -> {
+                    try {
+                        if (!state.nextChunk(chunkSize)) {
+                            sink.complete();
+                            return state;
+                        }
+                        byte[] chunk = state.buffer.toByteArray();
+                        state.buffer.reset();
+                        state.bytes += chunk.length;
+                        sink.next(bufferFactory.wrap(chunk));
+                    } catch (SQLException | IOException e) {
+                        sink.error(new IOException("Export failed after " + state.cursor.getRowsWritten()
+                            + " rows: " + e.getMessage(), e));
+                    }
+                    return state;
+                },
+                state -> closeStream(request, state))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private StreamState openStream(ExportRequest request, int chunkSize) {
+        activeExports.incrementAndGet();
+        StreamState state = new StreamState(new ExportCursor(request), new ByteArrayOutputStream(chunkSize + 8192));
+        try {
+            state.cursor.open(dataSource, config.getFetchSize(), state.buffer, config.getStatementAccount());
+        } catch (SQLException | IOException e) {
+            state.cursor.close();
+            activeExports.decrementAndGet();
+            recordFailure(request, state.startTime);
+            throw new IllegalStateException("Could not open export cursor: " + e.getMessage(), e);
+        }
+        return state;
+    }
+
+    private void closeStream(ExportRequest request, StreamState state) {
+        state.cursor.close();
+        try {
+            if (state.completed) {
+                record(request, state.cursor, state.bytes, state.startTime, false);
+            } else {
+                // Error o cancelación del cliente
+                recordFailure(request, state.startTime);
+            }
+        } finally {
+            activeExports.decrementAndGet();
+        }
+    }
+
+    private ExportSummary record(ExportRequest request, ExportCursor cursor, long bytes, long startTime, boolean log) {
+        long elapsedNanos = System.nanoTime() - startTime;
+        ExportSummary summary = new ExportSummary(cursor.getRowsWritten(), cursor.getTotals().getSumByCurrency(), bytes, elapsedNanos);
+        String format = request.getFormat().tag();
+
+        Counter.builder("simulator.export.rows").tag("format", format).register(meterRegistry)
+            .increment(summary.getRows());
+        Counter.builder("simulator.export.bytes").tag("format", format).baseUnit("bytes").register(meterRegistry)
+            .increment(summary.getBytes());
+        Timer.builder("simulator.export.duration").tag("format", format).tag("outcome", "completed")
+            .register(meterRegistry).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("simulator.export.throughput").tag("format", format).baseUnit("rows/s")
+            .description("Filas exportadas por segundo en cada exportación")
+            .register(meterRegistry).record(summary.getRowsPerSecond());
+
+        if (log) {
+            logger.debug("Export {} finished: {}", request, summary);
+        }
+        return summary;
+    }
+
+    private void recordFailure(ExportRequest request, long startTime) {
+        Timer.builder("simulator.export.duration").tag("format", request.getFormat().tag()).tag("outcome", "failed")
+            .register(meterRegistry).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Estado de una exportación en streaming: cursor abierto y buffer del chunk actual
+     */
+    private static final class StreamState {
+        private final ExportCursor cursor;
+        private final ByteArrayOutputStream buffer;
+        private final long startTime = System.nanoTime();
+        private long bytes;
+        private boolean completed;
+
+        private StreamState(ExportCursor cursor, ByteArrayOutputStream buffer) {
+            this.cursor = cursor;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Rellena el buffer hasta {@code chunkSize} bytes o hasta agotar el cursor
+         *
+         * @return false si no queda nada que emitir
+         */
+        private boolean nextChunk(int chunkSize) throws SQLException, IOException {
+            boolean more = !completed;
+            while (more && buffer.size() < chunkSize) {
+                more = cursor.writeRows(ROWS_PER_CHECK);
+                cursor.flush();
+            }
+            if (!more) {
+                completed = true;
+            }
+            return buffer.size() > 0;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Escritor incremental de exportaciones: cabecera, una llamada por fila y pie. Ninguna
+ * implementación retiene filas; todo se escribe directamente en el stream de salida.
+ */
+public interface TransactionExportWriter {
+
+    void writeHeader(ExportRequest request, ExportTotals totals) throws IOException;
+
+    void writeRow(ExportRow row) throws IOException;
+
+    void writeFooter() throws IOException;
+
+    /**
+     * Vacía los buffers internos en el stream de salida
+     */
+    void flush() throws IOException;
+
+    static TransactionExportWriter create(ExportFormat format, OutputStream output, String account) throws IOException {
+        return format == ExportFormat.CSV
+            ? new CsvExportWriter(output)
+            : new CamtExportWriter(format, output, account);
+    }
+}
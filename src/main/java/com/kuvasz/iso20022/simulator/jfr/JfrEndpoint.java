@@ -0,0 +1,83 @@
+package com.kuvasz.iso20022.simulator.jfr;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Endpoint {@code /actuator/jfr}:
+ * GET lista las grabaciones; POST inicia una con {@code simulator.jfr.settings} hasta pararla,
+ * POST {@code /{settings}} con otra configuración ("default" o "profile") y
+ * POST {@code /{settings}/{duration}} durante un tiempo fijo (p.ej. {@code /profile/60s}).
+ * GET {@code /{id}} descarga un volcado .jfr para abrir en JMC y DELETE {@code /{id}} la para.
+ *
+ * Inicia y para grabaciones y no tiene autenticación propia, por lo que está deshabilitado
+ * por defecto: se activa con {@code management.endpoint.jfr.enabled=true} y añadiéndolo a
+ * {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "jfr", enableByDefault = false)
+public class JfrEndpoint {
+
+    private final JfrRecordingManager manager;
+
+    public JfrEndpoint(JfrRecordingManager manager) {
+        this.manager = manager;
+    }
+
+    @ReadOperation
+    public List<JfrRecordingManager.RecordingInfo> recordings() {
+        return manager.listRecordings();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> start() {
+        return start(null, null);
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> start(@Selector String settings) {
+        return start(settings, null);
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Object> start(@Selector String settings, @Selector Duration duration) {
+        try {
+            return new WebEndpointResponse<>(manager.startRecording(null, settings, duration));
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(e.getMessage(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id) throws IOException {
+        try {
+            // El volcado temporal se borra cuando termina de enviarse
+            return new WebEndpointResponse<>(new InputStreamResource(manager.openDump(id)));
+        } catch (NoSuchElementException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<JfrRecordingManager.RecordingInfo> stop(@Selector long id) {
+        try {
+            return new WebEndpointResponse<>(manager.stopRecording(id));
+        } catch (NoSuchElementException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+    }
+}
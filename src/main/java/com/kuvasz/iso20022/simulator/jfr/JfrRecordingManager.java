@@ -0,0 +1,176 @@
+package com.kuvasz.iso20022.simulator.jfr;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Gestiona las grabaciones JFR iniciadas por la aplicación: la continua opcional al
+ * arrancar y las que se piden por el endpoint {@code /actuator/jfr}.
+ *
+ * Cada grabación parte de una configuración del JDK ("default" o "profile"), que ya incluye
+ * GC, asignaciones y safepoints, y habilita además los eventos del pipeline con el umbral
+ * configurado.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JfrRecordingManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrRecordingManager.class);
+
+    static final String CONTINUOUS_NAME = "iso20022-continuous";
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final Pattern RECORDING_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private final SimulatorProperties.Jfr config;
+    private final ConcurrentHashMap<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    public JfrRecordingManager(SimulatorProperties properties) {
+        this.config = properties.getJfr();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (config.isContinuous()) {
+            RecordingInfo continuous = startRecording(CONTINUOUS_NAME, null, null);
+            logger.info("Continuous JFR recording {} started (maxAge={}, maxSize={})",
+                continuous.id(), config.getMaxAge(), config.getMaxSize());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Recording recording : recordings.values()) {
+            recording.close();
+        }
+        recordings.clear();
+    }
+
+    /**
+     * Inicia una grabación
+     *
+     * @param name nombre de la grabación ({@code [A-Za-z0-9._-]+}); si es null se genera uno
+     * @param settings configuración del JDK; si es null se usa {@code simulator.jfr.settings}
+     * @param duration duración fija; si es null la grabación sigue hasta pararla, en anillo
+     * @throws IllegalArgumentException si el nombre o la configuración no son válidos
+     */
+    public RecordingInfo startRecording(String name, String settings, Duration duration) {
+        if (name != null && !RECORDING_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid JFR recording name '" + name + "': expected "
+                + RECORDING_NAME.pattern());
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings != null ? settings : config.getSettings());
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings '" + settings + "': " + e.getMessage(), e);
+        }
+
+        Recording recording = new Recording(configuration);
+        recording.setName(name != null ? name : "iso20022-" + LocalDateTime.now().format(FILE_TIMESTAMP));
+        recording.setToDisk(true);
+        recording.setMaxAge(config.getMaxAge());
+        recording.setMaxSize(config.getMaxSize().toBytes());
+        if (duration != null) {
+            recording.setDuration(duration);
+        }
+        recording.enable(PipelineStageEvent.class).withThreshold(config.getEventThreshold());
+        recording.enable(MessageProcessedEvent.class).withThreshold(config.getEventThreshold());
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        return RecordingInfo.of(recording);
+    }
+
+    public List<RecordingInfo> listRecordings() {
+        return recordings.values().stream().map(RecordingInfo::of).toList();
+    }
+
+    /**
+     * Vuelca el contenido actual de la grabación a un fichero, sin pararla. El nombre del
+     * fichero sale del id y la hora, nunca del nombre que llegó en la petición.
+     */
+    public Path dump(long id) throws IOException {
+        Recording recording = recording(id);
+        Path directory = Path.of(config.getDirectory());
+        Files.createDirectories(directory);
+        Path target = directory.resolve("recording-" + recording.getId() + "-"
+            + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+        recording.dump(target);
+        logger.info("JFR recording {} dumped to {} ({} bytes)", id, target, Files.size(target));
+        return target;
+    }
+
+    /**
+     * Vuelca la grabación a un fichero temporal y lo abre para leerlo una vez; el fichero se
+     * borra al cerrar el stream, de modo que las descargas no se acumulan en el directorio
+     */
+    public InputStream openDump(long id) throws IOException {
+        Path target = dump(id);
+        try {
+            return Files.newInputStream(target, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * Para y descarta la grabación
+     */
+    public RecordingInfo stopRecording(long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            throw new NoSuchElementException("No JFR recording with id " + id);
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        RecordingInfo info = RecordingInfo.of(recording);
+        recording.close();
+        return info;
+    }
+
+    private Recording recording(long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new NoSuchElementException("No JFR recording with id " + id);
+        }
+        return recording;
+    }
+
+    /**
+     * Estado de una grabación, tal como lo expone el endpoint
+     */
+    public record RecordingInfo(long id, String name, String state, String startTime, Duration duration,
+                                Duration maxAge, long maxSize, long size) {
+
+        static RecordingInfo of(Recording recording) {
+            return new RecordingInfo(recording.getId(), recording.getName(), recording.getState().name(),
+                recording.getStartTime() != null ? recording.getStartTime().toString() : null,
+                recording.getDuration(), recording.getMaxAge(), recording.getMaxSize(), recording.getSize());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.kuvasz.iso20022.simulator.jfr;
+
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR del procesamiento completo de un mensaje, de la recepción a la respuesta
+ */
+@Name(MessageProcessedEvent.NAME)
+@Label("Message Processed")
+@Category({"ISO 20022 Simulator", "Pipeline"})
+@Description("Procesamiento completo de un mensaje")
+@StackTrace(false)
+public class MessageProcessedEvent extends Event {
+
+    public static final String NAME = "com.kuvasz.iso20022.MessageProcessed";
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Message Id")
+    String messageId;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    @Label("Error Count")
+    int errorCount;
+
+    @Label("Status")
+    String status;
+
+    public static MessageProcessedEvent start() {
+        MessageProcessedEvent event = new MessageProcessedEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(ProcessingResult result, long payloadSize) {
+        end();
+        if (shouldCommit()) {
+            this.messageType = result.getMessageType();
+            this.messageId = result.getMessageId();
+            this.payloadSize = payloadSize;
+            this.errorCount = result.getErrors() != null ? result.getErrors().size() : 0;
+            this.status = result.getStatus() != null ? result.getStatus().name() : null;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.kuvasz.iso20022.simulator.jfr;
+
+import com.kuvasz.iso20022.simulator.metrics.PipelineMetrics.Outcome;
+import com.kuvasz.iso20022.simulator.metrics.PipelineStage;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de una etapa del pipeline (parse, cada validador, liquidación, generación de
+ * la respuesta y persistencia), para correlacionar su latencia con GC y asignaciones en JMC.
+ *
+ * Sin una grabación activa {@link #shouldCommit()} es falso y el evento no rellena campos;
+ * el objeto suele eliminarse por escape analysis. No captura stack trace.
+ */
+@Name(PipelineStageEvent.NAME)
+@Label("Pipeline Stage")
+@Category({"ISO 20022 Simulator", "Pipeline"})
+@Description("Duración de una etapa del procesamiento de un mensaje")
+@StackTrace(false)
+public class PipelineStageEvent extends Event {
+
+    public static final String NAME = "com.kuvasz.iso20022.PipelineStage";
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Detail")
+    @Description("Validador o estrategia de persistencia")
+    String detail;
+
+    @Label("Message Type")
+    String messageType;
+
+    @Label("Message Id")
+    String messageId;
+
+    @Label("Payload Size")
+    @DataAmount
+    long payloadSize;
+
+    @Label("Error Count")
+    int errorCount;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * Crea el evento y marca el inicio de la etapa
+     */
+    public static PipelineStageEvent start(PipelineStage stage, String detail) {
+        PipelineStageEvent event = new PipelineStageEvent();
+        event.stage = stage.tag();
+        event.detail = detail;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Marca el fin de la etapa y lo registra si hay una grabación que lo incluya
+     */
+    public void finish(String messageType, String messageId, long payloadSize, int errorCount, Outcome outcome) {
+        end();
+        if (shouldCommit()) {
+            this.messageType = messageType;
+            this.messageId = messageId;
+            this.payloadSize = payloadSize;
+            this.errorCount = errorCount;
+            this.outcome = outcome.tag();
+            commit();
+        }
+    }
+}
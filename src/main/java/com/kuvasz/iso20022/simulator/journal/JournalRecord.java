@@ -0,0 +1,91 @@
+package com.kuvasz.iso20022.simulator.journal;
+
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Registro del journal: mensaje original, respuesta generada, estado y tiempos
+ */
+public class JournalRecord {
+
+    private final String messageId;
+    private final String messageType;
+    private final String status;
+    private final long receivedAtEpochMillis;
+    private final long processingTimeMs;
+    private final byte[] originalMessage;
+    private final byte[] response;
+
+    public JournalRecord(String messageId, String messageType, String status, long receivedAtEpochMillis,
+                         long processingTimeMs, byte[] originalMessage, byte[] response) {
+        this.messageId = messageId;
+        this.messageType = messageType;
+        this.status = status;
+        this.receivedAtEpochMillis = receivedAtEpochMillis;
+        this.processingTimeMs = processingTimeMs;
+        this.originalMessage = originalMessage != null ? originalMessage : new byte[0];
+        this.response = response != null ? response : new byte[0];
+    }
+
+    /**
+     * Construye el registro a partir del contexto parseado y del resultado del procesamiento
+     */
+    public static JournalRecord from(MessageContext context, ProcessingResult result) {
+        return new JournalRecord(
+            context.getMessageId(),
+            context.getMessageType(),
+            result.getStatus() != null ? result.getStatus().name() : "UNKNOWN",
+            System.currentTimeMillis(),
+            result.getProcessingTimeMs(),
+            toBytes(context.getOriginalXml()),
+            toBytes(result.getProcessedMessage()));
+    }
+
+    private static byte[] toBytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public String getMessageType() {
+        return messageType;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getReceivedAtEpochMillis() {
+        return receivedAtEpochMillis;
+    }
+
+    public long getProcessingTimeMs() {
+        return processingTimeMs;
+    }
+
+    public byte[] getOriginalMessage() {
+        return originalMessage;
+    }
+
+    public byte[] getResponse() {
+        return response;
+    }
+
+    public String getOriginalMessageAsString() {
+        return new String(originalMessage, StandardCharsets.UTF_8);
+    }
+
+    public String getResponseAsString() {
+        return new String(response, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JournalRecord{messageId='%s', messageType='%s', status='%s', payloadBytes=%d}",
+            messageId, messageType, status, originalMessage.length);
+    }
+}
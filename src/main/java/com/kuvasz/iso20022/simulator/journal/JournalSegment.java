@@ -0,0 +1,300 @@
+package com.kuvasz.iso20022.simulator.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmento del journal mapeado en memoria.
+ *
+ * Formato: cabecera {@code [magic:int][version:int]} seguida de registros
+ * {@code [length:int][crc32c:int][body]}. Un {@code length} igual a cero marca el final
+ * de los datos escritos; el length se escribe en último lugar para que un registro
+ * a medio escribir nunca parezca completo.
+ */
+final class JournalSegment implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalSegment.class);
+
+    static final int MAGIC = 0x49534F4A; // "ISOJ"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    // receivedAt + processingTime + 3 longitudes short + 2 longitudes int
+    private static final int FIXED_BODY_SIZE = 8 + 8 + 2 + 2 + 2 + 4 + 4;
+
+    private final int id;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int writePosition;
+    // MsgId de los registros del segmento, para limpiar el índice al retirarlo sin recorrerlo entero
+    private final List<String> messageIds = new ArrayList<>();
+
+    private JournalSegment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+        this.writePosition = HEADER_SIZE;
+    }
+
+    static Path fileName(Path directory, int id) {
+        return directory.resolve(String.format("journal-%010d.seg", id));
+    }
+
+    /**
+     * Crea y preasigna un segmento nuevo
+     */
+    static JournalSegment create(Path directory, int id, int size) throws IOException {
+        Path path = fileName(directory, id);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        return new JournalSegment(id, path, channel, buffer);
+    }
+
+    /**
+     * Abre un segmento existente; la posición de escritura se fija con {@link #recover}
+     */
+    static JournalSegment open(Path path, int id) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Files.size(path);
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Invalid journal segment size " + size + " for " + path);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a journal segment (bad magic/version): " + path);
+        }
+        return new JournalSegment(id, path, channel, buffer);
+    }
+
+    static int bodySize(byte[] messageId, byte[] messageType, byte[] status, JournalRecord record) {
+        return FIXED_BODY_SIZE + messageId.length + messageType.length + status.length
+            + record.getOriginalMessage().length + record.getResponse().length;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Anota el MsgId de un registro escrito o recuperado; con el lock del journal tomado
+     */
+    void track(String messageId) {
+        messageIds.add(messageId);
+    }
+
+    /**
+     * MsgId anotados; solo se lee una vez retirado el segmento, cuando ya no recibe registros
+     */
+    List<String> messageIds() {
+        return messageIds;
+    }
+
+    boolean hasRoom(int bodySize) {
+        return (long) writePosition + RECORD_HEADER_SIZE + bodySize <= capacity;
+    }
+
+    /**
+     * Escribe un registro en la posición actual. Debe llamarse con el lock del journal tomado.
+     *
+     * @return offset del registro dentro del segmento
+     */
+    int append(JournalRecord record, byte[] messageId, byte[] messageType, byte[] status, int bodySize) {
+        int offset = writePosition;
+        int position = offset + RECORD_HEADER_SIZE;
+
+        buffer.putLong(position, record.getReceivedAtEpochMillis());
+        position += 8;
+        buffer.putLong(position, record.getProcessingTimeMs());
+        position += 8;
+        position = putShortBytes(position, messageId);
+        position = putShortBytes(position, messageType);
+        position = putShortBytes(position, status);
+        position = putIntBytes(position, record.getOriginalMessage());
+        putIntBytes(position, record.getResponse());
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + RECORD_HEADER_SIZE, bodySize));
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, bodySize);
+
+        writePosition = offset + RECORD_HEADER_SIZE + bodySize;
+        return offset;
+    }
+
+    /**
+     * Lee el registro ubicado en el offset indicado
+     */
+    JournalRecord read(int offset) {
+        int bodySize = buffer.getInt(offset);
+        return decode(offset + RECORD_HEADER_SIZE, bodySize);
+    }
+
+    /**
+     * Recorre los registros válidos desde el inicio, fijando la posición de escritura
+     * tras el último registro íntegro. Con {@code truncate} se limpia cualquier
+     * registro parcial o corrupto al final del segmento.
+     *
+     * @return número de registros válidos
+     */
+    int recover(ObjIntConsumer<JournalRecord> visitor, boolean truncate) {
+        int position = HEADER_SIZE;
+        int count = 0;
+
+        while (position + RECORD_HEADER_SIZE <= capacity) {
+            int bodySize = buffer.getInt(position);
+            if (bodySize == 0) {
+                break;
+            }
+            JournalRecord record = validate(position, bodySize);
+            if (record == null) {
+                logger.warn("Corrupt or partial journal record at {}:{}, {} trailing bytes discarded",
+                    path.getFileName(), position, capacity - position);
+                if (truncate) {
+                    zero(position, capacity);
+                }
+                break;
+            }
+            visitor.accept(record, position);
+            position += RECORD_HEADER_SIZE + bodySize;
+            count++;
+        }
+
+        writePosition = position;
+        return count;
+    }
+
+    /**
+     * Recorre los registros escritos hasta la posición de escritura actual
+     */
+    void forEach(ObjIntConsumer<JournalRecord> visitor, int limit) {
+        int position = HEADER_SIZE;
+        while (position < limit) {
+            int bodySize = buffer.getInt(position);
+            if (bodySize == 0) {
+                break;
+            }
+            visitor.accept(decode(position + RECORD_HEADER_SIZE, bodySize), position);
+            position += RECORD_HEADER_SIZE + bodySize;
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private JournalRecord validate(int offset, int bodySize) {
+        if (bodySize < FIXED_BODY_SIZE || (long) offset + RECORD_HEADER_SIZE + bodySize > capacity) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + RECORD_HEADER_SIZE, bodySize));
+        if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+            return null;
+        }
+        try {
+            return decode(offset + RECORD_HEADER_SIZE, bodySize);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private JournalRecord decode(int position, int bodySize) {
+        int end = position + bodySize;
+        long receivedAt = buffer.getLong(position);
+        position += 8;
+        long processingTime = buffer.getLong(position);
+        position += 8;
+
+        byte[] messageId = new byte[Short.toUnsignedInt(buffer.getShort(position))];
+        position = getBytes(position + 2, messageId, end);
+        byte[] messageType = new byte[Short.toUnsignedInt(buffer.getShort(position))];
+        position = getBytes(position + 2, messageType, end);
+        byte[] status = new byte[Short.toUnsignedInt(buffer.getShort(position))];
+        position = getBytes(position + 2, status, end);
+        byte[] original = new byte[checkedLength(buffer.getInt(position), end)];
+        position = getBytes(position + 4, original, end);
+        byte[] response = new byte[checkedLength(buffer.getInt(position), end)];
+        getBytes(position + 4, response, end);
+
+        return new JournalRecord(
+            new String(messageId, StandardCharsets.UTF_8),
+            new String(messageType, StandardCharsets.UTF_8),
+            new String(status, StandardCharsets.UTF_8),
+            receivedAt, processingTime, original, response);
+    }
+
+    private int putShortBytes(int position, byte[] value) {
+        buffer.putShort(position, (short) value.length);
+        buffer.put(position + 2, value);
+        return position + 2 + value.length;
+    }
+
+    private int putIntBytes(int position, byte[] value) {
+        buffer.putInt(position, value.length);
+        buffer.put(position + 4, value);
+        return position + 4 + value.length;
+    }
+
+    private int getBytes(int position, byte[] target, int end) {
+        if (position + target.length > end) {
+            throw new IllegalStateException("Journal record field exceeds record bounds");
+        }
+        buffer.get(position, target);
+        return position + target.length;
+    }
+
+    private static int checkedLength(int length, int end) {
+        if (length < 0 || length > end) {
+            throw new IllegalStateException("Invalid journal field length " + length);
+        }
+        return length;
+    }
+
+    private void zero(int from, int to) {
+        byte[] zeros = new byte[Math.min(8192, to - from)];
+        for (int position = from; position < to; position += zeros.length) {
+            buffer.put(position, zeros, 0, Math.min(zeros.length, to - position));
+        }
+        buffer.force();
+    }
+}
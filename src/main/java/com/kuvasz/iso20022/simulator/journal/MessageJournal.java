@@ -0,0 +1,421 @@
+package com.kuvasz.iso20022.simulator.journal;
+
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties.Journal.FsyncPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Journal append-only de mensajes aceptados sobre segmentos mapeados en memoria.
+ *
+ * Cada registro se escribe con prefijo de longitud y CRC32C; los segmentos rotan al
+ * llenarse y solo se conservan los {@code max-segments} más recientes: al rotar se
+ * retira el más antiguo, y fuera del lock de escritura se eliminan sus entradas del índice
+ * (por la lista de MsgId del propio segmento) y se borra su fichero.
+ * Un índice en memoria por MsgId se reconstruye al arrancar recorriendo los segmentos,
+ * y el último segmento se trunca tras el último registro íntegro para recuperarse de
+ * una caída a mitad de escritura. Con el codec habilitado los
+ * payloads se almacenan comprimidos y se descomprimen de forma transparente al leer.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.journal", name = "enabled", havingValue = "true")
+public class MessageJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageJournal.class);
+
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("journal-(\\d{10})\\.seg");
+    private static final int MAX_SHORT_FIELD = 0xFFFF;
+
+    private final SimulatorProperties.Journal config;
+    private final PayloadCodec payloadCodec;
+    private final Path directory;
+    private final int segmentSize;
+
+    private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<CompletableFuture<Void>> pendingSyncs = new ConcurrentLinkedQueue<>();
+
+    private final Timer appendTimer;
+    private final Timer fsyncTimer;
+    private final Counter recordCounter;
+    private final Counter byteCounter;
+    private final Counter retiredCounter;
+
+    private volatile JournalSegment active;
+    private volatile int lastSyncedSegment;
+    private volatile boolean running;
+    private Thread syncThread;
+
+    public MessageJournal(SimulatorProperties properties, PayloadCodec payloadCodec, MeterRegistry meterRegistry) {
+        this.config = properties.getJournal();
+        this.payloadCodec = payloadCodec;
+        this.directory = Paths.get(config.getDirectory());
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE, config.getSegmentSize().toBytes());
+
+        this.appendTimer = Timer.builder("simulator.journal.append.latency")
+            .description("Latencia de escritura de un registro en el segmento activo")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.fsyncTimer = Timer.builder("simulator.journal.fsync.latency")
+            .description("Latencia de cada fsync de segmentos del journal")
+            .register(meterRegistry);
+        this.recordCounter = Counter.builder("simulator.journal.records").register(meterRegistry);
+        this.byteCounter = Counter.builder("simulator.journal.bytes").register(meterRegistry);
+        this.retiredCounter = Counter.builder("simulator.journal.segments.retired")
+            .description("Segmentos borrados por la retención del journal")
+            .register(meterRegistry);
+        Gauge.builder("simulator.journal.segments", segments, List::size).register(meterRegistry);
+        Gauge.builder("simulator.journal.index.size", index, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Abre los segmentos existentes, reconstruye el índice y arranca el hilo de group commit
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> existing = listSegments();
+
+        for (int i = 0; i < existing.size(); i++) {
+            Path path = existing.get(i);
+            JournalSegment segment = JournalSegment.open(path, segmentId(path));
+            boolean last = i == existing.size() - 1;
+            int recovered = segment.recover((record, offset) -> {
+                index.put(record.getMessageId(), position(segment.getId(), offset));
+                segment.track(record.getMessageId());
+            }, last);
+            segments.add(segment);
+            logger.debug("Recovered {} journal records from {}", recovered, path.getFileName());
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(JournalSegment.create(directory, 0, segmentSize));
+        }
+        active = segments.get(segments.size() - 1);
+        lastSyncedSegment = active.getId();
+        dispose(retireExpired());
+
+        running = true;
+        if (config.getFsyncPolicy() == FsyncPolicy.GROUP) {
+            syncThread = new Thread(this::groupCommitLoop, "journal-group-commit");
+            syncThread.setDaemon(true);
+            syncThread.start();
+        }
+
+        logger.info("Message journal opened at {} with {} segment(s), {} indexed messages, fsync policy {}",
+            directory.toAbsolutePath(), segments.size(), index.size(), config.getFsyncPolicy());
+    }
+
+    /**
+     * Añade un registro al journal.
+     *
+     * @return future que completa cuando el registro es durable según la política de fsync
+     */
+    public CompletableFuture<Void> append(JournalRecord record) {
+        if (payloadCodec.isEnabled()) {
+            record = compress(record);
+        }
+        byte[] messageId = encodeShortField(record.getMessageId());
+        byte[] messageType = encodeShortField(record.getMessageType());
+        byte[] status = encodeShortField(record.getStatus());
+        int bodySize = JournalSegment.bodySize(messageId, messageType, status, record);
+        if (JournalSegment.HEADER_SIZE + JournalSegment.RECORD_HEADER_SIZE + bodySize > segmentSize) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                "Journal record of " + bodySize + " bytes exceeds segment size " + segmentSize));
+        }
+
+        long startTime = System.nanoTime();
+        JournalSegment segment;
+        List<JournalSegment> retired = List.of();
+        appendLock.lock();
+        try {
+            if (!running) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Journal is closed"));
+            }
+            segment = active;
+            if (!segment.hasRoom(bodySize)) {
+                segment = roll();
+                retired = retireExpired();
+            }
+            int offset = segment.append(record, messageId, messageType, status, bodySize);
+            index.put(record.getMessageId(), position(segment.getId(), offset));
+            segment.track(record.getMessageId());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        } finally {
+            appendLock.unlock();
+        }
+        // La limpieza del índice y el fsync y borrado del segmento retirado no bloquean a los demás
+        dispose(retired);
+
+        appendTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        recordCounter.increment();
+        byteCounter.increment(JournalSegment.RECORD_HEADER_SIZE + bodySize);
+
+        switch (config.getFsyncPolicy()) {
+            case ALWAYS -> {
+                long syncStart = System.nanoTime();
+                segment.force();
+                fsyncTimer.record(System.nanoTime() - syncStart, TimeUnit.NANOSECONDS);
+                return CompletableFuture.completedFuture(null);
+            }
+            case GROUP -> {
+                CompletableFuture<Void> durable = new CompletableFuture<>();
+                pendingSyncs.offer(durable);
+                return durable;
+            }
+            default -> {
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+    }
+
+    /**
+     * Busca el último registro escrito para un MsgId
+     */
+    public Optional<JournalRecord> findByMessageId(String messageId) {
+        Long position = index.get(messageId);
+        if (position == null) {
+            return Optional.empty();
+        }
+        JournalSegment segment = segment(segmentOf(position));
+        if (segment == null) {
+            // Segmento retirado entre la consulta al índice y la lectura
+            return Optional.empty();
+        }
+        return Optional.of(decompress(segment.read(offsetOf(position))));
+    }
+
+    /**
+     * Reproduce todos los registros en orden de escritura
+     */
+    public void replay(Consumer<JournalRecord> consumer) {
+        for (JournalSegment segment : segments) {
+            int limit = segment == active ? segment.getWritePosition() : segment.getCapacity();
+            segment.forEach((record, offset) -> consumer.accept(decompress(record)), limit);
+        }
+    }
+
+    public int getIndexedMessageCount() {
+        return index.size();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Confirma los registros pendientes y libera los segmentos
+     */
+    @PreDestroy
+    public void close() {
+        appendLock.lock();
+        try {
+            running = false;
+        } finally {
+            appendLock.unlock();
+        }
+        if (syncThread != null) {
+            LockSupport.unpark(syncThread);
+            try {
+                syncThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        syncPending();
+        for (JournalSegment segment : segments) {
+            try {
+                segment.force();
+                segment.close();
+            } catch (IOException e) {
+                logger.warn("Could not close journal segment {}: {}", segment.getPath(), e.getMessage());
+            }
+        }
+        segments.clear();
+    }
+
+    private JournalRecord compress(JournalRecord record) {
+        return new JournalRecord(record.getMessageId(), record.getMessageType(), record.getStatus(),
+            record.getReceivedAtEpochMillis(), record.getProcessingTimeMs(),
+            payloadCodec.encode(record.getMessageType(), record.getOriginalMessage()),
+            payloadCodec.encode(record.getMessageType(), record.getResponse()));
+    }
+
+    private JournalRecord decompress(JournalRecord record) {
+        if (!PayloadCodec.isEncoded(record.getOriginalMessage()) && !PayloadCodec.isEncoded(record.getResponse())) {
+            return record;
+        }
+        return new JournalRecord(record.getMessageId(), record.getMessageType(), record.getStatus(),
+            record.getReceivedAtEpochMillis(), record.getProcessingTimeMs(),
+            payloadCodec.decode(record.getOriginalMessage()),
+            payloadCodec.decode(record.getResponse()));
+    }
+
+    private JournalSegment roll() throws IOException {
+        JournalSegment next = JournalSegment.create(directory, active.getId() + 1, segmentSize);
+        segments.add(next);
+        active = next;
+        logger.debug("Journal rolled to segment {}", next.getPath().getFileName());
+        return next;
+    }
+
+    /**
+     * Saca de la lista los segmentos más antiguos que exceden {@code max-segments}; con el lock
+     * tomado, así que solo hace eso. Desde ese momento las búsquedas por sus entradas del
+     * índice devuelven vacío.
+     */
+    private List<JournalSegment> retireExpired() {
+        List<JournalSegment> retired = new ArrayList<>(1);
+        while (segments.size() > config.getMaxSegments()) {
+            retired.add(segments.remove(0));
+        }
+        return retired;
+    }
+
+    /**
+     * Elimina del índice las entradas de los segmentos retirados y borra sus ficheros, sin el
+     * lock: cuesta O(registros del segmento) más un fsync. Las lecturas en curso sobre un
+     * segmento retirado siguen siendo válidas: el mapeo sobrevive al cierre del canal
+     */
+    private void dispose(List<JournalSegment> retired) {
+        for (JournalSegment oldest : retired) {
+            int id = oldest.getId();
+            for (String messageId : oldest.messageIds()) {
+                // Si el MsgId se volvió a escribir en un segmento posterior, su entrada se conserva
+                index.computeIfPresent(messageId, (key, position) -> segmentOf(position) == id ? null : position);
+            }
+            try {
+                oldest.force();
+                oldest.close();
+                Files.deleteIfExists(oldest.getPath());
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not delete retired journal segment {}: {}", oldest.getPath(), e.getMessage());
+            }
+            retiredCounter.increment();
+            logger.debug("Journal segment {} retired", oldest.getPath().getFileName());
+        }
+    }
+
+    private JournalSegment segment(int id) {
+        for (JournalSegment segment : segments) {
+            if (segment.getId() == id) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    private void groupCommitLoop() {
+        long intervalNanos = config.getFsyncInterval().toNanos();
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            syncPending();
+        }
+    }
+
+    private void syncPending() {
+        if (pendingSyncs.isEmpty()) {
+            return;
+        }
+        // Los futures drenados corresponden a registros ya escritos en el mmap
+        List<CompletableFuture<Void>> batch = new ArrayList<>();
+        CompletableFuture<Void> pending;
+        while ((pending = pendingSyncs.poll()) != null) {
+            batch.add(pending);
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            int activeId = active.getId();
+            for (JournalSegment segment : segments) {
+                if (segment.getId() >= lastSyncedSegment && segment.getId() <= activeId) {
+                    segment.force();
+                }
+            }
+            lastSyncedSegment = activeId;
+            fsyncTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            batch.forEach(future -> future.complete(null));
+        } catch (RuntimeException e) {
+            logger.error("Journal group commit failed for {} records: {}", batch.size(), e.getMessage());
+            batch.forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> found = files
+                .filter(path -> SEGMENT_PATTERN.matcher(path.getFileName().toString()).matches())
+                .sorted()
+                .toList();
+            // La retención borra los más antiguos: la secuencia puede empezar en cualquier id
+            for (int i = 1; i < found.size(); i++) {
+                int expected = segmentId(found.get(0)) + i;
+                if (segmentId(found.get(i)) != expected) {
+                    throw new IOException("Journal segments are not contiguous: missing segment " + expected);
+                }
+            }
+            return found;
+        }
+    }
+
+    private static int segmentId(Path path) {
+        Matcher matcher = SEGMENT_PATTERN.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a journal segment: " + path);
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private static byte[] encodeShortField(String value) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (bytes.length > MAX_SHORT_FIELD) {
+            throw new IllegalArgumentException("Journal field exceeds " + MAX_SHORT_FIELD + " bytes");
+        }
+        return bytes;
+    }
+
+    private static long position(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+}
@@ -0,0 +1,76 @@
+package com.kuvasz.iso20022.simulator.ledger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cuenta del ledger con saldo en unidades mínimas (céntimos) como long de punto fijo.
+ *
+ * El débito es un bucle CAS que comprueba fondos antes de publicar el nuevo saldo;
+ * el crédito es un simple add. El delta pendiente de volcar a base de datos se acumula
+ * en un LongAdder para no añadir un segundo punto de contención en cuentas calientes.
+ */
+final class LedgerAccount {
+
+    private final String accountNumber;
+    private final String currency;
+    private final boolean active;
+    private final AtomicLong balance;
+    private final LongAdder unflushedDelta = new LongAdder();
+
+    LedgerAccount(String accountNumber, String currency, boolean active, long balance) {
+        this.accountNumber = accountNumber;
+        this.currency = currency;
+        this.active = active;
+        this.balance = new AtomicLong(balance);
+    }
+
+    /**
+     * Debita si hay fondos suficientes
+     *
+     * @return número de reintentos CAS, o -1 si no hay fondos
+     */
+    int tryDebit(long amount) {
+        int retries = 0;
+        while (true) {
+            long current = balance.get();
+            if (current < amount) {
+                return -1;
+            }
+            if (balance.compareAndSet(current, current - amount)) {
+                unflushedDelta.add(-amount);
+                return retries;
+            }
+            retries++;
+        }
+    }
+
+    void credit(long amount) {
+        balance.addAndGet(amount);
+        unflushedDelta.add(amount);
+    }
+
+    long drainUnflushedDelta() {
+        return unflushedDelta.sumThenReset();
+    }
+
+    void restoreUnflushedDelta(long delta) {
+        unflushedDelta.add(delta);
+    }
+
+    String getAccountNumber() {
+        return accountNumber;
+    }
+
+    String getCurrency() {
+        return currency;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    long getBalance() {
+        return balance.get();
+    }
+}
@@ -0,0 +1,309 @@
+package com.kuvasz.iso20022.simulator.ledger;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ledger de liquidación en memoria cargado desde la tabla accounts.
+ *
+ * Cada transferencia aceptada debita al deudor con un CAS que valida fondos (AM04 si no
+ * alcanzan) y acredita al acreedor; no hay locks, por lo que una cuenta caliente no genera
+ * convoyes. Los deltas de saldo se acumulan por cuenta y un hilo dedicado los vuelca a
+ * base de datos en un batch transaccional cada {@code flush-interval}: o se aplican todos o
+ * ninguno, y en ese caso se reintentan en el siguiente volcado.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.ledger", name = "enabled", havingValue = "true")
+public class SettlementLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(SettlementLedger.class);
+
+    private static final int SCALE = 2;
+
+    private static final String SELECT_ACCOUNTS_SQL =
+        "SELECT account_number, balance, currency, status FROM accounts";
+
+    private static final String APPLY_DELTA_SQL =
+        "UPDATE accounts SET balance = balance + ? WHERE account_number = ?";
+
+    private final DataSource dataSource;
+    private final SimulatorProperties.Ledger config;
+    private final Map<String, LedgerAccount> accounts = new ConcurrentHashMap<>();
+
+    private final Counter settledCounter;
+    private final Counter insufficientFundsCounter;
+    private final Counter rejectedCounter;
+    private final Counter skippedCounter;
+    private final Counter casRetryCounter;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public SettlementLedger(DataSource dataSource, SimulatorProperties properties, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.config = properties.getLedger();
+
+        this.settledCounter = Counter.builder("simulator.ledger.transfers")
+            .tag("outcome", "settled").register(meterRegistry);
+        this.insufficientFundsCounter = Counter.builder("simulator.ledger.transfers")
+            .tag("outcome", "insufficient_funds").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("simulator.ledger.transfers")
+            .tag("outcome", "rejected").register(meterRegistry);
+        this.skippedCounter = Counter.builder("simulator.ledger.transfers")
+            .tag("outcome", "skipped").register(meterRegistry);
+        this.casRetryCounter = Counter.builder("simulator.ledger.cas.retries")
+            .description("Reintentos CAS en débitos por contención sobre la misma cuenta")
+            .register(meterRegistry);
+        this.flushTimer = Timer.builder("simulator.ledger.flush.latency")
+            .description("Latencia del volcado de deltas de saldo a la tabla accounts")
+            .register(meterRegistry);
+        Gauge.builder("simulator.ledger.accounts", accounts, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (running) {
+            return;
+        }
+        load();
+        running = true;
+        flusher = new Thread(this::flushLoop, "ledger-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Settlement ledger started with {} accounts, flush interval {}",
+            accounts.size(), config.getFlushInterval());
+    }
+
+    /**
+     * Detiene el hilo de volcado y persiste los deltas pendientes
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        flush();
+    }
+
+    /**
+     * Carga los saldos desde la tabla accounts al arrancar, antes de que haya deltas pendientes
+     */
+    private void load() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ACCOUNTS_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                String accountNumber = resultSet.getString("account_number");
+                BigDecimal balance = resultSet.getBigDecimal("balance");
+                accounts.put(accountNumber, new LedgerAccount(accountNumber,
+                    resultSet.getString("currency"),
+                    "ACTIVE".equalsIgnoreCase(resultSet.getString("status")),
+                    balance != null ? toMinorUnits(balance) : 0L));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load ledger accounts: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Liquida la transferencia descrita por el contexto del mensaje (cuentas deudora y
+     * acreedora, importe y moneda). Sin esos datos la liquidación se omite.
+     */
+    public SettlementResult settle(MessageContext context) {
+        Object debtor = context.getProperty("debtorAccount");
+        Object creditor = context.getProperty("creditorAccount");
+        Object amount = context.getProperty("amount");
+        if (debtor == null || creditor == null || amount == null) {
+            skippedCounter.increment();
+            return SettlementResult.skipped("Message has no debtor/creditor account or amount");
+        }
+
+        BigDecimal value;
+        try {
+            value = new BigDecimal(amount.toString());
+        } catch (NumberFormatException e) {
+            rejectedCounter.increment();
+            return SettlementResult.rejected(SettlementResult.INVALID_AMOUNT, "Invalid amount " + amount);
+        }
+        Object currency = context.getProperty("currency");
+        return transfer(debtor.toString(), creditor.toString(), value, currency != null ? currency.toString() : null);
+    }
+
+    /**
+     * Mueve {@code amount} de la cuenta deudora a la acreedora
+     */
+    public SettlementResult transfer(String debtorAccount, String creditorAccount, BigDecimal amount,
+                                     String currency) {
+        LedgerAccount debtor = accounts.get(debtorAccount);
+        LedgerAccount creditor = accounts.get(creditorAccount);
+        if (debtor == null || creditor == null) {
+            String missing = debtor == null ? debtorAccount : creditorAccount;
+            if (config.isRejectUnknownAccounts()) {
+                rejectedCounter.increment();
+                return SettlementResult.rejected(SettlementResult.INCORRECT_ACCOUNT_NUMBER,
+                    "Unknown account " + missing);
+            }
+            skippedCounter.increment();
+            return SettlementResult.skipped("Account " + missing + " is not managed by the ledger");
+        }
+
+        SettlementResult invalid = validate(debtor, creditor, amount, currency);
+        if (invalid != null) {
+            rejectedCounter.increment();
+            return invalid;
+        }
+
+        long minorUnits;
+        try {
+            minorUnits = amount.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            rejectedCounter.increment();
+            return SettlementResult.rejected(SettlementResult.INVALID_AMOUNT, "Invalid amount " + amount);
+        }
+        int retries = debtor.tryDebit(minorUnits);
+        if (retries < 0) {
+            insufficientFundsCounter.increment();
+            return SettlementResult.rejected(SettlementResult.INSUFFICIENT_FUNDS,
+                "Insufficient funds in account " + debtorAccount);
+        }
+        if (retries > 0) {
+            casRetryCounter.increment(retries);
+        }
+        // El crédito no puede fallar, por lo que no hace falta compensar el débito
+        creditor.credit(minorUnits);
+        settledCounter.increment();
+        return SettlementResult.settled();
+    }
+
+    public Optional<BigDecimal> getBalance(String accountNumber) {
+        LedgerAccount account = accounts.get(accountNumber);
+        return account != null
+            ? Optional.of(BigDecimal.valueOf(account.getBalance(), SCALE))
+            : Optional.empty();
+    }
+
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    /**
+     * Vuelca a base de datos los deltas acumulados desde el último volcado
+     *
+     * @return número de cuentas actualizadas
+     */
+    public int flush() {
+        List<LedgerAccount> changed = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        for (LedgerAccount account : accounts.values()) {
+            long delta = account.drainUnflushedDelta();
+            if (delta != 0) {
+                changed.add(account);
+                deltas.add(delta);
+            }
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+
+        long startTime = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            applyDeltas(connection, changed, deltas);
+            return changed.size();
+        } catch (SQLException e) {
+            // El batch es una única transacción: ninguna fila quedó aplicada y se reintentan todas
+            logger.warn("Ledger flush of {} accounts failed, deltas will be retried: {}",
+                changed.size(), e.getMessage());
+            for (int i = 0; i < changed.size(); i++) {
+                changed.get(i).restoreUnflushedDelta(deltas.get(i));
+            }
+            return 0;
+        } finally {
+            flushTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void applyDeltas(Connection connection, List<LedgerAccount> changed, List<Long> deltas)
+            throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(APPLY_DELTA_SQL)) {
+            for (int i = 0; i < changed.size(); i++) {
+                statement.setBigDecimal(1, BigDecimal.valueOf(deltas.get(i), SCALE));
+                statement.setString(2, changed.get(i).getAccountNumber());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private SettlementResult validate(LedgerAccount debtor, LedgerAccount creditor, BigDecimal amount,
+                                      String currency) {
+        if (!debtor.isActive() || !creditor.isActive()) {
+            String blocked = !debtor.isActive() ? debtor.getAccountNumber() : creditor.getAccountNumber();
+            return SettlementResult.rejected(SettlementResult.BLOCKED_ACCOUNT, "Account " + blocked + " is not active");
+        }
+        if (currency != null && (!currency.equals(debtor.getCurrency()) || !currency.equals(creditor.getCurrency()))) {
+            return SettlementResult.rejected(SettlementResult.NOT_ALLOWED_CURRENCY,
+                "Currency " + currency + " does not match the account currency");
+        }
+        if (amount.signum() <= 0 || amount.stripTrailingZeros().scale() > SCALE) {
+            return SettlementResult.rejected(SettlementResult.INVALID_AMOUNT, "Invalid amount " + amount);
+        }
+        return null;
+    }
+
+    private void flushLoop() {
+        long intervalNanos = config.getFlushInterval().toNanos();
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error flushing ledger balances", e);
+            }
+        }
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_EVEN).movePointRight(SCALE).longValueExact();
+    }
+}
@@ -0,0 +1,65 @@
+package com.kuvasz.iso20022.simulator.ledger;
+
+/**
+ * Resultado de liquidar una transferencia en el ledger. Los rechazos llevan el código
+ * ISO 20022 ExternalStatusReason1Code correspondiente (AM04, AC01, AC06...).
+ */
+public final class SettlementResult {
+
+    public enum Outcome {
+        SETTLED,
+        REJECTED,
+        SKIPPED
+    }
+
+    public static final String INSUFFICIENT_FUNDS = "AM04";
+    public static final String INCORRECT_ACCOUNT_NUMBER = "AC01";
+    public static final String BLOCKED_ACCOUNT = "AC06";
+    public static final String NOT_ALLOWED_CURRENCY = "AM03";
+    public static final String INVALID_AMOUNT = "AM12";
+
+    private static final SettlementResult SETTLED = new SettlementResult(Outcome.SETTLED, null, null);
+
+    private final Outcome outcome;
+    private final String reasonCode;
+    private final String description;
+
+    private SettlementResult(Outcome outcome, String reasonCode, String description) {
+        this.outcome = outcome;
+        this.reasonCode = reasonCode;
+        this.description = description;
+    }
+
+    public static SettlementResult settled() {
+        return SETTLED;
+    }
+
+    public static SettlementResult rejected(String reasonCode, String description) {
+        return new SettlementResult(Outcome.REJECTED, reasonCode, description);
+    }
+
+    public static SettlementResult skipped(String description) {
+        return new SettlementResult(Outcome.SKIPPED, null, description);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public boolean isRejected() {
+        return outcome == Outcome.REJECTED;
+    }
+
+    public String getReasonCode() {
+        return reasonCode;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return "SettlementResult{outcome=" + outcome + ", reasonCode='" + reasonCode + "'}";
+    }
+}
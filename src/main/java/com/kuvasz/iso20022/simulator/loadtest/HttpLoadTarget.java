@@ -0,0 +1,58 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Envío por HTTP al endpoint de proceso con el cliente no bloqueante de Reactor Netty.
+ *
+ * El pool admite hasta {@code connections} conexiones y encola sin límite las peticiones que
+ * esperan una libre: el generador decide cuántas hay en curso, no el pool. El cuerpo de la
+ * respuesta se consume y se libera sin copiarlo.
+ */
+public class HttpLoadTarget implements LoadTarget {
+
+    private static final String XML = "application/xml";
+
+    private final String url;
+    private final ConnectionProvider connectionProvider;
+    private final HttpClient client;
+
+    public HttpLoadTarget(String url, int connections, Duration responseTimeout) {
+        this.url = url;
+        this.connectionProvider = ConnectionProvider.builder("load-test")
+            .maxConnections(connections)
+            .pendingAcquireMaxCount(-1)
+            .pendingAcquireTimeout(responseTimeout)
+            .build();
+        this.client = HttpClient.create(connectionProvider)
+            .responseTimeout(responseTimeout)
+            .headers(headers -> headers
+                .set(HttpHeaderNames.CONTENT_TYPE, XML)
+                .set(HttpHeaderNames.ACCEPT, XML));
+    }
+
+    @Override
+    public Mono<Integer> send(String payload) {
+        return client.post()
+            .uri(url)
+            .send(ByteBufFlux.fromString(Mono.just(payload)))
+            .response((response, body) -> body.then(Mono.just(response.status().code())))
+            .next();
+    }
+
+    @Override
+    public String describe() {
+        return "POST " + url;
+    }
+
+    @Override
+    public void close() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,284 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga en modelo abierto.
+ *
+ * Un único hilo marca el ritmo: calcula el instante previsto de cada envío con
+ * {@link LoadProfile#nextOffset(long)}, espera hasta él y lanza la petición sin bloquear; las
+ * respuestas llegan en los hilos del cliente. La latencia se mide desde el instante previsto,
+ * no desde el envío real, de modo que si el generador se retrasa (GC, CPU saturada) ese
+ * retraso cuenta como latencia en lugar de desaparecer (omisión coordinada). Si hay más de
+ * {@code maxInFlight} peticiones en curso, el envío se cuenta como error "overload" sin
+ * hacerse: esperar sería volver a un modelo cerrado.
+ *
+ * Las latencias se registran en microsegundos en un {@link Recorder} por fase; un hilo de
+ * informe los recoge cada {@code reportInterval} y escribe una línea de progreso. Los
+ * timeouts entran en el histograma con el tiempo transcurrido desde el instante previsto
+ * (al menos {@code requestTimeout}), para que no desaparezcan de la cola. Los "overload" no
+ * tienen latencia que medir: se informan junto a los percentiles, que con overloads son
+ * optimistas.
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    static final String OVERLOAD = "overload";
+    static final String TIMEOUT = "timeout";
+
+    private final LoadProfile profile;
+    private final LoadTarget target;
+    private final MessageSource messages;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+    private final Duration reportInterval;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private PhaseStats[] stats;
+    private volatile long startNanos;
+
+    public LoadGenerator(LoadProfile profile, LoadTarget target, MessageSource messages, int maxInFlight,
+                         Duration requestTimeout, Duration reportInterval) {
+        this.profile = profile;
+        this.target = target;
+        this.messages = messages;
+        this.maxInFlight = maxInFlight;
+        this.requestTimeout = requestTimeout;
+        this.reportInterval = reportInterval;
+    }
+
+    /**
+     * Ejecuta la prueba completa en el hilo actual y espera a las respuestas pendientes
+     */
+    public LoadResult run() {
+        List<LoadProfile.Phase> phases = profile.phases();
+        // Índice 0: calentamiento (aunque no haya); 1..n: fases medidas
+        stats = new PhaseStats[phases.size() + 1];
+        stats[0] = new PhaseStats(profile.warmup());
+        for (int i = 0; i < phases.size(); i++) {
+            stats[i + 1] = new PhaseStats(phases.get(i));
+        }
+
+        logger.info("Load test started: {} for {} s ({} phases, warmup {} s)", target.describe(),
+            TimeUnit.NANOSECONDS.toSeconds(profile.totalNanos()), phases.size(),
+            profile.warmup() != null ? TimeUnit.NANOSECONDS.toSeconds(profile.warmup().durationNanos()) : 0);
+
+        Reporter reporter = new Reporter();
+        startNanos = System.nanoTime();
+        reporter.start();
+        try {
+            schedule();
+            awaitInFlight();
+        } finally {
+            reporter.shutdown();
+        }
+
+        List<LoadResult.PhaseResult> results = new ArrayList<>(phases.size());
+        for (int i = 1; i < stats.length; i++) {
+            results.add(stats[i].result());
+        }
+        String totalRate = phases.size() == 1 ? phases.get(0).rateLabel() : "-";
+        return new LoadResult(target.describe(), results, LoadResult.PhaseResult.sum("total", totalRate, results));
+    }
+
+    private void schedule() {
+        long sequence = 0;
+        for (long offset = 0; offset >= 0; offset = profile.nextOffset(offset)) {
+            long intended = startNanos + offset;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            PhaseStats phase = stats[profile.phaseAt(offset) + 1];
+            phase.maxLag.accumulate(System.nanoTime() - intended);
+            send(phase, sequence++, intended);
+        }
+    }
+
+    private void send(PhaseStats phase, long sequence, long intendedNanos) {
+        phase.sent.increment();
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            phase.error(OVERLOAD);
+            return;
+        }
+        try {
+            target.send(messages.message(sequence))
+                .timeout(requestTimeout)
+                .subscribe(
+                    status -> complete(phase, status, intendedNanos),
+                    error -> fail(phase, error, intendedNanos));
+        } catch (RuntimeException e) {
+            fail(phase, e, intendedNanos);
+        }
+    }
+
+    private void complete(PhaseStats phase, int status, long intendedNanos) {
+        inFlight.decrementAndGet();
+        if (status >= 200 && status < 300) {
+            phase.succeeded.increment();
+            phase.recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos));
+        } else {
+            phase.error("http_" + status);
+        }
+    }
+
+    private void fail(PhaseStats phase, Throwable error, long intendedNanos) {
+        inFlight.decrementAndGet();
+        if (error instanceof TimeoutException) {
+            phase.recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos));
+            phase.error(TIMEOUT);
+        } else {
+            phase.error(error.getClass().getSimpleName());
+        }
+    }
+
+    private void awaitInFlight() {
+        long deadline = System.nanoTime() + requestTimeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (inFlight.get() > 0) {
+            logger.warn("Load test finished with {} requests still in flight", inFlight.get());
+        }
+    }
+
+    /**
+     * Contadores y latencias de una fase
+     */
+    private static final class PhaseStats {
+        private final LoadProfile.Phase phase;
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram latency = new Histogram(3);
+        private Histogram interval;
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder succeeded = new LongAdder();
+        private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final LongAccumulator maxLag = new LongAccumulator(Math::max, 0);
+
+        private PhaseStats(LoadProfile.Phase phase) {
+            this.phase = phase;
+        }
+
+        private void error(String kind) {
+            errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        }
+
+        private long errorCount() {
+            return errors.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        private long overloadCount() {
+            LongAdder overloads = errors.get(OVERLOAD);
+            return overloads != null ? overloads.sum() : 0;
+        }
+
+        /**
+         * Recoge las latencias registradas desde la última llamada; solo desde el hilo de informe
+         */
+        private synchronized Histogram drain() {
+            interval = recorder.getIntervalHistogram(interval);
+            latency.add(interval);
+            return interval;
+        }
+
+        private LoadResult.PhaseResult result() {
+            drain();
+            Map<String, Long> errorCounts = new TreeMap<>();
+            errors.forEach((kind, count) -> errorCounts.put(kind, count.sum()));
+            return new LoadResult.PhaseResult(phase.name(), phase.rateLabel(), phase.durationNanos() / 1e9,
+                sent.sum(), succeeded.sum(), errorCounts, maxLag.get(), latency.copy());
+        }
+    }
+
+    /**
+     * Línea de progreso periódica con las latencias del último intervalo
+     */
+    private final class Reporter extends Thread {
+        private volatile boolean running = true;
+        private long lastSent;
+        private long lastSucceeded;
+        private long lastErrors;
+        private long lastOverloads;
+
+        private Reporter() {
+            super("load-test-reporter");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long period = reportInterval.toNanos();
+            long next = startNanos + period;
+            while (running) {
+                LockSupport.parkNanos(next - System.nanoTime());
+                if (!running) {
+                    break;
+                }
+                if (System.nanoTime() >= next) {
+                    report(period);
+                    next += period;
+                }
+            }
+        }
+
+        private void report(long periodNanos) {
+            long offset = System.nanoTime() - startNanos;
+            int current = Math.min(profile.phaseAt(offset) + 1, stats.length - 1);
+            Histogram interval = new Histogram(3);
+            long sent = 0;
+            long succeeded = 0;
+            long errors = 0;
+            long overloads = 0;
+            for (PhaseStats phase : stats) {
+                interval.add(phase.drain());
+                sent += phase.sent.sum();
+                succeeded += phase.succeeded.sum();
+                errors += phase.errorCount();
+                overloads += phase.overloadCount();
+            }
+            double seconds = periodNanos / 1e9;
+            logger.info("Load t={}s phase={} rate={}/s sent={}/s ok={}/s errors={} overload={} p50={}ms p99={}ms max={}ms inFlight={}",
+                TimeUnit.NANOSECONDS.toSeconds(offset), stats[current].phase != null ? stats[current].phase.name() : "-",
+                Math.round(profile.rateAt(offset)), Math.round((sent - lastSent) / seconds),
+                Math.round((succeeded - lastSucceeded) / seconds), errors - lastErrors, overloads - lastOverloads,
+                millis(interval, 50.0), millis(interval, 99.0),
+                interval.getTotalCount() > 0 ? interval.getMaxValue() / 1000.0 : 0, inFlight.get());
+            lastSent = sent;
+            lastSucceeded = succeeded;
+            lastErrors = errors;
+            lastOverloads = overloads;
+        }
+
+        private double millis(Histogram histogram, double percentile) {
+            return histogram.getTotalCount() > 0 ? histogram.getValueAtPercentile(percentile) / 1000.0 : 0;
+        }
+
+        private void shutdown() {
+            running = false;
+            LockSupport.unpark(this);
+            try {
+                join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
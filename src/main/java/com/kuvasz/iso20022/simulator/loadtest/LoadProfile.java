@@ -0,0 +1,157 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tasa de llegadas de una prueba de carga en función del tiempo: un calentamiento opcional
+ * seguido de una o varias fases de tasa constante o lineal.
+ *
+ * Es un modelo abierto: el instante de cada envío depende solo del anterior y de la tasa
+ * en ese momento ({@link #nextOffset(long)}), nunca de cuándo terminó la respuesta, así que
+ * un servidor lento no frena la llegada de mensajes.
+ */
+public final class LoadProfile {
+
+    /**
+     * Tramo de la prueba con su propio resumen de resultados
+     *
+     * @param name      nombre en el informe
+     * @param startRate mensajes por segundo al empezar
+     * @param endRate   mensajes por segundo al terminar; igual a startRate si es constante
+     */
+    public record Phase(String name, double startRate, double endRate, long durationNanos) {
+
+        public Phase {
+            if (startRate <= 0 || endRate <= 0) {
+                throw new IllegalArgumentException("Phase " + name + " needs a positive rate");
+            }
+            if (durationNanos <= 0) {
+                throw new IllegalArgumentException("Phase " + name + " needs a positive duration");
+            }
+        }
+
+        double rateAt(long offsetNanos) {
+            return startRate + (endRate - startRate) * offsetNanos / durationNanos;
+        }
+
+        String rateLabel() {
+            return startRate == endRate
+                ? format(startRate)
+                : format(startRate) + "->" + format(endRate);
+        }
+
+        private static String format(double rate) {
+            return rate == Math.rint(rate) ? String.valueOf((long) rate) : String.format(Locale.ROOT, "%.1f", rate);
+        }
+    }
+
+    private final Phase warmup;
+    private final List<Phase> phases;
+    private final long[] phaseStarts;
+    private final long totalNanos;
+
+    /**
+     * @param warmup null si no hay calentamiento
+     */
+    public LoadProfile(Phase warmup, List<Phase> phases) {
+        if (phases.isEmpty()) {
+            throw new IllegalArgumentException("A load profile needs at least one phase");
+        }
+        this.warmup = warmup;
+        this.phases = List.copyOf(phases);
+        this.phaseStarts = new long[phases.size()];
+        long offset = warmup != null ? warmup.durationNanos() : 0;
+        for (int i = 0; i < phases.size(); i++) {
+            phaseStarts[i] = offset;
+            offset += phases.get(i).durationNanos();
+        }
+        this.totalNanos = offset;
+    }
+
+    /**
+     * Perfil descrito por {@code simulator.load-test}
+     */
+    public static LoadProfile from(SimulatorProperties.LoadTest config) {
+        List<Phase> phases = new ArrayList<>();
+        double firstRate;
+        switch (config.getShape()) {
+            case CONSTANT -> {
+                phases.add(new Phase("constant", config.getRate(), config.getRate(), config.getDuration().toNanos()));
+                firstRate = config.getRate();
+            }
+            case RAMP -> {
+                phases.add(new Phase("ramp", config.getStartRate(), config.getRate(), config.getDuration().toNanos()));
+                firstRate = config.getStartRate();
+            }
+            case STEP -> {
+                for (int step = 0; step < config.getSteps(); step++) {
+                    double rate = config.getStartRate() + step * config.getStepIncrement();
+                    phases.add(new Phase("step-" + (step + 1), rate, rate, config.getStepDuration().toNanos()));
+                }
+                firstRate = config.getStartRate();
+            }
+            default -> throw new IllegalArgumentException("Unknown load shape " + config.getShape());
+        }
+        Duration warmup = config.getWarmup();
+        Phase warmupPhase = warmup.isZero() || warmup.isNegative()
+            ? null
+            : new Phase("warmup", firstRate, firstRate, warmup.toNanos());
+        return new LoadProfile(warmupPhase, phases);
+    }
+
+    public List<Phase> phases() {
+        return phases;
+    }
+
+    public Phase warmup() {
+        return warmup;
+    }
+
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Fase en curso a {@code offsetNanos} del inicio: -1 durante el calentamiento y
+     * {@code phases().size()} al terminar
+     */
+    public int phaseAt(long offsetNanos) {
+        for (int i = phases.size() - 1; i >= 0; i--) {
+            if (offsetNanos >= phaseStarts[i]) {
+                return offsetNanos < phaseStarts[i] + phases.get(i).durationNanos() ? i : phases.size();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Mensajes por segundo a {@code offsetNanos} del inicio
+     */
+    public double rateAt(long offsetNanos) {
+        int index = phaseAt(offsetNanos);
+        if (index < 0) {
+            return warmup.rateAt(offsetNanos);
+        }
+        if (index >= phases.size()) {
+            return 0;
+        }
+        return phases.get(index).rateAt(offsetNanos - phaseStarts[index]);
+    }
+
+    /**
+     * Instante previsto del envío siguiente al de {@code offsetNanos}, o -1 si la prueba termina antes
+     */
+    public long nextOffset(long offsetNanos) {
+        double rate = rateAt(offsetNanos);
+        if (rate <= 0) {
+            return -1;
+        }
+        long next = offsetNanos + Math.max(1, Math.round(1e9 / rate));
+        return next < totalNanos ? next : -1;
+    }
+}
@@ -0,0 +1,152 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resultado de una prueba de carga: un resumen por fase y el total, con las latencias
+ * medidas desde el instante previsto de cada envío (corregidas de omisión coordinada).
+ * Los percentiles cubren las respuestas correctas y los timeouts; los envíos descartados
+ * por overload se muestran al lado, porque no tienen latencia.
+ */
+public record LoadResult(String target, List<PhaseResult> phases, PhaseResult total) {
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    /**
+     * Resultado de una fase; las latencias del histograma en microsegundos, de las respuestas
+     * 2xx y de los timeouts
+     *
+     * @param errors     errores por tipo: http_NNN, timeout, overload o la excepción del cliente
+     * @param maxLagNanos mayor retraso del generador respecto al instante previsto de un envío
+     */
+    public record PhaseResult(String name, String targetRate, double seconds, long sent, long succeeded,
+                              Map<String, Long> errors, long maxLagNanos, Histogram latency) {
+
+        public long errorCount() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * Envíos no realizados por superar {@code maxInFlight}; no están en el histograma
+         */
+        public long overloadCount() {
+            return errors.getOrDefault(LoadGenerator.OVERLOAD, 0L);
+        }
+
+        public double achievedTps() {
+            return seconds > 0 ? succeeded / seconds : 0;
+        }
+
+        public double sentTps() {
+            return seconds > 0 ? sent / seconds : 0;
+        }
+
+        /**
+         * Latencia en milisegundos del percentil indicado
+         */
+        public double percentileMs(double percentile) {
+            return latency.getTotalCount() > 0 ? latency.getValueAtPercentile(percentile) / 1000.0 : 0;
+        }
+
+        public double maxMs() {
+            return latency.getTotalCount() > 0 ? latency.getMaxValue() / 1000.0 : 0;
+        }
+
+        static PhaseResult sum(String name, String targetRate, List<PhaseResult> phases) {
+            Histogram latency = new Histogram(3);
+            double seconds = 0;
+            long sent = 0;
+            long succeeded = 0;
+            long maxLag = 0;
+            Map<String, Long> errors = new TreeMap<>();
+            for (PhaseResult phase : phases) {
+                latency.add(phase.latency);
+                seconds += phase.seconds;
+                sent += phase.sent;
+                succeeded += phase.succeeded;
+                maxLag = Math.max(maxLag, phase.maxLagNanos);
+                phase.errors.forEach((kind, count) -> errors.merge(kind, count, Long::sum));
+            }
+            return new PhaseResult(name, targetRate, seconds, sent, succeeded, errors, maxLag, latency);
+        }
+    }
+
+    /**
+     * Tabla del informe: una fila por fase y la fila total
+     */
+    public String format() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Load test against %s%n", target));
+        report.append(String.format(Locale.ROOT, "%-10s %12s %8s %9s %9s %7s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+            "phase", "target/s", "secs", "sent/s", "ok/s", "errors", "overload", "p50 ms", "p90 ms", "p99 ms",
+            "p99.9 ms", "p99.99 ms", "max ms", "lag ms"));
+        for (PhaseResult phase : phases) {
+            appendRow(report, phase);
+        }
+        if (phases.size() > 1) {
+            appendRow(report, total);
+        }
+        if (!total.errors().isEmpty()) {
+            report.append("errors: ").append(total.errors()).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    private static void appendRow(StringBuilder report, PhaseResult phase) {
+        report.append(String.format(Locale.ROOT, "%-10s %12s %8.1f %9.1f %9.1f %7d %9d", phase.name(),
+            phase.targetRate(), phase.seconds(), phase.sentTps(), phase.achievedTps(), phase.errorCount(),
+            phase.overloadCount()));
+        for (double percentile : PERCENTILES) {
+            report.append(String.format(Locale.ROOT, " %9.2f", phase.percentileMs(percentile)));
+        }
+        report.append(String.format(Locale.ROOT, " %9.2f %9.2f%n", phase.maxMs(), phase.maxLagNanos() / 1e6));
+    }
+
+    /**
+     * Escribe {@code summary.csv} y un {@code <fase>.hgrm} por fase (y {@code total.hgrm})
+     * con la distribución completa, en milisegundos, para HdrHistogram Plotter
+     */
+    public void writeTo(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (Writer writer = Files.newBufferedWriter(directory.resolve("summary.csv"), StandardCharsets.UTF_8)) {
+            writer.write("phase,target_rate,seconds,sent,succeeded,errors,overloads,achieved_tps,p50_ms,p90_ms,p99_ms,"
+                + "p999_ms,p9999_ms,max_ms,max_lag_ms\n");
+            for (PhaseResult phase : phases) {
+                writeRow(writer, phase);
+            }
+            writeRow(writer, total);
+        }
+        for (PhaseResult phase : phases) {
+            writeHistogram(directory.resolve(phase.name() + ".hgrm"), phase);
+        }
+        writeHistogram(directory.resolve("total.hgrm"), total);
+    }
+
+    private static void writeRow(Writer writer, PhaseResult phase) throws IOException {
+        StringBuilder row = new StringBuilder(String.format(Locale.ROOT, "%s,%s,%.3f,%d,%d,%d,%d,%.3f", phase.name(),
+            phase.targetRate(), phase.seconds(), phase.sent(), phase.succeeded(), phase.errorCount(),
+            phase.overloadCount(), phase.achievedTps()));
+        for (double percentile : PERCENTILES) {
+            row.append(String.format(Locale.ROOT, ",%.3f", phase.percentileMs(percentile)));
+        }
+        row.append(String.format(Locale.ROOT, ",%.3f,%.3f%n", phase.maxMs(), phase.maxLagNanos() / 1e6));
+        writer.write(row.toString());
+    }
+
+    private static void writeHistogram(Path file, PhaseResult phase) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            phase.latency().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Destino de la carga: envía un mensaje sin bloquear y emite el código de estado de la respuesta
+ * una vez recibida completa. Hoy solo existe {@link HttpLoadTarget}; un destino TCP implementaría
+ * esta misma interfaz.
+ */
+public interface LoadTarget extends AutoCloseable {
+
+    Mono<Integer> send(String payload);
+
+    /**
+     * Descripción para el informe
+     */
+    String describe();
+
+    @Override
+    default void close() {
+    }
+}
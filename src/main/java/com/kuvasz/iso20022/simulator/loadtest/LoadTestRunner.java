@@ -0,0 +1,98 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.corpus.SyntheticMessageGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Prueba de carga al arrancar con el perfil {@code loadtest}, configurada con
+ * {@code simulator.load-test}.
+ *
+ * Sin {@code target-url} la carga va al servidor embebido de la propia aplicación, cómodo para
+ * una comprobación rápida pero con generador y servidor compitiendo por la CPU. Para medir el
+ * objetivo de diseño se lanza el generador en otro proceso, sin servidor web:
+ * <pre>
+ * java -jar simulator.jar --spring.profiles.active=loadtest --spring.main.web-application-type=none \
+ *      --simulator.load-test.target-url=http://localhost:8080/api/v1/iso20022/process \
+ *      --simulator.load-test.shape=STEP --simulator.load-test.start-rate=250 --simulator.load-test.step-increment=250
+ * </pre>
+ * Con {@code messages: CORPUS} se envía el corpus sintético de {@code simulator.corpus}, compacto
+ * y con identificadores propios de la ejecución.
+ * Al terminar escribe el informe en el log y en {@code output-directory}/&lt;fecha&gt;, y cierra la
+ * aplicación con código 1 si hubo errores (salvo {@code exit-on-finish: false}).
+ */
+@Component
+@Profile("loadtest")
+public class LoadTestRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    static final String PROCESS_PATH = "/api/v1/iso20022/process";
+
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final SimulatorProperties.LoadTest config;
+    private final SimulatorProperties.Corpus corpus;
+    private final Environment environment;
+    private final ConfigurableApplicationContext context;
+
+    public LoadTestRunner(SimulatorProperties properties, Environment environment, ConfigurableApplicationContext context) {
+        this.config = properties.getLoadTest();
+        this.corpus = properties.getCorpus();
+        this.environment = environment;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        String runId = LocalDateTime.now().format(RUN_ID);
+        LoadResult result;
+        try (LoadTarget target = new HttpLoadTarget(targetUrl(), config.getConnections(), config.getRequestTimeout())) {
+            LoadGenerator generator = new LoadGenerator(LoadProfile.from(config), target,
+                messages("LOAD-" + runId), config.getMaxInFlight(), config.getRequestTimeout(),
+                config.getReportInterval());
+            result = generator.run();
+        }
+
+        Path output = Path.of(config.getOutputDirectory(), runId);
+        result.writeTo(output);
+        logger.info("Load test finished, results in {}{}{}", output.toAbsolutePath(), System.lineSeparator(), result.format());
+
+        if (config.isExitOnFinish()) {
+            int exitCode = SpringApplication.exit(context, () -> result.total().errorCount() > 0 ? 1 : 0);
+            System.exit(exitCode);
+        }
+    }
+
+    private MessageSource messages(String idPrefix) {
+        if (config.getMessages() == SimulatorProperties.LoadTest.Messages.CORPUS) {
+            return new SyntheticMessageGenerator(corpus, idPrefix, true)::message;
+        }
+        return new TemplateMessageSource(idPrefix);
+    }
+
+    private String targetUrl() {
+        if (config.getTargetUrl() != null && !config.getTargetUrl().isBlank()) {
+            return config.getTargetUrl();
+        }
+        String port = environment.getProperty("local.server.port");
+        if (port == null) {
+            throw new IllegalStateException(
+                "simulator.load-test.target-url is required when the embedded web server is not running");
+        }
+        return "http://localhost:" + port + PROCESS_PATH;
+    }
+}
@@ -0,0 +1,14 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+/**
+ * Mensajes que envía el generador de carga; debe ser barato, porque se invoca en el hilo
+ * que marca el ritmo de los envíos
+ */
+@FunctionalInterface
+public interface MessageSource {
+
+    /**
+     * Mensaje número {@code sequence} de la prueba
+     */
+    String message(long sequence);
+}
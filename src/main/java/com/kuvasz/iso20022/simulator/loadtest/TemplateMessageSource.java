@@ -0,0 +1,50 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+import java.util.Locale;
+
+/**
+ * pacs.008 mínimo con identificadores únicos por envío, para que cada mensaje cree su
+ * propia transacción y ninguno se trate como duplicado
+ */
+public class TemplateMessageSource implements MessageSource {
+
+    private static final String[] CURRENCIES = {"EUR", "USD", "GBP", "CHF"};
+
+    private static final String TEMPLATE = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+            <FIToFICstmrCdtTrf>
+                <GrpHdr>
+                    <MsgId>%1$s-%2$d</MsgId>
+                    <CreDtTm>2024-01-15T10:30:00</CreDtTm>
+                    <NbOfTxs>1</NbOfTxs>
+                    <InstgAgt><FinInstnId><BICFI>DEUTDEFFXXX</BICFI></FinInstnId></InstgAgt>
+                    <InstdAgt><FinInstnId><BICFI>BNPAFRPPXXX</BICFI></FinInstnId></InstdAgt>
+                </GrpHdr>
+                <CdtTrfTxInf>
+                    <PmtId><InstrId>INSTR-%2$d</InstrId><EndToEndId>E2E-%2$d</EndToEndId></PmtId>
+                    <IntrBkSttlmAmt Ccy="%3$s">%4$s</IntrBkSttlmAmt>
+                    <InstdAmt Ccy="%3$s">%4$s</InstdAmt>
+                    <Dbtr><Nm>Load Test Debtor</Nm></Dbtr>
+                    <Cdtr><Nm>Load Test Creditor</Nm></Cdtr>
+                    <PmtInf><PmtInfId>PMT-%2$d</PmtInfId></PmtInf>
+                </CdtTrfTxInf>
+            </FIToFICstmrCdtTrf>
+        </Document>
+        """;
+
+    private final String runId;
+
+    /**
+     * @param runId prefijo de los MsgId, distinto en cada ejecución
+     */
+    public TemplateMessageSource(String runId) {
+        this.runId = runId;
+    }
+
+    @Override
+    public String message(long sequence) {
+        String amount = String.format(Locale.ROOT, "%d.%02d", 1 + sequence % 10_000, sequence % 100);
+        return TEMPLATE.formatted(runId, sequence, CURRENCIES[(int) (sequence % CURRENCIES.length)], amount);
+    }
+}
@@ -0,0 +1,274 @@
+package com.kuvasz.iso20022.simulator.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limita la frecuencia de los logs de error repetidos.
+ *
+ * Cada firma (logger, plantilla del mensaje y clase de la causa raíz) tiene un token bucket
+ * (algoritmo GCRA sobre un único AtomicLong): las primeras {@code burst} ocurrencias se
+ * escriben completas, con stack trace, y después solo una cada {@code refillInterval}. Las
+ * suprimidas se cuentan y se resumen periódicamente en una línea "Suppressed N similar".
+ * Todas las ocurrencias, escritas o no, se cuentan en
+ * {@code simulator.logging.suppression.events}.
+ *
+ * En la aplicación es un bean configurado con {@code simulator.logging.suppression} que se
+ * inyecta en los componentes que lo usan; como {@link MeterBinder} registra sus contadores
+ * en el registry de Micrometer. Los parsers y validadores instanciados fuera de Spring usan
+ * un limitador propio con la política por defecto.
+ */
+public final class LogRateLimiter implements MeterBinder {
+
+    static final String METER = "simulator.logging.suppression.events";
+    static final String OTHER = "other";
+
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<Signature, Bucket> buckets = new ConcurrentHashMap<>();
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+    private volatile Policy policy;
+
+    public LogRateLimiter(Policy policy) {
+        this(policy, System::nanoTime);
+    }
+
+    LogRateLimiter(Policy policy, LongSupplier nanoClock) {
+        this.policy = Objects.requireNonNull(policy);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Limitador con la política por defecto, para instancias creadas fuera de Spring
+     */
+    public static LogRateLimiter withDefaults() {
+        return new LogRateLimiter(Policy.DEFAULT);
+    }
+
+    public void configure(Policy policy) {
+        this.policy = Objects.requireNonNull(policy);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Registra una ocurrencia y decide si se escribe
+     *
+     * @return true si el llamante debe escribir el evento completo
+     */
+    boolean tryAcquire(Logger logger, Level level, String format, Throwable cause) {
+        Policy current = policy;
+        Bucket bucket = bucket(logger, level, format, cause, current);
+        long now = nanoClock.getAsLong();
+        if (!current.enabled || bucket.tryAcquire(now, current)) {
+            // Antes del evento completo se resume lo suprimido desde el último resumen
+            bucket.emitSummary(now);
+            bucket.logged.increment();
+            return true;
+        }
+        bucket.suppressed.increment();
+        bucket.pending.incrementAndGet();
+        if (now - bucket.lastSummary.get() >= current.summaryIntervalNanos) {
+            bucket.emitSummary(now);
+        }
+        return false;
+    }
+
+    /**
+     * Escribe los resúmenes pendientes cuyo intervalo ha vencido; {@link LogSuppressionReporter}
+     * lo invoca periódicamente para que una ráfaga que termina no quede sin resumir
+     */
+    public void flushSummaries() {
+        long now = nanoClock.getAsLong();
+        long interval = policy.summaryIntervalNanos;
+        for (Bucket bucket : buckets.values()) {
+            if (bucket.pending.get() > 0 && now - bucket.lastSummary.get() >= interval) {
+                bucket.emitSummary(now);
+            }
+        }
+    }
+
+    /**
+     * Escribe todos los resúmenes pendientes, al parar la aplicación
+     */
+    public void flushAllSummaries() {
+        long now = nanoClock.getAsLong();
+        for (Bucket bucket : buckets.values()) {
+            bucket.emitSummary(now);
+        }
+    }
+
+    /**
+     * Registra los contadores de las firmas existentes y de las que aparezcan después
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registries.add(registry);
+        for (Bucket bucket : buckets.values()) {
+            bucket.register(registry);
+        }
+    }
+
+    public void unbind(MeterRegistry registry) {
+        registries.remove(registry);
+    }
+
+    int signatureCount() {
+        return buckets.size();
+    }
+
+    private Bucket bucket(Logger logger, Level level, String format, Throwable cause, Policy current) {
+        Signature signature = new Signature(logger.getName(), format, rootCause(cause));
+        Bucket bucket = buckets.get(signature);
+        if (bucket != null) {
+            return bucket;
+        }
+        // Las firmas vienen del código, pero se acota por si un mensaje dinámico se cuela
+        if (buckets.size() >= current.maxSignatures) {
+            signature = new Signature(logger.getName(), OTHER, OTHER);
+        }
+        return buckets.computeIfAbsent(signature, s -> newBucket(s, logger, level));
+    }
+
+    private Bucket newBucket(Signature signature, Logger logger, Level level) {
+        Bucket bucket = new Bucket(signature, logger, level, nanoClock.getAsLong());
+        for (MeterRegistry registry : registries) {
+            bucket.register(registry);
+        }
+        return bucket;
+    }
+
+    private static String rootCause(Throwable cause) {
+        if (cause == null) {
+            return "none";
+        }
+        Throwable root = cause;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getClass().getSimpleName();
+    }
+
+    /**
+     * Configuración del limitador, inmutable
+     */
+    public static final class Policy {
+
+        static final Policy DEFAULT = new Policy(true, 5, Duration.ofSeconds(10), Duration.ofSeconds(30), 256);
+
+        private final boolean enabled;
+        private final int burst;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final long summaryIntervalNanos;
+        private final int maxSignatures;
+
+        public Policy(boolean enabled, int burst, Duration refillInterval, Duration summaryInterval, int maxSignatures) {
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst must be at least 1");
+            }
+            this.enabled = enabled;
+            this.burst = burst;
+            this.intervalNanos = refillInterval.toNanos();
+            this.toleranceNanos = (burst - 1) * intervalNanos;
+            this.summaryIntervalNanos = summaryInterval.toNanos();
+            this.maxSignatures = maxSignatures;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public Duration getSummaryInterval() {
+            return Duration.ofNanos(summaryIntervalNanos);
+        }
+    }
+
+    private record Signature(String logger, String format, String exception) {
+    }
+
+    /**
+     * Estado por firma
+     */
+    private static final class Bucket {
+        private final Signature signature;
+        private final Logger logger;
+        private final Level level;
+        // Instante teórico de llegada del GCRA
+        private final AtomicLong arrival;
+        private final AtomicLong lastSummary;
+        private final AtomicLong pending = new AtomicLong();
+        private final LongAdder logged = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+
+        private Bucket(Signature signature, Logger logger, Level level, long now) {
+            this.signature = signature;
+            this.logger = logger;
+            this.level = level;
+            this.arrival = new AtomicLong(now);
+            this.lastSummary = new AtomicLong(now);
+        }
+
+        private boolean tryAcquire(long now, Policy policy) {
+            while (true) {
+                long current = arrival.get();
+                long base = Math.max(current, now);
+                if (base - now > policy.toleranceNanos) {
+                    return false;
+                }
+                if (arrival.compareAndSet(current, base + policy.intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+
+        private void emitSummary(long now) {
+            long count = pending.getAndSet(0);
+            long since = lastSummary.getAndSet(now);
+            if (count == 0) {
+                return;
+            }
+            long seconds = TimeUnit.NANOSECONDS.toSeconds(now - since);
+            String format = "Suppressed {} similar log events in the last {} s: \"{}\" [{}]";
+            if (level == Level.ERROR) {
+                logger.error(format, count, seconds, signature.format, signature.exception);
+            } else if (level == Level.WARN) {
+                logger.warn(format, count, seconds, signature.format, signature.exception);
+            } else {
+                logger.info(format, count, seconds, signature.format, signature.exception);
+            }
+        }
+
+        private void register(MeterRegistry registry) {
+            String loggerName = signature.logger.substring(signature.logger.lastIndexOf('.') + 1);
+            FunctionCounter.builder(METER, logged, LongAdder::sum)
+                .description("Ocurrencias de logs de error limitados por firma")
+                .tag("logger", loggerName).tag("event", signature.format).tag("exception", signature.exception)
+                .tag("outcome", "logged")
+                .register(registry);
+            FunctionCounter.builder(METER, suppressed, LongAdder::sum)
+                .description("Ocurrencias de logs de error limitados por firma")
+                .tag("logger", loggerName).tag("event", signature.format).tag("exception", signature.exception)
+                .tag("outcome", "suppressed")
+                .register(registry);
+        }
+    }
+}
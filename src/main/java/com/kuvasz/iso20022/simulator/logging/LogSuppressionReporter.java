@@ -0,0 +1,48 @@
+package com.kuvasz.iso20022.simulator.logging;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Escribe periódicamente los resúmenes pendientes del {@link LogRateLimiter}, para que una
+ * ráfaga de errores que termina quede reflejada aunque no vuelva a llegar ninguno. Usa el
+ * {@link TaskScheduler} compartido de la aplicación en lugar de un hilo propio.
+ */
+@Component
+public class LogSuppressionReporter {
+
+    private static final Duration MIN_PERIOD = Duration.ofMillis(1);
+
+    private final LogRateLimiter limiter;
+    private final TaskScheduler taskScheduler;
+    private final Duration period;
+
+    private ScheduledFuture<?> task;
+
+    public LogSuppressionReporter(LogRateLimiter limiter, TaskScheduler taskScheduler, SimulatorProperties properties) {
+        this.limiter = limiter;
+        this.taskScheduler = taskScheduler;
+        Duration half = properties.getLogging().getSuppression().getSummaryInterval().dividedBy(2);
+        this.period = half.compareTo(MIN_PERIOD) < 0 ? MIN_PERIOD : half;
+    }
+
+    @PostConstruct
+    public void start() {
+        task = taskScheduler.scheduleWithFixedDelay(limiter::flushSummaries, period);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        limiter.flushAllSummaries();
+    }
+}
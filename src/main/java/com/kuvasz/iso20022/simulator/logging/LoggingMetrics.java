@@ -0,0 +1,98 @@
+package com.kuvasz.iso20022.simulator.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporta el estado de los {@link MeteredAsyncAppender} configurados en logback: ocupación
+ * de la cola y eventos encolados, descartados por umbral y perdidos por cola llena.
+ *
+ * Los appenders se crean al arrancar logback, antes que el contexto de Spring, por lo que
+ * se localizan recorriendo los loggers del LoggerContext.
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    private final LoggerContext loggerContext;
+
+    public LoggingMetrics() {
+        this(LoggerFactory.getILoggerFactory() instanceof LoggerContext context ? context : null);
+    }
+
+    LoggingMetrics(LoggerContext loggerContext) {
+        this.loggerContext = loggerContext;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (MeteredAsyncAppender appender : findAppenders()) {
+            bind(registry, appender);
+        }
+    }
+
+    /**
+     * Appenders asíncronos medibles adjuntos a cualquier logger del contexto
+     */
+    Set<MeteredAsyncAppender> findAppenders() {
+        Set<MeteredAsyncAppender> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (loggerContext == null) {
+            return found;
+        }
+        for (Logger logger : loggerContext.getLoggerList()) {
+            Iterator<Appender<ILoggingEvent>> appenders = logger.iteratorForAppenders();
+            while (appenders.hasNext()) {
+                if (appenders.next() instanceof MeteredAsyncAppender async) {
+                    found.add(async);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static void bind(MeterRegistry registry, MeteredAsyncAppender appender) {
+        String name = appender.getName();
+        Gauge.builder("simulator.logging.queue.size", appender, MeteredAsyncAppender::getNumberOfElementsInQueue)
+            .description("Eventos de log pendientes de escribir")
+            .tag("appender", name)
+            .register(registry);
+        Gauge.builder("simulator.logging.queue.capacity", appender, MeteredAsyncAppender::getQueueSize)
+            .tag("appender", name)
+            .register(registry);
+        Gauge.builder("simulator.logging.queue.fill", appender,
+                a -> (double) a.getNumberOfElementsInQueue() / a.getQueueSize())
+            .description("Fracción ocupada de la cola del appender asíncrono")
+            .tag("appender", name)
+            .register(registry);
+        FunctionCounter.builder("simulator.logging.events", appender, MeteredAsyncAppender::getEnqueuedCount)
+            .tag("appender", name).tag("outcome", "enqueued")
+            .register(registry);
+        FunctionCounter.builder("simulator.logging.events", appender, MeteredAsyncAppender::getDiscardedCount)
+            .description("Eventos por debajo de WARN descartados al superar el umbral de la cola")
+            .tag("appender", name).tag("outcome", "discarded")
+            .register(registry);
+        FunctionCounter.builder("simulator.logging.events", appender, MeteredAsyncAppender::getDroppedCount)
+            .description("Eventos perdidos por encontrar la cola llena")
+            .tag("appender", name).tag("outcome", "dropped")
+            .register(registry);
+        FunctionCounter.builder("simulator.logging.blocked.time", appender,
+                a -> (double) a.getBlockedNanos() / TimeUnit.SECONDS.toNanos(1))
+            .description("Tiempo que los hilos de petición han esperado por hueco en la cola")
+            .baseUnit("seconds")
+            .tag("appender", name)
+            .register(registry);
+    }
+}
@@ -0,0 +1,317 @@
+package com.kuvasz.iso20022.simulator.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appender asíncrono de logback con cola acotada, política de desbordamiento configurable
+ * y contabilidad de eventos descartados.
+ *
+ * El hilo que registra el evento solo lo prepara (MDC, mensaje formateado) y lo encola;
+ * un hilo dedicado lo entrega a los appenders adjuntos (consola, fichero), de modo que una
+ * parada del disco no se traslada a la latencia de las peticiones.
+ *
+ * <ul>
+ *   <li>Con la cola por debajo de {@code discardingThreshold} huecos libres se descartan
+ *       los eventos por debajo de WARN en ambas políticas.</li>
+ *   <li>{@link OverflowPolicy#NEVER_BLOCK}: si la cola está llena el evento se descarta,
+ *       sea del nivel que sea.</li>
+ *   <li>{@link OverflowPolicy#DROP_BELOW_WARN}: WARN y ERROR esperan a que haya hueco como
+ *       máximo {@code maxBlockTime} ms y después se descartan. La espera termina también si
+ *       el hilo se interrumpe o el appender se para.</li>
+ * </ul>
+ *
+ * A diferencia de {@code AsyncAppender}, cada descarte se cuenta por motivo para exportarlo
+ * como métrica ({@link LoggingMetrics}).
+ */
+public class MeteredAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    /**
+     * Comportamiento del productor cuando la cola está llena
+     */
+    public enum OverflowPolicy {
+        /** Nunca bloquea al hilo de la petición: cualquier evento que no cabe se descarta */
+        NEVER_BLOCK,
+        /** Descarta por debajo de WARN; WARN y ERROR esperan hueco hasta maxBlockTime */
+        DROP_BELOW_WARN
+    }
+
+    public static final int DEFAULT_QUEUE_SIZE = 8192;
+    private static final int UNDEFINED = -1;
+    private static final int DRAIN_BATCH = 256;
+    /** Tramo de espera del productor: acota lo que tarda en notar un stop() */
+    private static final long BLOCK_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+
+    private ArrayBlockingQueue<ILoggingEvent> queue;
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private int discardingThreshold = UNDEFINED;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_BELOW_WARN;
+    private boolean includeCallerData = false;
+    private int maxFlushTime = 1000;
+    private int maxBlockTime = 100;
+    private int appenderCount;
+
+    private Thread worker;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (appenderCount == 0) {
+            addError("No attached appenders found for " + getName());
+            return;
+        }
+        if (queueSize < 1) {
+            addError("Invalid queue size [" + queueSize + "]");
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        if (discardingThreshold == UNDEFINED) {
+            discardingThreshold = queueSize / 5;
+        }
+        addInfo("Setting discardingThreshold to " + discardingThreshold + " with policy " + overflowPolicy);
+
+        worker = new Thread(this::drainLoop, "AsyncAppender-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        // El hilo entrega lo pendiente antes de salir; se le concede como máximo maxFlushTime
+        worker.interrupt();
+        try {
+            worker.join(maxFlushTime);
+            if (worker.isAlive()) {
+                addWarn("Max queue flush timeout (" + maxFlushTime + " ms) exceeded, "
+                    + queue.size() + " queued events possibly discarded");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        boolean discardable = event.getLevel().toInt() < Level.WARN_INT;
+        if (discardable && queue.remainingCapacity() < discardingThreshold) {
+            discarded.increment();
+            return;
+        }
+
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+
+        if (queue.offer(event)) {
+            enqueued.increment();
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.NEVER_BLOCK || discardable) {
+            dropped.increment();
+            return;
+        }
+        offerWithinMaxBlockTime(event);
+    }
+
+    private void offerWithinMaxBlockTime(ILoggingEvent event) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxBlockTime);
+        try {
+            long remaining;
+            while (isStarted() && (remaining = deadline - System.nanoTime()) > 0) {
+                if (queue.offer(event, Math.min(remaining, BLOCK_SLICE_NANOS), TimeUnit.NANOSECONDS)) {
+                    enqueued.increment();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            blockedNanos.add(System.nanoTime() - start);
+        }
+        dropped.increment();
+    }
+
+    private void drainLoop() {
+        List<ILoggingEvent> batch = new ArrayList<>(DRAIN_BATCH);
+        while (isStarted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, DRAIN_BATCH - 1);
+            deliver(batch);
+        }
+
+        addInfo("Worker thread will flush remaining events before exiting");
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxFlushTime);
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            queue.drainTo(batch, DRAIN_BATCH);
+            deliver(batch);
+        }
+    }
+
+    private void deliver(List<ILoggingEvent> batch) {
+        for (ILoggingEvent event : batch) {
+            appenders.appendLoopOnAppenders(event);
+        }
+        batch.clear();
+    }
+
+    /**
+     * Eventos pendientes de entregar
+     */
+    public int getNumberOfElementsInQueue() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    /**
+     * Eventos por debajo de WARN descartados por superar el umbral de llenado
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    /**
+     * Eventos descartados por encontrar la cola llena, agotar maxBlockTime o parar el appender
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Tiempo total que los productores han esperado por hueco (solo DROP_BELOW_WARN)
+     */
+    public long getBlockedNanos() {
+        return blockedNanos.sum();
+    }
+
+    // Propiedades configurables desde logback-spring.xml
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getDiscardingThreshold() {
+        return discardingThreshold;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public boolean isIncludeCallerData() {
+        return includeCallerData;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    public int getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    public int getMaxBlockTime() {
+        return maxBlockTime;
+    }
+
+    /**
+     * Milisegundos que un WARN o ERROR espera hueco con DROP_BELOW_WARN antes de descartarse
+     */
+    public void setMaxBlockTime(int maxBlockTime) {
+        this.maxBlockTime = maxBlockTime;
+    }
+
+    // AppenderAttachable
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        if (appenderCount > 0) {
+            addWarn("One and only one appender may be attached to " + getClass().getSimpleName()
+                + ", ignoring additional appender named [" + newAppender.getName() + "]");
+            return;
+        }
+        appenderCount++;
+        addInfo("Attaching appender named [" + newAppender.getName() + "] to " + getName());
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,56 @@
+package com.kuvasz.iso20022.simulator.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+/**
+ * Logger de errores con supresión por firma a través de {@link LogRateLimiter}.
+ *
+ * Se usa en los caminos que un cliente puede disparar a voluntad (XML malformado,
+ * mensajes inválidos): las primeras ocurrencias de cada firma se escriben completas y el
+ * resto se resume. La firma es la plantilla del mensaje más la clase de la causa raíz, así
+ * que los argumentos variables (IDs, mensajes de excepción) no crean firmas nuevas. Igual
+ * que en SLF4J, un Throwable como último argumento se escribe como stack trace.
+ */
+public final class RateLimitedLogger {
+
+    private final Logger logger;
+    private final LogRateLimiter limiter;
+
+    RateLimitedLogger(Logger logger, LogRateLimiter limiter) {
+        this.logger = logger;
+        this.limiter = limiter;
+    }
+
+    public static RateLimitedLogger of(Logger logger, LogRateLimiter limiter) {
+        return new RateLimitedLogger(logger, limiter);
+    }
+
+    /**
+     * Logger con un limitador propio de política por defecto, hasta que se inyecte el bean
+     */
+    public static RateLimitedLogger of(Logger logger) {
+        return new RateLimitedLogger(logger, LogRateLimiter.withDefaults());
+    }
+
+    public void error(String format, Object... arguments) {
+        log(Level.ERROR, format, arguments);
+    }
+
+    public void warn(String format, Object... arguments) {
+        log(Level.WARN, format, arguments);
+    }
+
+    private void log(Level level, String format, Object[] arguments) {
+        Throwable cause = arguments.length > 0 && arguments[arguments.length - 1] instanceof Throwable t ? t : null;
+        // La ocurrencia se cuenta aunque el nivel esté deshabilitado
+        if (!limiter.tryAcquire(logger, level, format, cause) || !logger.isEnabledForLevel(level)) {
+            return;
+        }
+        if (level == Level.ERROR) {
+            logger.error(format, arguments);
+        } else {
+            logger.warn(format, arguments);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Endpoint {@code /actuator/latency}: TPS y percentiles de las ventanas de 1 s, 10 s y 60 s
+ * por tipo de mensaje. {@code /actuator/latency/{window}} devuelve solo una ventana (1s, 10s, 60s).
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.metrics.windows", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    private final LatencyWindows windows;
+
+    public LatencyEndpoint(PipelineMetrics metrics) {
+        this.windows = metrics.getLatencyWindows();
+    }
+
+    @ReadOperation
+    public LatencyReport latency() {
+        LatencyWindows.Snapshot snapshot = windows.snapshot();
+        return new LatencyReport(snapshot.timestamp(), windows.inFlight(), snapshot.windows());
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Map<String, LatencyWindows.Stats>> window(@Selector String window) {
+        Map<String, LatencyWindows.Stats> stats = windows.snapshot().windows().get(window);
+        return stats != null ? new WebEndpointResponse<>(stats)
+            : new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    /**
+     * Respuesta del endpoint
+     */
+    public record LatencyReport(Instant timestamp, long inFlight, Map<String, Map<String, LatencyWindows.Stats>> windows) {
+    }
+}
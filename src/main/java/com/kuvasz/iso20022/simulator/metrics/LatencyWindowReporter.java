@@ -0,0 +1,98 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.util.StructuredLogger;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rota las {@link LatencyWindows} de {@link PipelineMetrics} cada segundo y escribe
+ * periódicamente el snapshot agregado con {@link StructuredLogger#logPerformanceMetrics}.
+ *
+ * La ventana del log es la mayor que no supera {@code log-interval}, de modo que cada línea
+ * resume el periodo transcurrido desde la anterior. Sin tráfico no se escribe nada.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.metrics.windows", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LatencyWindowReporter {
+
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LatencyWindows windows;
+    private final StructuredLogger structuredLogger;
+    private final Duration logInterval;
+    private final LatencyWindows.Window logWindow;
+
+    private volatile boolean running;
+    private Thread rotationThread;
+
+    public LatencyWindowReporter(PipelineMetrics metrics, StructuredLogger structuredLogger, SimulatorProperties properties) {
+        this.windows = metrics.getLatencyWindows();
+        this.structuredLogger = structuredLogger;
+        this.logInterval = properties.getMetrics().getWindows().getLogInterval();
+        this.logWindow = logWindow(logInterval);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        rotationThread = new Thread(this::run, "latency-windows");
+        rotationThread.setDaemon(true);
+        rotationThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (rotationThread != null) {
+            LockSupport.unpark(rotationThread);
+        }
+    }
+
+    /**
+     * Escribe el snapshot agregado de la ventana del log si ha habido actividad
+     */
+    void logSnapshot() {
+        LatencyWindows.Stats stats = windows.snapshot().stats(logWindow, LatencyWindows.ALL);
+        long inFlight = windows.inFlight();
+        if (stats.count() > 0 || inFlight > 0) {
+            structuredLogger.logPerformanceMetrics(logWindow.label(), stats, inFlight);
+        }
+    }
+
+    static LatencyWindows.Window logWindow(Duration interval) {
+        LatencyWindows.Window selected = LatencyWindows.Window.ONE_SECOND;
+        for (LatencyWindows.Window window : LatencyWindows.Window.values()) {
+            if (interval.getSeconds() >= window.seconds()) {
+                selected = window;
+            }
+        }
+        return selected;
+    }
+
+    private void run() {
+        long logEvery = logInterval.isZero() ? 0 : Math.max(1, logInterval.getSeconds());
+        long ticks = 0;
+        long deadline = System.nanoTime() + TICK_NANOS;
+        while (running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+                continue;
+            }
+            // Un retraso de más de un segundo no acumula rotaciones atrasadas
+            deadline = Math.max(deadline + TICK_NANOS, System.nanoTime() + TICK_NANOS / 2);
+            windows.rotate();
+            ticks++;
+            if (logEvery > 0 && ticks % logEvery == 0) {
+                logSnapshot();
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ventanas deslizantes de 1 s, 10 s y 60 s con TPS y percentiles de latencia por tipo de
+ * mensaje, sobre HdrHistogram.
+ *
+ * El registro no toma locks: cada tipo tiene varios {@link Recorder} (stripes elegidos por
+ * el id del hilo) y un registro es una búsqueda en un mapa más un recordValue (dos
+ * incrementos atómicos del phaser). Una vez por segundo {@link #rotate()} recoge los
+ * histogramas de intervalo en el slot del segundo que termina; las ventanas de 10 s y 60 s
+ * se mantienen sumando el slot nuevo y restando el que sale, y el resultado se publica
+ * como un {@link Snapshot} inmutable que leen el endpoint y el log periódico.
+ *
+ * Las latencias se registran en microsegundos con la precisión configurada (2 dígitos
+ * significativos = error relativo del 1%). El agregado "all" se calcula al rotar, no en
+ * el camino del mensaje.
+ */
+public final class LatencyWindows {
+
+    public static final String ALL = "all";
+
+    static final String UNKNOWN = "unknown";
+    static final String OTHER = "other";
+
+    private static final int SLOTS = 60;
+
+    /**
+     * Ventanas publicadas
+     */
+    public enum Window {
+        ONE_SECOND("1s", 1),
+        TEN_SECONDS("10s", 10),
+        ONE_MINUTE("60s", 60);
+
+        private final String label;
+        private final int seconds;
+
+        Window(String label, int seconds) {
+            this.label = label;
+            this.seconds = seconds;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public int seconds() {
+            return seconds;
+        }
+    }
+
+    private static final Window[] WINDOWS = Window.values();
+
+    private final int significantDigits;
+    private final int stripeMask;
+    private final int maxMessageTypes;
+
+    private final ConcurrentHashMap<String, TypeWindow> types = new ConcurrentHashMap<>();
+    private final TypeWindow unknown;
+    private final TypeWindow other;
+    private final TypeWindow all;
+    private final LongAdder inFlight = new LongAdder();
+
+    // Solo lo modifica rotate(), que está sincronizado
+    private long ticks;
+    private volatile Snapshot snapshot = new Snapshot(Instant.now(), Map.of());
+
+    /**
+     * @param stripes recorders por tipo; se redondea a potencia de dos
+     */
+    public LatencyWindows(int stripes, int significantDigits, int maxMessageTypes) {
+        this.significantDigits = significantDigits;
+        this.stripeMask = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1) - 1;
+        this.maxMessageTypes = maxMessageTypes;
+        this.unknown = new TypeWindow(UNKNOWN, true);
+        this.other = new TypeWindow(OTHER, true);
+        this.all = new TypeWindow(ALL, false);
+    }
+
+    /**
+     * Stripes por defecto: uno por procesador, hasta 64
+     */
+    public static int defaultStripes() {
+        return Math.min(64, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Registra la latencia total de un mensaje
+     */
+    public void record(String messageType, long elapsedNanos) {
+        window(messageType).record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), stripeMask);
+    }
+
+    /**
+     * Marca un mensaje en curso, hasta {@link #messageFinished()}
+     */
+    public void messageStarted() {
+        inFlight.increment();
+    }
+
+    public void messageFinished() {
+        inFlight.decrement();
+    }
+
+    public long inFlight() {
+        return inFlight.sum();
+    }
+
+    /**
+     * Cierra el segundo en curso y publica un nuevo snapshot; se invoca una vez por segundo
+     */
+    public synchronized void rotate() {
+        ticks++;
+        int slot = (int) (ticks % SLOTS);
+        all.beginSlot(slot);
+        List<TypeWindow> active = new ArrayList<>(types.size() + 2);
+        active.add(unknown);
+        active.addAll(types.values());
+        active.add(other);
+        for (TypeWindow type : active) {
+            type.beginSlot(slot);
+            type.drain(slot);
+            all.slots[slot].add(type.slots[slot]);
+            type.endSlot(slot);
+        }
+        all.endSlot(slot);
+
+        Map<String, Map<String, Stats>> windows = new LinkedHashMap<>();
+        for (Window window : WINDOWS) {
+            long seconds = Math.min(window.seconds, ticks);
+            Map<String, Stats> byType = new LinkedHashMap<>();
+            byType.put(ALL, all.stats(window, slot, seconds));
+            for (TypeWindow type : active) {
+                if (type.hasData()) {
+                    byType.put(type.name, type.stats(window, slot, seconds));
+                }
+            }
+            windows.put(window.label, Collections.unmodifiableMap(byType));
+        }
+        snapshot = new Snapshot(Instant.now(), Collections.unmodifiableMap(windows));
+    }
+
+    /**
+     * Último snapshot publicado por {@link #rotate()}
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    private TypeWindow window(String messageType) {
+        if (messageType == null || messageType.isEmpty()) {
+            return unknown;
+        }
+        TypeWindow window = types.get(messageType);
+        if (window != null) {
+            return window;
+        }
+        // Mismo límite de cardinalidad que los meters de PipelineMetrics
+        if (types.size() >= maxMessageTypes) {
+            return other;
+        }
+        return types.computeIfAbsent(messageType, type -> new TypeWindow(type, true));
+    }
+
+    /**
+     * Estadísticas de una ventana; las latencias en milisegundos
+     */
+    public record Stats(long count, double tps, double meanMs, double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        static final Stats EMPTY = new Stats(0, 0, 0, 0, 0, 0, 0);
+
+        static Stats of(Histogram histogram, long seconds) {
+            long count = histogram.getTotalCount();
+            if (count == 0) {
+                return EMPTY;
+            }
+            return new Stats(count, (double) count / Math.max(1, seconds), millis(histogram.getMean()),
+                millis(histogram.getValueAtPercentile(50.0)), millis(histogram.getValueAtPercentile(99.0)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+        }
+
+        private static double millis(double micros) {
+            return Math.round(micros) / 1000.0;
+        }
+    }
+
+    /**
+     * Ventanas publicadas: etiqueta de la ventana, luego tipo de mensaje ("all" primero)
+     */
+    public record Snapshot(Instant timestamp, Map<String, Map<String, Stats>> windows) {
+
+        public Stats stats(Window window, String messageType) {
+            Map<String, Stats> byType = windows.get(window.label());
+            Stats stats = byType != null ? byType.get(messageType) : null;
+            return stats != null ? stats : Stats.EMPTY;
+        }
+    }
+
+    /**
+     * Recorders y slots de un tipo de mensaje
+     */
+    private final class TypeWindow {
+        private final String name;
+        private final Recorder[] stripes;
+        private final Histogram[] intervals;
+        private final Histogram[] slots = new Histogram[SLOTS];
+        // Sumas móviles de las ventanas de 10 s y 60 s
+        private final Histogram tenSeconds;
+        private final Histogram oneMinute;
+
+        private TypeWindow(String name, boolean recording) {
+            this.name = name;
+            this.stripes = new Recorder[recording ? stripeMask + 1 : 0];
+            this.intervals = new Histogram[stripes.length];
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Recorder(significantDigits);
+            }
+            for (int i = 0; i < SLOTS; i++) {
+                slots[i] = new Histogram(significantDigits);
+            }
+            this.tenSeconds = new Histogram(significantDigits);
+            this.oneMinute = new Histogram(significantDigits);
+        }
+
+        private void record(long micros, int mask) {
+            stripes[(int) Thread.currentThread().getId() & mask].recordValue(micros);
+        }
+
+        private void beginSlot(int slot) {
+            // El slot que se reutiliza es el de hace 60 s: sale de la ventana de un minuto
+            Histogram expiring = slots[slot];
+            if (expiring.getTotalCount() > 0) {
+                oneMinute.subtract(expiring);
+            }
+            expiring.reset();
+        }
+
+        private void drain(int slot) {
+            for (int i = 0; i < stripes.length; i++) {
+                intervals[i] = stripes[i].getIntervalHistogram(intervals[i]);
+                slots[slot].add(intervals[i]);
+            }
+        }
+
+        private void endSlot(int slot) {
+            Histogram current = slots[slot];
+            Histogram leaving = slots[(slot + SLOTS - Window.TEN_SECONDS.seconds) % SLOTS];
+            if (leaving.getTotalCount() > 0) {
+                tenSeconds.subtract(leaving);
+            }
+            tenSeconds.add(current);
+            oneMinute.add(current);
+        }
+
+        private boolean hasData() {
+            return oneMinute.getTotalCount() > 0;
+        }
+
+        private Stats stats(Window window, int slot, long seconds) {
+            Histogram histogram = switch (window) {
+                case ONE_SECOND -> slots[slot];
+                case TEN_SECONDS -> tenSeconds;
+                case ONE_MINUTE -> oneMinute;
+            };
+            return Stats.of(histogram, seconds);
+        }
+    }
+}
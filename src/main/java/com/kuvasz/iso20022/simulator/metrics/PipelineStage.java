@@ -0,0 +1,31 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+/**
+ * Etapas instrumentadas del pipeline de procesamiento
+ */
+public enum PipelineStage {
+
+    PARSE("parse"),
+    STRUCTURAL("structural"),
+    BUSINESS("business"),
+    SETTLEMENT("settlement"),
+    GENERATE("generate"),
+    PERSIST("persist");
+
+    private final String tag;
+
+    PipelineStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    /**
+     * Etapa correspondiente a un validador según su tipo de validación
+     */
+    public static PipelineStage forValidationType(String validationType) {
+        return validationType != null && validationType.startsWith("STRUCTURAL") ? STRUCTURAL : BUSINESS;
+    }
+}
@@ -0,0 +1,117 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lectura de la memoria asignada y el tiempo de CPU del hilo actual con
+ * {@code com.sun.management.ThreadMXBean}.
+ *
+ * Los contadores son por hilo, así que solo se atribuyen a un mensaje las etapas que
+ * empiezan y terminan en el mismo hilo (parse, validación, liquidación y generación);
+ * {@link StageTimings} descarta la medida si la etapa cambia de hilo. La persistencia no se
+ * mide: su trabajo se ejecuta en hilos compartidos, agrupando varios mensajes por lote.
+ *
+ * Leer la memoria asignada cuesta decenas de nanosegundos; el tiempo de CPU es una llamada
+ * al sistema (~0,5 µs), por eso se puede desactivar aparte y muestrear los mensajes.
+ */
+public final class ResourceAccounting {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceAccounting.class);
+
+    /** Valor de las lecturas no disponibles */
+    public static final long UNAVAILABLE = -1;
+
+    private static final ResourceAccounting DISABLED = new ResourceAccounting(null, false, false, 0);
+
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final boolean allocation;
+    private final boolean cpuTime;
+    private final double sampleRate;
+
+    private ResourceAccounting(com.sun.management.ThreadMXBean threadBean, boolean allocation, boolean cpuTime,
+                               double sampleRate) {
+        this.threadBean = threadBean;
+        this.allocation = allocation;
+        this.cpuTime = cpuTime;
+        this.sampleRate = sampleRate;
+    }
+
+    public static ResourceAccounting disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Habilita la contabilidad si la JVM la soporta; si no, devuelve la instancia deshabilitada
+     */
+    public static ResourceAccounting create(SimulatorProperties.Metrics.Resources config) {
+        if (!config.isEnabled()) {
+            return DISABLED;
+        }
+        return create(true, config.isCpuTime(), config.getSampleRate());
+    }
+
+    /**
+     * Igual que {@link #create(SimulatorProperties.Metrics.Resources)}, eligiendo qué contadores se leen
+     */
+    public static ResourceAccounting create(boolean measureAllocation, boolean measureCpuTime, double sampleRate) {
+        if (!measureAllocation && !measureCpuTime) {
+            return DISABLED;
+        }
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadBean)) {
+            logger.warn("Resource accounting disabled: the JVM does not provide com.sun.management.ThreadMXBean");
+            return DISABLED;
+        }
+
+        boolean allocation = false;
+        boolean cpuTime = false;
+        try {
+            if (measureAllocation && threadBean.isThreadAllocatedMemorySupported()) {
+                threadBean.setThreadAllocatedMemoryEnabled(true);
+                allocation = true;
+            }
+            if (measureCpuTime && threadBean.isCurrentThreadCpuTimeSupported()) {
+                threadBean.setThreadCpuTimeEnabled(true);
+                cpuTime = true;
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            logger.warn("Resource accounting partially disabled: {}", e.getMessage());
+        }
+        if (!allocation && !cpuTime) {
+            logger.warn("Resource accounting disabled: neither thread allocation nor CPU time is supported");
+            return DISABLED;
+        }
+        logger.info("Resource accounting enabled (allocation={}, cpuTime={}, sampleRate={})",
+            allocation, cpuTime, sampleRate);
+        return new ResourceAccounting(threadBean, allocation, cpuTime, sampleRate);
+    }
+
+    public boolean isEnabled() {
+        return allocation || cpuTime;
+    }
+
+    /**
+     * Decide si se mide el mensaje que empieza
+     */
+    public boolean sample() {
+        return isEnabled() && (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * Bytes asignados por el hilo actual desde que arrancó
+     */
+    public long allocatedBytes() {
+        return allocation ? threadBean.getCurrentThreadAllocatedBytes() : UNAVAILABLE;
+    }
+
+    /**
+     * Nanosegundos de CPU consumidos por el hilo actual
+     */
+    public long cpuNanos() {
+        return cpuTime ? threadBean.getCurrentThreadCpuTime() : UNAVAILABLE;
+    }
+}
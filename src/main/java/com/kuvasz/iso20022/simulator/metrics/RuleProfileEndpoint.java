@@ -0,0 +1,35 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Endpoint {@code /actuator/rules}: reglas de negocio ordenadas por coste total, con sus
+ * ejecuciones y violaciones. {@code /actuator/rules/{validator}} filtra por validador.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.metrics.rules", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "rules")
+public class RuleProfileEndpoint {
+
+    private final RuleProfiler profiler;
+
+    public RuleProfileEndpoint(RuleProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public List<RuleProfiler.RuleStats> rules() {
+        return profiler.ranking();
+    }
+
+    @ReadOperation
+    public List<RuleProfiler.RuleStats> rules(@Selector String validator) {
+        return profiler.ranking().stream().filter(stats -> stats.validator().equals(validator)).toList();
+    }
+}
@@ -0,0 +1,162 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tiempos por etapa de un único mensaje, acumulados mientras recorre el pipeline.
+ *
+ * Varios validadores de la misma etapa se suman. Las escrituras de persistencia pueden
+ * terminar en paralelo en hilos distintos, por eso los acumuladores son atómicos.
+ *
+ * Si el mensaje se mide con {@link ResourceAccounting}, {@link #mark()} toma los contadores
+ * del hilo al empezar una etapa síncrona y {@link #add} calcula la diferencia al cerrarla.
+ * Si la etapa termina en otro hilo la medida se descarta, porque los contadores del hilo
+ * final incluirían trabajo de otros mensajes.
+ */
+public final class StageTimings {
+
+    private static final PipelineStage[] STAGES = PipelineStage.values();
+
+    private final long startNanos;
+    private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+
+    // Contabilidad de recursos: solo la usa el hilo que ejecuta las etapas síncronas
+    private final ResourceAccounting accounting;
+    private final long[] allocatedBytes;
+    private final long[] cpuNanos;
+    private Thread markThread;
+    private long markAllocated;
+    private long markCpu;
+    private int measuredStages;
+    private int discardedStages;
+
+    public StageTimings(long startNanos) {
+        this(startNanos, null);
+    }
+
+    /**
+     * @param accounting null si este mensaje no se mide
+     */
+    public StageTimings(long startNanos, ResourceAccounting accounting) {
+        this.startNanos = startNanos;
+        this.accounting = accounting;
+        this.allocatedBytes = accounting != null ? new long[STAGES.length] : null;
+        this.cpuNanos = accounting != null ? new long[STAGES.length] : null;
+    }
+
+    public long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Marca el inicio de una etapa síncrona en el hilo actual
+     *
+     * @return System.nanoTime() al empezar la etapa
+     */
+    public long mark() {
+        if (accounting != null) {
+            markThread = Thread.currentThread();
+            markAllocated = accounting.allocatedBytes();
+            markCpu = accounting.cpuNanos();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Acumula la duración de una etapa y, si estaba marcada, sus recursos
+     */
+    public void add(PipelineStage stage, long elapsedNanos) {
+        nanos.addAndGet(stage.ordinal(), elapsedNanos);
+        Thread marked = markThread;
+        if (marked == null) {
+            return;
+        }
+        markThread = null;
+        if (marked != Thread.currentThread()) {
+            discardedStages++;
+            return;
+        }
+        int index = stage.ordinal();
+        if (markAllocated != ResourceAccounting.UNAVAILABLE) {
+            allocatedBytes[index] += accounting.allocatedBytes() - markAllocated;
+        }
+        if (markCpu != ResourceAccounting.UNAVAILABLE) {
+            cpuNanos[index] += accounting.cpuNanos() - markCpu;
+        }
+        measuredStages |= 1 << index;
+    }
+
+    public long nanos(PipelineStage stage) {
+        return nanos.get(stage.ordinal());
+    }
+
+    /**
+     * Milisegundos por etapa, en orden del pipeline, omitiendo las que no se ejecutaron
+     */
+    public Map<String, Double> toMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (PipelineStage stage : STAGES) {
+            long value = nanos.get(stage.ordinal());
+            if (value > 0) {
+                millis.put(stage.tag(), value / 1_000_000.0);
+            }
+        }
+        return Collections.unmodifiableMap(millis);
+    }
+
+    /**
+     * Indica si alguna etapa de este mensaje tiene medida de recursos
+     */
+    public boolean hasResources() {
+        return measuredStages != 0;
+    }
+
+    public boolean hasResources(PipelineStage stage) {
+        return (measuredStages & (1 << stage.ordinal())) != 0;
+    }
+
+    public boolean hasAllocation() {
+        return hasResources() && markAllocated != ResourceAccounting.UNAVAILABLE;
+    }
+
+    public boolean hasCpuTime() {
+        return hasResources() && markCpu != ResourceAccounting.UNAVAILABLE;
+    }
+
+    public long allocatedBytes(PipelineStage stage) {
+        return hasResources(stage) ? allocatedBytes[stage.ordinal()] : ResourceAccounting.UNAVAILABLE;
+    }
+
+    public long cpuNanos(PipelineStage stage) {
+        return hasResources(stage) ? cpuNanos[stage.ordinal()] : ResourceAccounting.UNAVAILABLE;
+    }
+
+    /**
+     * Bytes asignados en las etapas medidas, o {@link ResourceAccounting#UNAVAILABLE}
+     */
+    public long totalAllocatedBytes() {
+        return hasAllocation() ? sum(allocatedBytes) : ResourceAccounting.UNAVAILABLE;
+    }
+
+    public long totalCpuNanos() {
+        return hasCpuTime() ? sum(cpuNanos) : ResourceAccounting.UNAVAILABLE;
+    }
+
+    /**
+     * Etapas cuya medida se descartó por terminar en otro hilo
+     */
+    public int discardedStages() {
+        return discardedStages;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
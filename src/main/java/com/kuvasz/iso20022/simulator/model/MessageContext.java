@@ -139,6 +139,22 @@ public class MessageContext {
         this.namespaces = namespaces;
     }
     
+    /**
+     * Suelta el DOM y el mensaje parseado cuando ya no quedan etapas que los lean; los
+     * campos extraídos y las propiedades se conservan
+     */
+    public void releaseParsedDocument() {
+        this.parsedDocument = null;
+        this.parsedMessage = null;
+    }
+    
+    /**
+     * Suelta la referencia al XML original una vez construidos los registros que lo copian
+     */
+    public void releaseOriginalXml() {
+        this.originalXml = null;
+    }
+    
     public void addProperty(String key, Object value) {
         if (properties == null) {
             properties = new java.util.HashMap<>();
@@ -0,0 +1,56 @@
+package com.kuvasz.iso20022.simulator.persistence;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila inmutable de la tabla accounts
+ */
+public class AccountRecord {
+
+    private final String accountNumber;
+    private final String accountName;
+    private final String bankCode;
+    private final BigDecimal balance;
+    private final String currency;
+    private final String status;
+
+    public AccountRecord(String accountNumber, String accountName, String bankCode,
+                         BigDecimal balance, String currency, String status) {
+        this.accountNumber = accountNumber;
+        this.accountName = accountName;
+        this.bankCode = bankCode;
+        this.balance = balance;
+        this.currency = currency;
+        this.status = status;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public String getBankCode() {
+        return bankCode;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AccountRecord{accountNumber='%s', balance=%s, currency='%s', status='%s'}",
+            accountNumber, balance, currency, status);
+    }
+}
@@ -0,0 +1,42 @@
+package com.kuvasz.iso20022.simulator.persistence;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila inmutable de la tabla audit_log
+ */
+public class AuditLogRecord {
+
+    private final String transactionId;
+    private final String action;
+    private final String details;
+    private final LocalDateTime timestamp;
+
+    public AuditLogRecord(String transactionId, String action, String details, LocalDateTime timestamp) {
+        this.transactionId = transactionId;
+        this.action = action;
+        this.details = details;
+        this.timestamp = timestamp;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AuditLogRecord{transactionId='%s', action='%s'}", transactionId, action);
+    }
+}
@@ -0,0 +1,24 @@
+package com.kuvasz.iso20022.simulator.persistence;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Interfaz para estrategias de persistencia de transacciones procesadas
+ */
+public interface TransactionPersistence {
+
+    /**
+     * Persiste (o encola para persistir) una transacción procesada
+     *
+     * @param record la fila a persistir
+     * @return Mono que completa cuando la estrategia ha aceptado el registro
+     */
+    Mono<Void> save(TransactionRecord record);
+
+    /**
+     * Obtiene el tipo de persistencia que implementa esta estrategia
+     *
+     * @return el tipo de persistencia
+     */
+    String getPersistenceType();
+}
@@ -0,0 +1,108 @@
+package com.kuvasz.iso20022.simulator.persistence;
+
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fila inmutable de la tabla transactions lista para ser persistida
+ */
+public class TransactionRecord {
+
+    private static final String UNKNOWN_PARTY = "UNKNOWN";
+
+    private final String transactionId;
+    private final String messageType;
+    private final String sender;
+    private final String receiver;
+    private final BigDecimal amount;
+    private final String currency;
+    private final String status;
+    private final String rawMessage;
+    private final LocalDateTime createdAt;
+
+    public TransactionRecord(String transactionId, String messageType, String sender, String receiver,
+                             BigDecimal amount, String currency, String status, String rawMessage,
+                             LocalDateTime createdAt) {
+        this.transactionId = transactionId;
+        this.messageType = messageType;
+        this.sender = sender;
+        this.receiver = receiver;
+        this.amount = amount;
+        this.currency = currency;
+        this.status = status;
+        this.rawMessage = rawMessage;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Construye el registro a partir del contexto parseado y del resultado del procesamiento
+     */
+    public static TransactionRecord from(MessageContext context, ProcessingResult result) {
+        return new TransactionRecord(
+            context.getMessageId(),
+            context.getMessageType(),
+            context.getSenderId() != null ? context.getSenderId() : UNKNOWN_PARTY,
+            context.getReceiverId() != null ? context.getReceiverId() : UNKNOWN_PARTY,
+            parseAmount(context.getProperty("amount")),
+            (String) context.getProperty("currency"),
+            result.getStatus() != null ? result.getStatus().name() : null,
+            context.getOriginalXml(),
+            result.getProcessedAt() != null ? result.getProcessedAt() : LocalDateTime.now());
+    }
+
+    private static BigDecimal parseAmount(Object amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(amount.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getMessageType() {
+        return messageType;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public String getReceiver() {
+        return receiver;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getRawMessage() {
+        return rawMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransactionRecord{transactionId='%s', messageType='%s', status='%s'}",
+            transactionId, messageType, status);
+    }
+}
@@ -0,0 +1,353 @@
+package com.kuvasz.iso20022.simulator.persistence;
+
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties.WriteBehind.OverflowPolicy;
+import com.kuvasz.iso20022.simulator.util.StructuredLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Journal write-behind de transacciones procesadas.
+ *
+ * El hilo de la petición solo encola el registro en una cola acotada sin locks;
+ * hilos escritores dedicados la drenan y persisten en batches JDBC agrupados
+ * por tamaño ({@code batch-size}) o por tiempo ({@code flush-interval}).
+ *
+ * Con la cola llena la política por defecto descarta y cuenta el registro. BLOCK y
+ * CALLER_RUNS esperan o escriben por JDBC, así que {@link #save} las ejecuta en
+ * {@code boundedElastic} y nunca en el event loop de Netty.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.persistence.write-behind", name = "enabled",
+    havingValue = "true", matchIfMissing = true)
+public class WriteBehindTransactionWriter implements TransactionPersistence {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindTransactionWriter.class);
+
+    static final String INSERT_SQL =
+        "INSERT INTO transactions (transaction_id, message_type, sender, receiver, amount, currency, " +
+        "status, raw_message, raw_message_compressed, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final DataSource dataSource;
+    private final PayloadCodec payloadCodec;
+    private final StructuredLogger structuredLogger;
+    private final SimulatorProperties.WriteBehind config;
+
+    // ConcurrentLinkedQueue no es acotada: la capacidad se controla con un contador CAS
+    private final ConcurrentLinkedQueue<TransactionRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Counter droppedCounter;
+
+    private final List<LongConsumer> flushListeners = new CopyOnWriteArrayList<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    public WriteBehindTransactionWriter(DataSource dataSource, SimulatorProperties properties,
+                                        PayloadCodec payloadCodec, MeterRegistry meterRegistry,
+                                        StructuredLogger structuredLogger) {
+        this.dataSource = dataSource;
+        this.payloadCodec = payloadCodec;
+        this.structuredLogger = structuredLogger;
+        this.config = properties.getPersistence().getWriteBehind();
+
+        this.flushTimer = Timer.builder("simulator.persistence.flush.latency")
+            .description("Latencia de cada flush de batch hacia la tabla transactions")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("simulator.persistence.batch.size")
+            .description("Número de filas por batch persistido")
+            .register(meterRegistry);
+        this.writtenCounter = Counter.builder("simulator.persistence.records")
+            .tag("outcome", "written").register(meterRegistry);
+        this.failedCounter = Counter.builder("simulator.persistence.records")
+            .tag("outcome", "failed").register(meterRegistry);
+        this.droppedCounter = Counter.builder("simulator.persistence.records")
+            .tag("outcome", "dropped").register(meterRegistry);
+        Gauge.builder("simulator.persistence.queue.depth", depth, AtomicInteger::get)
+            .description("Registros pendientes en la cola write-behind")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < config.getWriterThreads(); i++) {
+            Thread writer = new Thread(this::drainLoop, "tx-write-behind-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+        logger.info("Write-behind writer started with {} thread(s), batch size {}, queue capacity {}",
+            config.getWriterThreads(), config.getBatchSize(), config.getQueueCapacity());
+    }
+
+    /**
+     * Detiene los escritores tras drenar los registros pendientes
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread writer : writers) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writers.clear();
+    }
+
+    @Override
+    public Mono<Void> save(TransactionRecord record) {
+        return Mono.defer(() -> {
+            if (tryOffer(record)) {
+                return Mono.empty();
+            }
+            if (config.getOverflowPolicy() == OverflowPolicy.DROP) {
+                drop(record);
+                return Mono.empty();
+            }
+            return Mono.fromRunnable(() -> enqueue(record)).subscribeOn(Schedulers.boundedElastic()).then();
+        });
+    }
+
+    @Override
+    public String getPersistenceType() {
+        return "JDBC_WRITE_BEHIND";
+    }
+
+    /**
+     * Encola una transacción para persistencia asíncrona. Con BLOCK o CALLER_RUNS puede
+     * bloquear el hilo que llama, que no debe ser un hilo del event loop
+     *
+     * @return true si el registro fue aceptado, false si se descartó por backpressure
+     */
+    public boolean enqueue(TransactionRecord record) {
+        if (tryOffer(record)) {
+            return true;
+        }
+
+        OverflowPolicy policy = config.getOverflowPolicy();
+        if (policy == OverflowPolicy.CALLER_RUNS) {
+            flush(List.of(record));
+            return true;
+        }
+
+        if (policy == OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + config.getOfferTimeout().toNanos();
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+                if (tryOffer(record)) {
+                    return true;
+                }
+            }
+        }
+
+        drop(record);
+        return false;
+    }
+
+    /**
+     * Registra un observador que recibe la latencia en nanosegundos de cada flush
+     */
+    public void addFlushListener(LongConsumer listener) {
+        flushListeners.add(listener);
+    }
+
+    /**
+     * Número de registros pendientes de persistir
+     */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    private boolean tryOffer(TransactionRecord record) {
+        if (tryReserve()) {
+            queue.offer(record);
+            return true;
+        }
+        return false;
+    }
+
+    private void drop(TransactionRecord record) {
+        // Con la cola llena se descartan muchos registros seguidos: la métrica lleva la cuenta
+        droppedCounter.increment();
+        logger.debug("Write-behind queue full, dropping transaction {}", record.getTransactionId());
+    }
+
+    private boolean tryReserve() {
+        int capacity = config.getQueueCapacity();
+        while (true) {
+            int current = depth.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (depth.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        int batchSize = config.getBatchSize();
+        long flushIntervalNanos = config.getFlushInterval().toNanos();
+        List<TransactionRecord> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+
+        while (running || depth.get() > 0) {
+            TransactionRecord record = queue.poll();
+            if (record != null) {
+                depth.decrementAndGet();
+                if (batch.isEmpty()) {
+                    deadline = System.nanoTime() + flushIntervalNanos;
+                }
+                batch.add(record);
+                if (batch.size() >= batchSize) {
+                    flushAndClear(batch);
+                }
+                continue;
+            }
+
+            if (!batch.isEmpty() && (!running || System.nanoTime() >= deadline)) {
+                flushAndClear(batch);
+            } else if (running) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            flushAndClear(batch);
+        }
+    }
+
+    private void flushAndClear(List<TransactionRecord> batch) {
+        flush(batch);
+        batch.clear();
+    }
+
+    private void flush(List<TransactionRecord> batch) {
+        long startTime = System.nanoTime();
+        boolean success = true;
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (TransactionRecord record : batch) {
+                    bind(statement, record);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+                writtenCounter.increment(batch.size());
+            } catch (SQLException e) {
+                // Un registro inválido (p.ej. transaction_id duplicado) no debe perder el batch completo
+                connection.rollback();
+                logger.warn("Batch insert of {} transactions failed, retrying row by row: {}",
+                    batch.size(), e.getMessage());
+                connection.setAutoCommit(true);
+                success = insertIndividually(connection, batch);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            success = false;
+            failedCounter.increment(batch.size());
+            logger.error("Could not persist batch of {} transactions: {}", batch.size(), e.getMessage());
+        }
+
+        long elapsedNanos = System.nanoTime() - startTime;
+        flushTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        for (LongConsumer listener : flushListeners) {
+            listener.accept(elapsedNanos);
+        }
+        batchSizeSummary.record(batch.size());
+        if (structuredLogger != null) {
+            structuredLogger.logDatabaseOperation("batch-insert", "transactions",
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), success);
+        }
+    }
+
+    private boolean insertIndividually(Connection connection, List<TransactionRecord> batch) throws SQLException {
+        boolean allWritten = true;
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (TransactionRecord record : batch) {
+                try {
+                    bind(statement, record);
+                    statement.executeUpdate();
+                    writtenCounter.increment();
+                } catch (SQLException e) {
+                    allWritten = false;
+                    failedCounter.increment();
+                    logger.warn("Could not persist transaction {}: {}", record.getTransactionId(), e.getMessage());
+                }
+            }
+        }
+        return allWritten;
+    }
+
+    private void bind(PreparedStatement statement, TransactionRecord record) throws SQLException {
+        Timestamp createdAt = Timestamp.valueOf(record.getCreatedAt());
+        statement.setString(1, record.getTransactionId());
+        statement.setString(2, record.getMessageType());
+        statement.setString(3, record.getSender());
+        statement.setString(4, record.getReceiver());
+        if (record.getAmount() != null) {
+            statement.setBigDecimal(5, record.getAmount());
+        } else {
+            statement.setNull(5, Types.DECIMAL);
+        }
+        statement.setString(6, record.getCurrency());
+        statement.setString(7, record.getStatus());
+        byte[] compressed = payloadCodec.encodeForStorage(record.getMessageType(), record.getRawMessage());
+        if (compressed != null) {
+            statement.setNull(8, Types.CLOB);
+            statement.setBytes(9, compressed);
+        } else {
+            statement.setString(8, record.getRawMessage());
+            statement.setNull(9, Types.BINARY);
+        }
+        statement.setTimestamp(10, createdAt);
+        statement.setTimestamp(11, createdAt);
+    }
+}
@@ -0,0 +1,79 @@
+package com.kuvasz.iso20022.simulator.persistence.r2dbc;
+
+import com.kuvasz.iso20022.simulator.persistence.AccountRecord;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Repositorio reactivo de la tabla accounts
+ */
+@Repository
+@Profile("r2dbc")
+public class R2dbcAccountRepository {
+
+    private static final String SELECT_COLUMNS =
+        "SELECT account_number, account_name, bank_code, balance, currency, status FROM accounts";
+
+    private static final String APPLY_DELTA_SQL =
+        "UPDATE accounts SET balance = balance + $1 WHERE account_number = $2";
+
+    private final R2dbcConnectionPool connectionPool;
+
+    public R2dbcAccountRepository(R2dbcConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Busca una cuenta por su número
+     */
+    public Mono<AccountRecord> findByAccountNumber(String accountNumber) {
+        return connectionPool.withConnectionMono(connection ->
+            Flux.from(connection.createStatement(SELECT_COLUMNS + " WHERE account_number = $1")
+                    .bind(0, accountNumber)
+                    .execute())
+                .flatMap(result -> result.map(R2dbcAccountRepository::mapRow))
+                .next());
+    }
+
+    /**
+     * Emite todas las cuentas con el estado indicado
+     */
+    public Flux<AccountRecord> findByStatus(String status) {
+        return connectionPool.withConnection(connection ->
+            Flux.from(connection.createStatement(SELECT_COLUMNS + " WHERE status = $1")
+                    .bind(0, status)
+                    .execute())
+                .flatMap(result -> result.map(R2dbcAccountRepository::mapRow)));
+    }
+
+    /**
+     * Aplica un delta (positivo o negativo) al saldo de una cuenta
+     *
+     * @return número de filas actualizadas
+     */
+    public Mono<Long> applyBalanceDelta(String accountNumber, BigDecimal delta) {
+        return connectionPool.withConnectionMono(connection ->
+            Flux.from(connection.createStatement(APPLY_DELTA_SQL)
+                    .bind(0, delta)
+                    .bind(1, accountNumber)
+                    .execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum));
+    }
+
+    private static AccountRecord mapRow(Readable row) {
+        return new AccountRecord(
+            row.get("account_number", String.class),
+            row.get("account_name", String.class),
+            row.get("bank_code", String.class),
+            row.get("balance", BigDecimal.class),
+            row.get("currency", String.class),
+            row.get("status", String.class));
+    }
+}
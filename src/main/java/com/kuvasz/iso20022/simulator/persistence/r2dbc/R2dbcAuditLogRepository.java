@@ -0,0 +1,64 @@
+package com.kuvasz.iso20022.simulator.persistence.r2dbc;
+
+import com.kuvasz.iso20022.simulator.persistence.AuditLogRecord;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio reactivo de la tabla audit_log
+ */
+@Repository
+@Profile("r2dbc")
+public class R2dbcAuditLogRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO audit_log (transaction_id, action, details, timestamp) VALUES ($1, $2, $3, $4)";
+
+    private static final String SELECT_BY_TRANSACTION_SQL =
+        "SELECT transaction_id, action, details, timestamp FROM audit_log " +
+        "WHERE transaction_id = $1 ORDER BY id";
+
+    private final R2dbcConnectionPool connectionPool;
+
+    public R2dbcAuditLogRepository(R2dbcConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Inserta una entrada de auditoría
+     */
+    public Mono<Void> save(AuditLogRecord record) {
+        return connectionPool.withConnectionMono(connection -> {
+            Statement statement = connection.createStatement(INSERT_SQL);
+            R2dbcTransactionRepository.bindNullable(statement, 0, record.getTransactionId(), String.class);
+            R2dbcTransactionRepository.bindNullable(statement, 1, record.getAction(), String.class);
+            R2dbcTransactionRepository.bindNullable(statement, 2, record.getDetails(), String.class);
+            statement.bind(3, record.getTimestamp());
+            return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated).then();
+        });
+    }
+
+    /**
+     * Emite las entradas de auditoría de una transacción en orden de inserción
+     */
+    public Flux<AuditLogRecord> findByTransactionId(String transactionId) {
+        return connectionPool.withConnection(connection ->
+            Flux.from(connection.createStatement(SELECT_BY_TRANSACTION_SQL).bind(0, transactionId).execute())
+                .flatMap(result -> result.map(R2dbcAuditLogRepository::mapRow)));
+    }
+
+    private static AuditLogRecord mapRow(Readable row) {
+        return new AuditLogRecord(
+            row.get("transaction_id", String.class),
+            row.get("action", String.class),
+            row.get("details", String.class),
+            row.get("timestamp", LocalDateTime.class));
+    }
+}
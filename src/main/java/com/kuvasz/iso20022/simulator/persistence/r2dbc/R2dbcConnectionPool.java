@@ -0,0 +1,78 @@
+package com.kuvasz.iso20022.simulator.persistence.r2dbc;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Pool de conexiones R2DBC para el perfil r2dbc.
+ *
+ * El {@link ConnectionPool} no se registra como bean: un {@code ConnectionFactory} en el
+ * contexto desactiva el DataSource JDBC de Spring Boot, y ambos caminos deben poder
+ * coexistir para comparar R2DBC contra el write-behind JDBC.
+ */
+@Component
+@Profile("r2dbc")
+public class R2dbcConnectionPool implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(R2dbcConnectionPool.class);
+
+    private static final Duration DISPOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ConnectionPool pool;
+
+    public R2dbcConnectionPool(SimulatorProperties properties) {
+        SimulatorProperties.R2dbc config = properties.getPersistence().getR2dbc();
+
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(config.getUrl())
+            .mutate()
+            .option(ConnectionFactoryOptions.USER, config.getUsername())
+            .option(ConnectionFactoryOptions.PASSWORD, config.getPassword())
+            .build();
+
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+            .name("ISO20022SimulatorR2dbcPool")
+            .initialSize(config.getInitialSize())
+            .maxSize(config.getMaxSize())
+            .maxIdleTime(config.getMaxIdleTime())
+            .maxAcquireTime(config.getMaxAcquireTime())
+            .build());
+
+        logger.info("R2DBC connection pool created for {} (max size {})",
+            options.getValue(ConnectionFactoryOptions.DRIVER), config.getMaxSize());
+    }
+
+    /**
+     * Ejecuta el trabajo con una conexión del pool y la devuelve al terminar
+     */
+    public <T> Flux<T> withConnection(Function<Connection, Publisher<T>> work) {
+        return Flux.usingWhen(pool.create(), work, Connection::close);
+    }
+
+    /**
+     * Variante de {@link #withConnection} para trabajos que emiten un único valor
+     */
+    public <T> Mono<T> withConnectionMono(Function<Connection, Mono<T>> work) {
+        return Mono.usingWhen(pool.create(), work, Connection::close);
+    }
+
+    @Override
+    public void destroy() {
+        // disposeLater espera a que las conexiones en curso vuelvan al pool antes de cerrarlas
+        pool.disposeLater().block(DISPOSE_TIMEOUT);
+    }
+}
@@ -0,0 +1,133 @@
+package com.kuvasz.iso20022.simulator.persistence.r2dbc;
+
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.persistence.TransactionPersistence;
+import com.kuvasz.iso20022.simulator.persistence.TransactionRecord;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio reactivo de la tabla transactions
+ */
+@Repository
+@Profile("r2dbc")
+public class R2dbcTransactionRepository implements TransactionPersistence {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO transactions (transaction_id, message_type, sender, receiver, amount, currency, " +
+        "status, raw_message, raw_message_compressed, created_at, updated_at) " +
+        "VALUES ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10, $11)";
+
+    private static final String SELECT_BY_ID_SQL =
+        "SELECT transaction_id, message_type, sender, receiver, amount, currency, status, raw_message, " +
+        "raw_message_compressed, created_at FROM transactions WHERE transaction_id = $1";
+
+    private static final String UPDATE_STATUS_SQL =
+        "UPDATE transactions SET status = $1, updated_at = $2 WHERE transaction_id = $3";
+
+    private static final String COUNT_BY_STATUS_SQL =
+        "SELECT COUNT(*) FROM transactions WHERE status = $1";
+
+    private final R2dbcConnectionPool connectionPool;
+    private final PayloadCodec payloadCodec;
+
+    public R2dbcTransactionRepository(R2dbcConnectionPool connectionPool, PayloadCodec payloadCodec) {
+        this.connectionPool = connectionPool;
+        this.payloadCodec = payloadCodec;
+    }
+
+    @Override
+    public Mono<Void> save(TransactionRecord record) {
+        return connectionPool.withConnectionMono(connection -> {
+            Statement statement = connection.createStatement(INSERT_SQL)
+                .bind(0, record.getTransactionId())
+                .bind(1, record.getMessageType())
+                .bind(2, record.getSender())
+                .bind(3, record.getReceiver());
+            bindNullable(statement, 4, record.getAmount(), BigDecimal.class);
+            bindNullable(statement, 5, record.getCurrency(), String.class);
+            bindNullable(statement, 6, record.getStatus(), String.class);
+            byte[] compressed = payloadCodec.encodeForStorage(record.getMessageType(), record.getRawMessage());
+            bindNullable(statement, 7, compressed == null ? record.getRawMessage() : null, String.class);
+            bindNullable(statement, 8, compressed, byte[].class);
+            statement.bind(9, record.getCreatedAt()).bind(10, record.getCreatedAt());
+            return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated).then();
+        });
+    }
+
+    @Override
+    public String getPersistenceType() {
+        return "R2DBC";
+    }
+
+    /**
+     * Busca una transacción por su identificador de negocio
+     */
+    public Mono<TransactionRecord> findByTransactionId(String transactionId) {
+        return connectionPool.withConnectionMono(connection ->
+            Flux.from(connection.createStatement(SELECT_BY_ID_SQL).bind(0, transactionId).execute())
+                .flatMap(result -> result.map(this::mapRow))
+                .next());
+    }
+
+    /**
+     * Actualiza el estado de una transacción
+     *
+     * @return número de filas actualizadas
+     */
+    public Mono<Long> updateStatus(String transactionId, String status) {
+        return connectionPool.withConnectionMono(connection ->
+            Flux.from(connection.createStatement(UPDATE_STATUS_SQL)
+                    .bind(0, status)
+                    .bind(1, LocalDateTime.now())
+                    .bind(2, transactionId)
+                    .execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum));
+    }
+
+    /**
+     * Cuenta las transacciones en un estado dado
+     */
+    public Mono<Long> countByStatus(String status) {
+        return connectionPool.withConnectionMono(connection ->
+            Flux.from(connection.createStatement(COUNT_BY_STATUS_SQL).bind(0, status).execute())
+                .flatMap(result -> result.map(row -> row.get(0, Long.class)))
+                .next());
+    }
+
+    private TransactionRecord mapRow(Readable row) {
+        String rawMessage = row.get("raw_message", String.class);
+        byte[] compressed = row.get("raw_message_compressed", byte[].class);
+        if (rawMessage == null && compressed != null) {
+            rawMessage = payloadCodec.decodeToString(compressed);
+        }
+
+        return new TransactionRecord(
+            row.get("transaction_id", String.class),
+            row.get("message_type", String.class),
+            row.get("sender", String.class),
+            row.get("receiver", String.class),
+            row.get("amount", BigDecimal.class),
+            row.get("currency", String.class),
+            row.get("status", String.class),
+            rawMessage,
+            row.get("created_at", LocalDateTime.class));
+    }
+
+    static <T> void bindNullable(Statement statement, int index, T value, Class<T> type) {
+        if (value != null) {
+            statement.bind(index, value);
+        } else {
+            statement.bindNull(index, type);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.kuvasz.iso20022.simulator.retention;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gestión de particiones diarias declarativas de PostgreSQL ({@code <tabla>_pYYYYMMDD}).
+ *
+ * Eliminar una partición completa no genera tuplas muertas ni trabajo de vacuum en los
+ * índices de la tabla padre, a diferencia del DELETE por batches.
+ */
+class PartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionManager.class);
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String PARTITION_MARKER = "_p";
+
+    private static final String LIST_PARTITIONS_SQL =
+        "SELECT c.relname FROM pg_inherits i " +
+        "JOIN pg_class c ON c.oid = i.inhrelid " +
+        "JOIN pg_class p ON p.oid = i.inhparent " +
+        "WHERE p.relname = ?";
+
+    private static final String HAS_DEFAULT_PARTITION_SQL =
+        "SELECT pt.partdefid <> 0 FROM pg_partitioned_table pt " +
+        "JOIN pg_class c ON c.oid = pt.partrelid " +
+        "WHERE c.relname = ?";
+
+    /** DETACH CONCURRENTLY (PostgreSQL 14+) no bloquea las inserciones en la tabla padre */
+    private static final int CONCURRENT_DETACH_MIN_VERSION = 14;
+
+    /**
+     * Indica si la base de datos soporta particionado declarativo
+     */
+    static boolean isSupported(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        return metaData.getDatabaseProductName().toLowerCase().contains("postgresql")
+            && metaData.getDatabaseMajorVersion() >= 10;
+    }
+
+    /**
+     * Crea las particiones de hoy y de los próximos {@code days} días si no existen
+     */
+    static int precreate(Connection connection, RetentionTable table, LocalDate today, int days) throws SQLException {
+        int created = 0;
+        List<String> existing = listPartitions(connection, table);
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i <= days; i++) {
+                LocalDate day = today.plusDays(i);
+                String name = partitionName(table, day);
+                if (existing.contains(name)) {
+                    continue;
+                }
+                statement.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + table.getTableName()
+                    + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+                created++;
+            }
+        }
+        if (created > 0) {
+            logger.info("Created {} partition(s) for table {}", created, table.getTableName());
+        }
+        return created;
+    }
+
+    /**
+     * Desacopla y elimina las particiones cuyo rango completo es anterior a {@code cutoffDay}
+     *
+     * @return número de particiones eliminadas
+     */
+    static int dropExpired(Connection connection, RetentionTable table, LocalDate cutoffDay) throws SQLException {
+        boolean concurrent = canDetachConcurrently(connection.getMetaData().getDatabaseMajorVersion(),
+            hasDefaultPartition(connection, table), connection.getAutoCommit());
+        int dropped = 0;
+        for (String name : listPartitions(connection, table)) {
+            LocalDate day = partitionDay(table, name);
+            // La partición cubre [day, day + 1): solo se elimina si todas sus filas han caducado
+            if (day == null || day.plusDays(1).isAfter(cutoffDay)) {
+                continue;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(detachStatement(table, name, concurrent));
+                statement.execute("DROP TABLE " + name);
+            }
+            dropped++;
+            logger.info("Dropped expired partition {} of table {}", name, table.getTableName());
+        }
+        return dropped;
+    }
+
+    /**
+     * PostgreSQL rechaza DETACH CONCURRENTLY si la tabla tiene partición DEFAULT (como la de
+     * docker/partitioning.sql) y dentro de un bloque de transacción; en esos casos se usa el
+     * DETACH normal, que toma un lock exclusivo breve sobre la tabla padre
+     */
+    static boolean canDetachConcurrently(int majorVersion, boolean hasDefaultPartition, boolean autoCommit) {
+        return majorVersion >= CONCURRENT_DETACH_MIN_VERSION && !hasDefaultPartition && autoCommit;
+    }
+
+    static String detachStatement(RetentionTable table, String partitionName, boolean concurrent) {
+        return "ALTER TABLE " + table.getTableName() + " DETACH PARTITION " + partitionName
+            + (concurrent ? " CONCURRENTLY" : "");
+    }
+
+    static String partitionName(RetentionTable table, LocalDate day) {
+        return table.getTableName() + PARTITION_MARKER + day.format(SUFFIX_FORMAT);
+    }
+
+    /**
+     * Día cubierto por una partición, o null si el nombre no sigue la convención (p.ej. la DEFAULT)
+     */
+    static LocalDate partitionDay(RetentionTable table, String partitionName) {
+        String prefix = table.getTableName() + PARTITION_MARKER;
+        if (!partitionName.startsWith(prefix) || partitionName.length() != prefix.length() + 8) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(prefix.length()), SUFFIX_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasDefaultPartition(Connection connection, RetentionTable table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(HAS_DEFAULT_PARTITION_SQL)) {
+            statement.setString(1, table.getTableName());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private static List<String> listPartitions(Connection connection, RetentionTable table) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(LIST_PARTITIONS_SQL)) {
+            statement.setString(1, table.getTableName());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    partitions.add(resultSet.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+}
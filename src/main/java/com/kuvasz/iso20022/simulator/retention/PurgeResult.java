@@ -0,0 +1,82 @@
+package com.kuvasz.iso20022.simulator.retention;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de purgar una tabla en una ejecución del job de retención
+ */
+public class PurgeResult {
+
+    private final RetentionTable table;
+    private final LocalDateTime cutoff;
+    private final long rowsPurged;
+    private final int batches;
+    private final int partitionsDropped;
+    private final long throttledNanos;
+    private final long elapsedNanos;
+    private final boolean completed;
+
+    public PurgeResult(RetentionTable table, LocalDateTime cutoff, long rowsPurged, int batches,
+                       int partitionsDropped, long throttledNanos, long elapsedNanos, boolean completed) {
+        this.table = table;
+        this.cutoff = cutoff;
+        this.rowsPurged = rowsPurged;
+        this.batches = batches;
+        this.partitionsDropped = partitionsDropped;
+        this.throttledNanos = throttledNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.completed = completed;
+    }
+
+    public RetentionTable getTable() {
+        return table;
+    }
+
+    public LocalDateTime getCutoff() {
+        return cutoff;
+    }
+
+    public long getRowsPurged() {
+        return rowsPurged;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public int getPartitionsDropped() {
+        return partitionsDropped;
+    }
+
+    /**
+     * Tiempo que el job estuvo detenido esperando a que bajara el backlog de inserciones
+     */
+    public long getThrottledNanos() {
+        return throttledNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * false si la ejecución agotó max-run-time antes de purgar todas las filas caducadas
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    public String toString() {
+        return "PurgeResult{" +
+            "table=" + table.getTableName() +
+            ", cutoff=" + cutoff +
+            ", rowsPurged=" + rowsPurged +
+            ", batches=" + batches +
+            ", partitionsDropped=" + partitionsDropped +
+            ", throttledMs=" + throttledNanos / 1_000_000 +
+            ", elapsedMs=" + elapsedNanos / 1_000_000 +
+            ", completed=" + completed +
+            '}';
+    }
+}
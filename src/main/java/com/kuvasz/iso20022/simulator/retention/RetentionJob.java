@@ -0,0 +1,345 @@
+package com.kuvasz.iso20022.simulator.retention;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.persistence.WriteBehindTransactionWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntSupplier;
+
+/**
+ * Job de retención de transactions y audit_log.
+ *
+ * Las filas caducadas se borran en batches pequeños recorriendo la clave primaria
+ * ({@code id > último id borrado}), cada uno en su propia transacción corta y con una
+ * conexión que se devuelve al pool entre batches. Entre batches el job hace una pausa
+ * y, si el write-behind acumula más de {@code max-insert-backlog} registros, espera a
+ * que se vacíe: la purga nunca compite con el camino de inserción.
+ *
+ * Las tablas con particiones diarias (PostgreSQL) se purgan desacoplando y eliminando
+ * las particiones completas caducadas.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.retention", name = "enabled", havingValue = "true")
+public class RetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionJob.class);
+
+    private static final String SELECT_KEYS_SQL =
+        "SELECT " + RetentionTable.KEY_COLUMN + " FROM %s WHERE %s < ? AND " + RetentionTable.KEY_COLUMN
+            + " > ? ORDER BY " + RetentionTable.KEY_COLUMN + " LIMIT ?";
+
+    private static final String DELETE_RANGE_SQL =
+        "DELETE FROM %s WHERE " + RetentionTable.KEY_COLUMN + " >= ? AND " + RetentionTable.KEY_COLUMN
+            + " <= ? AND %s < ?";
+
+    private static final long MIN_THROTTLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final DataSource dataSource;
+    private final SimulatorProperties.Retention config;
+    private final MeterRegistry meterRegistry;
+    private final IntSupplier insertBacklog;
+    private final Clock clock;
+
+    private final AtomicBoolean purging = new AtomicBoolean();
+    private final Timer idleInsertLatency;
+    private final Timer purgingInsertLatency;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    @Autowired
+    public RetentionJob(DataSource dataSource, SimulatorProperties properties, MeterRegistry meterRegistry,
+                        ObjectProvider<WriteBehindTransactionWriter> writeBehindWriter) {
+        this(dataSource, properties, meterRegistry, backlogOf(writeBehindWriter.getIfAvailable()),
+            Clock.systemDefaultZone());
+        writeBehindWriter.ifAvailable(writer -> writer.addFlushListener(this::recordInsertLatency));
+    }
+
+    RetentionJob(DataSource dataSource, SimulatorProperties properties, MeterRegistry meterRegistry,
+                 IntSupplier insertBacklog, Clock clock) {
+        this.dataSource = dataSource;
+        this.config = properties.getRetention();
+        this.meterRegistry = meterRegistry;
+        this.insertBacklog = insertBacklog;
+        this.clock = clock;
+
+        this.idleInsertLatency = Timer.builder("simulator.retention.insert.latency")
+            .description("Latencia de los flush de inserción fuera de las ejecuciones de purga")
+            .tag("phase", "idle")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.purgingInsertLatency = Timer.builder("simulator.retention.insert.latency")
+            .description("Latencia de los flush de inserción durante las ejecuciones de purga")
+            .tag("phase", "purging")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        Gauge.builder("simulator.retention.running", purging, p -> p.get() ? 1 : 0)
+            .description("1 mientras hay una ejecución de purga en curso")
+            .register(meterRegistry);
+    }
+
+    private static IntSupplier backlogOf(WriteBehindTransactionWriter writer) {
+        return writer != null ? writer::getQueueDepth : () -> 0;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runLoop, "retention-purge");
+        worker.setDaemon(true);
+        worker.start();
+        logger.info("Retention job started: transactions {}, audit_log {}, every {}",
+            describe(RetentionTable.TRANSACTIONS), describe(RetentionTable.AUDIT_LOG), config.getInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    /**
+     * Ejecuta una pasada de purga sobre todas las tablas habilitadas
+     *
+     * @return resultado por tabla; vacío si ya había otra ejecución en curso
+     */
+    public List<PurgeResult> runOnce() {
+        if (!purging.compareAndSet(false, true)) {
+            logger.debug("Retention run skipped, another run is in progress");
+            return List.of();
+        }
+        try {
+            long deadline = System.nanoTime() + config.getMaxRunTime().toNanos();
+            List<PurgeResult> results = new ArrayList<>();
+            for (RetentionTable table : RetentionTable.values()) {
+                if (table.config(config).isEnabled()) {
+                    results.add(purge(table, deadline));
+                }
+            }
+            return results;
+        } finally {
+            purging.set(false);
+        }
+    }
+
+    private PurgeResult purge(RetentionTable table, long deadline) {
+        SimulatorProperties.Retention.Table tableConfig = table.config(config);
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime cutoff = now.minus(tableConfig.getRetention());
+        long startTime = System.nanoTime();
+
+        if (tableConfig.isPartitioned()) {
+            try (Connection connection = dataSource.getConnection()) {
+                if (PartitionManager.isSupported(connection)) {
+                    PartitionManager.precreate(connection, table, now.toLocalDate(), tableConfig.getPrecreateDays());
+                    int dropped = PartitionManager.dropExpired(connection, table, cutoff.toLocalDate());
+                    Counter.builder("simulator.retention.partitions.dropped").tag("table", table.getTableName())
+                        .register(meterRegistry).increment(dropped);
+                    return record(new PurgeResult(table, cutoff, 0, 0, dropped, 0,
+                        System.nanoTime() - startTime, true), "completed");
+                }
+                logger.warn("Table {} is configured as partitioned but the database does not support "
+                    + "declarative partitions, purging in batches", table.getTableName());
+            } catch (SQLException e) {
+                logger.error("Partition maintenance of table {} failed: {}", table.getTableName(), e.getMessage());
+                return record(new PurgeResult(table, cutoff, 0, 0, 0, 0,
+                    System.nanoTime() - startTime, false), "failed");
+            }
+        }
+
+        Timer batchTimer = Timer.builder("simulator.retention.batch.latency")
+            .description("Latencia de cada batch de DELETE de la purga")
+            .tag("table", table.getTableName())
+            .register(meterRegistry);
+        Counter purgedCounter = Counter.builder("simulator.retention.rows.purged")
+            .tag("table", table.getTableName())
+            .register(meterRegistry);
+
+        Timestamp cutoffTimestamp = Timestamp.valueOf(cutoff);
+        long lastKey = Long.MIN_VALUE;
+        long rowsPurged = 0;
+        long throttledNanos = 0;
+        int batches = 0;
+        String outcome = "completed";
+
+        while (true) {
+            throttledNanos += awaitInsertBacklog(deadline);
+            if (System.nanoTime() >= deadline || !isActive()) {
+                outcome = "partial";
+                break;
+            }
+
+            long batchStart = System.nanoTime();
+            long[] batch;
+            try {
+                batch = purgeBatch(table, cutoffTimestamp, lastKey);
+            } catch (SQLException e) {
+                logger.error("Purge batch on table {} failed after {} rows: {}",
+                    table.getTableName(), rowsPurged, e.getMessage());
+                outcome = "failed";
+                break;
+            }
+            if (batch == null) {
+                break;
+            }
+            batchTimer.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+            lastKey = batch[0];
+            rowsPurged += batch[1];
+            purgedCounter.increment(batch[1]);
+            batches++;
+
+            LockSupport.parkNanos(config.getBatchPause().toNanos());
+        }
+
+        PurgeResult result = new PurgeResult(table, cutoff, rowsPurged, batches, 0, throttledNanos,
+            System.nanoTime() - startTime, "completed".equals(outcome));
+        return record(result, outcome);
+    }
+
+    /**
+     * Borra el siguiente batch de filas caducadas con clave mayor que {@code lastKey}
+     *
+     * @return {último id del batch, filas borradas}, o null si no quedan filas caducadas
+     */
+    private long[] purgeBatch(RetentionTable table, Timestamp cutoff, long lastKey) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            long firstKey;
+            long batchLastKey;
+            try (PreparedStatement select = connection.prepareStatement(
+                    String.format(SELECT_KEYS_SQL, table.getTableName(), table.getTimestampColumn()))) {
+                select.setTimestamp(1, cutoff);
+                select.setLong(2, lastKey);
+                select.setInt(3, config.getBatchSize());
+                try (ResultSet keys = select.executeQuery()) {
+                    if (!keys.next()) {
+                        return null;
+                    }
+                    firstKey = keys.getLong(1);
+                    batchLastKey = firstKey;
+                    while (keys.next()) {
+                        batchLastKey = keys.getLong(1);
+                    }
+                }
+            }
+
+            // El rango [primero, último] contiene exactamente las filas caducadas seleccionadas
+            try (PreparedStatement delete = connection.prepareStatement(
+                    String.format(DELETE_RANGE_SQL, table.getTableName(), table.getTimestampColumn()))) {
+                delete.setLong(1, firstKey);
+                delete.setLong(2, batchLastKey);
+                delete.setTimestamp(3, cutoff);
+                return new long[] {batchLastKey, delete.executeUpdate()};
+            }
+        }
+    }
+
+    /**
+     * Espera mientras el write-behind tenga más registros pendientes que el máximo permitido
+     *
+     * @return nanosegundos esperados
+     */
+    private long awaitInsertBacklog(long deadline) {
+        if (insertBacklog.getAsInt() <= config.getMaxInsertBacklog()) {
+            return 0;
+        }
+        long parkNanos = Math.max(config.getBatchPause().toNanos(), MIN_THROTTLE_PARK_NANOS);
+        long start = System.nanoTime();
+        while (insertBacklog.getAsInt() > config.getMaxInsertBacklog()
+                && System.nanoTime() < deadline && isActive()) {
+            LockSupport.parkNanos(parkNanos);
+        }
+        long waited = System.nanoTime() - start;
+        Timer.builder("simulator.retention.throttle.time")
+            .description("Tiempo que la purga cede el paso al backlog de inserciones")
+            .register(meterRegistry)
+            .record(waited, TimeUnit.NANOSECONDS);
+        return waited;
+    }
+
+    private PurgeResult record(PurgeResult result, String outcome) {
+        Timer.builder("simulator.retention.run.duration")
+            .tag("table", result.getTable().getTableName())
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .record(result.getElapsedNanos(), TimeUnit.NANOSECONDS);
+        if (result.getRowsPurged() > 0 || result.getPartitionsDropped() > 0 || !"completed".equals(outcome)) {
+            logger.info("Retention {} on table {}: {} rows and {} partitions purged older than {} in {} ms",
+                outcome, result.getTable().getTableName(), result.getRowsPurged(), result.getPartitionsDropped(),
+                result.getCutoff(), TimeUnit.NANOSECONDS.toMillis(result.getElapsedNanos()));
+        }
+        return result;
+    }
+
+    /**
+     * Registra la latencia de un flush de inserción en el timer de la fase actual, para
+     * comparar sus percentiles con y sin purga en curso
+     */
+    void recordInsertLatency(long nanos) {
+        (purging.get() ? purgingInsertLatency : idleInsertLatency).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean isActive() {
+        // runOnce() también se invoca sin el hilo del job arrancado (tests, llamadas manuales)
+        return running || worker == null;
+    }
+
+    private void runLoop() {
+        long intervalNanos = config.getInterval().toNanos();
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            if (!running) {
+                break;
+            }
+            try {
+                runOnce();
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in retention run", e);
+            }
+        }
+    }
+
+    private String describe(RetentionTable table) {
+        SimulatorProperties.Retention.Table tableConfig = table.config(config);
+        if (!tableConfig.isEnabled()) {
+            return "disabled";
+        }
+        return tableConfig.getRetention() + (tableConfig.isPartitioned() ? " (partitioned)" : "");
+    }
+}
@@ -0,0 +1,38 @@
+package com.kuvasz.iso20022.simulator.retention;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+
+/**
+ * Tablas sujetas a retención, con la columna temporal que decide su caducidad
+ */
+public enum RetentionTable {
+
+    TRANSACTIONS("transactions", "created_at"),
+    AUDIT_LOG("audit_log", "timestamp");
+
+    /** Clave monótona usada para recorrer la tabla en batches */
+    static final String KEY_COLUMN = "id";
+
+    private final String tableName;
+    private final String timestampColumn;
+
+    RetentionTable(String tableName, String timestampColumn) {
+        this.tableName = tableName;
+        this.timestampColumn = timestampColumn;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getTimestampColumn() {
+        return timestampColumn;
+    }
+
+    /**
+     * Configuración de retención de la tabla
+     */
+    public SimulatorProperties.Retention.Table config(SimulatorProperties.Retention retention) {
+        return this == TRANSACTIONS ? retention.getTransactions() : retention.getAuditLog();
+    }
+}
@@ -0,0 +1,441 @@
+package com.kuvasz.iso20022.simulator.service;
+
+import com.kuvasz.iso20022.simulator.audit.AuditPipeline;
+import com.kuvasz.iso20022.simulator.capture.SlowMessageCapture;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.core.generator.ResponseGenerator;
+import com.kuvasz.iso20022.simulator.core.generator.StatusCodeMapper;
+import com.kuvasz.iso20022.simulator.core.parser.MessageParser;
+import com.kuvasz.iso20022.simulator.core.parser.ParseOutcome;
+import com.kuvasz.iso20022.simulator.core.validator.MessageValidator;
+import com.kuvasz.iso20022.simulator.core.validator.ValidationOutcome;
+import com.kuvasz.iso20022.simulator.jfr.MessageProcessedEvent;
+import com.kuvasz.iso20022.simulator.jfr.PipelineStageEvent;
+import com.kuvasz.iso20022.simulator.journal.JournalRecord;
+import com.kuvasz.iso20022.simulator.journal.MessageJournal;
+import com.kuvasz.iso20022.simulator.ledger.SettlementLedger;
+import com.kuvasz.iso20022.simulator.ledger.SettlementResult;
+import com.kuvasz.iso20022.simulator.logging.LogRateLimiter;
+import com.kuvasz.iso20022.simulator.logging.RateLimitedLogger;
+import com.kuvasz.iso20022.simulator.metrics.PipelineMetrics;
+import com.kuvasz.iso20022.simulator.metrics.PipelineMetrics.Outcome;
+import com.kuvasz.iso20022.simulator.metrics.PipelineStage;
+import com.kuvasz.iso20022.simulator.metrics.StageTimings;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.model.ValidationError;
+import com.kuvasz.iso20022.simulator.persistence.TransactionPersistence;
+import com.kuvasz.iso20022.simulator.persistence.TransactionRecord;
+import com.kuvasz.iso20022.simulator.status.StatusInquiryHandler;
+import com.kuvasz.iso20022.simulator.status.TransactionStatusStore;
+import com.kuvasz.iso20022.simulator.status.TransactionStatusStore.KeySpace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Orquesta el pipeline de procesamiento: parsing, validación, generación de respuesta
+ * y persistencia de la transacción procesada (write-behind JDBC o R2DBC según perfil).
+ * Con el ledger habilitado, los mensajes válidos se liquidan antes de responder y un
+ * rechazo (p.ej. AM04 por fondos insuficientes) se devuelve como error de negocio.
+ * Los mensajes aceptados se registran además en el journal cuando está habilitado.
+ * El estado resultante se guarda en el almacén de estados por EndToEndId y MsgId, y las
+ * consultas pacs.028 se responden desde él sin pasar por validación ni persistencia.
+ * Cada etapa publica su evento de auditoría en el pipeline asíncrono, sin esperar a la BD,
+ * y registra su duración en {@link PipelineMetrics} y como evento JFR ({@link PipelineStageEvent}).
+ * Los mensajes lentos, con sus tiempos por etapa, se guardan en {@link SlowMessageCapture}.
+ * Con {@code simulator.performance.release-after-use} el DOM se suelta al acabar la validación,
+ * la última etapa que lo lee, y el XML del contexto en cuanto existen los registros que lo copian.
+ */
+@Service
+public class MessageProcessingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageProcessingService.class);
+
+    /** A partir de este tamaño (en chars) el pipeline no ocupa un hilo del scheduler parallel */
+    static final int LARGE_PAYLOAD_CHARS = 1 << 20;
+    private RateLimitedLogger errorLogger = RateLimitedLogger.of(logger);
+
+    private final MessageParser parser;
+    private final List<MessageValidator> validators;
+    private final ResponseGenerator responseGenerator;
+    private final List<TransactionPersistence> persistenceStrategies;
+    private final MessageJournal journal;
+    private final SettlementLedger ledger;
+    private final TransactionStatusStore statusStore;
+    private final StatusInquiryHandler statusInquiryHandler;
+    private final AuditPipeline auditPipeline;
+    private final PipelineMetrics metrics;
+
+    private SlowMessageCapture slowMessageCapture;
+    private boolean releaseAfterUse = true;
+
+    public MessageProcessingService(MessageParser parser, List<MessageValidator> validators,
+                                    ResponseGenerator responseGenerator,
+                                    ObjectProvider<TransactionPersistence> persistenceStrategies,
+                                    ObjectProvider<MessageJournal> journal,
+                                    ObjectProvider<SettlementLedger> ledger,
+                                    ObjectProvider<TransactionStatusStore> statusStore,
+                                    ObjectProvider<StatusInquiryHandler> statusInquiryHandler,
+                                    ObjectProvider<AuditPipeline> auditPipeline,
+                                    PipelineMetrics metrics) {
+        this.parser = parser;
+        this.validators = validators;
+        this.responseGenerator = responseGenerator;
+        this.persistenceStrategies = persistenceStrategies.orderedStream().toList();
+        this.journal = journal.getIfAvailable();
+        this.ledger = ledger.getIfAvailable();
+        this.statusStore = statusStore.getIfAvailable();
+        this.statusInquiryHandler = statusInquiryHandler.getIfAvailable();
+        this.auditPipeline = auditPipeline.getIfAvailable();
+        this.metrics = metrics;
+    }
+
+    @Autowired(required = false)
+    public void setSlowMessageCapture(SlowMessageCapture slowMessageCapture) {
+        this.slowMessageCapture = slowMessageCapture;
+    }
+
+    @Autowired(required = false)
+    public void setProperties(SimulatorProperties properties) {
+        this.releaseAfterUse = properties.getPerformance().isReleaseAfterUse();
+    }
+
+    @Autowired(required = false)
+    public void setLogRateLimiter(LogRateLimiter logRateLimiter) {
+        this.errorLogger = RateLimitedLogger.of(logger, logRateLimiter);
+    }
+
+    /**
+     * Procesa un mensaje XML ISO 20022 y emite el resultado con la respuesta generada.
+     * El pipeline síncrono (parseo, validación, liquidación y respuesta) se ejecuta en el
+     * scheduler parallel, o en boundedElastic si el payload es grande, y no en el event loop
+     * que se suscribe; la persistencia se compone en el mismo Mono.
+     *
+     * El payload se entrega al pipeline una sola vez, de modo que ni el Mono ensamblado ni la
+     * cadena de suscriptores lo retienen mientras se persiste; por eso el Mono solo admite una
+     * suscripción. Solo lo conserva hasta el final la captura de mensajes lentos, si está activa.
+     */
+    public Mono<ProcessingResult> process(String xmlContent) {
+        AtomicReference<String> payload = new AtomicReference<>(xmlContent);
+        boolean hasPayload = xmlContent != null;
+        String captured = slowMessageCapture != null ? xmlContent : null;
+        return Mono.fromCallable(() -> execute(take(payload, hasPayload)))
+            .subscribeOn(schedulerFor(xmlContent))
+            .flatMap(outcome -> persist(outcome).doOnSuccess(result -> complete(outcome, captured)))
+            .doFirst(metrics::messageStarted)
+            .doFinally(signal -> metrics.messageFinished());
+    }
+
+    /**
+     * Un DOM de varios MB ocupa su hilo cientos de ms: esos mensajes van a boundedElastic para
+     * no retrasar a los pequeños, que comparten los pocos hilos de parallel
+     */
+    static Scheduler schedulerFor(String xmlContent) {
+        return xmlContent != null && xmlContent.length() >= LARGE_PAYLOAD_CHARS
+            ? Schedulers.boundedElastic() : Schedulers.parallel();
+    }
+
+    private static String take(AtomicReference<String> payload, boolean hasPayload) {
+        String xmlContent = payload.getAndSet(null);
+        if (xmlContent == null && hasPayload) {
+            throw new IllegalStateException("Message already processed: process() can only be subscribed once");
+        }
+        return xmlContent;
+    }
+
+    /**
+     * Ejecuta el pipeline completo de forma síncrona
+     */
+    public ProcessingResult processMessage(String xmlContent) {
+        return process(xmlContent).block();
+    }
+
+    private Mono<ProcessingResult> persist(PipelineOutcome outcome) {
+        if (outcome.context() == null) {
+            return Mono.just(outcome.result());
+        }
+
+        // El registro se crea al suscribirse, así no queda retenido en el Mono ensamblado
+        // mientras se espera al journal
+        Mono<Void> persisted = Mono.defer(() -> {
+            TransactionRecord record = TransactionRecord.from(outcome.context(), outcome.result());
+            if (!journaled(outcome.result())) {
+                release(outcome.context());
+            }
+            return Flux.fromIterable(persistenceStrategies)
+                .flatMap(persistence -> timedPersist(persistence.getPersistenceType(), outcome, persistence.save(record))
+                    .onErrorResume(e -> {
+                        logger.warn("{} persistence failed for message {}: {}",
+                            persistence.getPersistenceType(), record.getTransactionId(), e.getMessage());
+                        return Mono.empty();
+                    }))
+                .then();
+        });
+
+        return persisted.then(journal(outcome)).thenReturn(outcome.result());
+    }
+
+    /**
+     * Cierra la contabilidad del mensaje una vez persistido: recursos por etapa y captura si es lento
+     *
+     * @param xmlContent payload para la captura; null si no está activa
+     */
+    private void complete(PipelineOutcome outcome, String xmlContent) {
+        metrics.recordResources(outcome.result().getMessageType(), outcome.timings());
+        if (slowMessageCapture != null) {
+            StageTimings timings = outcome.timings();
+            slowMessageCapture.offer(outcome.context(), outcome.result(), xmlContent, timings,
+                System.nanoTime() - timings.startNanos());
+        }
+    }
+
+    private Mono<Void> journal(PipelineOutcome outcome) {
+        ProcessingResult result = outcome.result();
+        if (!journaled(result)) {
+            return Mono.empty();
+        }
+
+        // La respuesta se emite cuando el registro es durable según la política de fsync; el
+        // future completa en el hilo de group commit, que no debe cerrar el mensaje ni la respuesta
+        return timedPersist("journal", outcome, Mono.fromFuture(() -> {
+                JournalRecord record = JournalRecord.from(outcome.context(), result);
+                release(outcome.context());
+                return journal.append(record);
+            }).publishOn(Schedulers.parallel()).then())
+            .onErrorResume(e -> {
+                logger.warn("Journal append failed for message {}: {}", result.getMessageId(), e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    private boolean journaled(ProcessingResult result) {
+        return journal != null && (result.getStatus() == ProcessingResult.Status.SUCCESS
+            || result.getStatus() == ProcessingResult.Status.WARNING);
+    }
+
+    /**
+     * Suelta el XML del contexto; el registro de persistencia y el del journal ya lo referencian o copian
+     */
+    private void release(MessageContext context) {
+        if (releaseAfterUse) {
+            context.releaseOriginalXml();
+        }
+    }
+
+    /**
+     * Mide una escritura asíncrona como etapa de persistencia, de la suscripción a la
+     * señal de fin, aunque termine en otro hilo
+     */
+    private Mono<Void> timedPersist(String target, PipelineOutcome outcome, Mono<Void> write) {
+        String messageType = outcome.result().getMessageType();
+        return Mono.defer(() -> {
+            PipelineStageEvent stageEvent = PipelineStageEvent.start(PipelineStage.PERSIST, target);
+            long stageStart = System.nanoTime();
+            return write.doOnEach(signal -> {
+                if (signal.isOnComplete() || signal.isOnError()) {
+                    Outcome persistOutcome = signal.isOnError() ? Outcome.ERROR : Outcome.SUCCESS;
+                    stageEvent.finish(messageType, outcome.result().getMessageId(), outcome.payloadSize(),
+                        signal.isOnError() ? 1 : 0, persistOutcome);
+                    recordStage(outcome.timings(), PipelineStage.PERSIST, messageType, persistOutcome,
+                        System.nanoTime() - stageStart);
+                }
+            });
+        });
+    }
+
+    private PipelineOutcome execute(String xmlContent) {
+        long startTime = System.nanoTime();
+        StageTimings timings = metrics.startTimings(startTime);
+        MessageProcessedEvent messageEvent = MessageProcessedEvent.start();
+        int payloadSize = xmlContent != null ? PipelineMetrics.utf8Length(xmlContent) : 0;
+
+        timings.mark();
+        PipelineStageEvent stageEvent = PipelineStageEvent.start(PipelineStage.PARSE, null);
+        ParseOutcome parsed = parser.tryParse(xmlContent);
+        if (parsed instanceof ParseOutcome.Rejected rejected) {
+            stageEvent.finish(null, null, payloadSize, 1, Outcome.ERROR);
+            recordStage(timings, PipelineStage.PARSE, null, Outcome.ERROR, System.nanoTime() - startTime);
+            metrics.recordPayloadSize(null, payloadSize);
+            audit(null, "PARSE_ERROR", rejected.message());
+            ProcessingResult rejection = rejectUnparseable(rejected, startTime);
+            metrics.recordPipeline(null, rejection.getStatus(), System.nanoTime() - startTime);
+            messageEvent.finish(rejection, payloadSize);
+            return new PipelineOutcome(null, rejection, payloadSize, timings);
+        }
+        MessageContext context = ((ParseOutcome.Parsed) parsed).context();
+        String messageType = context.getMessageType();
+        stageEvent.finish(messageType, context.getMessageId(), payloadSize, 0, Outcome.SUCCESS);
+        long stageStart = System.nanoTime();
+        recordStage(timings, PipelineStage.PARSE, messageType, Outcome.SUCCESS, stageStart - startTime);
+        metrics.recordPayloadSize(messageType, payloadSize);
+
+        if (statusInquiryHandler != null && statusInquiryHandler.canHandle(messageType)) {
+            stageStart = timings.mark();
+            stageEvent = PipelineStageEvent.start(PipelineStage.GENERATE, "status-inquiry");
+            ProcessingResult inquiry = statusInquiryHandler.handle(context);
+            long elapsed = System.nanoTime() - startTime;
+            inquiry.setProcessingTimeMs(elapsed / 1_000_000);
+            stageEvent.finish(messageType, context.getMessageId(), payloadSize, 0, Outcome.SUCCESS);
+            recordStage(timings, PipelineStage.GENERATE, messageType, Outcome.SUCCESS, System.nanoTime() - stageStart);
+            metrics.recordPipeline(messageType, inquiry.getStatus(), elapsed);
+            messageEvent.finish(inquiry, payloadSize);
+            return new PipelineOutcome(null, inquiry, payloadSize, timings);
+        }
+
+        ProcessingResult result = new ProcessingResult();
+        result.setMessageId(context.getMessageId());
+        result.setMessageType(messageType);
+
+        List<ValidationError> errors = new ArrayList<>();
+        ValidationOutcome.Aborted aborted = null;
+        for (MessageValidator validator : validators) {
+            if (validator.canHandle(messageType)) {
+                ValidationOutcome outcome = validate(validator, context, payloadSize, timings);
+                if (outcome instanceof ValidationOutcome.Aborted a) {
+                    aborted = a;
+                    break;
+                }
+                errors.addAll(outcome.errors());
+            }
+        }
+        if (releaseAfterUse) {
+            // Ni la liquidación ni la generación de la respuesta leen el DOM
+            context.releaseParsedDocument();
+        }
+        if (aborted != null) {
+            errorLogger.warn("Validation aborted for message {}: {}", context.getMessageId(), aborted.message());
+            errors.add(ValidationError.businessRuleError(aborted.errorCode(), aborted.message(), "document"));
+            result.setStatus(ProcessingResult.Status.ERROR);
+        } else {
+            audit(context.getMessageId(), "VALIDATION", errors.isEmpty() ? "VALID" : "INVALID: " + errorCodes(errors));
+            if (errors.isEmpty() && ledger != null) {
+                stageStart = timings.mark();
+                stageEvent = PipelineStageEvent.start(PipelineStage.SETTLEMENT, null);
+                SettlementResult settlement = ledger.settle(context);
+                Outcome settlementOutcome = settlement.isRejected() ? Outcome.INVALID : Outcome.SUCCESS;
+                stageEvent.finish(messageType, context.getMessageId(), payloadSize, settlement.isRejected() ? 1 : 0,
+                    settlementOutcome);
+                recordStage(timings, PipelineStage.SETTLEMENT, messageType, settlementOutcome,
+                    System.nanoTime() - stageStart);
+                audit(context.getMessageId(), "SETTLEMENT", settlement.getOutcome()
+                    + (settlement.getReasonCode() != null ? " " + settlement.getReasonCode() : ""));
+                if (settlement.isRejected()) {
+                    errors.add(ValidationError.businessRuleError(settlement.getReasonCode(),
+                        settlement.getDescription(), "DbtrAcct"));
+                }
+            }
+            result.setStatus(errors.isEmpty() ? ProcessingResult.Status.SUCCESS
+                : ProcessingResult.Status.VALIDATION_FAILED);
+        }
+        result.setErrors(errors);
+        metrics.recordValidationErrors(messageType, errors);
+
+        stageStart = timings.mark();
+        stageEvent = PipelineStageEvent.start(PipelineStage.GENERATE, null);
+        result.setProcessedMessage(responseGenerator.generateResponse(context, result));
+        long endTime = System.nanoTime();
+        stageEvent.finish(messageType, context.getMessageId(), payloadSize, errors.size(), Outcome.SUCCESS);
+        recordStage(timings, PipelineStage.GENERATE, messageType, Outcome.SUCCESS, endTime - stageStart);
+        result.setProcessingTimeMs((endTime - startTime) / 1_000_000);
+        recordStatus(context, result);
+        audit(context.getMessageId(), "STATUS", StatusCodeMapper.statusCode(result.getStatus())
+            + " type=" + messageType + " processingTimeMs=" + result.getProcessingTimeMs());
+        metrics.recordPipeline(messageType, result.getStatus(), System.nanoTime() - startTime);
+        messageEvent.finish(result, payloadSize);
+
+        return new PipelineOutcome(context, result, payloadSize, timings);
+    }
+
+    private ValidationOutcome validate(MessageValidator validator, MessageContext context, int payloadSize,
+                                       StageTimings timings) {
+        PipelineStage stage = PipelineStage.forValidationType(validator.getValidationType());
+        PipelineStageEvent stageEvent = PipelineStageEvent.start(stage, validator.getValidationType());
+        long stageStart = timings.mark();
+        Outcome stageOutcome = Outcome.ERROR;
+        int errorCount = 0;
+        try {
+            ValidationOutcome outcome = validator.check(context);
+            if (outcome instanceof ValidationOutcome.Valid) {
+                stageOutcome = Outcome.SUCCESS;
+            } else if (outcome instanceof ValidationOutcome.Invalid) {
+                stageOutcome = Outcome.INVALID;
+            }
+            errorCount = outcome.errors().size();
+            return outcome;
+        } finally {
+            stageEvent.finish(context.getMessageType(), context.getMessageId(), payloadSize, errorCount, stageOutcome);
+            recordStage(timings, stage, context.getMessageType(), stageOutcome, System.nanoTime() - stageStart);
+        }
+    }
+
+    private void recordStage(StageTimings timings, PipelineStage stage, String messageType, Outcome outcome,
+                             long elapsedNanos) {
+        timings.add(stage, elapsedNanos);
+        metrics.recordStage(stage, messageType, outcome, elapsedNanos);
+    }
+
+    private void recordStatus(MessageContext context, ProcessingResult result) {
+        if (statusStore == null) {
+            return;
+        }
+        String status = StatusCodeMapper.statusCode(result.getStatus());
+        String reason = StatusCodeMapper.reasonCode(result);
+        Instant now = Instant.now();
+
+        // Cada transacción del mensaje se indexa por su EndToEndId; el grupo, por MsgId
+        if (context.getProperty("endToEndIds") instanceof List<?> endToEndIds) {
+            for (Object endToEndId : endToEndIds) {
+                statusStore.put(KeySpace.TRANSACTION, endToEndId.toString(), status, reason, now, now);
+            }
+        } else if (context.getProperty("endToEndId") != null) {
+            statusStore.put(KeySpace.TRANSACTION, context.getProperty("endToEndId").toString(), status, reason,
+                now, now);
+        }
+        if (context.getMessageId() != null) {
+            statusStore.put(KeySpace.MESSAGE, context.getMessageId(), status, reason, now, now);
+        }
+    }
+
+    private void audit(String transactionId, String action, String details) {
+        if (auditPipeline != null) {
+            auditPipeline.publish(transactionId, action, details);
+        }
+    }
+
+    private static String errorCodes(List<ValidationError> errors) {
+        StringBuilder codes = new StringBuilder();
+        for (ValidationError error : errors) {
+            if (codes.length() > 0) {
+                codes.append(',');
+            }
+            codes.append(error.getCode());
+        }
+        return codes.toString();
+    }
+
+    private ProcessingResult rejectUnparseable(ParseOutcome.Rejected rejected, long startTime) {
+        MessageContext context = new MessageContext(null, "unknown");
+
+        ProcessingResult result = new ProcessingResult(ProcessingResult.Status.ERROR, null, "unknown");
+        result.setErrors(List.of(ValidationError.structuralError(rejected.errorCode(), rejected.message(), "/")));
+        result.setProcessedMessage(responseGenerator.generateResponse(context, result));
+        result.setProcessingTimeMs((System.nanoTime() - startTime) / 1_000_000);
+        return result;
+    }
+
+    private record PipelineOutcome(MessageContext context, ProcessingResult result, int payloadSize,
+                                   StageTimings timings) {
+    }
+}
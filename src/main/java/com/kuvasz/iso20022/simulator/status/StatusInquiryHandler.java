@@ -0,0 +1,186 @@
+package com.kuvasz.iso20022.simulator.status;
+
+import com.kuvasz.iso20022.simulator.core.validator.XPathQuery;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.status.TransactionStatusStore.KeySpace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.xpath.XPathExpressionException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Responde consultas de estado pacs.028 (FIToFIPmtStsReq) con un pacs.002 construido
+ * a partir del almacén de estados, sin acceder a base de datos. Cada TxInf se resuelve
+ * por OrgnlEndToEndId; el estado de grupo se resuelve por OrgnlGrpInf/OrgnlMsgId.
+ * Las expresiones XPath se compilan por hilo ({@link XPathQuery}).
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.status-store", name = "enabled", havingValue = "true",
+    matchIfMissing = true)
+public class StatusInquiryHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusInquiryHandler.class);
+
+    private static final DateTimeFormatter ISO_DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    /** Razón para transacciones desconocidas: Narrative */
+    static final String NOT_FOUND_REASON = "NARR";
+
+    private static final XPathQuery ORIGINAL_MSG_ID =
+        new XPathQuery("//*[local-name()='OrgnlGrpInf']/*[local-name()='OrgnlMsgId']");
+    private static final XPathQuery ORIGINAL_MSG_NM_ID =
+        new XPathQuery("//*[local-name()='OrgnlGrpInf']/*[local-name()='OrgnlMsgNmId']");
+    private static final XPathQuery ORIGINAL_END_TO_END_IDS =
+        new XPathQuery("//*[local-name()='TxInf']/*[local-name()='OrgnlEndToEndId']");
+
+    private final TransactionStatusStore statusStore;
+
+    public StatusInquiryHandler(TransactionStatusStore statusStore) {
+        this.statusStore = statusStore;
+    }
+
+    public boolean canHandle(String messageType) {
+        return messageType != null && messageType.startsWith("pacs.028");
+    }
+
+    /**
+     * Genera la respuesta pacs.002 para la consulta
+     */
+    public ProcessingResult handle(MessageContext context) {
+        Document document = context.getParsedDocument();
+
+        String originalMsgId = evaluate(ORIGINAL_MSG_ID, document);
+        String originalMsgNmId = evaluate(ORIGINAL_MSG_NM_ID, document);
+
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pacs.002.001.10\">\n");
+        xml.append("  <FIToFIPmtStsRpt>\n");
+        xml.append("    <GrpHdr>\n");
+        xml.append("      <MsgId>").append(generateResponseId()).append("</MsgId>\n");
+        xml.append("      <CreDtTm>").append(LocalDateTime.now().format(ISO_DATETIME_FORMATTER)).append("</CreDtTm>\n");
+        xml.append("    </GrpHdr>\n");
+
+        if (!originalMsgId.isEmpty()) {
+            xml.append("    <OrgnlGrpInfAndSts>\n");
+            xml.append("      <OrgnlMsgId>").append(escape(originalMsgId)).append("</OrgnlMsgId>\n");
+            xml.append("      <OrgnlMsgNmId>").append(escape(originalMsgNmId.isEmpty() ? "pacs.008.001.08" : originalMsgNmId))
+                .append("</OrgnlMsgNmId>\n");
+            appendStatus(xml, "      ", "GrpSts", statusStore.get(KeySpace.MESSAGE, originalMsgId));
+            xml.append("    </OrgnlGrpInfAndSts>\n");
+        }
+
+        int transactions = 0;
+        NodeList endToEndIds = evaluateNodes(ORIGINAL_END_TO_END_IDS, document);
+        for (int i = 0; i < endToEndIds.getLength(); i++) {
+            String endToEndId = endToEndIds.item(i).getTextContent().trim();
+            xml.append("    <TxInfAndSts>\n");
+            xml.append("      <OrgnlEndToEndId>").append(escape(endToEndId)).append("</OrgnlEndToEndId>\n");
+            appendStatus(xml, "      ", "TxSts", statusStore.get(KeySpace.TRANSACTION, endToEndId));
+            xml.append("    </TxInfAndSts>\n");
+            transactions++;
+        }
+
+        xml.append("  </FIToFIPmtStsRpt>\n");
+        xml.append("</Document>");
+
+        logger.debug("Answered status inquiry {} for group {} and {} transactions",
+            context.getMessageId(), originalMsgId, transactions);
+
+        ProcessingResult result = new ProcessingResult(ProcessingResult.Status.SUCCESS,
+            context.getMessageId(), context.getMessageType());
+        result.setProcessedMessage(xml.toString());
+        return result;
+    }
+
+    private void appendStatus(StringBuilder xml, String indent, String statusElement,
+                              Optional<TransactionStatus> status) {
+        if (status.isEmpty()) {
+            xml.append(indent).append('<').append(statusElement).append(">RJCT</").append(statusElement).append(">\n");
+            xml.append(indent).append("<StsRsnInf>\n");
+            xml.append(indent).append("  <Rsn>\n");
+            xml.append(indent).append("    <Cd>").append(NOT_FOUND_REASON).append("</Cd>\n");
+            xml.append(indent).append("  </Rsn>\n");
+            xml.append(indent).append("  <AddtlInf>Transaction not found</AddtlInf>\n");
+            xml.append(indent).append("</StsRsnInf>\n");
+            return;
+        }
+
+        TransactionStatus found = status.get();
+        xml.append(indent).append('<').append(statusElement).append('>').append(found.getStatusCode())
+            .append("</").append(statusElement).append(">\n");
+        if (found.hasReasonCode()) {
+            xml.append(indent).append("<StsRsnInf>\n");
+            xml.append(indent).append("  <Rsn>\n");
+            xml.append(indent).append("    <Cd>").append(found.getReasonCode()).append("</Cd>\n");
+            xml.append(indent).append("  </Rsn>\n");
+            xml.append(indent).append("</StsRsnInf>\n");
+        }
+        // OrgnlGrpInfAndSts no admite AccptncDtTm
+        if ("TxSts".equals(statusElement)) {
+            xml.append(indent).append("<AccptncDtTm>")
+                .append(LocalDateTime.ofInstant(found.getReceivedAt(), ZoneId.systemDefault()).format(ISO_DATETIME_FORMATTER))
+                .append("</AccptncDtTm>\n");
+        }
+    }
+
+    private String evaluate(XPathQuery query, Document document) {
+        try {
+            return query.string(document).trim();
+        } catch (XPathExpressionException e) {
+            logger.debug("Could not evaluate XPath expression '{}': {}", query.expression(), e.getMessage());
+            return "";
+        }
+    }
+
+    private NodeList evaluateNodes(XPathQuery query, Document document) {
+        try {
+            return query.nodes(document);
+        } catch (XPathExpressionException e) {
+            logger.debug("Could not evaluate XPath expression '{}': {}", query.expression(), e.getMessage());
+            return EMPTY_NODES;
+        }
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '&' -> escaped.append("&amp;");
+                case '"' -> escaped.append("&quot;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private String generateResponseId() {
+        return "SIM" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
+    }
+
+    private static final NodeList EMPTY_NODES = new NodeList() {
+        @Override
+        public Node item(int index) {
+            return null;
+        }
+
+        @Override
+        public int getLength() {
+            return 0;
+        }
+    };
+}
@@ -0,0 +1,56 @@
+package com.kuvasz.iso20022.simulator.status;
+
+import java.time.Instant;
+
+/**
+ * Copia inmutable de un registro del almacén de estados: código de estado ISO 20022
+ * (ACCP, RJCT...), código de razón opcional y marcas de tiempo de recepción y última
+ * actualización.
+ */
+public final class TransactionStatus {
+
+    private final String key;
+    private final String statusCode;
+    private final String reasonCode;
+    private final Instant receivedAt;
+    private final Instant updatedAt;
+
+    public TransactionStatus(String key, String statusCode, String reasonCode, Instant receivedAt,
+                             Instant updatedAt) {
+        this.key = key;
+        this.statusCode = statusCode;
+        this.reasonCode = reasonCode;
+        this.receivedAt = receivedAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getStatusCode() {
+        return statusCode;
+    }
+
+    public String getReasonCode() {
+        return reasonCode;
+    }
+
+    public boolean hasReasonCode() {
+        return reasonCode != null && !reasonCode.isEmpty();
+    }
+
+    public Instant getReceivedAt() {
+        return receivedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionStatus{key='" + key + "', statusCode='" + statusCode + "', reasonCode='"
+            + reasonCode + "', updatedAt=" + updatedAt + "}";
+    }
+}
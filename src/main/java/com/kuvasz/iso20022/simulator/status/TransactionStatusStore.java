@@ -0,0 +1,373 @@
+package com.kuvasz.iso20022.simulator.status;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Almacén off-heap de estados de transacción indexado por EndToEndId y por MsgId, en
+ * espacios de claves separados: la clave guardada lleva delante un byte con su
+ * {@link KeySpace}, así que un MsgId nunca oculta un EndToEndId con el mismo valor.
+ *
+ * Tabla hash de direccionamiento abierto con sondeo lineal sobre páginas de memoria
+ * directa: cada slot ocupa 80 bytes fijos y no genera objetos en el heap, por lo que
+ * decenas de millones de registros no añaden presión al GC. Las inserciones reclaman el
+ * slot con un CAS sobre el hash; cada slot lleva un contador de versión que actúa como
+ * seqlock, de modo que las lecturas no bloquean y se reintentan si coinciden con una
+ * actualización. No hay borrados: al alcanzar el factor de carga máximo se rechazan
+ * claves nuevas y las existentes se siguen actualizando.
+ */
+@Component
+@ConditionalOnProperty(prefix = "simulator.status-store", name = "enabled", havingValue = "true",
+    matchIfMissing = true)
+public class TransactionStatusStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStatusStore.class);
+
+    /** Longitud máxima de la clave en bytes UTF-8 (Max35Text) */
+    public static final int MAX_KEY_LENGTH = 35;
+
+    /**
+     * Espacio de claves de una entrada
+     */
+    public enum KeySpace {
+        /** Estado de grupo por MsgId */
+        MESSAGE('M'),
+        /** Estado de transacción por EndToEndId */
+        TRANSACTION('T');
+
+        private final byte tag;
+
+        KeySpace(char tag) {
+            this.tag = (byte) tag;
+        }
+    }
+
+    // Layout del slot
+    private static final int SLOT_SIZE = 80;
+    private static final int HASH_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int RECEIVED_AT_OFFSET = 16;
+    private static final int UPDATED_AT_OFFSET = 24;
+    private static final int STATUS_OFFSET = 32;
+    private static final int REASON_OFFSET = 36;
+    private static final int KEY_LENGTH_OFFSET = 40;
+    private static final int KEY_OFFSET = 41;  // byte de KeySpace + hasta 35 bytes de clave
+
+    private static final int MAX_SLOTS_PER_PAGE = 1 << 20;
+
+    private static final VarHandle LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] pages;
+    private final int pageShift;
+    private final int pageMask;
+    private final int capacity;
+    private final int mask;
+    private final int maxEntries;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Timer lookupTimer;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter rejectedCounter;
+
+    public TransactionStatusStore(SimulatorProperties properties, MeterRegistry meterRegistry) {
+        SimulatorProperties.StatusStore config = properties.getStatusStore();
+        this.capacity = nextPowerOfTwo(config.getCapacity());
+        this.mask = capacity - 1;
+        this.maxEntries = (int) (capacity * config.getMaxLoadFactor());
+
+        int slotsPerPage = Math.min(capacity, MAX_SLOTS_PER_PAGE);
+        this.pageShift = Integer.numberOfTrailingZeros(slotsPerPage);
+        this.pageMask = slotsPerPage - 1;
+        this.pages = new ByteBuffer[capacity / slotsPerPage];
+        for (int i = 0; i < pages.length; i++) {
+            // Alineado a 8 bytes para que los accesos atómicos sobre hash y versión sean válidos
+            pages[i] = ByteBuffer.allocateDirect(slotsPerPage * SLOT_SIZE + 7).alignedSlice(8)
+                .order(ByteOrder.nativeOrder());
+        }
+
+        this.lookupTimer = Timer.builder("simulator.status.store.lookup.latency")
+            .description("Latencia de consulta del almacén de estados")
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .register(meterRegistry);
+        this.hitCounter = Counter.builder("simulator.status.store.lookups")
+            .tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("simulator.status.store.lookups")
+            .tag("result", "miss").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("simulator.status.store.rejected")
+            .description("Claves nuevas rechazadas por factor de carga o longitud")
+            .register(meterRegistry);
+        Gauge.builder("simulator.status.store.capacity", this, TransactionStatusStore::getCapacity)
+            .register(meterRegistry);
+        Gauge.builder("simulator.status.store.size", this, TransactionStatusStore::size)
+            .register(meterRegistry);
+        Gauge.builder("simulator.status.store.load.factor", this, TransactionStatusStore::getLoadFactor)
+            .register(meterRegistry);
+        Gauge.builder("simulator.status.store.memory.bytes", this, TransactionStatusStore::getMemoryBytes)
+            .baseUnit("bytes").register(meterRegistry);
+
+        logger.info("Transaction status store allocated {} slots ({} MB off-heap), max {} entries",
+            capacity, getMemoryBytes() >> 20, maxEntries);
+    }
+
+    /**
+     * Inserta o actualiza el estado de una transacción. Una actualización conserva la
+     * marca de recepción original.
+     *
+     * @return false si la clave es demasiado larga o la tabla ha alcanzado su factor de carga
+     */
+    public boolean put(KeySpace space, String key, String statusCode, String reasonCode, Instant receivedAt,
+                       Instant updatedAt) {
+        byte[] keyBytes = encodeKey(space, key);
+        if (keyBytes == null) {
+            rejectedCounter.increment();
+            return false;
+        }
+        int status = packCode(statusCode);
+        int reason = packCode(reasonCode);
+        long hash = hash(keyBytes);
+        boolean reserved = false;
+
+        int index = (int) hash & mask;
+        for (int probe = 0; probe < capacity; probe++, index = (index + 1) & mask) {
+            ByteBuffer page = pages[index >>> pageShift];
+            int base = (index & pageMask) * SLOT_SIZE;
+
+            long slotHash = (long) LONGS.getAcquire(page, base + HASH_OFFSET);
+            if (slotHash == 0) {
+                if (!reserved) {
+                    if (size.incrementAndGet() > maxEntries) {
+                        size.decrementAndGet();
+                        rejectedCounter.increment();
+                        return false;
+                    }
+                    reserved = true;
+                }
+                if (LONGS.compareAndSet(page, base + HASH_OFFSET, 0L, hash)) {
+                    insert(page, base, keyBytes, status, reason, receivedAt.toEpochMilli(),
+                        updatedAt.toEpochMilli());
+                    return true;
+                }
+                // Otro hilo ha reclamado el slot: puede ser la misma clave
+                slotHash = (long) LONGS.getAcquire(page, base + HASH_OFFSET);
+            }
+            if (slotHash == hash && keyEquals(page, base, keyBytes)) {
+                if (reserved) {
+                    size.decrementAndGet();
+                }
+                update(page, base, status, reason, updatedAt.toEpochMilli());
+                return true;
+            }
+        }
+
+        if (reserved) {
+            size.decrementAndGet();
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    /**
+     * Consulta el estado de una transacción sin bloquear a los escritores
+     */
+    public Optional<TransactionStatus> get(KeySpace space, String key) {
+        long startTime = System.nanoTime();
+        try {
+            TransactionStatus status = lookup(space, key);
+            if (status != null) {
+                hitCounter.increment();
+            } else {
+                missCounter.increment();
+            }
+            return Optional.ofNullable(status);
+        } finally {
+            lookupTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getLoadFactor() {
+        return (double) size.get() / capacity;
+    }
+
+    public long getMemoryBytes() {
+        return (long) capacity * SLOT_SIZE;
+    }
+
+    private TransactionStatus lookup(KeySpace space, String key) {
+        byte[] keyBytes = encodeKey(space, key);
+        if (keyBytes == null) {
+            return null;
+        }
+        long hash = hash(keyBytes);
+
+        int index = (int) hash & mask;
+        for (int probe = 0; probe < capacity; probe++, index = (index + 1) & mask) {
+            ByteBuffer page = pages[index >>> pageShift];
+            int base = (index & pageMask) * SLOT_SIZE;
+
+            long slotHash = (long) LONGS.getAcquire(page, base + HASH_OFFSET);
+            if (slotHash == 0) {
+                return null;
+            }
+            if (slotHash == hash && keyEquals(page, base, keyBytes)) {
+                return read(page, base, key);
+            }
+        }
+        return null;
+    }
+
+    private void insert(ByteBuffer page, int base, byte[] keyBytes, int status, int reason,
+                        long receivedAt, long updatedAt) {
+        // Versión 0 -> 1 (escritura en curso) -> 2 (publicado); la clave no cambia después
+        LONGS.setVolatile(page, base + VERSION_OFFSET, 1L);
+        page.put(base + KEY_LENGTH_OFFSET, (byte) keyBytes.length);
+        page.put(base + KEY_OFFSET, keyBytes);
+        page.putLong(base + RECEIVED_AT_OFFSET, receivedAt);
+        page.putLong(base + UPDATED_AT_OFFSET, updatedAt);
+        page.putInt(base + STATUS_OFFSET, status);
+        page.putInt(base + REASON_OFFSET, reason);
+        LONGS.setRelease(page, base + VERSION_OFFSET, 2L);
+    }
+
+    private void update(ByteBuffer page, int base, int status, int reason, long updatedAt) {
+        long version;
+        while (true) {
+            version = (long) LONGS.getAcquire(page, base + VERSION_OFFSET);
+            if ((version & 1) == 0 && LONGS.compareAndSet(page, base + VERSION_OFFSET, version, version + 1)) {
+                break;
+            }
+            Thread.onSpinWait();
+        }
+        page.putLong(base + UPDATED_AT_OFFSET, updatedAt);
+        page.putInt(base + STATUS_OFFSET, status);
+        page.putInt(base + REASON_OFFSET, reason);
+        LONGS.setRelease(page, base + VERSION_OFFSET, version + 2);
+    }
+
+    private TransactionStatus read(ByteBuffer page, int base, String key) {
+        while (true) {
+            long version = (long) LONGS.getAcquire(page, base + VERSION_OFFSET);
+            if ((version & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long receivedAt = page.getLong(base + RECEIVED_AT_OFFSET);
+            long updatedAt = page.getLong(base + UPDATED_AT_OFFSET);
+            int status = page.getInt(base + STATUS_OFFSET);
+            int reason = page.getInt(base + REASON_OFFSET);
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getAcquire(page, base + VERSION_OFFSET) == version) {
+                return new TransactionStatus(key, unpackCode(status), unpackCode(reason),
+                    Instant.ofEpochMilli(receivedAt), Instant.ofEpochMilli(updatedAt));
+            }
+        }
+    }
+
+    private static boolean keyEquals(ByteBuffer page, int base, byte[] keyBytes) {
+        // Un slot recién reclamado puede no tener aún la clave escrita
+        while ((long) LONGS.getAcquire(page, base + VERSION_OFFSET) < 2) {
+            Thread.onSpinWait();
+        }
+        if (page.get(base + KEY_LENGTH_OFFSET) != keyBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (page.get(base + KEY_OFFSET + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Clave con su espacio delante, o null si está vacía o supera {@link #MAX_KEY_LENGTH}
+     */
+    private static byte[] encodeKey(KeySpace space, String key) {
+        byte[] utf8 = key.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length == 0 || utf8.length > MAX_KEY_LENGTH) {
+            return null;
+        }
+        byte[] keyBytes = new byte[utf8.length + 1];
+        keyBytes[0] = space.tag;
+        System.arraycopy(utf8, 0, keyBytes, 1, utf8.length);
+        return keyBytes;
+    }
+
+    /**
+     * FNV-1a con finalizador de MurmurHash3 para dispersar bien los bits bajos.
+     * El 0 se reserva para marcar slots vacíos.
+     */
+    static long hash(byte[] keyBytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : keyBytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Empaqueta un código ISO de hasta 4 caracteres ASCII en un int
+     */
+    private static int packCode(String code) {
+        if (code == null) {
+            return 0;
+        }
+        int packed = 0;
+        int length = Math.min(code.length(), 4);
+        for (int i = 0; i < length; i++) {
+            packed |= (code.charAt(i) & 0xff) << (i * 8);
+        }
+        return packed;
+    }
+
+    private static String unpackCode(int packed) {
+        if (packed == 0) {
+            return null;
+        }
+        char[] chars = new char[4];
+        int length = 0;
+        while (length < 4 && (packed >>> (length * 8) & 0xff) != 0) {
+            chars[length] = (char) (packed >>> (length * 8) & 0xff);
+            length++;
+        }
+        return new String(chars, 0, length);
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        int slots = Math.max(value, 16);
+        int highest = Integer.highestOneBit(slots);
+        return highest == slots ? slots : highest << 1;
+    }
+}
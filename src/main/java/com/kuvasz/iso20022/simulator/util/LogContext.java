@@ -0,0 +1,113 @@
+package com.kuvasz.iso20022.simulator.util;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Contexto de logging de una petición (correlación, cliente), inmutable.
+ *
+ * Viaja en el {@link Context} de Reactor en lugar del MDC: el MDC es thread-local y se
+ * pierde en cada salto de scheduler de WebFlux, mientras que el Context acompaña a la
+ * suscripción sea cual sea el hilo que ejecuta cada operador.
+ */
+public final class LogContext {
+
+    /** Clave del contexto en el Context de Reactor */
+    public static final Class<LogContext> KEY = LogContext.class;
+
+    public static final String CORRELATION_HEADER = "X-Correlation-ID";
+
+    /** Longitud máxima aceptada para un ID de correlación enviado por el cliente */
+    public static final int MAX_CORRELATION_ID_LENGTH = 64;
+
+    private static final LogContext EMPTY = new LogContext(null, null, null);
+
+    private final String correlationId;
+    private final String clientIp;
+    private final String userAgent;
+
+    private LogContext(String correlationId, String clientIp, String userAgent) {
+        this.correlationId = correlationId;
+        this.clientIp = clientIp;
+        this.userAgent = userAgent;
+    }
+
+    /**
+     * Contexto de una petición entrante; genera un ID de correlación si el cliente no envía
+     * uno válido
+     */
+    public static LogContext forRequest(String correlationId, String clientIp, String userAgent) {
+        String id = isValidCorrelationId(correlationId) ? correlationId : newCorrelationId();
+        return new LogContext(id, clientIp, userAgent);
+    }
+
+    /**
+     * El ID se devuelve en una cabecera y se escribe en los logs: solo se aceptan hasta
+     * {@link #MAX_CORRELATION_ID_LENGTH} caracteres alfanuméricos, '-', '_', '.' o ':'
+     */
+    static boolean isValidCorrelationId(String correlationId) {
+        if (correlationId == null || correlationId.isEmpty() || correlationId.length() > MAX_CORRELATION_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < correlationId.length(); i++) {
+            char c = correlationId.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '_' || c == '.' || c == ':';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static LogContext empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Contexto asociado a la suscripción, o {@link #empty()} si no hay ninguno
+     */
+    public static LogContext from(ContextView context) {
+        return context.getOrDefault(KEY, EMPTY);
+    }
+
+    /**
+     * Función para {@code contextWrite} que asocia este contexto a la suscripción
+     */
+    public Function<Context, Context> write() {
+        return context -> context.put(KEY, this);
+    }
+
+    /**
+     * ID de correlación de 16 caracteres hexadecimales; más barato que un UUID aleatorio,
+     * que pasa por SecureRandom
+     */
+    static String newCorrelationId() {
+        String hex = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public String getClientIp() {
+        return clientIp;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public boolean isEmpty() {
+        return correlationId == null;
+    }
+
+    @Override
+    public String toString() {
+        return "LogContext{correlationId=" + correlationId + ", clientIp=" + clientIp + '}';
+    }
+}
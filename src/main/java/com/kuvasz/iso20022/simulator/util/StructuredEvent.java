@@ -0,0 +1,271 @@
+package com.kuvasz.iso20022.simulator.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.kuvasz.iso20022.simulator.metrics.LatencyWindows;
+import net.logstash.logback.argument.StructuredArgument;
+
+import java.io.IOException;
+
+/**
+ * Evento de log tipado que se pasa como argumento a SLF4J.
+ *
+ * El encoder JSON (proveedor {@code <arguments/>}) escribe sus campos directamente en el
+ * documento, sin pasar por un mapa. {@link #toString()} da el formato {@code clave=valor}
+ * para depuración, pero los mensajes de log no lo referencian. Los eventos son inmutables porque con appenders asíncronos el
+ * encoder los lee en otro hilo después de que el llamante haya continuado.
+ */
+public abstract class StructuredEvent implements StructuredArgument {
+
+    public static final String MESSAGE_ID = "messageId";
+    public static final String MESSAGE_TYPE = "messageType";
+    public static final String PROCESSING_TIME = "processingTimeMs";
+    public static final String COMPONENT = "component";
+    public static final String OPERATION = "operation";
+    public static final String STATUS = "status";
+    public static final String CLIENT_IP = "clientIp";
+    public static final String USER_AGENT = "userAgent";
+    public static final String CORRELATION_ID = "correlationId";
+
+    private final String component;
+    private final String operation;
+    private final String status;
+
+    protected StructuredEvent(String component, String operation, String status) {
+        this.component = component;
+        this.operation = operation;
+        this.status = status;
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public final void writeTo(JsonGenerator generator) throws IOException {
+        writeField(generator, COMPONENT, component);
+        writeField(generator, OPERATION, operation);
+        writeField(generator, STATUS, status);
+        writeFields(generator);
+    }
+
+    @Override
+    public final String toString() {
+        StringBuilder text = new StringBuilder(128);
+        appendField(text, COMPONENT, component);
+        appendField(text, OPERATION, operation);
+        appendField(text, STATUS, status);
+        appendFields(text);
+        return text.toString();
+    }
+
+    protected abstract void writeFields(JsonGenerator generator) throws IOException;
+
+    protected abstract void appendFields(StringBuilder text);
+
+    protected static void writeField(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    protected static void appendField(StringBuilder text, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (text.length() > 0) {
+            text.append(", ");
+        }
+        text.append(name).append('=').append(value);
+    }
+
+    private static void writeContext(JsonGenerator generator, LogContext context) throws IOException {
+        writeField(generator, CORRELATION_ID, context.getCorrelationId());
+        writeField(generator, CLIENT_IP, context.getClientIp());
+        writeField(generator, USER_AGENT, context.getUserAgent());
+    }
+
+    private static void appendContext(StringBuilder text, LogContext context) {
+        appendField(text, CORRELATION_ID, context.getCorrelationId());
+        appendField(text, CLIENT_IP, context.getClientIp());
+    }
+
+    /**
+     * Inicio, fin o error del procesamiento de un mensaje
+     */
+    public static final class MessageEvent extends StructuredEvent {
+        private final LogContext context;
+        private final String messageId;
+        private final String messageType;
+        private final long processingTimeMs;
+        private final String errorCode;
+        private final String errorMessage;
+
+        MessageEvent(LogContext context, String operation, String status, String messageId, String messageType,
+                     long processingTimeMs, String errorCode, String errorMessage) {
+            super("message-processor", operation, status);
+            this.context = context;
+            this.messageId = messageId;
+            this.messageType = messageType;
+            this.processingTimeMs = processingTimeMs;
+            this.errorCode = errorCode;
+            this.errorMessage = errorMessage;
+        }
+
+        public String getMessageId() {
+            return messageId;
+        }
+
+        public long getProcessingTimeMs() {
+            return processingTimeMs;
+        }
+
+        public String getErrorCode() {
+            return errorCode;
+        }
+
+        @Override
+        protected void writeFields(JsonGenerator generator) throws IOException {
+            writeContext(generator, context);
+            writeField(generator, MESSAGE_ID, messageId);
+            writeField(generator, MESSAGE_TYPE, messageType);
+            if (processingTimeMs >= 0) {
+                generator.writeNumberField(PROCESSING_TIME, processingTimeMs);
+            }
+            writeField(generator, "errorCode", errorCode);
+            writeField(generator, "errorMessage", errorMessage);
+        }
+
+        @Override
+        protected void appendFields(StringBuilder text) {
+            appendContext(text, context);
+            appendField(text, MESSAGE_ID, messageId);
+            appendField(text, MESSAGE_TYPE, messageType);
+            if (processingTimeMs >= 0) {
+                appendField(text, PROCESSING_TIME, processingTimeMs);
+            }
+            appendField(text, "errorCode", errorCode);
+            appendField(text, "errorMessage", errorMessage);
+        }
+    }
+
+    /**
+     * Operación contra la base de datos
+     */
+    public static final class DatabaseEvent extends StructuredEvent {
+        private final String table;
+        private final long executionTimeMs;
+
+        DatabaseEvent(String operation, String table, long executionTimeMs, boolean success) {
+            super("database", operation, success ? "SUCCESS" : "ERROR");
+            this.table = table;
+            this.executionTimeMs = executionTimeMs;
+        }
+
+        @Override
+        protected void writeFields(JsonGenerator generator) throws IOException {
+            writeField(generator, "table", table);
+            generator.writeNumberField("executionTimeMs", executionTimeMs);
+        }
+
+        @Override
+        protected void appendFields(StringBuilder text) {
+            appendField(text, "table", table);
+            appendField(text, "executionTimeMs", executionTimeMs);
+        }
+    }
+
+    /**
+     * Resultado de una validación
+     */
+    public static final class ValidationEvent extends StructuredEvent {
+        private final String messageId;
+        private final String validationErrors;
+
+        ValidationEvent(String messageId, String validationType, boolean valid, String validationErrors) {
+            super("validator", validationType, valid ? "VALID" : "INVALID");
+            this.messageId = messageId;
+            this.validationErrors = valid ? null : validationErrors;
+        }
+
+        @Override
+        protected void writeFields(JsonGenerator generator) throws IOException {
+            writeField(generator, MESSAGE_ID, messageId);
+            writeField(generator, "validationErrors", validationErrors);
+        }
+
+        @Override
+        protected void appendFields(StringBuilder text) {
+            appendField(text, MESSAGE_ID, messageId);
+            appendField(text, "validationErrors", validationErrors);
+        }
+    }
+
+    /**
+     * Instantánea de métricas de rendimiento
+     */
+    public static final class PerformanceEvent extends StructuredEvent {
+        private final int currentTps;
+        private final int avgResponseTimeMs;
+        private final long activeConnections;
+        // Ventana deslizante de origen; null en los snapshots sin percentiles
+        private final String window;
+        private final LatencyWindows.Stats stats;
+
+        PerformanceEvent(int currentTps, int avgResponseTimeMs, int activeConnections) {
+            super("performance-monitor", "metrics-snapshot", null);
+            this.currentTps = currentTps;
+            this.avgResponseTimeMs = avgResponseTimeMs;
+            this.activeConnections = activeConnections;
+            this.window = null;
+            this.stats = null;
+        }
+
+        PerformanceEvent(String window, LatencyWindows.Stats stats, long activeConnections) {
+            super("performance-monitor", "metrics-snapshot", null);
+            this.currentTps = (int) Math.round(stats.tps());
+            this.avgResponseTimeMs = (int) Math.round(stats.meanMs());
+            this.activeConnections = activeConnections;
+            this.window = window;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void writeFields(JsonGenerator generator) throws IOException {
+            generator.writeNumberField("currentTps", currentTps);
+            generator.writeNumberField("avgResponseTimeMs", avgResponseTimeMs);
+            generator.writeNumberField("activeConnections", activeConnections);
+            if (stats != null) {
+                generator.writeStringField("window", window);
+                generator.writeNumberField("messages", stats.count());
+                generator.writeNumberField("tps", stats.tps());
+                generator.writeNumberField("p50Ms", stats.p50Ms());
+                generator.writeNumberField("p99Ms", stats.p99Ms());
+                generator.writeNumberField("p999Ms", stats.p999Ms());
+                generator.writeNumberField("maxMs", stats.maxMs());
+            }
+        }
+
+        @Override
+        protected void appendFields(StringBuilder text) {
+            appendField(text, "currentTps", currentTps);
+            appendField(text, "avgResponseTimeMs", avgResponseTimeMs);
+            appendField(text, "activeConnections", activeConnections);
+            if (stats != null) {
+                appendField(text, "window", window);
+                appendField(text, "messages", stats.count());
+                appendField(text, "p50Ms", stats.p50Ms());
+                appendField(text, "p99Ms", stats.p99Ms());
+                appendField(text, "p999Ms", stats.p999Ms());
+                appendField(text, "maxMs", stats.maxMs());
+            }
+        }
+    }
+}
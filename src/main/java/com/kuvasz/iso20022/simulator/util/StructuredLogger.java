@@ -1,152 +1,256 @@
 package com.kuvasz.iso20022.simulator.util;
 
+import com.kuvasz.iso20022.simulator.audit.AuditPipeline;
+import com.kuvasz.iso20022.simulator.logging.LogRateLimiter;
+import com.kuvasz.iso20022.simulator.logging.RateLimitedLogger;
+import com.kuvasz.iso20022.simulator.metrics.LatencyWindows;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.model.ValidationError;
+import com.kuvasz.iso20022.simulator.util.StructuredEvent.DatabaseEvent;
+import com.kuvasz.iso20022.simulator.util.StructuredEvent.MessageEvent;
+import com.kuvasz.iso20022.simulator.util.StructuredEvent.PerformanceEvent;
+import com.kuvasz.iso20022.simulator.util.StructuredEvent.ValidationEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Signal;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
- * Utilidad para logging estructurado con MDC (Mapped Diagnostic Context)
+ * Logging estructurado con eventos tipados ({@link StructuredEvent}).
+ *
+ * Cada evento viaja como argumento del log y el encoder JSON escribe sus campos; no se
+ * toca el MDC, por lo que no hay mapas por llamada ni se borran claves de otros
+ * componentes. El evento no se referencia desde el patrón del mensaje: formatearlo con
+ * {@code toString()} costaría en el hilo de la petición, así que el texto solo incluye
+ * el identificador ya disponible. El nivel se comprueba antes de construir nada, y el
+ * contexto de la petición (correlación, cliente) llega por el Context de Reactor vía
+ * {@link LogContext}.
+ *
+ * Los rechazos de validación o de parseo son resultados esperados y se registran en INFO;
+ * ERROR queda para los fallos inesperados del procesamiento y pasa por el
+ * {@link LogRateLimiter}, para que una avalancha de fallos iguales no inunde el log.
+ * Los eventos de validación y de base de datos se publican además en el pipeline de
+ * auditoría cuando está habilitado, independientemente del nivel de log.
  */
 @Component
 public class StructuredLogger {
-    
-    private static final Logger logger = LoggerFactory.getLogger(StructuredLogger.class);
-    
-    // Constantes para keys de MDC
-    public static final String MESSAGE_ID = "messageId";
-    public static final String MESSAGE_TYPE = "messageType";
-    public static final String PROCESSING_TIME = "processingTimeMs";
-    public static final String COMPONENT = "component";
-    public static final String OPERATION = "operation";
-    public static final String STATUS = "status";
-    public static final String CLIENT_IP = "clientIp";
-    public static final String USER_AGENT = "userAgent";
-    public static final String CORRELATION_ID = "correlationId";
-    
+
+    /** @deprecated usar {@link StructuredEvent#MESSAGE_ID} */
+    @Deprecated
+    public static final String MESSAGE_ID = StructuredEvent.MESSAGE_ID;
+    /** @deprecated usar {@link StructuredEvent#MESSAGE_TYPE} */
+    @Deprecated
+    public static final String MESSAGE_TYPE = StructuredEvent.MESSAGE_TYPE;
+    /** @deprecated usar {@link StructuredEvent#PROCESSING_TIME} */
+    @Deprecated
+    public static final String PROCESSING_TIME = StructuredEvent.PROCESSING_TIME;
+    /** @deprecated usar {@link StructuredEvent#COMPONENT} */
+    @Deprecated
+    public static final String COMPONENT = StructuredEvent.COMPONENT;
+    /** @deprecated usar {@link StructuredEvent#OPERATION} */
+    @Deprecated
+    public static final String OPERATION = StructuredEvent.OPERATION;
+    /** @deprecated usar {@link StructuredEvent#STATUS} */
+    @Deprecated
+    public static final String STATUS = StructuredEvent.STATUS;
+    /** @deprecated usar {@link StructuredEvent#CLIENT_IP} */
+    @Deprecated
+    public static final String CLIENT_IP = StructuredEvent.CLIENT_IP;
+    /** @deprecated usar {@link StructuredEvent#USER_AGENT} */
+    @Deprecated
+    public static final String USER_AGENT = StructuredEvent.USER_AGENT;
+    /** @deprecated usar {@link StructuredEvent#CORRELATION_ID} */
+    @Deprecated
+    public static final String CORRELATION_ID = StructuredEvent.CORRELATION_ID;
+
+    private final Logger logger;
+
+    private RateLimitedLogger errorLogger;
+    private AuditPipeline auditPipeline;
+
+    public StructuredLogger() {
+        this(LoggerFactory.getLogger(StructuredLogger.class));
+    }
+
+    StructuredLogger(Logger logger) {
+        this.logger = logger;
+        this.errorLogger = RateLimitedLogger.of(logger);
+    }
+
+    @Autowired(required = false)
+    public void setLogRateLimiter(LogRateLimiter logRateLimiter) {
+        this.errorLogger = RateLimitedLogger.of(logger, logRateLimiter);
+    }
+
+    @Autowired(required = false)
+    public void setAuditPipeline(AuditPipeline auditPipeline) {
+        this.auditPipeline = auditPipeline;
+    }
+
     /**
      * Registra el inicio del procesamiento de un mensaje
      */
+    public void logMessageStart(LogContext context, String messageId, String messageType) {
+        if (logger.isInfoEnabled()) {
+            logger.info("Starting message processing {}", messageId, new MessageEvent(context, "process-start",
+                "STARTED", messageId, messageType, -1, null, null));
+        }
+    }
+
+    /**
+     * @deprecated usar {@link #logMessageStart(LogContext, String, String)}
+     */
+    @Deprecated
     public void logMessageStart(String messageId, String messageType, String clientIp) {
-        MDC.put(MESSAGE_ID, messageId);
-        MDC.put(MESSAGE_TYPE, messageType);
-        MDC.put(COMPONENT, "message-processor");
-        MDC.put(OPERATION, "process-start");
-        MDC.put(STATUS, "STARTED");
-        MDC.put(CLIENT_IP, clientIp);
-        MDC.put(CORRELATION_ID, generateCorrelationId());
-        
-        logger.info("Starting message processing");
-    }
-    
+        logMessageStart(LogContext.forRequest(null, clientIp, null), messageId, messageType);
+    }
+
     /**
      * Registra la finalización exitosa del procesamiento
      */
+    public void logMessageSuccess(LogContext context, String messageId, String messageType, long processingTimeMs) {
+        if (logger.isInfoEnabled()) {
+            logger.info("Message processed successfully {}", messageId, new MessageEvent(context, "process-complete",
+                "SUCCESS", messageId, messageType, processingTimeMs, null, null));
+        }
+    }
+
+    /**
+     * @deprecated usar {@link #logMessageSuccess(LogContext, String, String, long)}
+     */
+    @Deprecated
     public void logMessageSuccess(String messageId, String messageType, long processingTimeMs) {
-        MDC.put(MESSAGE_ID, messageId);
-        MDC.put(MESSAGE_TYPE, messageType);
-        MDC.put(PROCESSING_TIME, String.valueOf(processingTimeMs));
-        MDC.put(COMPONENT, "message-processor");
-        MDC.put(OPERATION, "process-complete");
-        MDC.put(STATUS, "SUCCESS");
-        
-        logger.info("Message processed successfully");
-        
-        MDC.clear();
-    }
-    
+        logMessageSuccess(LogContext.empty(), messageId, messageType, processingTimeMs);
+    }
+
+    /**
+     * Registra un mensaje rechazado por validación o parseo, un resultado esperado
+     */
+    public void logMessageRejected(LogContext context, String messageId, String messageType, String errorCode,
+                                   String errorMessage, long processingTimeMs) {
+        if (logger.isInfoEnabled()) {
+            logger.info("Message rejected {} {}", messageId, errorCode, new MessageEvent(context, "process-rejected",
+                "REJECTED", messageId, messageType, processingTimeMs, errorCode, errorMessage));
+        }
+    }
+
     /**
      * Registra un error en el procesamiento
      */
-    public void logMessageError(String messageId, String messageType, String errorCode, 
-                               String errorMessage, long processingTimeMs, Throwable throwable) {
-        MDC.put(MESSAGE_ID, messageId);
-        MDC.put(MESSAGE_TYPE, messageType);
-        MDC.put(PROCESSING_TIME, String.valueOf(processingTimeMs));
-        MDC.put(COMPONENT, "message-processor");
-        MDC.put(OPERATION, "process-error");
-        MDC.put(STATUS, "ERROR");
-        MDC.put("errorCode", errorCode);
-        MDC.put("errorMessage", errorMessage);
-        
+    public void logMessageError(LogContext context, String messageId, String messageType, String errorCode,
+                                String errorMessage, long processingTimeMs, Throwable throwable) {
+        if (!logger.isErrorEnabled()) {
+            return;
+        }
+        MessageEvent event = new MessageEvent(context, "process-error", "ERROR",
+            messageId, messageType, processingTimeMs, errorCode, errorMessage);
         if (throwable != null) {
-            logger.error("Error processing message", throwable);
+            errorLogger.error("Error processing message {}", messageId, event, throwable);
         } else {
-            logger.error("Error processing message: {}", errorMessage);
+            errorLogger.error("Error processing message {}", messageId, event);
         }
-        
-        MDC.clear();
     }
-    
+
+    /**
+     * @deprecated usar {@link #logMessageError(LogContext, String, String, String, String, long, Throwable)}
+     */
+    @Deprecated
+    public void logMessageError(String messageId, String messageType, String errorCode,
+                                String errorMessage, long processingTimeMs, Throwable throwable) {
+        logMessageError(LogContext.empty(), messageId, messageType, errorCode, errorMessage, processingTimeMs, throwable);
+    }
+
+    /**
+     * Callback para {@code doOnEach} que registra el resultado de un mensaje con el
+     * {@link LogContext} de la suscripción
+     */
+    public Consumer<Signal<ProcessingResult>> onResult(long startNanos) {
+        return signal -> {
+            if (signal.isOnNext()) {
+                logResult(LogContext.from(signal.getContextView()), signal.get(), startNanos);
+            } else if (signal.isOnError()) {
+                logMessageError(LogContext.from(signal.getContextView()), null, null, "PROCESSING_FAILED",
+                    signal.getThrowable().getMessage(), elapsedMillis(startNanos), signal.getThrowable());
+            }
+        };
+    }
+
+    private void logResult(LogContext context, ProcessingResult result, long startNanos) {
+        ProcessingResult.Status status = result.getStatus();
+        if (status == ProcessingResult.Status.SUCCESS || status == ProcessingResult.Status.WARNING) {
+            logMessageSuccess(context, result.getMessageId(), result.getMessageType(), elapsedMillis(startNanos));
+            return;
+        }
+        List<ValidationError> errors = result.getErrors();
+        ValidationError first = errors == null || errors.isEmpty() ? null : errors.get(0);
+        logMessageRejected(context, result.getMessageId(), result.getMessageType(),
+            first != null ? first.getCode() : status.name(),
+            first != null ? first.getMessage() : null, elapsedMillis(startNanos));
+    }
+
     /**
      * Registra métricas de performance
      */
     public void logPerformanceMetrics(int currentTps, int avgResponseTime, int activeConnections) {
-        MDC.put(COMPONENT, "performance-monitor");
-        MDC.put(OPERATION, "metrics-snapshot");
-        MDC.put("currentTps", String.valueOf(currentTps));
-        MDC.put("avgResponseTimeMs", String.valueOf(avgResponseTime));
-        MDC.put("activeConnections", String.valueOf(activeConnections));
-        
-        logger.info("Performance metrics snapshot");
-        
-        MDC.clear();
-    }
-    
+        if (logger.isInfoEnabled()) {
+            logger.info("Performance metrics snapshot", new PerformanceEvent(currentTps, avgResponseTime, activeConnections));
+        }
+    }
+
     /**
-     * Registra eventos de base de datos
+     * Registra el snapshot de una ventana deslizante de {@link LatencyWindows}, con percentiles
+     */
+    public void logPerformanceMetrics(String window, LatencyWindows.Stats stats, long activeConnections) {
+        if (logger.isInfoEnabled()) {
+            logger.info("Performance metrics snapshot {}", window, new PerformanceEvent(window, stats, activeConnections));
+        }
+    }
+
+    /**
+     * Registra eventos de base de datos. No se auditan: un flush agrupa registros de varias
+     * transacciones y la auditoría ya tiene un evento por cada una
      */
     public void logDatabaseOperation(String operation, String table, long executionTimeMs, boolean success) {
-        MDC.put(COMPONENT, "database");
-        MDC.put(OPERATION, operation);
-        MDC.put("table", table);
-        MDC.put("executionTimeMs", String.valueOf(executionTimeMs));
-        MDC.put(STATUS, success ? "SUCCESS" : "ERROR");
-        
-        logger.info("Database operation completed");
-        
-        MDC.clear();
-    }
-    
+        if (logger.isInfoEnabled()) {
+            logger.info("Database operation completed {}", table, new DatabaseEvent(operation, table, executionTimeMs, success));
+        }
+    }
+
     /**
      * Registra eventos de validación
      */
     public void logValidationEvent(String messageId, String validationType, boolean isValid, String validationErrors) {
-        MDC.put(MESSAGE_ID, messageId);
-        MDC.put(COMPONENT, "validator");
-        MDC.put(OPERATION, validationType);
-        MDC.put(STATUS, isValid ? "VALID" : "INVALID");
-        
-        if (!isValid && validationErrors != null) {
-            MDC.put("validationErrors", validationErrors);
+        if (logger.isInfoEnabled()) {
+            logger.info("Message validation completed {}", messageId,
+                new ValidationEvent(messageId, validationType, isValid, validationErrors));
+        }
+
+        if (auditPipeline != null) {
+            auditPipeline.publish(messageId, validationType, isValid ? "VALID" : "INVALID: " + validationErrors);
         }
-        
-        logger.info("Message validation completed");
-        
-        MDC.clear();
     }
-    
-    /**
-     * Genera un ID de correlación único
-     */
-    private String generateCorrelationId() {
-        return UUID.randomUUID().toString().substring(0, 8);
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
-    
+
     /**
      * Utility para medir tiempo de ejecución
      */
     public static class ExecutionTimer {
         private final Instant start;
-        
+
         public ExecutionTimer() {
             this.start = Instant.now();
         }
-        
+
         public long getElapsedMillis() {
             return Duration.between(start, Instant.now()).toMillis();
         }
@@ -0,0 +1,179 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para AuditPipeline contra H2 en memoria
+ */
+class AuditPipelineTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SimulatorProperties properties;
+    private MeterRegistry meterRegistry;
+    private AuditPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:audit-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        properties = new SimulatorProperties();
+        properties.getAudit().setRingSize(64);
+        properties.getAudit().setBatchSize(16);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void testEventsArePersistedToAuditLog() {
+        pipeline = new AuditPipeline(dataSource, properties, meterRegistry);
+        pipeline.start();
+
+        assertTrue(pipeline.publish("MSG-1", "VALIDATION", "VALID"));
+        assertTrue(pipeline.publish("MSG-1", "STATUS", "ACCP"));
+        pipeline.stop();
+
+        List<String> actions = jdbcTemplate.queryForList(
+            "SELECT action FROM audit_log WHERE transaction_id = 'MSG-1' ORDER BY id", String.class);
+        assertEquals(List.of("VALIDATION", "STATUS"), actions);
+        assertEquals(2.0, meterRegistry.get("simulator.audit.records").tag("outcome", "written").counter().count());
+        assertEquals(0.0, meterRegistry.get("simulator.audit.consumer.lag").tag("consumer", "jdbc").gauge().value());
+    }
+
+    @Test
+    void testConcurrentProducersWithEachWaitStrategy() throws Exception {
+        for (SimulatorProperties.Audit.WaitStrategyType type : SimulatorProperties.Audit.WaitStrategyType.values()) {
+            jdbcTemplate.update("DELETE FROM audit_log");
+            properties.getAudit().setWaitStrategy(type);
+            properties.getAudit().setOverflowPolicy(SimulatorProperties.Audit.OverflowPolicy.BLOCK);
+            properties.getAudit().setOfferTimeout(Duration.ofSeconds(5));
+            pipeline = new AuditPipeline(dataSource, properties, new SimpleMeterRegistry());
+            pipeline.start();
+
+            int threads = 4;
+            int eventsPerThread = 500;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String transactionId = "TX-" + t;
+                Thread producer = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < eventsPerThread; i++) {
+                        pipeline.publish(transactionId, "STEP", Integer.toString(i));
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+            start.countDown();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            pipeline.stop();
+
+            assertEquals(threads * eventsPerThread,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_log", Integer.class), type.name());
+            // El orden de cada productor se conserva
+            List<String> details = jdbcTemplate.queryForList(
+                "SELECT details FROM audit_log WHERE transaction_id = 'TX-0' ORDER BY id", String.class);
+            for (int i = 0; i < eventsPerThread; i++) {
+                assertEquals(Integer.toString(i), details.get(i), type.name());
+            }
+        }
+    }
+
+    @Test
+    void testDropPolicyWhenConsumerStalls() throws Exception {
+        // DROP es la política por defecto
+        assertEquals(SimulatorProperties.Audit.OverflowPolicy.DROP, properties.getAudit().getOverflowPolicy());
+        properties.getAudit().setRingSize(16);
+        CountDownLatch release = new CountDownLatch(1);
+        AuditEventHandler stalled = new AuditEventHandler() {
+            @Override
+            public void onEvent(AuditEvent event, long sequence, boolean endOfBatch) throws Exception {
+                release.await();
+            }
+
+            @Override
+            public String getName() {
+                return "stalled";
+            }
+        };
+        pipeline = new AuditPipeline(properties, meterRegistry, List.of(stalled));
+        pipeline.start();
+
+        int accepted = 0;
+        for (int i = 0; i < 40; i++) {
+            if (pipeline.publish("TX", "STEP", null)) {
+                accepted++;
+            }
+        }
+
+        assertEquals(16, accepted);
+        assertEquals(16, pipeline.getOccupancy());
+        assertEquals(24.0, meterRegistry.get("simulator.audit.events").tag("outcome", "dropped").counter().count());
+        assertEquals(16.0, meterRegistry.get("simulator.audit.consumer.lag").tag("consumer", "stalled").gauge().value());
+        release.countDown();
+    }
+
+    @Test
+    void testFileConsumerWritesJsonLines(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("audit/audit.jsonl");
+        properties.getAudit().setFile(file.toString());
+        pipeline = new AuditPipeline(dataSource, properties, meterRegistry);
+        pipeline.start();
+
+        pipeline.publish("MSG-1", "VALIDATION", "INVALID: \"AMT\"\n");
+        pipeline.stop();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"transactionId\":\"MSG-1\""));
+        assertTrue(lines.get(0).contains("\"details\":\"INVALID: \\\"AMT\\\"\\n\""));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_log", Integer.class));
+    }
+
+    @Test
+    void testPublishAfterStopIsDropped() {
+        pipeline = new AuditPipeline(dataSource, properties, meterRegistry);
+        pipeline.start();
+        pipeline.stop();
+
+        assertFalse(pipeline.publish("MSG-1", "STATUS", "ACCP"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.kuvasz.iso20022.simulator.audit;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para AuditRingBuffer
+ */
+class AuditRingBufferTest {
+
+    @Test
+    void testSizeMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new AuditRingBuffer(100, new WaitStrategy.BusySpin()));
+    }
+
+    @Test
+    void testProducerIsGatedBySlowestConsumer() {
+        AuditRingBuffer ringBuffer = new AuditRingBuffer(4, new WaitStrategy.BusySpin());
+        Sequence fast = new Sequence();
+        Sequence slow = new Sequence();
+        ringBuffer.addGatingSequences(fast, slow);
+
+        for (int i = 0; i < 4; i++) {
+            long sequence = ringBuffer.tryNext();
+            assertEquals(i, sequence);
+            ringBuffer.publish(sequence);
+        }
+        assertEquals(-1, ringBuffer.tryNext());
+        assertEquals(4, ringBuffer.getOccupancy());
+
+        fast.set(3);
+        assertEquals(-1, ringBuffer.tryNext());
+
+        slow.set(1);
+        assertEquals(4, ringBuffer.tryNext());
+        assertEquals(5, ringBuffer.tryNext());
+        assertEquals(-1, ringBuffer.tryNext());
+    }
+
+    @Test
+    void testHighestPublishedStopsAtFirstGap() {
+        AuditRingBuffer ringBuffer = new AuditRingBuffer(8, new WaitStrategy.BusySpin());
+        ringBuffer.addGatingSequences(new Sequence());
+
+        long first = ringBuffer.tryNext();
+        long second = ringBuffer.tryNext();
+        long third = ringBuffer.tryNext();
+        ringBuffer.publish(first);
+        ringBuffer.publish(third);
+
+        assertEquals(first, ringBuffer.getHighestPublishedSequence(0, ringBuffer.getCursor()));
+
+        ringBuffer.publish(second);
+        assertEquals(third, ringBuffer.getHighestPublishedSequence(0, ringBuffer.getCursor()));
+    }
+
+    @Test
+    void testAvailabilityTracksRoundAfterWrap() {
+        AuditRingBuffer ringBuffer = new AuditRingBuffer(4, new WaitStrategy.BusySpin());
+        Sequence consumer = new Sequence();
+        ringBuffer.addGatingSequences(consumer);
+
+        for (int i = 0; i < 4; i++) {
+            ringBuffer.publish(ringBuffer.tryNext());
+        }
+        consumer.set(3);
+        long wrapped = ringBuffer.tryNext();
+
+        // El slot 0 está publicado para la ronda 0, no para la secuencia 4
+        assertEquals(4, wrapped);
+        assertFalse(ringBuffer.isAvailable(wrapped));
+        ringBuffer.publish(wrapped);
+        assertTrue(ringBuffer.isAvailable(wrapped));
+    }
+
+    @Test
+    void testAllWaitStrategiesReturnOnStop() {
+        for (SimulatorProperties.Audit.WaitStrategyType type : SimulatorProperties.Audit.WaitStrategyType.values()) {
+            WaitStrategy strategy = WaitStrategy.create(type);
+            Sequence cursor = new Sequence();
+
+            assertEquals(-1, strategy.waitFor(0, cursor, () -> false), type.name());
+            cursor.set(5);
+            assertEquals(5, strategy.waitFor(3, cursor, () -> true), type.name());
+        }
+    }
+}
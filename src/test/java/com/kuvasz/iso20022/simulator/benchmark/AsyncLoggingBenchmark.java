@@ -0,0 +1,146 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.kuvasz.iso20022.simulator.logging.MeteredAsyncAppender;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark de la latencia de petición atribuible al logging con un disco lento simulado:
+ * cada escritura tarda ~20µs y periódicamente el disco se detiene 50ms (flush del page
+ * cache, rotación de fichero). Se comparan el appender síncrono del perfil prod con los
+ * appenders asíncronos en sus dos políticas.
+ *
+ * Las peticiones se lanzan a ritmo fijo (1000 TPS) y la latencia se mide desde el instante
+ * en que cada petición debía empezar, para no ocultar las esperas tras una parada del disco.
+ *
+ * Ejecutar con: mvn -Pbenchmarks test -Dtest=AsyncLoggingBenchmark
+ */
+class AsyncLoggingBenchmark {
+
+    private static final int REQUESTS = 5_000;
+    private static final long REQUEST_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int LOG_LINES_PER_REQUEST = 5;
+
+    private static final long WRITE_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+    private static final int WRITES_BETWEEN_STALLS = 2_000;
+    private static final long STALL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void benchmarkRequestLatencyWithSlowDisk() {
+        System.out.printf("%n%-24s %10s %10s %10s %10s %10s %10s%n",
+            "appender", "p50 us", "p99 us", "p99.9 us", "max us", "discarded", "dropped");
+        Histogram sync = run("sync", null);
+        Histogram neverBlock = run("async NEVER_BLOCK", MeteredAsyncAppender.OverflowPolicy.NEVER_BLOCK);
+        Histogram dropBelowWarn = run("async DROP_BELOW_WARN", MeteredAsyncAppender.OverflowPolicy.DROP_BELOW_WARN);
+
+        // Con el disco detenido 50ms el appender síncrono lleva la parada a la petición
+        assertTrue(sync.getValueAtPercentile(99.9) > TimeUnit.MILLISECONDS.toMicros(10));
+        assertTrue(neverBlock.getValueAtPercentile(99) < sync.getValueAtPercentile(99));
+        assertTrue(dropBelowWarn.getValueAtPercentile(99) < sync.getValueAtPercentile(99));
+    }
+
+    private static Histogram run(String label, MeteredAsyncAppender.OverflowPolicy policy) {
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(MDC.getMDCAdapter());
+
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> file = new OutputStreamAppender<>();
+        file.setContext(context);
+        file.setName("FILE");
+        file.setEncoder(encoder);
+        file.setOutputStream(new SlowDiskOutputStream());
+        file.start();
+
+        Appender<ILoggingEvent> appender = file;
+        MeteredAsyncAppender async = null;
+        if (policy != null) {
+            async = new MeteredAsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC_FILE");
+            async.setOverflowPolicy(policy);
+            async.addAppender(file);
+            async.start();
+            appender = async;
+        }
+
+        Logger logger = context.getLogger("benchmark");
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+
+        Histogram histogram = new Histogram(TimeUnit.SECONDS.toMicros(10), 3);
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            long intended = start + i * REQUEST_INTERVAL_NANOS;
+            while (System.nanoTime() < intended) {
+                LockSupport.parkNanos(intended - System.nanoTime());
+            }
+            request(logger, i);
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+        }
+
+        long discarded = async != null ? async.getDiscardedCount() : 0;
+        long dropped = async != null ? async.getDroppedCount() : 0;
+        context.stop();
+
+        System.out.printf("%-24s %10d %10d %10d %10d %10d %10d%n", label,
+            histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+            histogram.getValueAtPercentile(99.9), histogram.getMaxValue(), discarded, dropped);
+        return histogram;
+    }
+
+    /**
+     * Líneas equivalentes a las de StructuredLogger para un mensaje procesado
+     */
+    private static void request(Logger logger, int i) {
+        MDC.put("messageId", "MSG" + i);
+        MDC.put("messageType", "pacs.008.001.08");
+        try {
+            for (int line = 0; line < LOG_LINES_PER_REQUEST - 1; line++) {
+                logger.info("Pipeline stage {} completed", line);
+            }
+            if (i % 100 == 0) {
+                logger.warn("Validation failed for message {}", i);
+            } else {
+                logger.info("Message processed successfully");
+            }
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    /**
+     * Salida que simula un disco lento con paradas periódicas
+     */
+    private static final class SlowDiskOutputStream extends OutputStream {
+        private int writes;
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (++writes % WRITES_BETWEEN_STALLS == 0) {
+                LockSupport.parkNanos(STALL_NANOS);
+            } else {
+                LockSupport.parkNanos(WRITE_NANOS);
+            }
+        }
+    }
+}
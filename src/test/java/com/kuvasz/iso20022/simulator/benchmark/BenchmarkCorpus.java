@@ -0,0 +1,77 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.corpus.Defect;
+import com.kuvasz.iso20022.simulator.corpus.SyntheticMessageGenerator;
+import com.kuvasz.iso20022.simulator.corpus.SyntheticMessageType;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Corpus de los microbenchmarks: mensajes de {@link SyntheticMessageGenerator} del tipo y
+ * tamaño pedidos, con nombres de longitud variable y concepto de 140 caracteres.
+ *
+ * Los mensajes inválidos siguen siendo XML bien formado pero incumplen una regla de negocio
+ * (BIC con formato incorrecto, moneda inexistente o importe negativo en una transacción),
+ * de modo que recorren todo el pipeline hasta el rechazo. El corpus es determinista: la
+ * misma semilla produce los mismos mensajes.
+ */
+final class BenchmarkCorpus {
+
+    /**
+     * Tamaño aproximado de los mensajes, en bytes
+     */
+    record Size(String label, int bytes) {
+
+        /**
+         * Interpreta "1KB", "100KB", "10MB" o un número de bytes
+         */
+        static Size parse(String value) {
+            String label = value.trim().toUpperCase(Locale.ROOT);
+            if (label.endsWith("MB")) {
+                return new Size(label, Integer.parseInt(label.substring(0, label.length() - 2)) << 20);
+            }
+            if (label.endsWith("KB")) {
+                return new Size(label, Integer.parseInt(label.substring(0, label.length() - 2)) << 10);
+            }
+            return new Size(label + "B", Integer.parseInt(label));
+        }
+
+        static List<Size> parseList(String values) {
+            List<Size> sizes = new ArrayList<>();
+            for (String value : values.split(",")) {
+                sizes.add(parse(value));
+            }
+            return sizes;
+        }
+    }
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Mensajes de un tipo y tamaño, con el porcentaje de inválidos indicado
+     *
+     * @param count número de mensajes distintos
+     */
+    static List<String> messages(SyntheticMessageType type, Size size, int invalidPercent, int count, long seed) {
+        SimulatorProperties.Corpus config = new SimulatorProperties.Corpus();
+        config.setMessageTypes(List.of(type.family()));
+        config.setTargetSize(DataSize.ofBytes(size.bytes()));
+        config.setRemittanceLength(140);
+        config.setErrorRate(invalidPercent / 100.0);
+        config.setDefects(List.of(Defect.BIC, Defect.CURRENCY, Defect.AMOUNT));
+        config.setSeed(seed ^ type.ordinal() ^ size.bytes());
+        config.setIdPrefix("BENCH");
+        SyntheticMessageGenerator generator = new SyntheticMessageGenerator(config);
+
+        List<String> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(generator.message(i));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,237 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Arnés mínimo de microbenchmarks al estilo JMH para los benchmarks JUnit del perfil
+ * {@code benchmarks}, sin dependencias externas.
+ *
+ * Cada caso ejecuta iteraciones de calentamiento y de medida de duración fija recorriendo
+ * sus entradas en ciclo; de las iteraciones de medida se obtiene el throughput, el tiempo
+ * medio por operación con su error (desviación estándar entre iteraciones), los bytes
+ * asignados por operación y la tasa de asignación del hilo (equivalentes a
+ * {@code gc.alloc.rate.norm} y {@code gc.alloc.rate} del profiler GC de JMH), y las
+ * recolecciones ocurridas. Los resultados de cada operación se consumen en un sumidero
+ * volátil para que el JIT no elimine el trabajo.
+ *
+ * A diferencia de JMH no hay forks: todos los casos comparten JVM, así que el orden puede
+ * influir en el perfil del JIT; para comparar dos versiones conviene ejecutar el mismo
+ * filtro en ambas. Se configura con propiedades de sistema:
+ * <ul>
+ *   <li>{@code benchmark.warmup}: iteraciones de calentamiento (3)</li>
+ *   <li>{@code benchmark.iterations}: iteraciones de medida (5)</li>
+ *   <li>{@code benchmark.iterationTime}: duración de cada iteración en ms (500)</li>
+ *   <li>{@code benchmark.include}: expresión regular sobre el nombre del caso</li>
+ *   <li>{@code benchmark.output}: directorio del CSV de resultados (target/benchmarks)</li>
+ * </ul>
+ */
+final class BenchmarkHarness {
+
+    private static volatile int sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final Pattern include;
+    private final Path output;
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final List<Result> results = new ArrayList<>();
+
+    BenchmarkHarness(int warmupIterations, int measurementIterations, Duration iterationTime, String include, Path output) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationTime.toNanos();
+        this.include = include != null && !include.isBlank() ? Pattern.compile(include) : null;
+        this.output = output;
+        this.threadBean = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported() ? bean : null;
+        if (threadBean != null) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    /**
+     * Arnés configurado con las propiedades de sistema {@code benchmark.*}
+     */
+    static BenchmarkHarness fromSystemProperties() {
+        return new BenchmarkHarness(
+            Integer.getInteger("benchmark.warmup", 3),
+            Integer.getInteger("benchmark.iterations", 5),
+            Duration.ofMillis(Long.getLong("benchmark.iterationTime", 500)),
+            System.getProperty("benchmark.include"),
+            Path.of(System.getProperty("benchmark.output", "target/benchmarks")));
+    }
+
+    /**
+     * Operación medida; el valor devuelto se consume para que no se elimine como código muerto
+     */
+    @FunctionalInterface
+    interface Operation<T> {
+        Object run(T input) throws Exception;
+    }
+
+    boolean includes(String name) {
+        return include == null || include.matcher(name).find();
+    }
+
+    /**
+     * Mide un caso si lo admite el filtro {@code benchmark.include}
+     *
+     * @return el resultado, o null si el caso se ha filtrado
+     */
+    <T> Result run(String name, List<T> inputs, Operation<T> operation) {
+        if (!includes(name)) {
+            return null;
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No inputs for " + name);
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(inputs, operation);
+        }
+        Iteration[] measured = new Iteration[measurementIterations];
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        for (int i = 0; i < measurementIterations; i++) {
+            measured[i] = iteration(inputs, operation);
+        }
+        Result result = Result.of(name, measured, gcCount() - gcCount, gcMillis() - gcMillis);
+        results.add(result);
+        print(result);
+        return result;
+    }
+
+    private <T> Iteration iteration(List<T> inputs, Operation<T> operation) {
+        int size = inputs.size();
+        long operations = 0;
+        int hash = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        // Al menos una operación, aunque dure más que la iteración
+        do {
+            try {
+                Object value = operation.run(inputs.get((int) (operations % size)));
+                hash += value != null ? System.identityHashCode(value) : 1;
+            } catch (Exception e) {
+                throw new IllegalStateException("Benchmark operation failed", e);
+            }
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        long allocated = allocatedBytes() - allocatedBefore;
+        sink += hash;
+        return new Iteration(operations, elapsed, threadBean != null ? allocated : -1);
+    }
+
+    static void printHeader() {
+        System.out.printf("%n%-44s %12s %14s %12s %12s %10s %6s %8s%n", "benchmark", "ops/s", "µs/op", "± µs",
+            "B/op", "MB/s", "gc", "gc ms");
+    }
+
+    private static void print(Result result) {
+        System.out.printf(Locale.ROOT, "%-44s %12.1f %14.2f %12.2f %12s %10s %6d %8d%n", result.name, result.opsPerSecond,
+            result.meanMicros, result.errorMicros,
+            result.bytesPerOp >= 0 ? String.format(Locale.ROOT, "%.0f", result.bytesPerOp) : "n/a",
+            result.allocationMbPerSecond >= 0 ? String.format(Locale.ROOT, "%.1f", result.allocationMbPerSecond) : "n/a",
+            result.gcCount, result.gcMillis);
+    }
+
+    /**
+     * Escribe los resultados acumulados en {@code <output>/<name>.csv}
+     */
+    Path writeCsv(String name) {
+        Path file = output.resolve(name + ".csv");
+        try {
+            Files.createDirectories(output);
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("benchmark,operations,ops_per_s,us_per_op,error_us,bytes_per_op,alloc_mb_per_s,gc_count,gc_ms\n");
+                for (Result result : results) {
+                    writer.write(String.format(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.1f,%.3f,%d,%d%n", result.name,
+                        result.operations, result.opsPerSecond, result.meanMicros, result.errorMicros, result.bytesPerOp,
+                        result.allocationMbPerSecond, result.gcCount, result.gcMillis));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file;
+    }
+
+    List<Result> results() {
+        return List.copyOf(results);
+    }
+
+    private long allocatedBytes() {
+        return threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private record Iteration(long operations, long nanos, long allocatedBytes) {
+    }
+
+    /**
+     * Resultado de un caso sobre las iteraciones de medida
+     *
+     * @param bytesPerOp            -1 si la JVM no mide la memoria asignada por hilo
+     * @param allocationMbPerSecond -1 si la JVM no mide la memoria asignada por hilo
+     */
+    record Result(String name, long operations, double opsPerSecond, double meanMicros, double errorMicros,
+                  double bytesPerOp, double allocationMbPerSecond, long gcCount, long gcMillis) {
+
+        private static Result of(String name, Iteration[] iterations, long gcCount, long gcMillis) {
+            long operations = 0;
+            long nanos = 0;
+            long allocated = 0;
+            double[] micros = new double[iterations.length];
+            for (int i = 0; i < iterations.length; i++) {
+                Iteration iteration = iterations[i];
+                operations += iteration.operations;
+                nanos += iteration.nanos;
+                allocated = iteration.allocatedBytes < 0 || allocated < 0 ? -1 : allocated + iteration.allocatedBytes;
+                micros[i] = iteration.nanos / 1_000.0 / iteration.operations;
+            }
+            double mean = 0;
+            for (double value : micros) {
+                mean += value / micros.length;
+            }
+            double variance = 0;
+            for (double value : micros) {
+                variance += (value - mean) * (value - mean);
+            }
+            double error = micros.length > 1 ? Math.sqrt(variance / (micros.length - 1)) : 0;
+            double seconds = nanos / 1e9;
+            return new Result(name, operations, operations / seconds, mean, error,
+                allocated >= 0 ? (double) allocated / operations : -1,
+                allocated >= 0 ? allocated / 1_048_576.0 / seconds : -1,
+                gcCount, gcMillis);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.kuvasz.iso20022.simulator.audit.AuditPipeline;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.core.generator.ISO20022ResponseGenerator;
+import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
+import com.kuvasz.iso20022.simulator.core.parser.MessageParser;
+import com.kuvasz.iso20022.simulator.core.parser.ParseOutcome;
+import com.kuvasz.iso20022.simulator.core.validator.SimpleBusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.core.validator.StructuralValidator;
+import com.kuvasz.iso20022.simulator.exception.ParsingException;
+import com.kuvasz.iso20022.simulator.journal.MessageJournal;
+import com.kuvasz.iso20022.simulator.ledger.SettlementLedger;
+import com.kuvasz.iso20022.simulator.metrics.PipelineMetrics;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.persistence.TransactionPersistence;
+import com.kuvasz.iso20022.simulator.service.MessageProcessingService;
+import com.kuvasz.iso20022.simulator.status.StatusInquiryHandler;
+import com.kuvasz.iso20022.simulator.status.TransactionStatusStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark del pipeline con tráfico mixto válido/inválido: rechazos como valores
+ * ({@code ParseOutcome}, {@code ValidationOutcome}) frente al camino anterior basado en
+ * excepciones, con la ParsingException envuelta dos veces y stack trace en cada nivel.
+ *
+ * La mitad de los inválidos son XML malformado y la otra mitad incumplen reglas de negocio.
+ *
+ * Ejecutar con: mvn -Pbenchmarks test -Dtest=InvalidTrafficBenchmark
+ */
+class InvalidTrafficBenchmark {
+
+    private static final int MESSAGES = 2_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final String VALID = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+            <FIToFICstmrCdtTrf>
+                <GrpHdr>
+                    <MsgId>BENCH-%d</MsgId>
+                    <CreDtTm>2024-01-15T10:30:00</CreDtTm>
+                </GrpHdr>
+                <CdtTrfTxInf>
+                    <InstdAmt Ccy="USD">1000.00</InstdAmt>
+                </CdtTrfTxInf>
+            </FIToFICstmrCdtTrf>
+        </Document>
+        """;
+
+    @Test
+    void benchmarkInvalidTrafficMix() {
+        // Sin configuración de logback los tests escriben DEBUG en consola, que dominaría la medida
+        Logger applicationLogger = (Logger) LoggerFactory.getLogger("com.kuvasz.iso20022");
+        Level previousLevel = applicationLogger.getLevel();
+        applicationLogger.setLevel(Level.WARN);
+        try {
+            runMixes();
+        } finally {
+            applicationLogger.setLevel(previousLevel);
+        }
+    }
+
+    private void runMixes() {
+        System.out.printf("%n%-10s %-8s %-12s %14s %14s%n", "scope", "invalid", "path", "µs/message", "msgs/s");
+        for (int invalidPercent : new int[] {0, 50}) {
+            String[] corpus = corpus(invalidPercent);
+            MessageParser legacyParser = new LegacyParser();
+            MessageParser parser = new GenericXMLParser();
+            MessageProcessingService legacyService = service(legacyParser);
+            MessageProcessingService service = service(parser);
+
+            // Rondas intercaladas y mejor resultado de cada camino, para aislar el ruido de JIT y GC
+            double[] parse = {Double.MAX_VALUE, Double.MAX_VALUE};
+            double[] pipeline = {Double.MAX_VALUE, Double.MAX_VALUE};
+            for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+                boolean measured = round >= WARMUP_ROUNDS;
+                double legacyParse = parse(legacyParser, corpus);
+                double outcomeParse = parse(parser, corpus);
+                double legacyPipeline = pipeline(legacyService, corpus);
+                double outcomePipeline = pipeline(service, corpus);
+                if (measured) {
+                    parse[0] = Math.min(parse[0], legacyParse);
+                    parse[1] = Math.min(parse[1], outcomeParse);
+                    pipeline[0] = Math.min(pipeline[0], legacyPipeline);
+                    pipeline[1] = Math.min(pipeline[1], outcomePipeline);
+                }
+            }
+            print("parse", invalidPercent, parse);
+            print("pipeline", invalidPercent, pipeline);
+            if (invalidPercent > 0) {
+                // Con ruido de máquina compartida solo se exige no empeorar de forma apreciable
+                assertTrue(parse[1] < parse[0] * 1.2, "outcome path slower than exceptions");
+            }
+        }
+    }
+
+    private static void print(String scope, int invalidPercent, double[] nanosPerMessage) {
+        System.out.printf("%-10s %-8s %-12s %14.1f %14.0f%n", scope, invalidPercent + "%", "exceptions",
+            nanosPerMessage[0] / 1_000, 1e9 / nanosPerMessage[0]);
+        System.out.printf("%-10s %-8s %-12s %14.1f %14.0f   (%+.1f%%)%n", scope, invalidPercent + "%", "outcomes",
+            nanosPerMessage[1] / 1_000, 1e9 / nanosPerMessage[1], (nanosPerMessage[0] / nanosPerMessage[1] - 1) * 100);
+    }
+
+    /**
+     * Solo la etapa de parseo, tal como la consume el pipeline
+     */
+    private static double parse(MessageParser parser, String[] corpus) {
+        long startTime = System.nanoTime();
+        int rejected = 0;
+        for (String message : corpus) {
+            if (parser.tryParse(message) instanceof ParseOutcome.Rejected) {
+                rejected++;
+            }
+        }
+        long elapsed = System.nanoTime() - startTime;
+        assertTrue(rejected <= corpus.length);
+        return (double) elapsed / corpus.length;
+    }
+
+    private static double pipeline(MessageProcessingService service, String[] corpus) {
+        long startTime = System.nanoTime();
+        for (String message : corpus) {
+            service.processMessage(message);
+        }
+        return (double) (System.nanoTime() - startTime) / corpus.length;
+    }
+
+    private static String[] corpus(int invalidPercent) {
+        String[] corpus = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            String message = VALID.formatted(i);
+            if (i % 100 < invalidPercent) {
+                // Alterna XML truncado y moneda inexistente
+                message = i % 2 == 0 ? message.substring(0, message.length() / 2) : message.replace("USD", "XYZ");
+            }
+            corpus[i] = message;
+        }
+        return corpus;
+    }
+
+    private static MessageProcessingService service(MessageParser parser) {
+        SimulatorProperties properties = new SimulatorProperties();
+        StaticListableBeanFactory empty = new StaticListableBeanFactory();
+        return new MessageProcessingService(
+            parser,
+            List.of(new StructuralValidator(), new SimpleBusinessRuleValidator()),
+            new ISO20022ResponseGenerator(),
+            empty.getBeanProvider(TransactionPersistence.class),
+            empty.getBeanProvider(MessageJournal.class),
+            empty.getBeanProvider(SettlementLedger.class),
+            empty.getBeanProvider(TransactionStatusStore.class),
+            empty.getBeanProvider(StatusInquiryHandler.class),
+            empty.getBeanProvider(AuditPipeline.class),
+            new PipelineMetrics(new SimpleMeterRegistry(), properties));
+    }
+
+    /**
+     * Reproduce el camino anterior: el rechazo se propaga como excepción, envuelta dos veces
+     * y con stack trace en cada nivel, y el pipeline la convierte en resultado al capturarla
+     */
+    private static final class LegacyParser implements MessageParser {
+        private final GenericXMLParser delegate = new GenericXMLParser();
+
+        @Override
+        public MessageContext parse(String xmlContent) throws ParsingException {
+            try {
+                return delegate.parse(xmlContent);
+            } catch (ParsingException e) {
+                ParsingException inner = new ParsingException(e.getMessage(), e.getCause());
+                throw new ParsingException("Failed to parse XML message: " + inner.getMessage(), inner);
+            }
+        }
+
+        @Override
+        public boolean canHandle(String messageType) {
+            return delegate.canHandle(messageType);
+        }
+
+        @Override
+        public String getMessageType() {
+            return delegate.getMessageType();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import com.kuvasz.iso20022.simulator.metrics.LatencyWindows;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark del coste de registrar un mensaje en las ventanas deslizantes de latencia,
+ * con un hilo rotando cada 100 ms (diez veces más a menudo que en producción).
+ *
+ * Ejecutar con: mvn -Pbenchmarks test -Dtest=LatencyWindowsBenchmark
+ */
+class LatencyWindowsBenchmark {
+
+    private static final int MESSAGES_PER_THREAD = 2_000_000;
+    private static final int ROUNDS = 5;
+    private static final String[] TYPES = {"pacs.008.001.08", "pain.001.001.09", "camt.056.001.08"};
+
+    @Test
+    void benchmarkRecordCost() throws InterruptedException {
+        System.out.printf("%n%-10s %-10s %14s %14s%n", "threads", "stripes", "ns/message", "msgs/s");
+        for (int threads : new int[] {1, 4}) {
+            for (int stripes : new int[] {1, 4}) {
+                LatencyWindows windows = new LatencyWindows(stripes, 2, 32);
+                double best = Double.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    best = Math.min(best, run(windows, threads));
+                }
+                System.out.printf("%-10d %-10d %14.1f %14.0f%n", threads, stripes, best, 1e9 / best);
+                if (threads == 1) {
+                    assertTrue(best < 100, "record too expensive: " + best + " ns");
+                }
+            }
+        }
+    }
+
+    private static double run(LatencyWindows windows, int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                    windows.record(TYPES[i % TYPES.length], 200_000 + (i & 0xFFFF) * 10L);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        Thread rotator = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                windows.rotate();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        rotator.start();
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        rotator.interrupt();
+        rotator.join();
+        // Tiempo de pared por mensaje registrado entre todos los hilos
+        return (double) elapsed / ((long) MESSAGES_PER_THREAD * threads);
+    }
+}
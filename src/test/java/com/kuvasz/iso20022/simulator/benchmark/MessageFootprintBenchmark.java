@@ -0,0 +1,91 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
+import com.kuvasz.iso20022.simulator.corpus.SyntheticMessageType;
+import com.kuvasz.iso20022.simulator.exception.ParsingException;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Memoria retenida por mensaje en curso, por tipo y tamaño del corpus sintético: se mantienen
+ * vivos N mensajes a la vez y se mide el heap ocupado tras varias recolecciones completas.
+ *
+ * Columnas: el XML solo (lo que retiene la petición), el {@link MessageContext} parseado con
+ * el DOM, el contexto tras {@link MessageContext#releaseParsedDocument()} (lo que queda vivo
+ * durante liquidación, generación y persistencia con {@code release-after-use}), la relación
+ * entre el DOM y el tamaño del mensaje y cuántos mensajes en curso caben por GB de heap.
+ *
+ * Ejecutar con: mvn -Pbenchmarks test -Dtest=MessageFootprintBenchmark
+ * (por ejemplo {@code -Dbenchmark.sizes=1KB,100KB,10MB})
+ */
+class MessageFootprintBenchmark {
+
+    private static final long SEED = 20022;
+    private static final long RETAINED_BUDGET = 32L << 20;
+    private static final int MAX_MESSAGES = 2_000;
+    private static final int MIN_MESSAGES = 4;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    void benchmarkRetainedBytesPerMessage() throws ParsingException {
+        List<BenchmarkCorpus.Size> sizes = BenchmarkCorpus.Size.parseList(System.getProperty("benchmark.sizes", "1KB,100KB,1MB"));
+        GenericXMLParser parser = new GenericXMLParser();
+
+        System.out.printf("%n%-10s %-7s %6s %11s %11s %11s %11s %8s %10s %10s%n", "type", "size", "N",
+            "payload B", "raw B", "parsed B", "released B", "DOM x", "msgs/GB", "released");
+        for (SyntheticMessageType type : SyntheticMessageType.values()) {
+            for (BenchmarkCorpus.Size size : sizes) {
+                int count = (int) Math.max(MIN_MESSAGES, Math.min(MAX_MESSAGES, RETAINED_BUDGET / size.bytes()));
+                measure(parser, type, size, count);
+            }
+        }
+    }
+
+    private void measure(GenericXMLParser parser, SyntheticMessageType type, BenchmarkCorpus.Size size, int count)
+            throws ParsingException {
+        long base = usedHeap();
+        List<String> messages = BenchmarkCorpus.messages(type, size, 0, count, SEED);
+        long payload = messages.stream().mapToLong(String::length).sum() / count;
+        long raw = (usedHeap() - base) / count;
+
+        List<MessageContext> contexts = new ArrayList<>(count);
+        for (String message : messages) {
+            contexts.add(parser.parse(message));
+        }
+        long parsed = (usedHeap() - base) / count;
+
+        contexts.forEach(MessageContext::releaseParsedDocument);
+        long released = (usedHeap() - base) / count;
+
+        System.out.printf("%-10s %-7s %6d %11d %11d %11d %11d %8.1f %10d %10d%n", type.family(), size.label(), count,
+            payload, raw, parsed, released, (double) (parsed - released) / payload, perGigabyte(parsed),
+            perGigabyte(released));
+        assertEquals(count, contexts.size());
+        assertTrue(released < parsed, "releasing the DOM should shrink the retained size");
+    }
+
+    private static long perGigabyte(long bytesPerMessage) {
+        return bytesPerMessage > 0 ? (1L << 30) / bytesPerMessage : 0;
+    }
+
+    private long usedHeap() {
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,132 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark del codec de payloads: ratio de compresión y MB/s de compresión y
+ * descompresión (en bloque y en streaming) por tipo de mensaje, con y sin diccionario.
+ *
+ * Ejecutar con: mvn -Pbenchmarks test -Dtest=PayloadCodecBenchmark
+ */
+class PayloadCodecBenchmark {
+
+    private static final int CORPUS_SIZE = 2_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Test
+    void benchmarkCompressionRatioAndThroughput() throws IOException {
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.getCodec().setEnabled(true);
+        PayloadCodec codec = new PayloadCodec(properties);
+
+        System.out.printf("%n%-10s %-12s %8s %12s %14s %14s %14s%n",
+            "type", "dictionary", "ratio", "avg bytes", "encode MB/s", "decode MB/s", "stream MB/s");
+        for (String type : List.of("pacs.008", "pain.001", "camt.053")) {
+            List<byte[]> corpus = corpus(type, new Random(42));
+            report(codec, type, type, "trained", corpus);
+            report(codec, type, "none." + type, "none", corpus);
+        }
+    }
+
+    private static void report(PayloadCodec codec, String type, String codecType, String label,
+                               List<byte[]> corpus) throws IOException {
+        long rawBytes = corpus.stream().mapToLong(payload -> payload.length).sum();
+        List<byte[]> encoded = new ArrayList<>(corpus.size());
+        for (byte[] payload : corpus) {
+            encoded.add(codec.encode(codecType, payload));
+        }
+        long encodedBytes = encoded.stream().mapToLong(payload -> payload.length).sum();
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            encodeAll(codec, codecType, corpus);
+            decodeAll(codec, encoded);
+            streamAll(codec, encoded);
+        }
+
+        double encodeSeconds = 0;
+        double decodeSeconds = 0;
+        double streamSeconds = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            encodeAll(codec, codecType, corpus);
+            encodeSeconds += (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            decodeAll(codec, encoded);
+            decodeSeconds += (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            streamAll(codec, encoded);
+            streamSeconds += (System.nanoTime() - start) / 1e9;
+        }
+
+        double megabytes = rawBytes * MEASURED_ROUNDS / (1024.0 * 1024.0);
+        System.out.printf("%-10s %-12s %7.2fx %12d %14.1f %14.1f %14.1f%n",
+            type, label, (double) rawBytes / encodedBytes, encodedBytes / corpus.size(),
+            megabytes / encodeSeconds, megabytes / decodeSeconds, megabytes / streamSeconds);
+        assertTrue(encodedBytes < rawBytes);
+    }
+
+    private static long encodeAll(PayloadCodec codec, String type, List<byte[]> corpus) {
+        long total = 0;
+        for (byte[] payload : corpus) {
+            total += codec.encode(type, payload).length;
+        }
+        return total;
+    }
+
+    private static long decodeAll(PayloadCodec codec, List<byte[]> encoded) {
+        long total = 0;
+        for (byte[] payload : encoded) {
+            total += codec.decode(payload).length;
+        }
+        return total;
+    }
+
+    private static long streamAll(PayloadCodec codec, List<byte[]> encoded) throws IOException {
+        byte[] buffer = new byte[4096];
+        long total = 0;
+        for (byte[] payload : encoded) {
+            try (InputStream stream = codec.decodingStream(new ByteArrayInputStream(payload))) {
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    total += read;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Variaciones deterministas de la muestra incluida: identificadores, importes e IBAN distintos
+     */
+    private static List<byte[]> corpus(String type, Random random) throws IOException {
+        String template = new String(new ClassPathResource("codec/samples/" + type + ".xml")
+            .getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        List<byte[]> corpus = new ArrayList<>(CORPUS_SIZE);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            String xml = template
+                .replace("000001", String.format("%06d", random.nextInt(1_000_000)))
+                .replace("1000.00", String.format("%d.%02d", random.nextInt(100_000), random.nextInt(100)))
+                .replace("0532013000", String.format("%010d", random.nextInt(1_000_000_000)))
+                .replace("2024-01-15", String.format("2024-%02d-%02d", 1 + random.nextInt(12),
+                    1 + random.nextInt(28)));
+            corpus.add(xml.getBytes(StandardCharsets.UTF_8));
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,146 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.kuvasz.iso20022.simulator.core.generator.ISO20022ResponseGenerator;
+import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
+import com.kuvasz.iso20022.simulator.core.validator.BusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.core.validator.MessageValidator;
+import com.kuvasz.iso20022.simulator.core.validator.SimpleBusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.core.validator.StructuralValidator;
+import com.kuvasz.iso20022.simulator.corpus.SyntheticMessageType;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.model.ValidationError;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Microbenchmarks de los componentes del pipeline, por separado: parseo
+ * ({@code GenericXMLParser.parse}; {@code parseLazy} con el contexto lazy y {@code parseLazyDom}
+ * pidiendo además el DOM, como hacen los validadores de reglas), validación estructural, los dos validadores de reglas de
+ * negocio y generación de la respuesta, sobre pacs.008, pain.001, pacs.004 y camt.053 de
+ * 1 KB, 100 KB y 10 MB, con corpus válido y con la mitad de mensajes inválidos.
+ *
+ * Los casos se llaman {@code componente/tipo/tamaño/mezcla} y se miden con
+ * {@link BenchmarkHarness}: throughput, tiempo medio, bytes asignados por operación, tasa de
+ * asignación y recolecciones. Los resultados quedan además en
+ * {@code target/benchmarks/PipelineComponentsBenchmark.csv} para comparar entre versiones.
+ *
+ * Ejecutar con: mvn -Pbenchmarks test -Dtest=PipelineComponentsBenchmark
+ * (por ejemplo {@code -Dbenchmark.include=parse/pacs.008 -Dbenchmark.sizes=1KB,100KB})
+ */
+class PipelineComponentsBenchmark {
+
+    private static final long SEED = 20022;
+    private static final int[] INVALID_PERCENTS = {0, 50};
+
+    @Test
+    void benchmarkPipelineComponents() {
+        // Sin configuración de logback los tests escriben DEBUG en consola, que dominaría la medida
+        Logger applicationLogger = (Logger) LoggerFactory.getLogger("com.kuvasz.iso20022");
+        Level previousLevel = applicationLogger.getLevel();
+        applicationLogger.setLevel(Level.WARN);
+        try {
+            run();
+        } finally {
+            applicationLogger.setLevel(previousLevel);
+        }
+    }
+
+    private void run() {
+        BenchmarkHarness harness = BenchmarkHarness.fromSystemProperties();
+        List<BenchmarkCorpus.Size> sizes = BenchmarkCorpus.Size.parseList(System.getProperty("benchmark.sizes", "1KB,100KB,10MB"));
+        GenericXMLParser parser = new GenericXMLParser();
+        GenericXMLParser lazyParser = new GenericXMLParser(true);
+        StructuralValidator structuralValidator = new StructuralValidator();
+        SimpleBusinessRuleValidator simpleRules = new SimpleBusinessRuleValidator();
+        BusinessRuleValidator businessRules = new BusinessRuleValidator();
+        ISO20022ResponseGenerator generator = new ISO20022ResponseGenerator();
+
+        BenchmarkHarness.printHeader();
+        for (SyntheticMessageType type : SyntheticMessageType.values()) {
+            for (BenchmarkCorpus.Size size : sizes) {
+                for (int invalidPercent : INVALID_PERCENTS) {
+                    String suffix = "/" + type.family() + "/" + size.label() + "/" + (invalidPercent == 0 ? "valid" : "mixed");
+                    if (!includesAny(harness, suffix)) {
+                        continue;
+                    }
+                    // Pocos mensajes distintos en los tamaños grandes para acotar la memoria del corpus
+                    int count = size.bytes() >= 1 << 20 ? 2 : size.bytes() >= 64 << 10 ? 8 : 64;
+                    List<String> messages = BenchmarkCorpus.messages(type, size, invalidPercent, count, SEED);
+                    List<MessageContext> contexts = parseAll(parser, messages, type);
+                    List<Response> responses = responses(simpleRules, contexts);
+                    long rejected = responses.stream()
+                        .filter(response -> response.result.getStatus() != ProcessingResult.Status.SUCCESS).count();
+                    assertEquals(invalidPercent == 0, rejected == 0, "unexpected rejections in " + suffix);
+
+                    harness.run("parse" + suffix, messages, parser::parse);
+                    harness.run("parseLazy" + suffix, messages, lazyParser::parse);
+                    harness.run("parseLazyDom" + suffix, messages, message -> lazyParser.parse(message).getParsedDocument());
+                    harness.run("structural" + suffix, contexts, structuralValidator::validate);
+                    harness.run("simpleRules" + suffix, contexts, simpleRules::validate);
+                    harness.run("businessRules" + suffix, contexts, businessRules::validate);
+                    harness.run("generate" + suffix, responses,
+                        response -> generator.generateResponse(response.context, response.result));
+                }
+            }
+        }
+        Path csv = harness.writeCsv(getClass().getSimpleName());
+        System.out.printf("%nResults written to %s%n", csv.toAbsolutePath());
+        assertFalse(harness.results().isEmpty(), "benchmark.include matched no benchmark");
+    }
+
+    private static boolean includesAny(BenchmarkHarness harness, String suffix) {
+        for (String component : List.of("parse", "parseLazy", "parseLazyDom", "structural", "simpleRules", "businessRules", "generate")) {
+            if (harness.includes(component + suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<MessageContext> parseAll(GenericXMLParser parser, List<String> messages,
+                                                 SyntheticMessageType type) {
+        List<MessageContext> contexts = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            try {
+                MessageContext context = parser.parse(message);
+                assertEquals(type.defaultVersion(), context.getMessageType());
+                contexts.add(context);
+            } catch (Exception e) {
+                throw new IllegalStateException("Corpus message does not parse", e);
+            }
+        }
+        return contexts;
+    }
+
+    /**
+     * Resultado de validar cada mensaje, como el que recibe el generador en el pipeline
+     */
+    private static List<Response> responses(MessageValidator validator, List<MessageContext> contexts) {
+        List<Response> responses = new ArrayList<>(contexts.size());
+        for (MessageContext context : contexts) {
+            try {
+                List<ValidationError> errors = validator.validate(context);
+                ProcessingResult result = new ProcessingResult(
+                    errors.isEmpty() ? ProcessingResult.Status.SUCCESS : ProcessingResult.Status.VALIDATION_FAILED,
+                    context.getMessageId(), context.getMessageType());
+                result.setErrors(errors);
+                responses.add(new Response(context, result));
+            } catch (Exception e) {
+                throw new IllegalStateException("Corpus message fails validation unexpectedly", e);
+            }
+        }
+        return responses;
+    }
+
+    private record Response(MessageContext context, ProcessingResult result) {
+    }
+}
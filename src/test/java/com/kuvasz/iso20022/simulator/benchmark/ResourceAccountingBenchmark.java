@@ -0,0 +1,138 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.kuvasz.iso20022.simulator.audit.AuditPipeline;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.core.generator.ISO20022ResponseGenerator;
+import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
+import com.kuvasz.iso20022.simulator.core.validator.SimpleBusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.core.validator.StructuralValidator;
+import com.kuvasz.iso20022.simulator.journal.MessageJournal;
+import com.kuvasz.iso20022.simulator.ledger.SettlementLedger;
+import com.kuvasz.iso20022.simulator.metrics.PipelineMetrics;
+import com.kuvasz.iso20022.simulator.persistence.TransactionPersistence;
+import com.kuvasz.iso20022.simulator.service.MessageProcessingService;
+import com.kuvasz.iso20022.simulator.status.StatusInquiryHandler;
+import com.kuvasz.iso20022.simulator.status.TransactionStatusStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark del coste de la contabilidad de recursos por mensaje (memoria asignada y CPU
+ * del hilo por etapa) y de la memoria que asigna cada forma de mensaje.
+ *
+ * Ejecutar con: mvn -Pbenchmarks test -Dtest=ResourceAccountingBenchmark
+ */
+class ResourceAccountingBenchmark {
+
+    private static final int MESSAGES = 2_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final String MESSAGE = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+            <FIToFICstmrCdtTrf>
+                <GrpHdr>
+                    <MsgId>BENCH-%d</MsgId>
+                    <CreDtTm>2024-01-15T10:30:00</CreDtTm>
+                </GrpHdr>
+                <CdtTrfTxInf>
+                    <InstdAmt Ccy="USD">1000.00</InstdAmt>%s
+                </CdtTrfTxInf>
+            </FIToFICstmrCdtTrf>
+        </Document>
+        """;
+
+    private static final String[] MODES = {"off", "allocation", "allocation+cpu"};
+
+    @Test
+    void benchmarkAccountingOverhead() {
+        Logger applicationLogger = (Logger) LoggerFactory.getLogger("com.kuvasz.iso20022");
+        Level previousLevel = applicationLogger.getLevel();
+        applicationLogger.setLevel(Level.WARN);
+        try {
+            run();
+        } finally {
+            applicationLogger.setLevel(previousLevel);
+        }
+    }
+
+    private void run() {
+        System.out.printf("%n%-14s %-16s %12s %12s %14s%n", "shape", "accounting", "µs/message", "overhead",
+            "KB/message");
+        for (String shape : new String[] {"small", "large-addtlinf"}) {
+            String[] corpus = corpus(shape);
+            SimpleMeterRegistry[] registries = new SimpleMeterRegistry[MODES.length];
+            MessageProcessingService[] services = new MessageProcessingService[MODES.length];
+            for (int mode = 0; mode < MODES.length; mode++) {
+                registries[mode] = new SimpleMeterRegistry();
+                services[mode] = service(MODES[mode], registries[mode]);
+            }
+
+            // Rondas intercaladas y mejor resultado de cada modo
+            double[] best = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+            for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+                for (int mode = 0; mode < MODES.length; mode++) {
+                    double nanos = pipeline(services[mode], corpus);
+                    if (round >= WARMUP_ROUNDS) {
+                        best[mode] = Math.min(best[mode], nanos);
+                    }
+                }
+            }
+
+            for (int mode = 0; mode < MODES.length; mode++) {
+                DistributionSummary allocated = registries[mode].find("simulator.pipeline.allocated").summary();
+                System.out.printf("%-14s %-16s %12.1f %+11.1f%% %14s%n", shape, MODES[mode], best[mode] / 1_000,
+                    (best[mode] / best[0] - 1) * 100,
+                    allocated != null ? String.format("%.1f", allocated.mean() / 1024) : "-");
+            }
+            // Con ruido de máquina compartida solo se exige que el coste sea moderado
+            assertTrue(best[2] < best[0] * 1.25, "accounting too expensive for a canary");
+        }
+    }
+
+    private static double pipeline(MessageProcessingService service, String[] corpus) {
+        long startTime = System.nanoTime();
+        for (String message : corpus) {
+            service.processMessage(message);
+        }
+        return (double) (System.nanoTime() - startTime) / corpus.length;
+    }
+
+    private static String[] corpus(String shape) {
+        String extra = shape.equals("small") ? ""
+            : "\n                <RmtInf><Ustrd>" + "Additional remittance information. ".repeat(300) + "</Ustrd></RmtInf>";
+        String[] corpus = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            corpus[i] = MESSAGE.formatted(i, extra);
+        }
+        return corpus;
+    }
+
+    private static MessageProcessingService service(String mode, SimpleMeterRegistry registry) {
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.getMetrics().getResources().setEnabled(!mode.equals("off"));
+        properties.getMetrics().getResources().setCpuTime(mode.endsWith("cpu"));
+        StaticListableBeanFactory empty = new StaticListableBeanFactory();
+        return new MessageProcessingService(
+            new GenericXMLParser(),
+            List.of(new StructuralValidator(), new SimpleBusinessRuleValidator()),
+            new ISO20022ResponseGenerator(),
+            empty.getBeanProvider(TransactionPersistence.class),
+            empty.getBeanProvider(MessageJournal.class),
+            empty.getBeanProvider(SettlementLedger.class),
+            empty.getBeanProvider(TransactionStatusStore.class),
+            empty.getBeanProvider(StatusInquiryHandler.class),
+            empty.getBeanProvider(AuditPipeline.class),
+            new PipelineMetrics(registry, properties));
+    }
+}
@@ -0,0 +1,88 @@
+package com.kuvasz.iso20022.simulator.benchmark;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.ledger.SettlementLedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark del ledger: transferencias por segundo sobre una única cuenta caliente
+ * con N hilos concurrentes, incluyendo el volcado asíncrono a H2.
+ *
+ * Ejecutar con: mvn -Pbenchmarks test -Dtest=SettlementLedgerBenchmark
+ */
+class SettlementLedgerBenchmark {
+
+    private static final int TRANSFERS_PER_THREAD = 200_000;
+
+    @Test
+    void benchmarkHotAccountThroughput() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:ledger-bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO accounts (account_number, account_name, balance, currency) "
+            + "VALUES ('HOT', 'Hot account', 1000000000.00, 'EUR')");
+        for (int i = 0; i < 16; i++) {
+            jdbcTemplate.update("INSERT INTO accounts (account_number, account_name, balance, currency) "
+                + "VALUES (?, 'Creditor', 0.00, 'EUR')", "CDTR-" + i);
+        }
+
+        SettlementLedger ledger = new SettlementLedger(dataSource, new SimulatorProperties(),
+            new SimpleMeterRegistry());
+        ledger.start();
+
+        System.out.printf("%n%-8s %14s %16s%n", "threads", "transfers", "transfers/s");
+        try {
+            for (int threads : new int[] {1, 2, 4, 8, 16}) {
+                double tps = run(ledger, threads);
+                System.out.printf("%-8d %14d %16.0f%n", threads, (long) threads * TRANSFERS_PER_THREAD, tps);
+                assertTrue(tps > 1000);
+            }
+        } finally {
+            ledger.stop();
+        }
+    }
+
+    private static double run(SettlementLedger ledger, int threads) throws InterruptedException {
+        BigDecimal amount = new BigDecimal("0.01");
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String creditor = "CDTR-" + t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    ledger.transfer("HOT", creditor, amount, "EUR");
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        return threads * TRANSFERS_PER_THREAD / seconds;
+    }
+}
@@ -0,0 +1,233 @@
+package com.kuvasz.iso20022.simulator.capture;
+
+import com.kuvasz.iso20022.simulator.audit.AuditPipeline;
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.core.generator.ISO20022ResponseGenerator;
+import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
+import com.kuvasz.iso20022.simulator.core.validator.SimpleBusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.core.validator.StructuralValidator;
+import com.kuvasz.iso20022.simulator.journal.MessageJournal;
+import com.kuvasz.iso20022.simulator.ledger.SettlementLedger;
+import com.kuvasz.iso20022.simulator.metrics.PipelineMetrics;
+import com.kuvasz.iso20022.simulator.metrics.PipelineStage;
+import com.kuvasz.iso20022.simulator.metrics.StageTimings;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.persistence.TransactionPersistence;
+import com.kuvasz.iso20022.simulator.persistence.TransactionRecord;
+import com.kuvasz.iso20022.simulator.service.MessageProcessingService;
+import com.kuvasz.iso20022.simulator.status.StatusInquiryHandler;
+import com.kuvasz.iso20022.simulator.status.TransactionStatusStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SlowMessageCapture
+ */
+class SlowMessageCaptureTest {
+
+    private static final String VALID_PACS_008 = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+            <FIToFICstmrCdtTrf>
+                <GrpHdr>
+                    <MsgId>CAP123456789</MsgId>
+                    <CreDtTm>2024-01-15T10:30:00</CreDtTm>
+                </GrpHdr>
+                <CdtTrfTxInf>
+                    <InstdAmt Ccy="USD">1000.00</InstdAmt>
+                    <PmtInf>
+                        <PmtInfId>PMT123</PmtInfId>
+                    </PmtInf>
+                </CdtTrfTxInf>
+            </FIToFICstmrCdtTrf>
+        </Document>
+        """;
+
+    private static final long SLOW = Duration.ofMillis(600).toNanos();
+    private static final long FAST = Duration.ofMillis(3).toNanos();
+
+    private SimulatorProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SimulatorProperties();
+        properties.getCapture().setSlowThreshold(Duration.ofMillis(500));
+        properties.getCapture().setSampleRate(0.0);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testOnlySlowMessagesAreCapturedWithoutSampling() {
+        SlowMessageCapture capture = newCapture();
+
+        capture.offer(context(), result("FAST-1"), VALID_PACS_008, timings(), FAST);
+        capture.offer(context(), result("SLOW-1"), VALID_PACS_008, timings(), SLOW);
+
+        List<CapturedMessage> captures = capture.list(null);
+        assertEquals(1, captures.size());
+        CapturedMessage captured = captures.get(0);
+        assertEquals(CapturedMessage.Reason.SLOW, captured.reason());
+        assertEquals("SLOW-1", captured.messageId());
+        assertEquals("pacs.008.001.08", captured.messageType());
+        assertEquals("BANKGB2L", captured.senderId());
+        assertEquals("E2E-1", captured.properties().get("endToEndId"));
+        assertEquals(600.0, captured.totalMs(), 0.001);
+        assertEquals(List.of("parse", "business"), List.copyOf(captured.stagesMs().keySet()));
+        assertEquals(1.0, meterRegistry.get(SlowMessageCapture.METER).tag("reason", "slow").counter().count());
+    }
+
+    @Test
+    void testSampledMessagesUseTheirOwnRing() {
+        properties.getCapture().setSampleRate(1.0);
+        properties.getCapture().setSampleCapacity(2);
+        SlowMessageCapture capture = newCapture();
+
+        capture.offer(context(), result("SLOW-1"), VALID_PACS_008, timings(), SLOW);
+        for (int i = 0; i < 5; i++) {
+            capture.offer(context(), result("FAST-" + i), VALID_PACS_008, timings(), FAST);
+        }
+
+        assertEquals(List.of("SLOW-1"), capture.list(CapturedMessage.Reason.SLOW).stream()
+            .map(CapturedMessage::messageId).toList());
+        assertEquals(List.of("FAST-4", "FAST-3"), capture.list(CapturedMessage.Reason.SAMPLED).stream()
+            .map(CapturedMessage::messageId).toList());
+        assertEquals(3, capture.list(null).size());
+    }
+
+    @Test
+    void testCapturesArePerSecondLimited() {
+        properties.getCapture().setMaxPerSecond(2);
+        AtomicLong nanos = new AtomicLong();
+        SlowMessageCapture capture = new SlowMessageCapture(properties, new PayloadCodec(properties), meterRegistry,
+            nanos::get);
+
+        for (int i = 0; i < 5; i++) {
+            capture.offer(context(), result("SLOW-" + i), VALID_PACS_008, timings(), SLOW);
+        }
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        capture.offer(context(), result("SLOW-5"), VALID_PACS_008, timings(), SLOW);
+
+        assertEquals(List.of("SLOW-5", "SLOW-1", "SLOW-0"), capture.list(null).stream()
+            .map(CapturedMessage::messageId).toList());
+        assertEquals(3.0, meterRegistry.get(SlowMessageCapture.THROTTLED_METER).counter().count());
+    }
+
+    @Test
+    void testPayloadIsCompressedAndRestored() {
+        SlowMessageCapture capture = newCapture();
+        String payload = VALID_PACS_008.repeat(20);
+
+        capture.offer(context(), result("SLOW-1"), payload, timings(), SLOW);
+
+        CapturedMessage captured = capture.list(null).get(0);
+        assertTrue(captured.compressed());
+        assertFalse(captured.truncated());
+        assertTrue(captured.storedSize() < captured.payloadSize() / 4);
+        assertEquals(payload, new String(capture.payload(capture.get(captured.id()).orElseThrow()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testLargePayloadIsTruncated() {
+        properties.getCapture().setMaxPayloadSize(DataSize.ofBytes(100));
+        properties.getCapture().setCompress(false);
+        SlowMessageCapture capture = newCapture();
+
+        capture.offer(context(), result("SLOW-1"), VALID_PACS_008, timings(), SLOW);
+
+        CapturedMessage captured = capture.list(null).get(0);
+        assertTrue(captured.truncated());
+        assertEquals(VALID_PACS_008.length(), captured.payloadSize());
+        assertEquals(VALID_PACS_008.substring(0, 100), new String(capture.payload(captured), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testServiceCapturesStageTimingsIncludingPersistence() {
+        properties.getCapture().setSlowThreshold(Duration.ZERO);
+        SlowMessageCapture capture = newCapture();
+        MessageProcessingService service = newService(capture);
+
+        service.processMessage(VALID_PACS_008);
+        service.processMessage("<Document><Unclosed></Document>");
+
+        List<CapturedMessage> captures = capture.list(null);
+        assertEquals(2, captures.size());
+        CapturedMessage rejected = captures.get(0);
+        assertEquals("ERROR", rejected.status());
+        assertEquals(List.of("parse"), List.copyOf(rejected.stagesMs().keySet()));
+        CapturedMessage accepted = captures.get(1);
+        assertEquals("CAP123456789", accepted.messageId());
+        assertEquals("SUCCESS", accepted.status());
+        assertEquals(List.of("parse", "structural", "business", "generate", "persist"),
+            List.copyOf(accepted.stagesMs().keySet()));
+        assertTrue(accepted.stagesMs().get("persist") >= 20.0);
+        assertTrue(accepted.totalMs() >= accepted.stagesMs().get("persist"));
+    }
+
+    private SlowMessageCapture newCapture() {
+        return new SlowMessageCapture(properties, new PayloadCodec(properties), meterRegistry);
+    }
+
+    private static MessageContext context() {
+        MessageContext context = new MessageContext("SLOW-1", "pacs.008.001.08");
+        context.setSenderId("BANKGB2L");
+        context.addProperty("endToEndId", "E2E-1");
+        return context;
+    }
+
+    private static ProcessingResult result(String messageId) {
+        return new ProcessingResult(ProcessingResult.Status.SUCCESS, messageId, "pacs.008.001.08");
+    }
+
+    private static StageTimings timings() {
+        StageTimings timings = new StageTimings(0);
+        timings.add(PipelineStage.PARSE, 2_000_000);
+        timings.add(PipelineStage.BUSINESS, 1_000_000);
+        return timings;
+    }
+
+    private MessageProcessingService newService(SlowMessageCapture capture) {
+        TransactionStatusStore statusStore = new TransactionStatusStore(properties, meterRegistry);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("statusStore", statusStore);
+        beanFactory.addBean("statusInquiryHandler", new StatusInquiryHandler(statusStore));
+        beanFactory.addBean("slowPersistence", new TransactionPersistence() {
+            @Override
+            public Mono<Void> save(TransactionRecord record) {
+                return Mono.delay(Duration.ofMillis(20)).then();
+            }
+
+            @Override
+            public String getPersistenceType() {
+                return "slow";
+            }
+        });
+
+        MessageProcessingService service = new MessageProcessingService(
+            new GenericXMLParser(),
+            List.of(new StructuralValidator(), new SimpleBusinessRuleValidator()),
+            new ISO20022ResponseGenerator(),
+            beanFactory.getBeanProvider(TransactionPersistence.class),
+            new StaticListableBeanFactory().getBeanProvider(MessageJournal.class),
+            new StaticListableBeanFactory().getBeanProvider(SettlementLedger.class),
+            beanFactory.getBeanProvider(TransactionStatusStore.class),
+            beanFactory.getBeanProvider(StatusInquiryHandler.class),
+            new StaticListableBeanFactory().getBeanProvider(AuditPipeline.class),
+            new PipelineMetrics(meterRegistry, properties));
+        service.setSlowMessageCapture(capture);
+        return service;
+    }
+}
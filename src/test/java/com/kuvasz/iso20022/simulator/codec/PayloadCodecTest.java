@@ -0,0 +1,181 @@
+package com.kuvasz.iso20022.simulator.codec;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para PayloadCodec
+ */
+class PayloadCodecTest {
+
+    @TempDir
+    Path dictionaries;
+
+    private SimulatorProperties properties;
+    private PayloadCodec codec;
+    private String pacs008;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new SimulatorProperties();
+        properties.getCodec().setEnabled(true);
+        properties.getCodec().setDictionaryDirectory(dictionaries.toString());
+        codec = new PayloadCodec(properties);
+        pacs008 = new String(new ClassPathResource("codec/samples/pacs.008.xml").getInputStream().readAllBytes(),
+            StandardCharsets.UTF_8).replace("000001", "424242");
+    }
+
+    @Test
+    void testBundledDictionariesAreLoaded() {
+        assertTrue(codec.getDictionary("pacs.008.001.08").isPresent());
+        assertTrue(codec.getDictionary("pain.001.001.03").isPresent());
+        assertTrue(codec.getDictionary("camt.053.001.02").isPresent());
+        assertTrue(codec.getDictionary("camt.056.001.01").isEmpty());
+    }
+
+    @Test
+    void testRoundTrip() {
+        byte[] encoded = codec.encode("pacs.008.001.08", pacs008);
+
+        assertTrue(PayloadCodec.isEncoded(encoded));
+        assertEquals(pacs008, codec.decodeToString(encoded));
+    }
+
+    @Test
+    void testDictionaryImprovesRatio() {
+        byte[] withDictionary = codec.encode("pacs.008.001.08", pacs008);
+        byte[] withoutDictionary = codec.encode("unknown.type", pacs008);
+
+        assertTrue(withDictionary.length < withoutDictionary.length,
+            withDictionary.length + " >= " + withoutDictionary.length);
+        assertEquals(pacs008, codec.decodeToString(withoutDictionary));
+    }
+
+    @Test
+    void testSmallAndPlainPayloadsPassThrough() {
+        byte[] small = "<Document/>".getBytes(StandardCharsets.UTF_8);
+
+        assertSame(small, codec.encode("pacs.008.001.08", small));
+        assertSame(small, codec.decode(small));
+        assertNull(codec.encodeForStorage("pacs.008.001.08", "<Document/>"));
+    }
+
+    @Test
+    void testEncodeForStorageRespectsEnabledFlag() {
+        assertNotNull(codec.encodeForStorage("pacs.008.001.08", pacs008));
+
+        properties.getCodec().setEnabled(false);
+
+        assertNull(codec.encodeForStorage("pacs.008.001.08", pacs008));
+    }
+
+    @Test
+    void testStreamingDecompression() throws IOException {
+        byte[] encoded = codec.encode("pacs.008.001.08", pacs008);
+
+        try (InputStream stream = codec.decodingStream(new ByteArrayInputStream(encoded))) {
+            assertEquals(pacs008, new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream stream = codec.decodingStream(new ByteArrayInputStream(pacs008.getBytes()))) {
+            assertEquals(pacs008, new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testRetrainedDictionaryKeepsOldPayloadsReadable() {
+        byte[] before = codec.encode("pacs.008.001.08", pacs008);
+        int previousId = codec.getDictionary("pacs.008").orElseThrow().getId();
+
+        PayloadDictionary retrained = codec.train("pacs.008.001.08",
+            List.of(pacs008, pacs008.replace("424242", "777777")));
+        byte[] after = codec.encode("pacs.008.001.08", pacs008);
+
+        assertNotEquals(previousId, retrained.getId());
+        assertEquals(pacs008, codec.decodeToString(before));
+        assertEquals(pacs008, codec.decodeToString(after));
+    }
+
+    @Test
+    void testRetrainedDictionarySurvivesRestart() throws IOException {
+        PayloadDictionary retrained = codec.train("pacs.008.001.08",
+            List.of(pacs008, pacs008.replace("424242", "777777")));
+        byte[] encoded = codec.encode("pacs.008.001.08", pacs008);
+
+        PayloadCodec restarted = new PayloadCodec(properties);
+
+        try (var files = Files.list(dictionaries)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(retrained.getId(), restarted.getDictionary("pacs.008").orElseThrow().getId());
+        assertEquals(pacs008, restarted.decodeToString(encoded));
+    }
+
+    @Test
+    void testTrainingWithoutDictionaryDirectoryIsRejected() {
+        int previousId = codec.getDictionary("pacs.008").orElseThrow().getId();
+        properties.getCodec().setDictionaryDirectory("");
+
+        assertThrows(IllegalStateException.class, () -> codec.train("pacs.008.001.08", List.of(pacs008)));
+        assertEquals(previousId, codec.getDictionary("pacs.008").orElseThrow().getId());
+    }
+
+    @Test
+    void testUnknownDictionaryIsRejected() {
+        byte[] encoded = codec.encode("pacs.008.001.08", pacs008);
+
+        byte[] corrupted = Arrays.copyOf(encoded, encoded.length);
+        corrupted[3] ^= 0x7F;
+
+        assertThrows(IllegalStateException.class, () -> codec.decode(corrupted));
+    }
+
+    @Test
+    void testDeclaredLengthAboveLimitIsRejectedBeforeAllocating() {
+        byte[] encoded = codec.encode("pacs.008.001.08", pacs008);
+
+        byte[] hostile = Arrays.copyOf(encoded, encoded.length);
+        ByteBuffer.wrap(hostile, 7, 4).putInt(Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(hostile));
+
+        properties.getCodec().setMaxDecodedSize(DataSize.ofBytes(pacs008.length() - 1));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(encoded));
+    }
+
+    @Test
+    void testPooledCompressorsAreReusedAfterFailuresAndClose() {
+        byte[] encoded = codec.encode("pacs.008.001.08", pacs008);
+        byte[] corrupted = Arrays.copyOf(encoded, encoded.length);
+        corrupted[3] ^= 0x7F;
+
+        for (int i = 0; i < 100; i++) {
+            assertThrows(IllegalStateException.class, () -> codec.decode(corrupted));
+            assertEquals(pacs008, codec.decodeToString(codec.encode("pacs.008.001.08", pacs008)));
+        }
+        codec.close();
+
+        assertEquals(pacs008, codec.decodeToString(encoded));
+    }
+
+    @Test
+    void testFamilyOf() {
+        assertEquals("pacs.008", PayloadCodec.familyOf("pacs.008.001.08"));
+        assertEquals("camt.053", PayloadCodec.familyOf("CAMT.053"));
+        assertEquals("unknown", PayloadCodec.familyOf("unknown"));
+    }
+}
@@ -227,6 +227,17 @@ class ISO20022ResponseGeneratorTest {
         return result;
     }
 
+    @Test
+    void testIsoReasonCodeIsPropagated() {
+        MessageContext originalContext = createMessageContext("pacs.008.001.08", "MSG123456789");
+        ProcessingResult result = createErrorResult();
+        result.setErrors(List.of(ValidationError.businessRuleError("AM04", "Insufficient funds", "DbtrAcct")));
+
+        String response = generator.generateResponse(originalContext, result);
+
+        assertTrue(response.contains("<Cd>AM04</Cd>"));
+    }
+
     private ProcessingResult createWarningResult() {
         ProcessingResult result = new ProcessingResult();
         result.setStatus(ProcessingResult.Status.WARNING);
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.xml.sax.SAXParseException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -89,6 +90,37 @@ class GenericXMLParserTest {
         assertThrows(ParsingException.class, () -> parser.parse(invalidXml));
     }
 
+    @Test
+    void testTryParseReturnsRejectionWithoutWrapping() {
+        ParseOutcome outcome = parser.tryParse("<invalid><unclosed>");
+
+        ParseOutcome.Rejected rejected = assertInstanceOf(ParseOutcome.Rejected.class, outcome);
+        assertEquals(ParsingException.ERROR_CODE, rejected.errorCode());
+        assertTrue(rejected.message().startsWith("Failed to parse XML message"));
+        // La causa es directamente la excepción SAX, sin ParsingException intermedias
+        assertInstanceOf(org.xml.sax.SAXParseException.class, rejected.cause());
+    }
+
+    @Test
+    void testParseThrowsStacklessExceptionForMalformedXml() {
+        ParsingException exception = assertThrows(ParsingException.class, () -> parser.parse("<invalid><unclosed>"));
+
+        assertEquals(0, exception.getStackTrace().length);
+        assertNotNull(exception.getCause());
+    }
+
+    @Test
+    void testTryParseAcceptsValidMessage() {
+        ParseOutcome outcome = parser.tryParse("""
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+                <FIToFICstmrCdtTrf><GrpHdr><MsgId>OUT-1</MsgId></GrpHdr></FIToFICstmrCdtTrf>
+            </Document>
+            """);
+
+        ParseOutcome.Parsed parsed = assertInstanceOf(ParseOutcome.Parsed.class, outcome);
+        assertEquals("OUT-1", parsed.context().getMessageId());
+    }
+
     @Test
     void testParseEmptyContent() {
         assertThrows(ParsingException.class, () -> parser.parse(""));
@@ -117,6 +149,43 @@ class GenericXMLParserTest {
         assertEquals("CstmrCdtTrfInitn", result.getMessageName());
     }
 
+    @Test
+    void testExtractDebtorAndCreditorAccounts() throws ParsingException {
+        String xmlContent = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+                <FIToFICstmrCdtTrf>
+                    <GrpHdr>
+                        <MsgId>ACCT-MSG-001</MsgId>
+                        <CreDtTm>2023-12-20T10:30:00Z</CreDtTm>
+                    </GrpHdr>
+                    <CdtTrfTxInf>
+                        <IntrBkSttlmAmt Ccy="EUR">250.00</IntrBkSttlmAmt>
+                        <DbtrAcct><Id><IBAN>ES9121000418450200051332</IBAN></Id></DbtrAcct>
+                        <CdtrAcct><Id><Othr><Id>ACC-0002</Id></Othr></Id></CdtrAcct>
+                    </CdtTrfTxInf>
+                </FIToFICstmrCdtTrf>
+            </Document>
+            """;
+
+        MessageContext result = parser.parse(xmlContent);
+
+        assertEquals("ES9121000418450200051332", result.getProperty("debtorAccount"));
+        assertEquals("ACC-0002", result.getProperty("creditorAccount"));
+        assertEquals("250.00", result.getProperty("amount"));
+    }
+
+    @Test
+    void testRecoverableErrorsDoNotRejectTheMessage() {
+        SAXParseException recoverable = new SAXParseException("recoverable", null, null, 1, 1);
+        SAXParseException fatal = new SAXParseException("fatal", null, null, 1, 1);
+
+        assertDoesNotThrow(() -> GenericXMLParser.SILENT_ERROR_HANDLER.warning(recoverable));
+        assertDoesNotThrow(() -> GenericXMLParser.SILENT_ERROR_HANDLER.error(recoverable));
+        assertSame(fatal, assertThrows(SAXParseException.class,
+            () -> GenericXMLParser.SILENT_ERROR_HANDLER.fatalError(fatal)));
+    }
+
     @Test
     void testCanHandle() {
         assertTrue(parser.canHandle("pain.001.001.03"));
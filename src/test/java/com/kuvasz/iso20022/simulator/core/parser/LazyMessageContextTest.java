@@ -0,0 +1,169 @@
+package com.kuvasz.iso20022.simulator.core.parser;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.corpus.SyntheticMessageGenerator;
+import com.kuvasz.iso20022.simulator.exception.ParsingException;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyMessageContextTest {
+
+    private static final String NO_NAMESPACE = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document>
+            <CstmrCdtTrfInitn>
+                <GrpHdr>
+                    <MsgId> LAZY-1 </MsgId>
+                    <CreDtTm>2024-03-01T08:15:00+01:00</CreDtTm>
+                    <InitgPty><Nm>Tom &amp; Jerry <![CDATA[<Ltd>]]></Nm></InitgPty>
+                </GrpHdr>
+                <PmtInf>
+                    <CdtTrfTxInf>
+                        <PmtId><InstrId>INSTR-1</InstrId><EndToEndId>E2E-1</EndToEndId></PmtId>
+                        <Amt><InstdAmt Ccy=" GBP ">12.50</InstdAmt></Amt>
+                        <Cdtr><Nm>Acme<!-- comentario --> Corp</Nm></Cdtr>
+                        <CdtrAcct><Id><Othr><Id>ACC-9</Id></Othr></Id></CdtrAcct>
+                    </CdtTrfTxInf>
+                </PmtInf>
+            </CstmrCdtTrfInitn>
+        </Document>
+        """;
+
+    private static final String PREFIXED = """
+        <doc:Document xmlns:doc="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08"
+                      xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance" xsi:schemaLocation="a b">
+            <doc:FIToFICstmrCdtTrf>
+                <doc:GrpHdr><doc:MsgId>PFX-1</doc:MsgId><doc:CreDtTm>2024-03-01T08:15:00</doc:CreDtTm></doc:GrpHdr>
+                <doc:CdtTrfTxInf>
+                    <doc:IntrBkSttlmAmt Ccy="EUR">99.00</doc:IntrBkSttlmAmt>
+                    <doc:DbtrAcct><doc:Id><doc:IBAN>ES9121000418450200051332</doc:IBAN></doc:Id></doc:DbtrAcct>
+                </doc:CdtTrfTxInf>
+            </doc:FIToFICstmrCdtTrf>
+        </doc:Document>
+        """;
+
+    private final GenericXMLParser eager = new GenericXMLParser();
+    private final GenericXMLParser lazy = new GenericXMLParser(true);
+
+    @Test
+    void testLazyContextMatchesEagerContextOnSyntheticCorpus() throws ParsingException {
+        SimulatorProperties.Corpus config = new SimulatorProperties.Corpus();
+        config.setMessageTypes(List.of("pacs.008", "pain.001", "pacs.004", "camt.053"));
+        config.setMaxTransactions(4);
+        SyntheticMessageGenerator indented = new SyntheticMessageGenerator(config);
+        SyntheticMessageGenerator compact = new SyntheticMessageGenerator(config, "LAZY", true);
+
+        for (long sequence = 0; sequence < 40; sequence++) {
+            assertSameFields(eager.parse(indented.message(sequence)), lazy.parse(indented.message(sequence)));
+            assertSameFields(eager.parse(compact.message(sequence)), lazy.parse(compact.message(sequence)));
+        }
+    }
+
+    @Test
+    void testLazyContextMatchesEagerContextOnEdgeCases() throws ParsingException {
+        for (String xml : List.of(NO_NAMESPACE, NO_NAMESPACE.replace("\n", "\r\n"), PREFIXED)) {
+            MessageContext expected = eager.parse(xml);
+            MessageContext actual = lazy.parse(xml);
+            assertInstanceOf(LazyMessageContext.class, actual);
+            assertSameFields(expected, actual);
+        }
+
+        MessageContext noNamespace = lazy.parse(NO_NAMESPACE);
+        assertEquals("LAZY-1", noNamespace.getMessageId());
+        assertEquals("Tom & Jerry <Ltd>", noNamespace.getSenderId());
+        assertEquals("Acme Corp", noNamespace.getReceiverId());
+        assertEquals("INSTR-1", noNamespace.getProperty("instructionId"));
+        assertEquals("GBP", noNamespace.getProperty("currency"));
+        assertEquals("ACC-9", noNamespace.getProperty("creditorAccount"));
+        assertEquals(LocalDateTime.of(2024, 3, 1, 8, 15), noNamespace.getCreationDateTime());
+
+        MessageContext prefixed = lazy.parse(PREFIXED);
+        assertEquals("pacs.008.001.08", prefixed.getMessageType());
+        assertEquals("ES9121000418450200051332", prefixed.getProperty("debtorAccount"));
+    }
+
+    @Test
+    void testFieldsAndDocumentAreDecodedOnFirstAccess() throws Exception {
+        AtomicInteger documents = new AtomicInteger();
+        GenericXMLParser domParser = new GenericXMLParser();
+        LazyMessageContext context = new LazyMessageContext(XmlTokenIndex.build(PREFIXED), xml -> {
+            documents.incrementAndGet();
+            return ((ParseOutcome.Parsed) domParser.tryParse(xml)).context().getParsedDocument();
+        });
+
+        assertEquals("PFX-1", context.getMessageId());
+        assertEquals("FIToFICstmrCdtTrf", context.getMessageName());
+        assertEquals(0, documents.get());
+
+        Document document = context.getParsedDocument();
+        assertNotNull(document);
+        assertSame(document, context.getParsedDocument());
+        assertEquals(1, documents.get());
+
+        context.releaseParsedDocument();
+        assertNull(context.getParsedDocument());
+        assertEquals(1, documents.get());
+    }
+
+    @Test
+    void testSettersTakePrecedenceOverIndex() throws ParsingException {
+        MessageContext context = lazy.parse(NO_NAMESPACE);
+
+        context.setSenderId("override");
+        context.addProperty("amount", "1.00");
+        context.addProperty("extra", "x");
+
+        assertEquals("override", context.getSenderId());
+        assertEquals("1.00", context.getProperty("amount"));
+        assertNull(context.getProperty("currency"));
+        assertEquals("E2E-1", context.getProperty("endToEndId"));
+        assertEquals("x", context.getProperties().get("extra"));
+    }
+
+    @Test
+    void testReleasingOriginalXmlDecodesPendingFields() throws ParsingException {
+        MessageContext context = lazy.parse(NO_NAMESPACE);
+
+        context.releaseOriginalXml();
+
+        assertNull(context.getOriginalXml());
+        assertNull(context.getParsedDocument());
+        assertEquals("Tom & Jerry <Ltd>", context.getSenderId());
+        assertEquals("12.50", context.getProperty("amount"));
+        assertEquals("E2E-1", context.getProperty("endToEndId"));
+    }
+
+    @Test
+    void testMalformedXmlIsRejectedAtParseTime() {
+        ParseOutcome outcome = lazy.tryParse("<Document><Unclosed></Document>");
+
+        ParseOutcome.Rejected rejected = assertInstanceOf(ParseOutcome.Rejected.class, outcome);
+        assertTrue(rejected.message().startsWith("Failed to parse XML message"));
+        assertInstanceOf(org.xml.sax.SAXParseException.class, rejected.cause());
+    }
+
+    private static void assertSameFields(MessageContext expected, MessageContext actual) {
+        assertEquals(expected.getMessageId(), actual.getMessageId());
+        assertEquals(expected.getMessageType(), actual.getMessageType());
+        assertEquals(expected.getMessageName(), actual.getMessageName());
+        assertEquals(expected.getMessageDefinitionIdentifier(), actual.getMessageDefinitionIdentifier());
+        assertEquals(expected.getBusinessMessageIdentifier(), actual.getBusinessMessageIdentifier());
+        if (expected.getOriginalXml().contains("<CreDtTm>")) {
+            // Sin CreDtTm sin prefijo ambos conservan el instante en que se crearon
+            assertEquals(expected.getCreationDateTime(), actual.getCreationDateTime());
+        }
+        assertEquals(expected.getSenderId(), actual.getSenderId());
+        assertEquals(expected.getReceiverId(), actual.getReceiverId());
+        assertEquals(expected.getProperties(), actual.getProperties());
+        assertEquals(expected.getNamespaces(), actual.getNamespaces());
+        assertEquals(expected.getOriginalXml(), actual.getOriginalXml());
+        assertNotNull(actual.getParsedDocument());
+    }
+}
@@ -0,0 +1,97 @@
+package com.kuvasz.iso20022.simulator.core.parser;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXParseException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XmlTokenIndexTest {
+
+    @Test
+    void testIndexesElementsInDocumentOrder() throws SAXParseException {
+        XmlTokenIndex index = XmlTokenIndex.build("""
+            <?xml version="1.0"?>
+            <!-- cabecera -->
+            <Document xmlns="urn:test"><A><B/><C x='1'>c</C></A><D>d</D></Document>
+            """);
+
+        assertEquals(5, index.count());
+        assertEquals("urn:test", index.rootNamespace());
+        assertEquals(List.of("Document", "A", "B", "C", "D"),
+            List.of(index.localName(0), index.localName(1), index.localName(2), index.localName(3), index.localName(4)));
+        assertEquals(-1, index.parent(0));
+        assertEquals(1, index.parent(3));
+        assertEquals(0, index.parent(4));
+        assertEquals(1, index.firstChild(0));
+        assertEquals(-1, index.firstChild(2));
+        assertEquals("", index.text(2));
+        assertEquals("c", index.text(3));
+        assertEquals("cd", index.text(0));
+        assertEquals("1", index.attribute(3, "x"));
+        assertNull(index.attribute(3, "y"));
+    }
+
+    @Test
+    void testDecodesReferencesCdataAndLineBreaks() throws SAXParseException {
+        XmlTokenIndex index = XmlTokenIndex.build(
+            "<R a=\"x&amp;y&#9;z\r\nw\"><T>1 &lt; 2 &#x20AC;&apos;<![CDATA[<&>]]><!--no-->\r\n<?pi x?>ok</T></R>");
+
+        assertEquals("1 < 2 €'<&>\nok", index.text(1));
+        assertEquals("x&y\tz w", index.attribute(0, "a"));
+        assertNull(index.rootNamespace());
+    }
+
+    @Test
+    void testDistinguishesNamespacedAndUnqualifiedNames() throws SAXParseException {
+        XmlTokenIndex index = XmlTokenIndex.build(
+            "<p:Doc xmlns:p=\"urn:p\"><p:MsgId>1</p:MsgId><MsgId>2</MsgId><N xmlns=\"urn:n\"><MsgId>3</MsgId>"
+                + "<E xmlns=\"\"><MsgId>4</MsgId></E></N></p:Doc>");
+
+        assertEquals("urn:p", index.rootNamespace());
+        assertTrue(index.hasLocalName(1, "MsgId"));
+        assertFalse(index.hasQualifiedName(1, "MsgId"));
+        assertFalse(index.hasUnqualifiedName(1, "MsgId"));
+        assertTrue(index.hasUnqualifiedName(2, "MsgId"));
+        assertFalse(index.hasUnqualifiedName(4, "MsgId"));
+        assertTrue(index.hasQualifiedName(4, "MsgId"));
+        assertTrue(index.hasUnqualifiedName(6, "MsgId"));
+    }
+
+    @Test
+    void testRejectsWhatTheDomParserRejects() {
+        GenericXMLParser domParser = new GenericXMLParser();
+        for (String xml : List.of(
+            "<A><B></A>",
+            "<A></A><B/>",
+            "text<A/>",
+            "<A>x</A>trailing",
+            "<A>&nbsp;</A>",
+            "<A>&#0;</A>",
+            "<A>\u0001</A>",
+            "<A b=\"<\"/>",
+            "<A b=1/>",
+            "<A b=\"1\"c=\"2\"/>",
+            "<!DOCTYPE A><A/>",
+            "<p:A/>",
+            "<A x:b=\"1\"/>",
+            "<A><!-- a -- b --></A>",
+            "<A><![CDATA[x</A>",
+            "<A>]]></A>",
+            "<A",
+            "")) {
+            assertThrows(SAXParseException.class, () -> XmlTokenIndex.build(xml), xml);
+            assertInstanceOf(ParseOutcome.Rejected.class, domParser.tryParse(xml), xml);
+        }
+    }
+
+    @Test
+    void testReportsLineAndColumn() {
+        SAXParseException exception = assertThrows(SAXParseException.class,
+            () -> XmlTokenIndex.build("<A>\n  <B>\n</A>"));
+
+        assertEquals(3, exception.getLineNumber());
+        assertTrue(exception.getMessage().contains("</B>"), exception.getMessage());
+    }
+}
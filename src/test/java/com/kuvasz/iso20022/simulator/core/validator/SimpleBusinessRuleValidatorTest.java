@@ -13,7 +13,11 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -226,6 +230,18 @@ class SimpleBusinessRuleValidatorTest {
         assertTrue(exception.getMessage().contains("Documento XML no disponible"));
     }
 
+    @Test
+    void testCheckReturnsAbortedOutcomeForMissingDocument() {
+        MessageContext context = new MessageContext();
+        context.setMessageType("pacs.008.001.08");
+
+        ValidationOutcome outcome = validator.check(context);
+
+        ValidationOutcome.Aborted aborted = assertInstanceOf(ValidationOutcome.Aborted.class, outcome);
+        assertEquals(ValidationException.ERROR_CODE, aborted.errorCode());
+        assertTrue(aborted.message().contains("Documento XML no disponible"));
+    }
+
     @Test
     void testValidatePaymentInstruction() throws Exception {
         String xmlWithoutPaymentInfo = """
@@ -249,6 +265,40 @@ class SimpleBusinessRuleValidatorTest {
         assertTrue(errors.stream().anyMatch(e -> e.getField() != null && e.getField().equals("PmtInf")));
     }
 
+    @Test
+    void testConcurrentValidationGivesConsistentResults() throws Exception {
+        // El validador es un singleton: varios hilos evalúan las mismas reglas a la vez
+        String validXml = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+                <FIToFICstmrCdtTrf>
+                    <GrpHdr><MsgId>MSG1</MsgId></GrpHdr>
+                    <CdtTrfTxInf><InstdAmt Ccy="EUR">10.00</InstdAmt><PmtInf/></CdtTrfTxInf>
+                </FIToFICstmrCdtTrf>
+            </Document>
+            """;
+        String invalidXml = validXml.replace("EUR", "XXX").replace("10.00", "-1");
+        int expectedValid = validator.validate(createMessageContext(validXml, "pacs.008.001.08")).size();
+        int expectedInvalid = validator.validate(createMessageContext(invalidXml, "pacs.008.001.08")).size();
+        assertTrue(expectedInvalid > expectedValid);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                boolean valid = i % 2 == 0;
+                MessageContext context = createMessageContext(valid ? validXml : invalidXml, "pacs.008.001.08");
+                results.add(executor.submit(() ->
+                    validator.validate(context).size() == (valid ? expectedValid : expectedInvalid)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private MessageContext createMessageContext(String xmlContent, String messageType) throws Exception {
         MessageContext context = new MessageContext();
         context.setMessageId("TEST123");
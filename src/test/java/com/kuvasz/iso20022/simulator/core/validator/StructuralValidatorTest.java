@@ -115,6 +115,25 @@ class StructuralValidatorTest {
         assertTrue(exception.getMessage().contains("Document is required for structural validation"));
     }
 
+    @Test
+    void testCheckReturnsAbortedOutcomeForMissingDocument() {
+        MessageContext context = new MessageContext();
+        context.setMessageType("pacs.008.001.08");
+
+        ValidationOutcome outcome = validator.check(context);
+
+        ValidationOutcome.Aborted aborted = assertInstanceOf(ValidationOutcome.Aborted.class, outcome);
+        assertEquals(ValidationException.ERROR_CODE, aborted.errorCode());
+        assertTrue(outcome.errors().isEmpty());
+    }
+
+    @Test
+    void testExpectedValidationExceptionHasNoStackTrace() {
+        ValidationException exception = assertThrows(ValidationException.class, () -> validator.validate(null));
+
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
     @Test
     void testValidateWithUnsupportedMessageType() throws Exception {
         String validXML = """
@@ -0,0 +1,63 @@
+package com.kuvasz.iso20022.simulator.corpus;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFilesLayoutWritesOneFilePerMessageAndManifest() throws Exception {
+        SimulatorProperties.Corpus config = config();
+        SyntheticMessageGenerator generator = new SyntheticMessageGenerator(config);
+
+        CorpusWriter.Summary summary = CorpusWriter.write(generator, 1200, directory, SimulatorProperties.Corpus.Layout.FILES);
+
+        assertEquals(1200, summary.messages());
+        assertEquals(120, summary.invalid());
+        assertEquals(generator.message(0), Files.readString(directory.resolve("00000/000000000.xml")));
+        assertEquals(generator.message(1199), Files.readString(directory.resolve("00001/000001199.xml")));
+
+        List<String> manifest = Files.readAllLines(directory.resolve(CorpusWriter.MANIFEST_FILE));
+        assertEquals(1201, manifest.size());
+        assertTrue(manifest.get(1).startsWith("0,00000/000000000.xml,SYN-0,"));
+        long bytes = manifest.stream().skip(1).mapToLong(line -> Long.parseLong(line.split(",")[5])).sum();
+        assertEquals(summary.bytes(), bytes);
+    }
+
+    @Test
+    void testLinesLayoutWritesOneCompactMessagePerLine() throws Exception {
+        SimulatorProperties.Corpus config = config();
+        SyntheticMessageGenerator generator = new SyntheticMessageGenerator(config, "SYN", true);
+
+        CorpusWriter.Summary summary = CorpusWriter.write(generator, 300, directory, SimulatorProperties.Corpus.Layout.LINES);
+
+        List<String> lines = Files.readAllLines(directory.resolve(CorpusWriter.LINES_FILE), StandardCharsets.UTF_8);
+        assertEquals(300, lines.size());
+        assertEquals(generator.message(123), lines.get(123));
+        assertEquals(summary.bytes() + 300, Files.size(directory.resolve(CorpusWriter.LINES_FILE)));
+        assertTrue(Files.readAllLines(directory.resolve(CorpusWriter.MANIFEST_FILE)).get(124)
+            .startsWith("123,corpus.ndxml:124,"));
+
+        assertThrows(IllegalArgumentException.class, () -> CorpusWriter.write(new SyntheticMessageGenerator(config),
+            1, directory, SimulatorProperties.Corpus.Layout.LINES));
+    }
+
+    private static SimulatorProperties.Corpus config() {
+        SimulatorProperties.Corpus config = new SimulatorProperties.Corpus();
+        config.setMessageTypes(List.of("pacs.008", "pain.001", "pacs.004", "camt.053"));
+        config.setMaxTransactions(3);
+        config.setErrorRate(0.1);
+        return config;
+    }
+}
@@ -0,0 +1,167 @@
+package com.kuvasz.iso20022.simulator.corpus;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
+import com.kuvasz.iso20022.simulator.core.validator.BusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.core.validator.SimpleBusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.exception.ParsingException;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticMessageGeneratorTest {
+
+    private static final List<String> ALL_TYPES = List.of("pacs.008", "pain.001", "pacs.004", "camt.053");
+
+    private final GenericXMLParser parser = new GenericXMLParser();
+    private final SimpleBusinessRuleValidator simpleRules = new SimpleBusinessRuleValidator();
+    private final BusinessRuleValidator businessRules = new BusinessRuleValidator();
+
+    @Test
+    void testSameSeedGivesSameCorpus() {
+        SimulatorProperties.Corpus config = config(ALL_TYPES);
+        config.setErrorRate(0.3);
+        SyntheticMessageGenerator first = new SyntheticMessageGenerator(config);
+        SyntheticMessageGenerator second = new SyntheticMessageGenerator(config);
+
+        for (long sequence = 0; sequence < 50; sequence++) {
+            assertEquals(first.generate(sequence), second.generate(sequence));
+        }
+        // Acceso aleatorio: el mensaje no depende de los generados antes
+        assertEquals(first.message(7), new SyntheticMessageGenerator(config).message(7));
+
+        config.setSeed(config.getSeed() + 1);
+        assertNotEquals(first.message(7), new SyntheticMessageGenerator(config).message(7));
+    }
+
+    @Test
+    void testValidMessagesPassParserAndBothRuleValidators() throws Exception {
+        SimulatorProperties.Corpus config = config(ALL_TYPES);
+        config.setMinTransactions(1);
+        config.setMaxTransactions(5);
+        config.setRemittanceLength(140);
+        SyntheticMessageGenerator generator = new SyntheticMessageGenerator(config);
+        Set<SyntheticMessageType> seen = EnumSet.noneOf(SyntheticMessageType.class);
+
+        for (long sequence = 0; sequence < 80; sequence++) {
+            SyntheticMessage message = generator.generate(sequence);
+            assertTrue(message.valid());
+            MessageContext context = parser.parse(message.xml());
+            assertEquals(message.messageType(), context.getMessageType());
+            assertEquals(message.messageId(), context.getMessageId());
+            assertEquals(List.of(), simpleRules.validate(context), message.xml());
+            assertEquals(List.of(), businessRules.validate(context), message.xml());
+            assertTrue(message.transactions() >= 1 && message.transactions() <= 5);
+            seen.add(SyntheticMessageType.of(message.messageType()));
+        }
+        assertEquals(EnumSet.allOf(SyntheticMessageType.class), seen);
+    }
+
+    @Test
+    void testEachDefectIsRejectedWhereDocumented() throws Exception {
+        for (String type : ALL_TYPES) {
+            for (Defect defect : Defect.values()) {
+                SimulatorProperties.Corpus config = config(List.of(type));
+                config.setMaxTransactions(4);
+                config.setErrorRate(1.0);
+                config.setDefects(List.of(defect));
+                SyntheticMessageGenerator generator = new SyntheticMessageGenerator(config);
+
+                for (long sequence = 0; sequence < 3; sequence++) {
+                    SyntheticMessage message = generator.generate(sequence);
+                    assertEquals(defect, message.defect());
+                    if (defect == Defect.MALFORMED) {
+                        assertThrows(ParsingException.class, () -> parser.parse(message.xml()));
+                        continue;
+                    }
+                    MessageContext context = parser.parse(message.xml());
+                    assertFalse(businessRules.validate(context).isEmpty(), defect + " not detected in " + type);
+                    if (defect != Defect.CREATION_DATE) {
+                        assertFalse(simpleRules.validate(context).isEmpty(), defect + " not detected in " + type);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testErrorRateIsExactAndSpread() {
+        SimulatorProperties.Corpus config = config(ALL_TYPES);
+        config.setErrorRate(0.05);
+        SyntheticMessageGenerator generator = new SyntheticMessageGenerator(config);
+
+        long invalid = 0;
+        for (long sequence = 0; sequence < 1000; sequence++) {
+            if (!generator.generate(sequence).valid()) {
+                invalid++;
+            }
+        }
+        assertEquals(50, invalid);
+        assertEquals(1, LongStream.range(0, 20).filter(generator::isInvalid).count());
+    }
+
+    @Test
+    void testTargetSizeNamespaceVersionsAndStringLengths() {
+        SimulatorProperties.Corpus config = config(List.of("pacs.008"));
+        config.setNamespaceVersions(List.of("pacs.008.001.10"));
+        config.setTargetSize(DataSize.ofKilobytes(100));
+        config.setMinNameLength(20);
+        config.setMaxNameLength(20);
+        SyntheticMessage message = new SyntheticMessageGenerator(config).generate(0);
+
+        assertEquals("pacs.008.001.10", message.messageType());
+        assertTrue(message.xml().contains("urn:iso:std:iso:20022:tech:xsd:pacs.008.001.10"));
+        assertTrue(message.xml().length() >= 100 * 1024 - 512, "size " + message.xml().length());
+        assertTrue(message.xml().length() < 110 * 1024, "size " + message.xml().length());
+        assertTrue(message.transactions() > 50);
+        Matcher names = Pattern.compile("<Nm>([^<]*)</Nm>").matcher(message.xml());
+        int count = 0;
+        while (names.find()) {
+            assertEquals(20, names.group(1).length());
+            assertEquals(names.group(1).trim(), names.group(1));
+            count++;
+        }
+        assertEquals(2 * message.transactions(), count);
+    }
+
+    @Test
+    void testCompactMessagesHaveNoLineBreaks() throws Exception {
+        SimulatorProperties.Corpus config = config(ALL_TYPES);
+        SyntheticMessageGenerator generator = new SyntheticMessageGenerator(config, "LOAD-1", true);
+
+        for (long sequence = 0; sequence < 8; sequence++) {
+            SyntheticMessage message = generator.generate(sequence);
+            assertFalse(message.xml().contains("\n"));
+            assertEquals("LOAD-1-" + sequence, parser.parse(message.xml()).getMessageId());
+        }
+    }
+
+    @Test
+    void testRejectsInconsistentConfiguration() {
+        SimulatorProperties.Corpus config = config(List.of("pacs.009"));
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticMessageGenerator(config));
+
+        SimulatorProperties.Corpus transactions = config(ALL_TYPES);
+        transactions.setMinTransactions(3);
+        transactions.setMaxTransactions(2);
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticMessageGenerator(transactions));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> new SyntheticMessageGenerator(config(ALL_TYPES), "bad prefix", false));
+    }
+
+    private static SimulatorProperties.Corpus config(List<String> types) {
+        SimulatorProperties.Corpus config = new SimulatorProperties.Corpus();
+        config.setMessageTypes(types);
+        return config;
+    }
+}
@@ -0,0 +1,240 @@
+package com.kuvasz.iso20022.simulator.export;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.unit.DataSize;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para TransactionExportService contra H2 en memoria
+ */
+class TransactionExportServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 15);
+
+    private JdbcTemplate jdbcTemplate;
+    private SimulatorProperties properties;
+    private MeterRegistry meterRegistry;
+    private TransactionExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:export-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        properties = new SimulatorProperties();
+        properties.getExport().setFetchSize(50);
+        meterRegistry = new SimpleMeterRegistry();
+        exportService = new TransactionExportService(dataSource, properties, meterRegistry);
+    }
+
+    @Test
+    void testCsvExportFiltersByDayAndQuotesFields() throws Exception {
+        insert("TX-1", "pacs.008.001.08", "Bank, Inc.", "100.00", "SUCCESS", DAY.atTime(10, 0));
+        insert("TX-2", "pacs.008.001.08", "Say \"hi\"", "5.50", "VALIDATION_FAILED", DAY.atTime(23, 59));
+        insert("TX-3", "pacs.008.001.08", "Other day", "1.00", "SUCCESS", DAY.plusDays(1).atStartOfDay());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ExportSummary summary = exportService.exportTo(ExportRequest.forDay(ExportFormat.CSV, DAY, null), output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(3, lines.size());
+        assertEquals(CsvExportWriter.HEADER, lines.get(0));
+        assertTrue(lines.get(1).startsWith("TX-1,pacs.008.001.08,\"Bank, Inc.\",RECEIVER,100.00,EUR,SUCCESS,"));
+        assertTrue(lines.get(2).contains("\"Say \"\"hi\"\"\""));
+        assertEquals(2, summary.getRows());
+        assertEquals(output.size(), summary.getBytes());
+        assertEquals(2.0, meterRegistry.get("simulator.export.rows").tag("format", "csv").counter().count());
+    }
+
+    @Test
+    void testCamt053ExportIsWellFormedWithSummary() throws Exception {
+        insert("TX-1", "pacs.008.001.08", "Alice", "100.00", "SUCCESS", DAY.atTime(9, 0));
+        insert("TX-2", "pain.001.001.09", "Bob & Co", "50.25", "VALIDATION_FAILED", DAY.atTime(9, 5));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportTo(ExportRequest.forDay(ExportFormat.CAMT_053, DAY, null), output);
+
+        Document document = parse(output.toByteArray());
+        assertEquals("urn:iso:std:iso:20022:tech:xsd:camt.053.001.08", document.getDocumentElement().getNamespaceURI());
+        assertEquals(1, document.getElementsByTagName("Stmt").getLength());
+        assertEquals(2, document.getElementsByTagName("Ntry").getLength());
+        // El resumen solo cuenta los apuntes contabilizados; el rechazado queda como INFO
+        assertEquals("1", document.getElementsByTagName("NbOfNtries").item(0).getTextContent());
+        assertEquals(0, new BigDecimal("100.00").compareTo(
+            new BigDecimal(document.getElementsByTagName("Sum").item(0).getTextContent())));
+        assertEquals("CRDT", document.getElementsByTagName("CdtDbtInd").item(0).getTextContent());
+        assertEquals("DBIT", document.getElementsByTagName("CdtDbtInd").item(1).getTextContent());
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("Bob &amp; Co"));
+    }
+
+    @Test
+    void testSummaryIsGroupedByCurrency() throws Exception {
+        insert("TX-1", "pacs.008.001.08", "Alice", "100.00", "EUR", "SUCCESS", DAY.atTime(9, 0));
+        insert("TX-2", "pacs.008.001.08", "Bob", "20.00", "EUR", "WARNING", DAY.atTime(9, 1));
+        insert("TX-3", "pacs.008.001.08", "Carol", "70.00", "USD", "SUCCESS", DAY.atTime(9, 2));
+        insert("TX-4", "pacs.008.001.08", "Dave", "999.00", "USD", "VALIDATION_FAILED", DAY.atTime(9, 3));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ExportSummary summary = exportService.exportTo(ExportRequest.forDay(ExportFormat.CAMT_053, DAY, null), output);
+
+        assertEquals(Map.of("EUR", new BigDecimal("120.00"), "USD", new BigDecimal("70.00")),
+            summary.getSumByCurrency().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().setScale(2))));
+        Document document = parse(output.toByteArray());
+        assertEquals(4, document.getElementsByTagName("Ntry").getLength());
+        assertEquals("3", document.getElementsByTagName("NbOfNtries").item(0).getTextContent());
+        // Sum no lleva divisa: con varias divisas se omite en lugar de mezclar importes
+        assertEquals(0, document.getElementsByTagName("Sum").getLength());
+    }
+
+    @Test
+    void testCamt052ExportWithStatusFilter() throws Exception {
+        insert("TX-1", "pacs.008.001.08", "Alice", "100.00", "SUCCESS", DAY.atTime(9, 0));
+        insert("TX-2", "pacs.008.001.08", "Bob", "50.00", "VALIDATION_FAILED", DAY.atTime(9, 5));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportTo(ExportRequest.forDay(ExportFormat.CAMT_052, DAY, "SUCCESS"), output);
+
+        Document document = parse(output.toByteArray());
+        assertEquals(1, document.getElementsByTagName("BkToCstmrAcctRpt").getLength());
+        assertEquals(1, document.getElementsByTagName("Ntry").getLength());
+        assertEquals("BOOK", document.getElementsByTagName("Cd").item(0).getTextContent());
+    }
+
+    @Test
+    void testStreamEmitsBoundedChunks() {
+        for (int i = 0; i < 2000; i++) {
+            insert("TX-" + i, "pacs.008.001.08", "Sender " + i, "1.00", "SUCCESS", DAY.atTime(12, 0));
+        }
+        properties.getExport().setChunkSize(DataSize.ofKilobytes(8));
+
+        List<DataBuffer> chunks = exportService.stream(ExportRequest.forDay(ExportFormat.CAMT_053, DAY, null),
+            DefaultDataBufferFactory.sharedInstance).collectList().block();
+
+        assertNotNull(chunks);
+        assertTrue(chunks.size() > 10, "expected many chunks, got " + chunks.size());
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (DataBuffer chunk : chunks) {
+            // Cada chunk se corta en cuanto supera chunk-size más, como mucho, unas pocas filas
+            assertTrue(chunk.readableByteCount() < 8 * 1024 + 64 * 1024);
+            byte[] bytes = new byte[chunk.readableByteCount()];
+            chunk.read(bytes);
+            joined.writeBytes(bytes);
+            DataBufferUtils.release(chunk);
+        }
+        assertEquals(2000, parse(joined.toByteArray()).getElementsByTagName("Ntry").getLength());
+        assertEquals(2000.0, meterRegistry.get("simulator.export.rows").tag("format", "camt053").counter().count());
+        assertEquals(1, meterRegistry.get("simulator.export.duration").tag("outcome", "completed").timer().count());
+        assertEquals(0.0, meterRegistry.get("simulator.export.active").gauge().value());
+    }
+
+    @Test
+    void testStreamCancellationReleasesCursor() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            insert("TX-" + i, "pacs.008.001.08", "Sender " + i, "1.00", "SUCCESS", DAY.atTime(12, 0));
+        }
+        properties.getExport().setChunkSize(DataSize.ofKilobytes(1));
+
+        exportService.stream(ExportRequest.forDay(ExportFormat.CSV, DAY, null), DefaultDataBufferFactory.sharedInstance)
+            .take(2)
+            .doOnNext(DataBufferUtils::release)
+            .blockLast();
+
+        // La limpieza tras la cancelación corre en el hilo del generador
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("simulator.export.active").gauge().value() > 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0.0, meterRegistry.get("simulator.export.active").gauge().value());
+        assertEquals(1, meterRegistry.get("simulator.export.duration").tag("outcome", "failed").timer().count());
+    }
+
+    @Test
+    void testExportToFileIsAtomic(@TempDir Path directory) throws Exception {
+        insert("TX-1", "pacs.008.001.08", "Alice", "100.00", "SUCCESS", DAY.atTime(9, 0));
+        properties.getExport().setDirectory(directory.toString());
+
+        Path file = exportService.exportToFile(ExportRequest.forDay(ExportFormat.CSV, DAY, null));
+
+        assertEquals("transactions-csv-2024-01-15.csv", file.getFileName().toString());
+        assertEquals(2, Files.readAllLines(file).size());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    void testFileNameReflectsRangeAndStatus() {
+        assertEquals("transactions-camt053-2024-01-15.xml",
+            ExportRequest.forDay(ExportFormat.CAMT_053, DAY, " ").getFileName());
+        assertEquals("transactions-csv-2024-01-15-RJCT.csv",
+            ExportRequest.forDay(ExportFormat.CSV, DAY, "RJCT").getFileName());
+        assertEquals("transactions-csv-20240115T090000_20240115T120000.csv",
+            new ExportRequest(ExportFormat.CSV, DAY.atTime(9, 0), DAY.atTime(12, 0), null).getFileName());
+        assertEquals("transactions-csv-20240115T000000_20240117T000000-___x.csv",
+            new ExportRequest(ExportFormat.CSV, DAY.atStartOfDay(), DAY.plusDays(2).atStartOfDay(), "../x")
+                .getFileName());
+    }
+
+    @Test
+    void testFormatParameterParsing() {
+        assertEquals(ExportFormat.CAMT_053, ExportFormat.fromParameter("camt.053"));
+        assertEquals(ExportFormat.CAMT_052, ExportFormat.fromParameter("camt052"));
+        assertEquals(ExportFormat.CSV, ExportFormat.fromParameter(null));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.fromParameter("pdf"));
+    }
+
+    private void insert(String id, String type, String sender, String amount, String status, LocalDateTime createdAt) {
+        insert(id, type, sender, amount, "EUR", status, createdAt);
+    }
+
+    private void insert(String id, String type, String sender, String amount, String currency, String status,
+                        LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, message_type, sender, receiver, amount, "
+                + "currency, status, created_at) VALUES (?, ?, ?, 'RECEIVER', ?, ?, ?, ?)",
+            id, type, sender, new BigDecimal(amount), currency, status, Timestamp.valueOf(createdAt));
+    }
+
+    private static Document parse(byte[] xml) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+        } catch (Exception e) {
+            throw new AssertionError("Export is not well-formed XML: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.kuvasz.iso20022.simulator.integration;
 
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
 import com.kuvasz.iso20022.simulator.core.generator.ISO20022ResponseGenerator;
 import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
 import com.kuvasz.iso20022.simulator.core.validator.SimpleBusinessRuleValidator;
 import com.kuvasz.iso20022.simulator.core.validator.StructuralValidator;
+import com.kuvasz.iso20022.simulator.corpus.Defect;
+import com.kuvasz.iso20022.simulator.corpus.SyntheticMessage;
+import com.kuvasz.iso20022.simulator.corpus.SyntheticMessageGenerator;
 import com.kuvasz.iso20022.simulator.model.MessageContext;
 import com.kuvasz.iso20022.simulator.model.ProcessingResult;
 import com.kuvasz.iso20022.simulator.model.ValidationError;
@@ -272,6 +276,41 @@ class ISO20022ProcessingIntegrationTest {
         }
     }
 
+    @Test
+    void testCompleteProcessingFlowWithSyntheticCorpus() throws Exception {
+        SimulatorProperties.Corpus corpus = new SimulatorProperties.Corpus();
+        corpus.setMessageTypes(List.of("pacs.008", "pain.001", "pacs.004", "camt.053"));
+        corpus.setMaxTransactions(10);
+        corpus.setRemittanceLength(70);
+        corpus.setErrorRate(0.25);
+        corpus.setDefects(List.of(Defect.BIC, Defect.CURRENCY, Defect.AMOUNT, Defect.MESSAGE_ID));
+        SyntheticMessageGenerator generator = new SyntheticMessageGenerator(corpus);
+
+        int rejected = 0;
+        for (long sequence = 0; sequence < 40; sequence++) {
+            SyntheticMessage message = generator.generate(sequence);
+            MessageContext context = parser.parse(message.xml());
+            assertEquals(message.messageType(), context.getMessageType());
+
+            List<ValidationError> structuralErrors = structuralValidator.validate(context);
+            List<ValidationError> businessErrors = businessRuleValidator.validate(context);
+            ProcessingResult result = createProcessingResult(context, structuralErrors, businessErrors);
+            assertEquals(message.valid(), result.getStatus() == ProcessingResult.Status.SUCCESS,
+                "sequence " + sequence + " defect " + message.defect() + ": " + businessErrors);
+            if (!message.valid()) {
+                rejected++;
+            }
+
+            String response = responseGenerator.generateResponse(context, result);
+            assertNotNull(response);
+            // Los informes de estado pacs.002 y pain.002 llevan el estado de grupo
+            if (message.messageType().startsWith("pacs.008") || message.messageType().startsWith("pain.001")) {
+                assertTrue(response.contains(message.valid() ? "ACCP" : "RJCT"), response);
+            }
+        }
+        assertEquals(10, rejected);
+    }
+
     private ProcessingResult createProcessingResult(MessageContext context, 
                                                    List<ValidationError> structuralErrors, 
                                                    List<ValidationError> businessErrors) {
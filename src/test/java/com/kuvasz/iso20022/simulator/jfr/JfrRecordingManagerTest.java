@@ -0,0 +1,191 @@
+package com.kuvasz.iso20022.simulator.jfr;
+
+import com.kuvasz.iso20022.simulator.audit.AuditPipeline;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.core.generator.ISO20022ResponseGenerator;
+import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
+import com.kuvasz.iso20022.simulator.core.validator.SimpleBusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.core.validator.StructuralValidator;
+import com.kuvasz.iso20022.simulator.journal.MessageJournal;
+import com.kuvasz.iso20022.simulator.ledger.SettlementLedger;
+import com.kuvasz.iso20022.simulator.metrics.PipelineMetrics;
+import com.kuvasz.iso20022.simulator.persistence.TransactionPersistence;
+import com.kuvasz.iso20022.simulator.service.MessageProcessingService;
+import com.kuvasz.iso20022.simulator.status.StatusInquiryHandler;
+import com.kuvasz.iso20022.simulator.status.TransactionStatusStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para JfrRecordingManager y los eventos JFR del pipeline
+ */
+class JfrRecordingManagerTest {
+
+    private static final String VALID_PACS_008 = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+            <FIToFICstmrCdtTrf>
+                <GrpHdr>
+                    <MsgId>JFR123456789</MsgId>
+                    <CreDtTm>2024-01-15T10:30:00</CreDtTm>
+                </GrpHdr>
+                <CdtTrfTxInf>
+                    <InstdAmt Ccy="USD">1000.00</InstdAmt>
+                    <PmtInf>
+                        <PmtInfId>PMT123</PmtInfId>
+                    </PmtInf>
+                </CdtTrfTxInf>
+            </FIToFICstmrCdtTrf>
+        </Document>
+        """;
+
+    @TempDir
+    Path directory;
+
+    private SimulatorProperties properties;
+    private JfrRecordingManager manager;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SimulatorProperties();
+        properties.getJfr().setDirectory(directory.toString());
+        manager = new JfrRecordingManager(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.stop();
+    }
+
+    @Test
+    void testDumpContainsPipelineEvents() throws Exception {
+        JfrRecordingManager.RecordingInfo info = manager.startRecording("test", null, null);
+        assertEquals("RUNNING", info.state());
+
+        MessageProcessingService service = newService();
+        service.processMessage(VALID_PACS_008);
+        service.processMessage(VALID_PACS_008.replace("USD", "XYZ").replace("JFR123456789", "JFR2"));
+        service.processMessage("<Document><Unclosed></Document>");
+
+        Path dump = manager.dump(info.id());
+        assertTrue(dump.startsWith(directory));
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        List<RecordedEvent> stages = events.stream()
+            .filter(e -> e.getEventType().getName().equals(PipelineStageEvent.NAME)).toList();
+        Set<String> stageNames = stages.stream().map(e -> e.getString("stage")).collect(Collectors.toSet());
+        assertTrue(stageNames.containsAll(Set.of("parse", "structural", "business", "generate")), stageNames.toString());
+
+        RecordedEvent parse = stages.stream()
+            .filter(e -> e.getString("stage").equals("parse") && "JFR123456789".equals(e.getString("messageId")))
+            .findFirst().orElseThrow();
+        assertEquals("pacs.008.001.08", parse.getString("messageType"));
+        assertEquals(VALID_PACS_008.length(), parse.getLong("payloadSize"));
+        assertEquals("success", parse.getString("outcome"));
+
+        assertTrue(stages.stream().anyMatch(e -> e.getString("stage").equals("business")
+            && "JFR2".equals(e.getString("messageId")) && e.getInt("errorCount") > 0));
+        assertTrue(stages.stream().anyMatch(e -> e.getString("stage").equals("parse")
+            && e.getString("outcome").equals("error")));
+
+        List<String> statuses = events.stream()
+            .filter(e -> e.getEventType().getName().equals(MessageProcessedEvent.NAME))
+            .map(e -> e.getString("status")).toList();
+        assertEquals(3, statuses.size());
+        assertTrue(statuses.containsAll(List.of("SUCCESS", "VALIDATION_FAILED", "ERROR")), statuses.toString());
+    }
+
+    @Test
+    void testStopRemovesRecording() {
+        JfrRecordingManager.RecordingInfo info = manager.startRecording("to-stop", "default", null);
+        assertEquals(1, manager.listRecordings().size());
+
+        JfrRecordingManager.RecordingInfo stopped = manager.stopRecording(info.id());
+
+        assertEquals("STOPPED", stopped.state());
+        assertTrue(manager.listRecordings().isEmpty());
+        assertThrows(NoSuchElementException.class, () -> manager.stopRecording(info.id()));
+        assertThrows(NoSuchElementException.class, () -> manager.dump(info.id()));
+    }
+
+    @Test
+    void testContinuousRecordingStartsWithManager() throws Exception {
+        properties.getJfr().setContinuous(true);
+        manager.start();
+
+        List<JfrRecordingManager.RecordingInfo> recordings = manager.listRecordings();
+        assertEquals(1, recordings.size());
+        assertEquals(JfrRecordingManager.CONTINUOUS_NAME, recordings.get(0).name());
+        assertTrue(Files.size(manager.dump(recordings.get(0).id())) > 0);
+    }
+
+    @Test
+    void testStreamedDumpIsDeletedOnClose() throws Exception {
+        JfrRecordingManager.RecordingInfo info = manager.startRecording("streamed", null, null);
+
+        byte[] content;
+        try (InputStream dump = manager.openDump(info.id())) {
+            content = dump.readAllBytes();
+        }
+
+        assertEquals("FLR", new String(content, 0, 3, StandardCharsets.US_ASCII));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testRecordingNamesCannotEscapeTheDirectory() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> manager.startRecording("../../etc/evil", null, null));
+        assertThrows(IllegalArgumentException.class, () -> manager.startRecording("a/b", null, null));
+        assertTrue(manager.listRecordings().isEmpty());
+
+        JfrRecordingManager.RecordingInfo info = manager.startRecording("nightly-1.0_x", null, null);
+        Path dump = manager.dump(info.id());
+        assertEquals(directory, dump.getParent());
+        assertTrue(dump.getFileName().toString().startsWith("recording-" + info.id() + "-"));
+    }
+
+    @Test
+    void testUnknownSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> manager.startRecording(null, "no-such-settings", null));
+        assertTrue(manager.listRecordings().isEmpty());
+    }
+
+    private MessageProcessingService newService() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TransactionStatusStore statusStore = new TransactionStatusStore(properties, meterRegistry);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("statusStore", statusStore);
+        beanFactory.addBean("statusInquiryHandler", new StatusInquiryHandler(statusStore));
+
+        return new MessageProcessingService(
+            new GenericXMLParser(),
+            List.of(new StructuralValidator(), new SimpleBusinessRuleValidator()),
+            new ISO20022ResponseGenerator(),
+            new StaticListableBeanFactory().getBeanProvider(TransactionPersistence.class),
+            new StaticListableBeanFactory().getBeanProvider(MessageJournal.class),
+            new StaticListableBeanFactory().getBeanProvider(SettlementLedger.class),
+            beanFactory.getBeanProvider(TransactionStatusStore.class),
+            beanFactory.getBeanProvider(StatusInquiryHandler.class),
+            new StaticListableBeanFactory().getBeanProvider(AuditPipeline.class),
+            new PipelineMetrics(meterRegistry, properties));
+    }
+}
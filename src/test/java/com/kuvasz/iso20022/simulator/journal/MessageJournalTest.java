@@ -0,0 +1,260 @@
+package com.kuvasz.iso20022.simulator.journal;
+
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties.Journal.FsyncPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para MessageJournal
+ */
+class MessageJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private MessageJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void testAppendAndFindByMessageId() throws Exception {
+        journal = open(DataSize.ofMegabytes(1), FsyncPolicy.NONE);
+
+        journal.append(record("MSG-1", "<Document>one</Document>")).get();
+        journal.append(record("MSG-2", "<Document>two</Document>")).get();
+
+        Optional<JournalRecord> found = journal.findByMessageId("MSG-2");
+        assertTrue(found.isPresent());
+        assertEquals("pacs.008.001.08", found.get().getMessageType());
+        assertEquals("SUCCESS", found.get().getStatus());
+        assertEquals("<Document>two</Document>", found.get().getOriginalMessageAsString());
+        assertEquals("<Ack>MSG-2</Ack>", found.get().getResponseAsString());
+        assertTrue(journal.findByMessageId("MSG-3").isEmpty());
+    }
+
+    @Test
+    void testSegmentsRollWhenFull() throws Exception {
+        journal = open(DataSize.ofKilobytes(4), FsyncPolicy.NONE);
+
+        String payload = "x".repeat(1000);
+        for (int i = 0; i < 10; i++) {
+            journal.append(record("ROLL-" + i, payload)).get();
+        }
+
+        assertTrue(journal.getSegmentCount() > 1);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(journal.findByMessageId("ROLL-" + i).isPresent(), "ROLL-" + i);
+        }
+    }
+
+    @Test
+    void testRetentionRetiresOldestSegmentsAndTheirIndexEntries() throws Exception {
+        journal = open(DataSize.ofKilobytes(4), FsyncPolicy.NONE, false, 2);
+
+        String payload = "x".repeat(1000);
+        for (int i = 0; i < 20; i++) {
+            journal.append(record("KEEP-" + i, payload)).get();
+        }
+
+        assertEquals(2, journal.getSegmentCount());
+        assertTrue(journal.findByMessageId("KEEP-0").isEmpty());
+        assertTrue(journal.findByMessageId("KEEP-19").isPresent());
+        assertTrue(journal.getIndexedMessageCount() < 20);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+
+        // Al reabrir, la secuencia de segmentos ya no empieza en 0
+        int indexed = journal.getIndexedMessageCount();
+        journal.close();
+        journal = open(DataSize.ofKilobytes(4), FsyncPolicy.NONE, false, 2);
+        assertEquals(indexed, journal.getIndexedMessageCount());
+        journal.append(record("KEEP-20", payload)).get();
+        assertTrue(journal.findByMessageId("KEEP-20").isPresent());
+    }
+
+    @Test
+    void testRetirementKeepsEntriesRewrittenInLaterSegments() throws Exception {
+        journal = open(DataSize.ofKilobytes(4), FsyncPolicy.NONE, false, 2);
+
+        String payload = "x".repeat(1000);
+        journal.append(record("REWRITTEN", payload)).get();
+        journal.append(record("OLD", payload)).get();
+        for (int i = 0; i < 6; i++) {
+            journal.append(record("FILL-" + i, payload)).get();
+        }
+        journal.append(record("REWRITTEN", "second")).get();
+        for (int i = 6; i < 9; i++) {
+            journal.append(record("FILL-" + i, payload)).get();
+        }
+
+        // El primer segmento ya está retirado: OLD desaparece, REWRITTEN apunta a su copia nueva
+        assertTrue(journal.findByMessageId("OLD").isEmpty());
+        assertEquals("second", new String(journal.findByMessageId("REWRITTEN").orElseThrow().getOriginalMessage(),
+            StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testRecordLargerThanSegmentIsRejected() {
+        journal = open(DataSize.ofKilobytes(4), FsyncPolicy.NONE);
+
+        CompletableFuture<Void> append = journal.append(record("BIG", "x".repeat(8192)));
+
+        ExecutionException e = assertThrows(ExecutionException.class, append::get);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    void testReopenRebuildsIndexAndReplaysInOrder() throws Exception {
+        journal = open(DataSize.ofKilobytes(4), FsyncPolicy.ALWAYS);
+        for (int i = 0; i < 8; i++) {
+            journal.append(record("REPLAY-" + i, "y".repeat(700))).get();
+        }
+        journal.close();
+
+        journal = open(DataSize.ofKilobytes(4), FsyncPolicy.ALWAYS);
+
+        assertEquals(8, journal.getIndexedMessageCount());
+        List<String> replayed = new ArrayList<>();
+        journal.replay(record -> replayed.add(record.getMessageId()));
+        assertEquals(List.of("REPLAY-0", "REPLAY-1", "REPLAY-2", "REPLAY-3",
+            "REPLAY-4", "REPLAY-5", "REPLAY-6", "REPLAY-7"), replayed);
+
+        journal.append(record("REPLAY-8", "after reopen")).get();
+        assertEquals("after reopen", journal.findByMessageId("REPLAY-8").get().getOriginalMessageAsString());
+    }
+
+    @Test
+    void testRecoveryTruncatesCorruptTail() throws Exception {
+        journal = open(DataSize.ofKilobytes(64), FsyncPolicy.ALWAYS);
+        journal.append(record("OK-1", "first")).get();
+        journal.append(record("OK-2", "second")).get();
+        journal.close();
+
+        // Simula un registro a medio escribir: longitud presente pero cuerpo con CRC inválido
+        Path segment = directory.resolve("journal-0000000000.seg");
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long tail = findTail(file);
+            file.seek(tail);
+            file.writeInt(200);
+            file.writeInt(0xDEADBEEF);
+            file.write("garbage".getBytes(StandardCharsets.UTF_8));
+        }
+
+        journal = open(DataSize.ofKilobytes(64), FsyncPolicy.ALWAYS);
+
+        assertEquals(2, journal.getIndexedMessageCount());
+        journal.append(record("OK-3", "third")).get();
+        journal.close();
+
+        journal = open(DataSize.ofKilobytes(64), FsyncPolicy.ALWAYS);
+        List<String> replayed = new ArrayList<>();
+        journal.replay(record -> replayed.add(record.getMessageId()));
+        assertEquals(List.of("OK-1", "OK-2", "OK-3"), replayed);
+    }
+
+    @Test
+    void testGroupCommitCompletesPendingAppends() throws Exception {
+        journal = open(DataSize.ofMegabytes(1), FsyncPolicy.GROUP);
+
+        List<CompletableFuture<Void>> appends = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            appends.add(journal.append(record("GROUP-" + i, "payload-" + i)));
+        }
+
+        CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertEquals(50, journal.getIndexedMessageCount());
+    }
+
+    @Test
+    void testCompressedPayloadsAreTransparentOnRead() throws Exception {
+        journal = open(DataSize.ofMegabytes(1), FsyncPolicy.NONE, true);
+        String payload = "<Document>" + "<CdtTrfTxInf><Amt>1.00</Amt></CdtTrfTxInf>".repeat(50) + "</Document>";
+
+        journal.append(record("ZIP-1", payload)).get();
+
+        assertEquals(payload, journal.findByMessageId("ZIP-1").get().getOriginalMessageAsString());
+        List<String> replayed = new ArrayList<>();
+        journal.replay(record -> replayed.add(record.getOriginalMessageAsString()));
+        assertEquals(List.of(payload), replayed);
+    }
+
+    @Test
+    void testAppendAfterCloseFails() {
+        journal = open(DataSize.ofMegabytes(1), FsyncPolicy.NONE);
+        journal.close();
+
+        CompletableFuture<Void> append = journal.append(record("LATE", "late"));
+
+        assertTrue(append.isCompletedExceptionally());
+        journal = null;
+    }
+
+    private MessageJournal open(DataSize segmentSize, FsyncPolicy policy) {
+        return open(segmentSize, policy, false);
+    }
+
+    private MessageJournal open(DataSize segmentSize, FsyncPolicy policy, boolean compress) {
+        return open(segmentSize, policy, compress, 16);
+    }
+
+    private MessageJournal open(DataSize segmentSize, FsyncPolicy policy, boolean compress, int maxSegments) {
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.getJournal().setMaxSegments(maxSegments);
+        properties.getCodec().setEnabled(compress);
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getJournal().setSegmentSize(segmentSize);
+        properties.getJournal().setFsyncPolicy(policy);
+        MessageJournal opened = new MessageJournal(properties, new PayloadCodec(properties),
+            new SimpleMeterRegistry());
+        try {
+            opened.open();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return opened;
+    }
+
+    private static JournalRecord record(String messageId, String payload) {
+        return new JournalRecord(messageId, "pacs.008.001.08", "SUCCESS", System.currentTimeMillis(), 3,
+            payload.getBytes(StandardCharsets.UTF_8),
+            ("<Ack>" + messageId + "</Ack>").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long findTail(RandomAccessFile file) throws IOException {
+        long position = JournalSegment.HEADER_SIZE;
+        while (true) {
+            file.seek(position);
+            int length = file.readInt();
+            if (length == 0) {
+                return position;
+            }
+            position += JournalSegment.RECORD_HEADER_SIZE + length;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.kuvasz.iso20022.simulator.ledger;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SettlementLedger contra H2 en memoria
+ */
+class SettlementLedgerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimulatorProperties properties;
+    private MeterRegistry meterRegistry;
+    private SettlementLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:ledger-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        insertAccount("HOT", "1000.00", "EUR", "ACTIVE");
+        insertAccount("COLD", "0.00", "EUR", "ACTIVE");
+        insertAccount("SMALL", "100.00", "EUR", "ACTIVE");
+        insertAccount("USD-1", "500.00", "USD", "ACTIVE");
+        insertAccount("BLOCKED", "500.00", "EUR", "BLOCKED");
+
+        properties = new SimulatorProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        ledger = new SettlementLedger(dataSource, properties, meterRegistry);
+        ledger.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledger.stop();
+    }
+
+    @Test
+    void testTransferMovesFunds() {
+        SettlementResult result = ledger.transfer("HOT", "COLD", new BigDecimal("250.50"), "EUR");
+
+        assertEquals(SettlementResult.Outcome.SETTLED, result.getOutcome());
+        assertEquals(new BigDecimal("749.50"), ledger.getBalance("HOT").orElseThrow());
+        assertEquals(new BigDecimal("250.50"), ledger.getBalance("COLD").orElseThrow());
+    }
+
+    @Test
+    void testInsufficientFundsIsRejectedWithAm04() {
+        SettlementResult result = ledger.transfer("COLD", "HOT", new BigDecimal("0.01"), "EUR");
+
+        assertTrue(result.isRejected());
+        assertEquals("AM04", result.getReasonCode());
+        assertEquals(new BigDecimal("0.00"), ledger.getBalance("COLD").orElseThrow());
+        assertEquals(1.0, meterRegistry.get("simulator.ledger.transfers")
+            .tag("outcome", "insufficient_funds").counter().count());
+    }
+
+    @Test
+    void testValidationRejections() {
+        assertEquals("AM03", ledger.transfer("HOT", "USD-1", BigDecimal.ONE, "EUR").getReasonCode());
+        assertEquals("AC06", ledger.transfer("HOT", "BLOCKED", BigDecimal.ONE, "EUR").getReasonCode());
+        assertEquals("AM12", ledger.transfer("HOT", "COLD", new BigDecimal("-5"), "EUR").getReasonCode());
+        assertEquals("AM12", ledger.transfer("HOT", "COLD", new BigDecimal("0.001"), "EUR").getReasonCode());
+    }
+
+    @Test
+    void testUnknownAccountsAreSkippedOrRejected() {
+        assertEquals(SettlementResult.Outcome.SKIPPED,
+            ledger.transfer("HOT", "NOPE", BigDecimal.ONE, "EUR").getOutcome());
+
+        properties.getLedger().setRejectUnknownAccounts(true);
+
+        assertEquals("AC01", ledger.transfer("HOT", "NOPE", BigDecimal.ONE, "EUR").getReasonCode());
+    }
+
+    @Test
+    void testSettleFromMessageContext() {
+        MessageContext context = new MessageContext("MSG-1", "pacs.008.001.08");
+        context.addProperty("debtorAccount", "HOT");
+        context.addProperty("creditorAccount", "COLD");
+        context.addProperty("amount", "100.00");
+        context.addProperty("currency", "EUR");
+
+        assertEquals(SettlementResult.Outcome.SETTLED, ledger.settle(context).getOutcome());
+        assertEquals(SettlementResult.Outcome.SKIPPED,
+            ledger.settle(new MessageContext("MSG-2", "pacs.008.001.08")).getOutcome());
+    }
+
+    @Test
+    void testFlushWritesBalanceDeltas() {
+        ledger.transfer("HOT", "COLD", new BigDecimal("100.00"), "EUR");
+        ledger.transfer("COLD", "HOT", new BigDecimal("40.00"), "EUR");
+
+        assertEquals(2, ledger.flush());
+        assertEquals(0, ledger.flush());
+
+        assertEquals(0, new BigDecimal("940.00").compareTo(balanceInDb("HOT")));
+        assertEquals(0, new BigDecimal("60.00").compareTo(balanceInDb("COLD")));
+    }
+
+    @Test
+    void testFailedFlushAppliesNoDeltaAndRetriesThemOnce() {
+        ledger.transfer("HOT", "COLD", new BigDecimal("250.00"), "EUR");
+        jdbcTemplate.execute("ALTER TABLE accounts ADD CONSTRAINT max_balance CHECK (account_number <> 'COLD' OR balance <= 100)");
+
+        assertEquals(0, ledger.flush());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balanceInDb("HOT")));
+
+        jdbcTemplate.execute("ALTER TABLE accounts DROP CONSTRAINT max_balance");
+        ledger.flush();
+
+        assertEquals(0, new BigDecimal("750.00").compareTo(balanceInDb("HOT")));
+        assertEquals(0, new BigDecimal("250.00").compareTo(balanceInDb("COLD")));
+    }
+
+    @Test
+    void testOversizedAmountIsRejectedAsInvalid() {
+        SettlementResult result = ledger.transfer("HOT", "COLD", new BigDecimal("1E+30"), "EUR");
+
+        assertTrue(result.isRejected());
+        assertEquals("AM12", result.getReasonCode());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(ledger.getBalance("HOT").orElseThrow()));
+    }
+
+    @Test
+    void testConcurrentTransfersOnHotAccountConserveFunds() throws Exception {
+        int threads = 8;
+        int transfersPerThread = 5_000;
+        AtomicInteger settled = new AtomicInteger();
+        AtomicInteger insufficient = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < transfersPerThread; i++) {
+                    SettlementResult result = ledger.transfer("SMALL", "COLD", new BigDecimal("0.01"), "EUR");
+                    if (result.isRejected()) {
+                        insufficient.incrementAndGet();
+                    } else {
+                        settled.incrementAndGet();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // 100.00 EUR en céntimos: exactamente 10000 débitos posibles, el resto AM04
+        assertEquals(10_000, settled.get());
+        assertEquals(threads * transfersPerThread - 10_000, insufficient.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(ledger.getBalance("SMALL").orElseThrow()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(ledger.getBalance("COLD").orElseThrow()));
+
+        ledger.stop();
+        assertEquals(0, BigDecimal.ZERO.compareTo(balanceInDb("SMALL")));
+        assertEquals(0, new BigDecimal("100.00").compareTo(balanceInDb("COLD")));
+    }
+
+    private void insertAccount(String number, String balance, String currency, String status) {
+        jdbcTemplate.update("INSERT INTO accounts (account_number, account_name, balance, currency, status) "
+            + "VALUES (?, ?, ?, ?, ?)", number, "Account " + number, new BigDecimal(balance), currency, status);
+    }
+
+    private BigDecimal balanceInDb(String number) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM accounts WHERE account_number = ?",
+            BigDecimal.class, number);
+    }
+}
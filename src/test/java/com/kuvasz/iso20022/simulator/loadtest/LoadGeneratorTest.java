@@ -0,0 +1,159 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para LoadGenerator
+ */
+class LoadGeneratorTest {
+
+    @Test
+    void testLatencyIncludesGeneratorStalls() {
+        // El destino responde al instante, pero el generador se detiene 300 ms en el mensaje 10:
+        // los envíos retrasados deben reflejar ese retraso en su latencia
+        MessageSource stalling = sequence -> {
+            if (sequence == 10) {
+                sleep(300);
+            }
+            return "<Document/>";
+        };
+        LoadTarget instant = target(payload -> Mono.just(200));
+
+        LoadResult result = generator(constant(100, 1_000), instant, stalling).run();
+
+        LoadResult.PhaseResult total = result.total();
+        assertEquals(100, total.sent(), 1);
+        assertEquals(total.sent(), total.succeeded());
+        assertTrue(total.maxMs() >= 250, "max latency " + total.maxMs());
+        assertTrue(total.maxLagNanos() >= 250_000_000L);
+        assertTrue(total.percentileMs(50) < 100, "p50 " + total.percentileMs(50));
+    }
+
+    @Test
+    void testSlowTargetDoesNotSlowDownArrivals() {
+        LoadTarget slow = target(payload -> Mono.delay(Duration.ofMillis(200)).thenReturn(200));
+
+        LoadResult result = generator(constant(200, 1_000), slow, sequence -> "<Document/>").run();
+
+        LoadResult.PhaseResult total = result.total();
+        assertEquals(200, total.sent(), 1);
+        assertEquals(total.sent(), total.succeeded());
+        assertTrue(total.percentileMs(50) >= 195, "p50 " + total.percentileMs(50));
+        assertEquals(200, total.achievedTps(), 2);
+    }
+
+    @Test
+    void testErrorsAreCountedByKind() {
+        AtomicInteger calls = new AtomicInteger();
+        LoadTarget failing = target(payload -> switch (calls.incrementAndGet() % 3) {
+            case 0 -> Mono.just(500);
+            case 1 -> Mono.never();
+            default -> Mono.just(200);
+        });
+        LoadGenerator generator = new LoadGenerator(constant(60, 500), failing, sequence -> "<Document/>",
+            5, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+        LoadResult.PhaseResult total = generator.run().total();
+
+        assertEquals(total.sent(), total.succeeded() + total.errorCount());
+        assertTrue(total.errors().get("http_500") > 0);
+        assertTrue(total.errors().get(LoadGenerator.TIMEOUT) > 0);
+    }
+
+    @Test
+    void testRequestsBeyondMaxInFlightAreNotSent() {
+        AtomicInteger sent = new AtomicInteger();
+        LoadTarget hanging = target(payload -> {
+            sent.incrementAndGet();
+            return Mono.never();
+        });
+        LoadGenerator generator = new LoadGenerator(constant(100, 300), hanging, sequence -> "<Document/>",
+            5, Duration.ofMillis(500), Duration.ofSeconds(1));
+
+        LoadResult result = generator.run();
+        LoadResult.PhaseResult total = result.total();
+
+        assertEquals(5, sent.get());
+        assertEquals(total.sent() - 5, total.errors().get(LoadGenerator.OVERLOAD));
+        assertEquals(total.sent() - 5, total.overloadCount());
+        assertEquals(5, total.errors().get(LoadGenerator.TIMEOUT));
+        // Los timeouts entran en el histograma desde el instante previsto; los overloads no
+        assertEquals(5, total.latency().getTotalCount());
+        assertTrue(total.percentileMs(50) >= 500, "p50 " + total.percentileMs(50));
+        assertTrue(result.format().contains("overload"));
+    }
+
+    @Test
+    void testHttpTargetAndReportFiles() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        DisposableServer server = HttpServer.create().host("localhost").port(0)
+            .route(routes -> routes.post(LoadTestRunner.PROCESS_PATH, (request, response) -> request.receive()
+                .aggregate().asString()
+                .doOnNext(body -> received.incrementAndGet())
+                .then(response.header("Content-Type", "application/xml").sendString(Mono.just("<Ok/>")).then())))
+            .bindNow();
+        Path output = Files.createTempDirectory("loadtest");
+        try (LoadTarget target = new HttpLoadTarget("http://localhost:" + server.port() + LoadTestRunner.PROCESS_PATH,
+                4, Duration.ofSeconds(5))) {
+            LoadProfile profile = new LoadProfile(null, List.of(
+                new LoadProfile.Phase("step-1", 50, 50, 400_000_000L),
+                new LoadProfile.Phase("step-2", 100, 100, 400_000_000L)));
+            LoadResult result = generator(profile, target, new TemplateMessageSource("TEST")).run();
+
+            assertEquals(60, result.total().succeeded(), 2);
+            assertEquals(result.total().succeeded(), received.get());
+            assertEquals(List.of("step-1", "step-2"), result.phases().stream().map(LoadResult.PhaseResult::name).toList());
+            assertTrue(result.format().contains("step-2"));
+
+            result.writeTo(output);
+            List<String> summary = Files.readAllLines(output.resolve("summary.csv"));
+            assertEquals(4, summary.size());
+            assertTrue(summary.get(3).startsWith("total,"));
+            assertTrue(Files.size(output.resolve("total.hgrm")) > 0);
+        } finally {
+            server.disposeNow();
+        }
+    }
+
+    private static LoadGenerator generator(LoadProfile profile, LoadTarget target, MessageSource messages) {
+        return new LoadGenerator(profile, target, messages, 10_000, Duration.ofSeconds(5), Duration.ofSeconds(1));
+    }
+
+    private static LoadProfile constant(double rate, long millis) {
+        return new LoadProfile(null, List.of(new LoadProfile.Phase("constant", rate, rate, millis * 1_000_000L)));
+    }
+
+    private static LoadTarget target(Function<String, Mono<Integer>> send) {
+        return new LoadTarget() {
+            @Override
+            public Mono<Integer> send(String payload) {
+                return send.apply(payload);
+            }
+
+            @Override
+            public String describe() {
+                return "stub";
+            }
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
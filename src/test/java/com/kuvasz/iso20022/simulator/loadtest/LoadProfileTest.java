@@ -0,0 +1,78 @@
+package com.kuvasz.iso20022.simulator.loadtest;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para LoadProfile
+ */
+class LoadProfileTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testConstantRateSpacesSendsEvenly() {
+        SimulatorProperties.LoadTest config = new SimulatorProperties.LoadTest();
+        config.setRate(1000);
+        config.setDuration(Duration.ofSeconds(2));
+        config.setWarmup(Duration.ZERO);
+
+        LoadProfile profile = LoadProfile.from(config);
+
+        assertNull(profile.warmup());
+        assertEquals(1_000_000, profile.nextOffset(0));
+        assertEquals(2000, countSends(profile));
+    }
+
+    @Test
+    void testRampIncreasesRateLinearly() {
+        SimulatorProperties.LoadTest config = new SimulatorProperties.LoadTest();
+        config.setShape(SimulatorProperties.LoadTest.Shape.RAMP);
+        config.setStartRate(100);
+        config.setRate(300);
+        config.setDuration(Duration.ofSeconds(10));
+        config.setWarmup(Duration.ofSeconds(2));
+
+        LoadProfile profile = LoadProfile.from(config);
+
+        assertEquals(-1, profile.phaseAt(SECOND));
+        assertEquals(100, profile.rateAt(SECOND), 1e-9);
+        assertEquals(0, profile.phaseAt(2 * SECOND));
+        assertEquals(200, profile.rateAt(7 * SECOND), 1e-9);
+        assertEquals(1, profile.phaseAt(12 * SECOND));
+        // Calentamiento 2 s a 100/s + rampa media de 200/s durante 10 s
+        assertEquals(2200, countSends(profile), 5);
+    }
+
+    @Test
+    void testStepProfileHasOnePhasePerStep() {
+        SimulatorProperties.LoadTest config = new SimulatorProperties.LoadTest();
+        config.setShape(SimulatorProperties.LoadTest.Shape.STEP);
+        config.setStartRate(50);
+        config.setStepIncrement(50);
+        config.setStepDuration(Duration.ofSeconds(1));
+        config.setSteps(3);
+        config.setWarmup(Duration.ZERO);
+
+        LoadProfile profile = LoadProfile.from(config);
+
+        assertEquals(List.of("step-1", "step-2", "step-3"), profile.phases().stream().map(LoadProfile.Phase::name).toList());
+        assertEquals(150, profile.rateAt(2 * SECOND + 1), 1e-9);
+        assertEquals(3 * SECOND, profile.totalNanos());
+        assertEquals(300, countSends(profile), 2);
+        assertEquals(-1, profile.nextOffset(3 * SECOND - 1));
+    }
+
+    private static long countSends(LoadProfile profile) {
+        long sends = 0;
+        for (long offset = 0; offset >= 0; offset = profile.nextOffset(offset)) {
+            sends++;
+        }
+        return sends;
+    }
+}
@@ -0,0 +1,194 @@
+package com.kuvasz.iso20022.simulator.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para LogRateLimiter y RateLimitedLogger
+ */
+class LogRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    private LoggerContext context;
+    private Logger logger;
+    private ListAppender<ILoggingEvent> appender;
+    private LogRateLimiter limiter;
+    private RateLimitedLogger errorLogger;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+        logger = context.getLogger("parser");
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+
+        limiter = new LogRateLimiter(new LogRateLimiter.Policy(true, 3, Duration.ofSeconds(10),
+            Duration.ofSeconds(30), 16), clock::get);
+        errorLogger = new RateLimitedLogger(logger, limiter);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void testFirstOccurrencesAreLoggedInFullThenSuppressed() {
+        for (int i = 0; i < 100; i++) {
+            errorLogger.error("Error parsing XML message", parseFailure("line " + i));
+        }
+
+        assertEquals(3, appender.list.size());
+        assertNotNull(appender.list.get(0).getThrowableProxy());
+    }
+
+    @Test
+    void testSummaryIsEmittedAfterInterval() {
+        for (int i = 0; i < 50; i++) {
+            errorLogger.error("Error parsing XML message", parseFailure("bad"));
+        }
+        advance(31);
+        errorLogger.error("Error parsing XML message", parseFailure("bad"));
+
+        // La siguiente ocurrencia completa llega con el resumen de lo suprimido
+        ILoggingEvent summary = appender.list.get(3);
+        assertTrue(summary.getFormattedMessage().startsWith("Suppressed 47 similar"), summary.getFormattedMessage());
+        assertTrue(summary.getFormattedMessage().contains("IOException"));
+        assertNull(summary.getThrowableProxy());
+        assertNotNull(appender.list.get(4).getThrowableProxy());
+    }
+
+    @Test
+    void testFlushSummarizesBurstThatStopped() {
+        for (int i = 0; i < 10; i++) {
+            errorLogger.warn("Validation aborted for message {}: {}", "MSG-" + i, "boom");
+        }
+        limiter.flushSummaries();
+        assertEquals(3, appender.list.size());
+
+        advance(30);
+        limiter.flushSummaries();
+
+        assertEquals(4, appender.list.size());
+        assertEquals(Level.WARN, appender.list.get(3).getLevel());
+        assertTrue(appender.list.get(3).getFormattedMessage().startsWith("Suppressed 7 similar"));
+    }
+
+    @Test
+    void testTokensRefillOverTime() {
+        for (int i = 0; i < 10; i++) {
+            errorLogger.error("Error parsing XML message", parseFailure("bad"));
+        }
+        advance(10);
+        errorLogger.error("Error parsing XML message", parseFailure("bad"));
+        errorLogger.error("Error parsing XML message", parseFailure("bad"));
+
+        // Un token nuevo: un resumen, una ocurrencia completa y la otra suprimida
+        long full = appender.list.stream().filter(e -> e.getThrowableProxy() != null).count();
+        assertEquals(4, full);
+    }
+
+    @Test
+    void testSignaturesAreIndependentAndCounted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+
+        for (int i = 0; i < 10; i++) {
+            errorLogger.error("Error parsing XML message", parseFailure("bad"));
+            errorLogger.error("Error parsing XML message", new IllegalStateException("other root"));
+        }
+
+        assertEquals(6, appender.list.size());
+        assertEquals(2, limiter.signatureCount());
+        assertEquals(3.0, registry.get(LogRateLimiter.METER).tags("exception", "IOException", "outcome", "logged")
+            .functionCounter().count());
+        assertEquals(7.0, registry.get(LogRateLimiter.METER).tags("exception", "IOException", "outcome", "suppressed")
+            .functionCounter().count());
+    }
+
+    @Test
+    void testOccurrencesAreCountedWhenLevelIsDisabled() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+        logger.setLevel(Level.OFF);
+
+        for (int i = 0; i < 5; i++) {
+            errorLogger.error("Error parsing XML message", parseFailure("bad"));
+        }
+
+        assertTrue(appender.list.isEmpty());
+        assertEquals(5.0, registry.find(LogRateLimiter.METER).functionCounters().stream()
+            .mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void testDisabledPolicyLogsEverything() {
+        limiter.configure(new LogRateLimiter.Policy(false, 1, Duration.ofMinutes(1), Duration.ofMinutes(1), 16));
+
+        for (int i = 0; i < 20; i++) {
+            errorLogger.error("Error parsing XML message", parseFailure("bad"));
+        }
+
+        assertEquals(20, appender.list.size());
+    }
+
+    @Test
+    void testReporterFlushesSummariesOnTheSharedScheduler() throws Exception {
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.getLogging().getSuppression().setSummaryInterval(Duration.ofMillis(20));
+        LogRateLimiter realClockLimiter = new LogRateLimiter(new LogRateLimiter.Policy(true, 1,
+            Duration.ofMinutes(1), Duration.ofMillis(20), 16));
+        RateLimitedLogger realClockLogger = RateLimitedLogger.of(logger, realClockLimiter);
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        LogSuppressionReporter reporter = new LogSuppressionReporter(realClockLimiter, scheduler, properties);
+        try {
+            for (int i = 0; i < 3; i++) {
+                realClockLogger.error("Error parsing XML message", parseFailure("bad"));
+            }
+            assertEquals(1, appender.list.size());
+
+            reporter.start();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (appender.list.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+
+            assertEquals(2, appender.list.size());
+            assertTrue(appender.list.get(1).getFormattedMessage().startsWith("Suppressed 2 similar log events"));
+        } finally {
+            reporter.stop();
+            scheduler.shutdown();
+        }
+    }
+
+    private void advance(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private static Exception parseFailure(String detail) {
+        return new IllegalArgumentException("Failed to parse XML message", new IOException(detail));
+    }
+}
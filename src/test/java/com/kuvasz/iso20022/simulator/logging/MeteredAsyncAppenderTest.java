@@ -0,0 +1,251 @@
+package com.kuvasz.iso20022.simulator.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para MeteredAsyncAppender y LoggingMetrics
+ */
+class MeteredAsyncAppenderTest {
+
+    private LoggerContext context;
+    private GatedAppender downstream;
+    private MeteredAsyncAppender async;
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        downstream = new GatedAppender();
+        downstream.setContext(context);
+        downstream.setName("SLOW");
+        downstream.start();
+
+        async = new MeteredAsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setQueueSize(10);
+        async.setDiscardingThreshold(4);
+        async.addAppender(downstream);
+
+        logger = context.getLogger("test");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+    }
+
+    @AfterEach
+    void tearDown() {
+        downstream.release();
+        context.stop();
+    }
+
+    @Test
+    void testEventsAreDeliveredWithCapturedMdc() throws Exception {
+        async.start();
+        downstream.release();
+
+        MDC.put("messageId", "MSG-1");
+        try {
+            logger.info("processed {}", 42);
+        } finally {
+            MDC.clear();
+        }
+
+        assertTrue(downstream.awaitEvents(1));
+        ILoggingEvent event = downstream.events.get(0);
+        assertEquals("processed 42", event.getFormattedMessage());
+        assertEquals("MSG-1", event.getMDCPropertyMap().get("messageId"));
+        assertEquals(1, async.getEnqueuedCount());
+    }
+
+    @Test
+    void testNeverBlockDropsWhenQueueIsFull() {
+        async.setOverflowPolicy(MeteredAsyncAppender.OverflowPolicy.NEVER_BLOCK);
+        async.start();
+
+        long start = System.nanoTime();
+        // El consumidor bloqueado retiene su primer batch; el resto llena la cola
+        for (int i = 0; i < 40; i++) {
+            logger.error("error {}", i);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 1_000, "producer blocked for " + elapsedMillis + " ms");
+        assertTrue(async.getDroppedCount() >= 15, "dropped " + async.getDroppedCount());
+        assertEquals(40, async.getEnqueuedCount() + async.getDroppedCount());
+    }
+
+    @Test
+    void testDropBelowWarnDiscardsInfoButKeepsWarnings() throws Exception {
+        async.setMaxBlockTime(5_000);
+        async.start();
+        for (int i = 0; i < 20; i++) {
+            logger.info("info {}", i);
+        }
+        assertTrue(async.getDiscardedCount() > 0);
+
+        // El consumidor está detenido con su batch; más WARN que huecos en la cola deben esperar
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 30; i++) {
+                logger.warn("warn {}", i);
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive(), "WARN should block on a full queue");
+
+        downstream.release();
+        producer.join(5_000);
+        assertFalse(producer.isAlive());
+        assertTrue(downstream.awaitEvents(async.getEnqueuedCount()));
+        assertEquals(30, downstream.events.stream().filter(e -> e.getLevel() == Level.WARN).count());
+        assertEquals(0, async.getDroppedCount());
+        assertTrue(async.getBlockedNanos() > 0);
+    }
+
+    @Test
+    void testWarningsAreDroppedAfterMaxBlockTime() throws Exception {
+        async.setMaxBlockTime(50);
+        async.start();
+        logger.warn("first");
+        assertTrue(downstream.awaitEntered());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 15; i++) {
+            logger.warn("warn {}", i);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Diez caben en la cola; los otros cinco esperan 50 ms cada uno y se descartan
+        assertTrue(elapsedMillis >= 250 && elapsedMillis < 2_000, "producer blocked for " + elapsedMillis + " ms");
+        assertEquals(11, async.getEnqueuedCount());
+        assertEquals(5, async.getDroppedCount());
+        assertTrue(async.getBlockedNanos() >= TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    void testBlockedProducerReturnsOnInterruptAndStop() throws Exception {
+        async.setMaxBlockTime(60_000);
+        async.start();
+        logger.warn("first");
+        assertTrue(downstream.awaitEntered());
+        for (int i = 0; i < 10; i++) {
+            logger.warn("fill {}", i);
+        }
+
+        AtomicBoolean interruptFlag = new AtomicBoolean();
+        Thread interrupted = new Thread(() -> {
+            logger.warn("interrupted");
+            interruptFlag.set(Thread.currentThread().isInterrupted());
+        });
+        interrupted.start();
+        Thread stopped = new Thread(() -> logger.warn("stopped"));
+        stopped.start();
+
+        interrupted.interrupt();
+        interrupted.join(1_000);
+        assertFalse(interrupted.isAlive(), "an interrupted producer must not keep waiting");
+        assertTrue(interruptFlag.get(), "the interrupt flag must be restored");
+
+        Thread stopper = new Thread(async::stop);
+        stopper.start();
+        stopped.join(1_000);
+        assertFalse(stopped.isAlive(), "a producer must not outlive stop()");
+        // El vaciado final puede liberar hueco para el último evento antes de que lo note
+        assertTrue(async.getDroppedCount() >= 1);
+        assertEquals(13, async.getEnqueuedCount() + async.getDroppedCount());
+        downstream.release();
+        stopper.join(5_000);
+    }
+
+    @Test
+    void testStopFlushesPendingEvents() {
+        async.start();
+        for (int i = 0; i < 5; i++) {
+            logger.warn("warn {}", i);
+        }
+        downstream.release();
+
+        async.stop();
+
+        assertEquals(5, downstream.events.size());
+    }
+
+    @Test
+    void testMetricsAreBoundForAttachedAppenders() throws Exception {
+        async.setOverflowPolicy(MeteredAsyncAppender.OverflowPolicy.NEVER_BLOCK);
+        async.start();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new LoggingMetrics(context).bindTo(registry);
+
+        // Con el consumidor ya detenido en su primer evento, la cola se llena por completo
+        logger.warn("first");
+        assertTrue(downstream.awaitEntered());
+        for (int i = 0; i < 40; i++) {
+            logger.warn("warn {}", i);
+        }
+        for (int i = 0; i < 5; i++) {
+            logger.info("info {}", i);
+        }
+
+        assertEquals(10.0, registry.get("simulator.logging.queue.capacity").tag("appender", "ASYNC").gauge().value());
+        assertEquals(1.0, registry.get("simulator.logging.queue.fill").gauge().value());
+        double enqueued = registry.get("simulator.logging.events").tag("outcome", "enqueued").functionCounter().count();
+        double dropped = registry.get("simulator.logging.events").tag("outcome", "dropped").functionCounter().count();
+        assertEquals(5.0, registry.get("simulator.logging.events").tag("outcome", "discarded").functionCounter().count());
+        assertEquals(41.0, enqueued + dropped);
+    }
+
+    /**
+     * Appender que simula un disco detenido hasta que se libera
+     */
+    private static final class GatedAppender extends AppenderBase<ILoggingEvent> {
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+
+        boolean awaitEntered() throws InterruptedException {
+            return entered.await(5, TimeUnit.SECONDS);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        boolean awaitEvents(long count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (events.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            return events.size() >= count;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para LatencyWindows
+ */
+class LatencyWindowsTest {
+
+    private static final String PACS_008 = "pacs.008.001.08";
+    private static final String PAIN_001 = "pain.001.001.09";
+
+    private final LatencyWindows windows = new LatencyWindows(4, 2, 8);
+
+    @Test
+    void testOneSecondWindowReportsPercentilesPerType() {
+        for (int i = 1; i <= 1000; i++) {
+            windows.record(PACS_008, TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        windows.record(PAIN_001, TimeUnit.MILLISECONDS.toNanos(5));
+
+        windows.rotate();
+
+        LatencyWindows.Snapshot snapshot = windows.snapshot();
+        LatencyWindows.Stats pacs = snapshot.stats(LatencyWindows.Window.ONE_SECOND, PACS_008);
+        assertEquals(1000, pacs.count());
+        assertEquals(1000.0, pacs.tps());
+        assertEquals(0.5, pacs.p50Ms(), 0.01);
+        assertEquals(0.99, pacs.p99Ms(), 0.01);
+        assertEquals(1.0, pacs.maxMs(), 0.01);
+
+        LatencyWindows.Stats all = snapshot.stats(LatencyWindows.Window.ONE_SECOND, LatencyWindows.ALL);
+        assertEquals(1001, all.count());
+        assertEquals(5.0, all.maxMs(), 0.05);
+        assertEquals(1, snapshot.stats(LatencyWindows.Window.ONE_SECOND, PAIN_001).count());
+    }
+
+    @Test
+    void testWindowsSlideAndExpire() {
+        windows.record(PACS_008, TimeUnit.MILLISECONDS.toNanos(50));
+        windows.rotate();
+        for (int second = 0; second < 9; second++) {
+            windows.record(PACS_008, TimeUnit.MILLISECONDS.toNanos(1));
+            windows.rotate();
+        }
+
+        LatencyWindows.Snapshot snapshot = windows.snapshot();
+        assertEquals(1, snapshot.stats(LatencyWindows.Window.ONE_SECOND, PACS_008).count());
+        assertEquals(10, snapshot.stats(LatencyWindows.Window.TEN_SECONDS, PACS_008).count());
+        assertEquals(1.0, snapshot.stats(LatencyWindows.Window.TEN_SECONDS, PACS_008).tps());
+        assertEquals(50.0, snapshot.stats(LatencyWindows.Window.TEN_SECONDS, PACS_008).maxMs(), 0.5);
+
+        // El primer segundo sale de la ventana de 10 s pero sigue en la de 60 s
+        windows.rotate();
+        snapshot = windows.snapshot();
+        assertEquals(0, snapshot.stats(LatencyWindows.Window.ONE_SECOND, PACS_008).count());
+        assertEquals(9, snapshot.stats(LatencyWindows.Window.TEN_SECONDS, PACS_008).count());
+        assertEquals(1.0, snapshot.stats(LatencyWindows.Window.TEN_SECONDS, PACS_008).maxMs(), 0.01);
+        assertEquals(10, snapshot.stats(LatencyWindows.Window.ONE_MINUTE, PACS_008).count());
+        assertEquals(50.0, snapshot.stats(LatencyWindows.Window.ONE_MINUTE, PACS_008).maxMs(), 0.5);
+
+        for (int second = 0; second < 50; second++) {
+            windows.rotate();
+        }
+        snapshot = windows.snapshot();
+        assertEquals(9, snapshot.stats(LatencyWindows.Window.ONE_MINUTE, LatencyWindows.ALL).count());
+        assertEquals(1.0, snapshot.stats(LatencyWindows.Window.ONE_MINUTE, PACS_008).maxMs(), 0.01);
+
+        for (int second = 0; second < 9; second++) {
+            windows.rotate();
+        }
+        snapshot = windows.snapshot();
+        assertEquals(0, snapshot.stats(LatencyWindows.Window.ONE_MINUTE, LatencyWindows.ALL).count());
+        assertFalse(snapshot.windows().get("60s").containsKey(PACS_008));
+    }
+
+    @Test
+    void testMessageTypesAreCappedAndNullIsUnknown() {
+        for (int i = 0; i < 12; i++) {
+            windows.record("pacs.008.001." + i, 1_000_000);
+        }
+        windows.record(null, 1_000_000);
+
+        windows.rotate();
+
+        var oneSecond = windows.snapshot().windows().get("1s");
+        assertEquals(4, oneSecond.get(LatencyWindows.OTHER).count());
+        assertEquals(1, oneSecond.get(LatencyWindows.UNKNOWN).count());
+        assertEquals(13, oneSecond.get(LatencyWindows.ALL).count());
+        assertEquals(LatencyWindows.ALL, oneSecond.keySet().iterator().next());
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNoMessages() throws InterruptedException {
+        int threads = 4;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    windows.record(i % 2 == 0 ? PACS_008 : PAIN_001, 100_000 + i);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        // Cada segundo cerrado se cuenta una vez, por muchas rotaciones que haya
+        long recorded = 0;
+        while (workers.stream().anyMatch(Thread::isAlive)) {
+            windows.rotate();
+            recorded += windows.snapshot().stats(LatencyWindows.Window.ONE_SECOND, LatencyWindows.ALL).count();
+            Thread.sleep(1);
+        }
+        windows.rotate();
+        recorded += windows.snapshot().stats(LatencyWindows.Window.ONE_SECOND, LatencyWindows.ALL).count();
+
+        assertEquals((long) threads * perThread, recorded);
+    }
+
+    @Test
+    void testInFlightMessages() {
+        windows.messageStarted();
+        windows.messageStarted();
+        windows.messageFinished();
+
+        assertEquals(1, windows.inFlight());
+    }
+}
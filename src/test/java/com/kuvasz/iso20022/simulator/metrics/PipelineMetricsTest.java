@@ -0,0 +1,150 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.metrics.PipelineMetrics.Outcome;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.model.ValidationError;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para PipelineMetrics
+ */
+class PipelineMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SimulatorProperties properties;
+    private PipelineMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new SimulatorProperties();
+        metrics = new PipelineMetrics(meterRegistry, properties);
+    }
+
+    @Test
+    void testStageTimerIsTaggedAndHasSloBuckets() {
+        metrics.recordStage(PipelineStage.STRUCTURAL, "pain.001.001.09", Outcome.SUCCESS,
+            TimeUnit.MILLISECONDS.toNanos(7));
+
+        Timer timer = meterRegistry.get("simulator.pipeline.stage.duration")
+            .tags("stage", "structural", "type", "pain.001", "version", "001.09", "outcome", "success").timer();
+        assertEquals(1, timer.count());
+
+        double[] buckets = Arrays.stream(timer.takeSnapshot().histogramCounts())
+            .mapToDouble(bucket -> bucket.bucket(TimeUnit.MILLISECONDS)).toArray();
+        for (double slo : new double[] {5, 10, 50, 100}) {
+            assertTrue(Arrays.stream(buckets).anyMatch(b -> b == slo), "missing SLO bucket " + slo);
+        }
+        CountAtBucket tenMillis = Arrays.stream(timer.takeSnapshot().histogramCounts())
+            .filter(bucket -> bucket.bucket(TimeUnit.MILLISECONDS) == 10).findFirst().orElseThrow();
+        assertEquals(1.0, tenMillis.count());
+    }
+
+    @Test
+    void testRepeatedRecordingsReuseTheSameMeters() {
+        for (int i = 0; i < 100; i++) {
+            metrics.recordPipeline("pacs.008.001.08", ProcessingResult.Status.SUCCESS, 1_000);
+        }
+
+        assertEquals(1, meterRegistry.find("simulator.pipeline.duration").timers().size());
+        assertEquals(100, meterRegistry.get("simulator.pipeline.duration").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testMessageTypeCardinalityIsBounded() {
+        properties.getMetrics().setMaxMessageTypes(2);
+        metrics = new PipelineMetrics(meterRegistry, properties);
+
+        metrics.recordStage(PipelineStage.PARSE, "pacs.008.001.08", Outcome.SUCCESS, 1);
+        metrics.recordStage(PipelineStage.PARSE, "pain.001.001.09", Outcome.SUCCESS, 1);
+        metrics.recordStage(PipelineStage.PARSE, "camt.056.001.08", Outcome.SUCCESS, 1);
+        metrics.recordStage(PipelineStage.PARSE, "camt.053.001.08", Outcome.SUCCESS, 1);
+        metrics.recordStage(PipelineStage.PARSE, null, Outcome.ERROR, 1);
+
+        assertEquals(2, meterRegistry.get("simulator.pipeline.stage.duration").tag("type", "other").timer().count());
+        assertEquals(1, meterRegistry.get("simulator.pipeline.stage.duration").tag("type", "unknown").timer().count());
+        assertTrue(meterRegistry.find("simulator.pipeline.stage.duration").tag("type", "camt.056").timers().isEmpty());
+    }
+
+    @Test
+    void testValidationErrorsAreCountedPerCode() {
+        metrics.recordValidationErrors("pacs.008.001.08", List.of(
+            ValidationError.businessRuleError("AM04", "Insufficient funds", "DbtrAcct"),
+            ValidationError.businessRuleError("AM04", "Insufficient funds", "DbtrAcct"),
+            ValidationError.structuralError("STRUCT_001", "Missing element", "/")));
+
+        assertEquals(2.0, meterRegistry.get("simulator.validation.errors").tag("code", "AM04").counter().count());
+        assertEquals(1.0, meterRegistry.get("simulator.validation.errors").tag("code", "STRUCT_001").counter().count());
+    }
+
+    @Test
+    void testPayloadSizeIsMeasuredInUtf8Bytes() {
+        metrics.recordPayloadSize("pacs.008.001.08", "<Nm>Müller €</Nm>");
+
+        assertEquals(20.0, meterRegistry.get("simulator.message.payload.size").summary().totalAmount());
+        assertEquals("<Nm>Müller €😀</Nm>".getBytes(StandardCharsets.UTF_8).length,
+            PipelineMetrics.utf8Length("<Nm>Müller €😀</Nm>"));
+    }
+
+    @Test
+    void testSloBucketsAreConfigurable() {
+        properties.getMetrics().setSloBuckets(List.of(Duration.ofMillis(1)));
+        properties.getMetrics().setPercentileHistogram(false);
+        metrics = new PipelineMetrics(meterRegistry, properties);
+
+        metrics.recordStage(PipelineStage.GENERATE, "pacs.008.001.08", Outcome.SUCCESS, 1_000);
+
+        CountAtBucket[] buckets = meterRegistry.get("simulator.pipeline.stage.duration").timer()
+            .takeSnapshot().histogramCounts();
+        assertEquals(1, buckets.length);
+        assertEquals(1.0, buckets[0].bucket(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testResourcesAreRecordedPerStageAndMessage() {
+        properties.getMetrics().getResources().setEnabled(true);
+        metrics = new PipelineMetrics(meterRegistry, properties);
+
+        StageTimings timings = metrics.startTimings(System.nanoTime());
+        long start = timings.mark();
+        byte[][] garbage = new byte[64][];
+        for (int i = 0; i < garbage.length; i++) {
+            garbage[i] = new byte[16 * 1024];
+        }
+        timings.add(PipelineStage.PARSE, System.nanoTime() - start);
+        timings.add(PipelineStage.PERSIST, 1_000_000);
+        metrics.recordResources("pacs.008.001.08", timings);
+
+        double parseBytes = meterRegistry.get("simulator.pipeline.stage.allocated")
+            .tags("stage", "parse", "type", "pacs.008").summary().totalAmount();
+        assertTrue(parseBytes >= 64 * 16 * 1024, "allocated " + parseBytes);
+        assertEquals(1, meterRegistry.get("simulator.pipeline.stage.cpu").tags("stage", "parse").timer().count());
+        assertEquals(parseBytes, meterRegistry.get("simulator.pipeline.allocated").summary().totalAmount());
+        // La persistencia no se marca: no tiene medida propia
+        assertNull(meterRegistry.find("simulator.pipeline.stage.allocated").tags("stage", "persist").summary());
+        assertEquals(16 * 1024, garbage[garbage.length - 1].length);
+    }
+
+    @Test
+    void testResourcesAreNotRecordedWhenDisabled() {
+        StageTimings timings = metrics.startTimings(System.nanoTime());
+        timings.add(PipelineStage.PARSE, timings.mark());
+        metrics.recordResources("pacs.008.001.08", timings);
+
+        assertFalse(timings.hasResources());
+        assertNull(meterRegistry.find("simulator.pipeline.allocated").summary());
+    }
+}
@@ -0,0 +1,126 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.core.validator.SimpleBusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para RuleProfiler
+ */
+class RuleProfilerTest {
+
+    private static final String VALIDATOR = "SimpleBusinessRuleValidator";
+
+    private static final String VALID_XML = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+            <FIToFICstmrCdtTrf>
+                <GrpHdr><MsgId>MSG1</MsgId></GrpHdr>
+                <CdtTrfTxInf><InstdAmt Ccy="EUR">10.00</InstdAmt><PmtInf/></CdtTrfTxInf>
+            </FIToFICstmrCdtTrf>
+        </Document>
+        """;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SimulatorProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new SimulatorProperties();
+    }
+
+    @Test
+    void testEveryRuleIsMeasuredWithItsViolations() throws Exception {
+        RuleProfiler profiler = new RuleProfiler(meterRegistry, properties);
+        SimpleBusinessRuleValidator validator = new SimpleBusinessRuleValidator();
+        validator.setRuleProfiler(profiler);
+
+        validator.validate(context(VALID_XML, "pacs.008.001.08"));
+        validator.validate(context(VALID_XML.replace("EUR", "XXX"), "pacs.008.001.08"));
+        // camt.053 no evalúa paymentInstructions
+        validator.validate(context(VALID_XML, "camt.053.001.08"));
+
+        Map<String, RuleProfiler.RuleStats> byRule = profiler.ranking().stream()
+            .collect(Collectors.toMap(RuleProfiler.RuleStats::rule, Function.identity()));
+        assertEquals(validator.getRuleNames().size(), byRule.size());
+
+        RuleProfiler.RuleStats currencies = byRule.get("currencies");
+        assertEquals(3, currencies.invocations());
+        assertEquals(1, currencies.violations());
+        assertEquals(1, currencies.errors());
+        assertEquals(1.0 / 3, currencies.violationRate(), 1e-9);
+        assertTrue(currencies.costMs() > 0);
+        assertNull(currencies.cpuMs());
+
+        assertEquals(2, byRule.get("paymentInstructions").invocations());
+        assertEquals(0, byRule.get("amounts").violations());
+
+        FunctionTimer timer = meterRegistry.get(RuleProfiler.DURATION_METER)
+            .tags("validator", VALIDATOR, "rule", "currencies").functionTimer();
+        assertEquals(3, timer.count(), 0.0);
+        assertEquals(1.0, meterRegistry.get(RuleProfiler.VIOLATIONS_METER)
+            .tags("validator", VALIDATOR, "rule", "currencies").functionCounter().count(), 0.0);
+    }
+
+    @Test
+    void testRankingIsOrderedByCost() throws Exception {
+        RuleProfiler profiler = new RuleProfiler(meterRegistry, properties);
+        profiler.probe("test", "cheap").record(1_000, ResourceAccounting.UNAVAILABLE, 0);
+        profiler.probe("test", "expensive").record(9_000, ResourceAccounting.UNAVAILABLE, 1);
+
+        List<RuleProfiler.RuleStats> ranking = profiler.ranking();
+
+        assertEquals(List.of("expensive", "cheap"), ranking.stream().map(RuleProfiler.RuleStats::rule).toList());
+        assertEquals(0.9, ranking.get(0).costShare(), 1e-9);
+        assertEquals(9.0, ranking.get(0).meanCostUs(), 1e-9);
+        assertEquals(1 / 0.009, ranking.get(0).violationsPerCostMs(), 1e-6);
+        assertSame(profiler.probe("test", "cheap"), profiler.probe("test", "cheap"));
+    }
+
+    @Test
+    void testCpuTimeIsMeasuredWhenEnabled() throws Exception {
+        properties.getMetrics().getRules().setCpuTime(true);
+        RuleProfiler profiler = new RuleProfiler(meterRegistry, properties);
+        if (!profiler.isCpuTimeEnabled()) {
+            return;
+        }
+        SimpleBusinessRuleValidator validator = new SimpleBusinessRuleValidator();
+        validator.setRuleProfiler(profiler);
+
+        validator.validate(context(VALID_XML, "pacs.008.001.08"));
+
+        for (RuleProfiler.RuleStats stats : profiler.ranking()) {
+            assertNotNull(stats.cpuMs());
+            assertEquals(stats.cpuMs(), stats.costMs(), 0.0);
+        }
+        assertNotNull(meterRegistry.find(RuleProfiler.CPU_METER).tags("rule", "amounts").functionTimer());
+    }
+
+    private static MessageContext context(String xml, String messageType) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder()
+            .parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        MessageContext context = new MessageContext();
+        context.setMessageId("TEST123");
+        context.setMessageType(messageType);
+        context.setParsedDocument(document);
+        return context;
+    }
+}
@@ -0,0 +1,94 @@
+package com.kuvasz.iso20022.simulator.metrics;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para StageTimings y ResourceAccounting
+ */
+class StageTimingsTest {
+
+    private final ResourceAccounting accounting = ResourceAccounting.create(enabled());
+
+    @Test
+    void testStagesOnTheSameThreadAreMeasured() {
+        StageTimings timings = new StageTimings(System.nanoTime(), accounting);
+
+        timings.mark();
+        List<String> allocated = allocate(10_000);
+        timings.add(PipelineStage.PARSE, 1_000);
+        timings.mark();
+        timings.add(PipelineStage.GENERATE, 2_000);
+
+        assertTrue(timings.hasResources(PipelineStage.PARSE));
+        assertTrue(timings.allocatedBytes(PipelineStage.PARSE) >= 10_000L * 16, "allocated "
+            + timings.allocatedBytes(PipelineStage.PARSE) + " for " + allocated.size());
+        assertTrue(timings.cpuNanos(PipelineStage.PARSE) >= 0);
+        assertTrue(timings.allocatedBytes(PipelineStage.GENERATE) < timings.allocatedBytes(PipelineStage.PARSE));
+        assertEquals(ResourceAccounting.UNAVAILABLE, timings.allocatedBytes(PipelineStage.SETTLEMENT));
+        assertEquals(timings.allocatedBytes(PipelineStage.PARSE) + timings.allocatedBytes(PipelineStage.GENERATE),
+            timings.totalAllocatedBytes());
+        assertEquals(List.of("parse", "generate"), List.copyOf(timings.toMillis().keySet()));
+    }
+
+    @Test
+    void testStageFinishingOnAnotherThreadIsDiscarded() throws Exception {
+        StageTimings timings = new StageTimings(System.nanoTime(), accounting);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            timings.mark();
+            // El trabajo del otro hilo no debe atribuirse al mensaje
+            CompletableFuture.runAsync(() -> {
+                allocate(10_000);
+                timings.add(PipelineStage.STRUCTURAL, 5_000);
+            }, executor).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, timings.discardedStages());
+        assertFalse(timings.hasResources());
+        assertEquals(ResourceAccounting.UNAVAILABLE, timings.totalAllocatedBytes());
+        assertEquals(5_000, timings.nanos(PipelineStage.STRUCTURAL));
+    }
+
+    @Test
+    void testUnsampledMessagesOnlyKeepDurations() {
+        SimulatorProperties.Metrics.Resources config = enabled();
+        config.setSampleRate(0.0);
+        ResourceAccounting unsampled = ResourceAccounting.create(config);
+        assertTrue(unsampled.isEnabled());
+        assertFalse(unsampled.sample());
+
+        StageTimings timings = new StageTimings(System.nanoTime());
+        timings.mark();
+        timings.add(PipelineStage.PARSE, 1_000);
+
+        assertFalse(timings.hasResources());
+        assertEquals(1_000, timings.nanos(PipelineStage.PARSE));
+        assertFalse(ResourceAccounting.disabled().sample());
+        assertEquals(ResourceAccounting.UNAVAILABLE, ResourceAccounting.disabled().allocatedBytes());
+    }
+
+    private static SimulatorProperties.Metrics.Resources enabled() {
+        SimulatorProperties.Metrics.Resources config = new SimulatorProperties.Metrics.Resources();
+        config.setEnabled(true);
+        return config;
+    }
+
+    private static List<String> allocate(int count) {
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(Integer.toString(i * 31));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,206 @@
+package com.kuvasz.iso20022.simulator.persistence;
+
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties.WriteBehind.OverflowPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para WriteBehindTransactionWriter contra H2 en memoria
+ */
+class WriteBehindTransactionWriterTest {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SimulatorProperties properties;
+    private MeterRegistry meterRegistry;
+    private WriteBehindTransactionWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:wb-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        properties = new SimulatorProperties();
+        properties.getPersistence().getWriteBehind().setBatchSize(50);
+        properties.getPersistence().getWriteBehind().setFlushInterval(Duration.ofMillis(20));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void testAllEnqueuedRecordsArePersistedInBatches() {
+        writer = new WriteBehindTransactionWriter(dataSource, properties, new PayloadCodec(properties),
+            meterRegistry, null);
+        writer.start();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(writer.enqueue(record("TX" + i)));
+        }
+        writer.stop();
+
+        assertEquals(1000, countTransactions());
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(1000.0, meterRegistry.get("simulator.persistence.records")
+            .tag("outcome", "written").counter().count());
+        assertTrue(meterRegistry.get("simulator.persistence.batch.size").summary().max() <= 50);
+        assertTrue(meterRegistry.get("simulator.persistence.flush.latency").timer().count() >= 20);
+    }
+
+    @Test
+    void testPartialFlushAfterFlushInterval() throws Exception {
+        writer = new WriteBehindTransactionWriter(dataSource, properties, new PayloadCodec(properties),
+            meterRegistry, null);
+        writer.start();
+
+        writer.enqueue(record("TX-SINGLE"));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (countTransactions() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, countTransactions());
+    }
+
+    @Test
+    void testDuplicateTransactionDoesNotLoseBatch() {
+        writer = new WriteBehindTransactionWriter(dataSource, properties, new PayloadCodec(properties),
+            meterRegistry, null);
+        writer.start();
+
+        writer.enqueue(record("TX-DUP"));
+        writer.enqueue(record("TX-OK-1"));
+        writer.enqueue(record("TX-DUP"));
+        writer.enqueue(record("TX-OK-2"));
+        writer.stop();
+
+        assertEquals(3, countTransactions());
+        assertEquals(1.0, meterRegistry.get("simulator.persistence.records")
+            .tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void testDropPolicyWhenQueueIsFull() {
+        properties.getPersistence().getWriteBehind().setQueueCapacity(10);
+        properties.getPersistence().getWriteBehind().setOverflowPolicy(OverflowPolicy.DROP);
+        // Sin start(): nadie drena la cola
+        writer = new WriteBehindTransactionWriter(dataSource, properties, new PayloadCodec(properties),
+            meterRegistry, null);
+
+        int accepted = 0;
+        for (int i = 0; i < 15; i++) {
+            if (writer.enqueue(record("TX" + i))) {
+                accepted++;
+            }
+        }
+
+        assertEquals(10, accepted);
+        assertEquals(10, writer.getQueueDepth());
+        assertEquals(10.0, meterRegistry.get("simulator.persistence.queue.depth").gauge().value());
+        assertEquals(5.0, meterRegistry.get("simulator.persistence.records")
+            .tag("outcome", "dropped").counter().count());
+    }
+
+    @Test
+    void testSaveDropsByDefaultWithoutBlocking() {
+        properties.getPersistence().getWriteBehind().setQueueCapacity(1);
+        properties.getPersistence().getWriteBehind().setOfferTimeout(Duration.ofSeconds(10));
+        writer = new WriteBehindTransactionWriter(dataSource, properties, new PayloadCodec(properties),
+            meterRegistry, null);
+
+        assertEquals(OverflowPolicy.DROP, properties.getPersistence().getWriteBehind().getOverflowPolicy());
+        writer.save(record("TX-QUEUED")).block();
+        long start = System.nanoTime();
+        writer.save(record("TX-DROPPED")).block();
+
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(1).toNanos());
+        assertEquals(1, writer.getQueueDepth());
+        assertEquals(1.0, meterRegistry.get("simulator.persistence.records")
+            .tag("outcome", "dropped").counter().count());
+    }
+
+    @Test
+    void testSaveRunsBlockingPoliciesOffTheCallingThread() {
+        properties.getPersistence().getWriteBehind().setQueueCapacity(1);
+        properties.getPersistence().getWriteBehind().setOverflowPolicy(OverflowPolicy.CALLER_RUNS);
+        writer = new WriteBehindTransactionWriter(dataSource, properties, new PayloadCodec(properties),
+            meterRegistry, null);
+
+        writer.save(record("TX-QUEUED")).block();
+        String thread = writer.save(record("TX-CALLER"))
+            .then(Mono.fromCallable(() -> Thread.currentThread().getName()))
+            .block();
+
+        assertTrue(thread.startsWith("boundedElastic"), thread);
+        assertEquals(1, countTransactions());
+    }
+
+    @Test
+    void testCallerRunsPolicyWritesSynchronously() {
+        properties.getPersistence().getWriteBehind().setQueueCapacity(1);
+        properties.getPersistence().getWriteBehind().setOverflowPolicy(OverflowPolicy.CALLER_RUNS);
+        writer = new WriteBehindTransactionWriter(dataSource, properties, new PayloadCodec(properties),
+            meterRegistry, null);
+
+        assertTrue(writer.enqueue(record("TX-QUEUED")));
+        assertTrue(writer.enqueue(record("TX-CALLER")));
+
+        assertEquals(1, countTransactions());
+        assertEquals("TX-CALLER", jdbcTemplate.queryForObject(
+            "SELECT transaction_id FROM transactions", String.class));
+    }
+
+    @Test
+    void testCompressedRawMessageWhenCodecEnabled() {
+        properties.getCodec().setEnabled(true);
+        PayloadCodec codec = new PayloadCodec(properties);
+        writer = new WriteBehindTransactionWriter(dataSource, properties, codec, meterRegistry, null);
+        writer.start();
+
+        String xml = "<Document>" + "<CdtTrfTxInf><Amt>1.00</Amt></CdtTrfTxInf>".repeat(20) + "</Document>";
+        writer.enqueue(new TransactionRecord("TX-ZIP", "pacs.008.001.08", "John Doe", "Jane Smith",
+            new BigDecimal("1.00"), "USD", "SUCCESS", xml, LocalDateTime.now()));
+        writer.stop();
+
+        assertNull(jdbcTemplate.queryForObject(
+            "SELECT raw_message FROM transactions WHERE transaction_id = 'TX-ZIP'", String.class));
+        byte[] stored = jdbcTemplate.queryForObject(
+            "SELECT raw_message_compressed FROM transactions WHERE transaction_id = 'TX-ZIP'", byte[].class);
+        assertTrue(stored.length < xml.length());
+        assertEquals(xml, codec.decodeToString(stored));
+    }
+
+    private int countTransactions() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transactions", Integer.class);
+    }
+
+    private TransactionRecord record(String transactionId) {
+        return new TransactionRecord(transactionId, "pacs.008.001.08", "John Doe", "Jane Smith",
+            new BigDecimal("1000.00"), "USD", "SUCCESS", "<Document/>", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,81 @@
+package com.kuvasz.iso20022.simulator.persistence.r2dbc;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del repositorio R2DBC de accounts contra H2 en memoria
+ */
+class R2dbcAccountRepositoryTest {
+
+    private R2dbcConnectionPool connectionPool;
+    private R2dbcAccountRepository accountRepository;
+
+    @BeforeEach
+    void setUp() {
+        String database = "r2-acc-" + UUID.randomUUID();
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO accounts (account_number, account_name, bank_code, balance, currency) " +
+            "VALUES ('ACC001', 'Test Account 1', 'BANK001', 10000.00, 'USD')");
+        jdbcTemplate.update("INSERT INTO accounts (account_number, account_name, bank_code, balance, currency, status) " +
+            "VALUES ('ACC002', 'Test Account 2', 'BANK002', 5000.00, 'EUR', 'BLOCKED')");
+
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.getPersistence().getR2dbc().setUrl("r2dbc:h2:mem:///" + database + "?options=DB_CLOSE_DELAY=-1");
+        properties.getPersistence().getR2dbc().setInitialSize(1);
+
+        connectionPool = new R2dbcConnectionPool(properties);
+        accountRepository = new R2dbcAccountRepository(connectionPool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionPool.destroy();
+    }
+
+    @Test
+    void testFindByAccountNumber() {
+        StepVerifier.create(accountRepository.findByAccountNumber("ACC001"))
+            .assertNext(account -> {
+                assertEquals("Test Account 1", account.getAccountName());
+                assertEquals(0, new BigDecimal("10000.00").compareTo(account.getBalance()));
+                assertEquals("ACTIVE", account.getStatus());
+            })
+            .verifyComplete();
+
+        StepVerifier.create(accountRepository.findByAccountNumber("MISSING"))
+            .verifyComplete();
+    }
+
+    @Test
+    void testFindByStatus() {
+        StepVerifier.create(accountRepository.findByStatus("ACTIVE"))
+            .assertNext(account -> assertEquals("ACC001", account.getAccountNumber()))
+            .verifyComplete();
+    }
+
+    @Test
+    void testApplyBalanceDelta() {
+        StepVerifier.create(accountRepository.applyBalanceDelta("ACC001", new BigDecimal("-250.50"))
+                .then(accountRepository.findByAccountNumber("ACC001")))
+            .assertNext(account -> assertEquals(0, new BigDecimal("9749.50").compareTo(account.getBalance())))
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,125 @@
+package com.kuvasz.iso20022.simulator.persistence.r2dbc;
+
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.persistence.AuditLogRecord;
+import com.kuvasz.iso20022.simulator.persistence.TransactionRecord;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de los repositorios R2DBC de transactions y audit_log contra H2 en memoria
+ */
+class R2dbcTransactionRepositoryTest {
+
+    private SimulatorProperties properties;
+    private R2dbcConnectionPool connectionPool;
+    private R2dbcTransactionRepository transactionRepository;
+    private R2dbcAuditLogRepository auditLogRepository;
+
+    @BeforeEach
+    void setUp() {
+        String database = "r2-" + UUID.randomUUID();
+
+        // El esquema se crea por JDBC sobre la misma base en memoria que usa el pool R2DBC
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        properties = new SimulatorProperties();
+        properties.getPersistence().getR2dbc().setUrl("r2dbc:h2:mem:///" + database + "?options=DB_CLOSE_DELAY=-1");
+        properties.getPersistence().getR2dbc().setInitialSize(1);
+        properties.getPersistence().getR2dbc().setMaxSize(4);
+
+        connectionPool = new R2dbcConnectionPool(properties);
+        transactionRepository = new R2dbcTransactionRepository(connectionPool, new PayloadCodec(properties));
+        auditLogRepository = new R2dbcAuditLogRepository(connectionPool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionPool.destroy();
+    }
+
+    @Test
+    void testSaveAndFindByTransactionId() {
+        TransactionRecord record = new TransactionRecord("TX-R2-1", "pacs.008.001.08", "John Doe", "Jane Smith",
+            new BigDecimal("1000.00"), "USD", "SUCCESS", "<Document/>", LocalDateTime.now());
+
+        StepVerifier.create(transactionRepository.save(record)
+                .then(transactionRepository.findByTransactionId("TX-R2-1")))
+            .assertNext(found -> {
+                assertEquals("pacs.008.001.08", found.getMessageType());
+                assertEquals(0, new BigDecimal("1000.00").compareTo(found.getAmount()));
+                assertEquals("SUCCESS", found.getStatus());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void testSaveWithNullableColumns() {
+        TransactionRecord record = new TransactionRecord("TX-R2-NULL", "camt.053.001.02", "UNKNOWN", "UNKNOWN",
+            null, null, "SUCCESS", null, LocalDateTime.now());
+
+        StepVerifier.create(transactionRepository.save(record)
+                .then(transactionRepository.findByTransactionId("TX-R2-NULL")))
+            .assertNext(found -> {
+                assertNull(found.getAmount());
+                assertNull(found.getCurrency());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void testCompressedRawMessageRoundTrip() {
+        properties.getCodec().setEnabled(true);
+        String xml = "<Document>" + "<CdtTrfTxInf><Amt>1.00</Amt></CdtTrfTxInf>".repeat(20) + "</Document>";
+        TransactionRecord record = new TransactionRecord("TX-R2-ZIP", "pacs.008.001.08", "A", "B",
+            BigDecimal.ONE, "EUR", "SUCCESS", xml, LocalDateTime.now());
+
+        StepVerifier.create(transactionRepository.save(record)
+                .then(transactionRepository.findByTransactionId("TX-R2-ZIP")))
+            .assertNext(found -> assertEquals(xml, found.getRawMessage()))
+            .verifyComplete();
+    }
+
+    @Test
+    void testConcurrentSavesAndStatusCounters() {
+        Flux<Void> saves = Flux.range(0, 200)
+            .flatMap(i -> transactionRepository.save(new TransactionRecord("TX-C-" + i, "pacs.008.001.08",
+                "A", "B", BigDecimal.ONE, "EUR", i % 2 == 0 ? "SUCCESS" : "VALIDATION_FAILED",
+                null, LocalDateTime.now())), 16);
+
+        StepVerifier.create(saves.then(transactionRepository.countByStatus("SUCCESS")))
+            .expectNext(100L)
+            .verifyComplete();
+
+        StepVerifier.create(transactionRepository.updateStatus("TX-C-1", "SUCCESS")
+                .then(transactionRepository.countByStatus("SUCCESS")))
+            .expectNext(101L)
+            .verifyComplete();
+    }
+
+    @Test
+    void testAuditLogSaveAndFind() {
+        StepVerifier.create(auditLogRepository.save(new AuditLogRecord("TX-A", "RECEIVED", "{}", LocalDateTime.now()))
+                .then(auditLogRepository.save(new AuditLogRecord("TX-A", "ACCEPTED", null, LocalDateTime.now())))
+                .thenMany(auditLogRepository.findByTransactionId("TX-A")))
+            .assertNext(entry -> assertEquals("RECEIVED", entry.getAction()))
+            .assertNext(entry -> assertEquals("ACCEPTED", entry.getAction()))
+            .verifyComplete();
+    }
+}
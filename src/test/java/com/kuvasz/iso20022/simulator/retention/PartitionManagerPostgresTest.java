@@ -0,0 +1,69 @@
+package com.kuvasz.iso20022.simulator.retention;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de PartitionManager contra PostgreSQL con el DDL de docker/partitioning.sql.
+ * Se omiten si no hay Docker disponible.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PartitionManagerPostgresTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+        .withDatabaseName("iso20022_test")
+        .withUsername("postgres")
+        .withPassword("postgres");
+
+    private PGSimpleDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(postgres.getJdbcUrl());
+        dataSource.setUser(postgres.getUsername());
+        dataSource.setPassword(postgres.getPassword());
+        new ResourceDatabasePopulator(new FileSystemResource("docker/init.sql"),
+            new FileSystemResource("docker/partitioning.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void testExpiredPartitionsAreDroppedWithTheShippedDefaultPartition() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(PartitionManager.isSupported(connection));
+            PartitionManager.precreate(connection, RetentionTable.TRANSACTIONS, TODAY.minusDays(3), 3);
+            jdbcTemplate.update("INSERT INTO transactions (transaction_id, message_type, sender, receiver, created_at) "
+                + "VALUES ('OLD-1', 'pacs.008.001.08', 'S', 'R', ?)", Timestamp.valueOf(TODAY.minusDays(3).atStartOfDay()));
+            jdbcTemplate.update("INSERT INTO transactions (transaction_id, message_type, sender, receiver, created_at) "
+                + "VALUES ('NEW-1', 'pacs.008.001.08', 'S', 'R', ?)", Timestamp.valueOf(TODAY.atTime(10, 0)));
+
+            int dropped = PartitionManager.dropExpired(connection, RetentionTable.TRANSACTIONS, TODAY.minusDays(1));
+
+            assertEquals(2, dropped);
+        }
+        List<String> partitions = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = 'transactions' ORDER BY c.relname", String.class);
+        assertEquals(List.of("transactions_default", "transactions_p20240229", "transactions_p20240301"), partitions);
+        assertEquals(List.of("NEW-1"), jdbcTemplate.queryForList("SELECT transaction_id FROM transactions", String.class));
+    }
+}
@@ -0,0 +1,199 @@
+package com.kuvasz.iso20022.simulator.retention;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para RetentionJob contra H2 en memoria
+ */
+class RetentionJobTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+    private static final Clock CLOCK = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SimulatorProperties properties;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:retention-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        properties = new SimulatorProperties();
+        properties.getRetention().setBatchSize(7);
+        properties.getRetention().setBatchPause(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testPurgesExpiredRowsInKeyedBatches() {
+        // Filas caducadas y vigentes intercaladas para que los rangos de clave no sean contiguos
+        for (int i = 0; i < 50; i++) {
+            insertTransaction("OLD-" + i, NOW.minusDays(31).plusMinutes(i));
+            insertTransaction("NEW-" + i, NOW.minusDays(29));
+        }
+
+        List<PurgeResult> results = job(() -> 0).runOnce();
+
+        PurgeResult transactions = results.get(0);
+        assertEquals(RetentionTable.TRANSACTIONS, transactions.getTable());
+        assertEquals(50, transactions.getRowsPurged());
+        assertEquals(8, transactions.getBatches());
+        assertTrue(transactions.isCompleted());
+        assertEquals(NOW.minusDays(30), transactions.getCutoff());
+        assertEquals(0, count("SELECT COUNT(*) FROM transactions WHERE transaction_id LIKE 'OLD-%'"));
+        assertEquals(50, count("SELECT COUNT(*) FROM transactions WHERE transaction_id LIKE 'NEW-%'"));
+        assertEquals(50.0, meterRegistry.get("simulator.retention.rows.purged")
+            .tag("table", "transactions").counter().count());
+        assertEquals(8, meterRegistry.get("simulator.retention.batch.latency")
+            .tag("table", "transactions").timer().count());
+    }
+
+    @Test
+    void testAuditLogUsesItsOwnRetention() {
+        insertAudit(NOW.minusDays(8));
+        insertAudit(NOW.minusDays(6));
+        insertTransaction("TX-1", NOW.minusDays(8));
+
+        List<PurgeResult> results = job(() -> 0).runOnce();
+
+        assertEquals(0, results.get(0).getRowsPurged());
+        assertEquals(1, results.get(1).getRowsPurged());
+        assertEquals(1, count("SELECT COUNT(*) FROM audit_log"));
+        assertEquals(1, count("SELECT COUNT(*) FROM transactions"));
+    }
+
+    @Test
+    void testDisabledTableIsSkipped() {
+        properties.getRetention().getAuditLog().setEnabled(false);
+        insertAudit(NOW.minusDays(30));
+
+        List<PurgeResult> results = job(() -> 0).runOnce();
+
+        assertEquals(1, results.size());
+        assertEquals(1, count("SELECT COUNT(*) FROM audit_log"));
+    }
+
+    @Test
+    void testYieldsToInsertBacklogUntilRunTimeIsExhausted() {
+        properties.getRetention().setMaxInsertBacklog(100);
+        properties.getRetention().setMaxRunTime(Duration.ofMillis(200));
+        properties.getRetention().setBatchPause(Duration.ofMillis(5));
+        insertTransaction("OLD-1", NOW.minusDays(40));
+
+        List<PurgeResult> results = job(() -> 500).runOnce();
+
+        PurgeResult transactions = results.get(0);
+        assertFalse(transactions.isCompleted());
+        assertEquals(0, transactions.getRowsPurged());
+        assertTrue(transactions.getThrottledNanos() >= Duration.ofMillis(150).toNanos());
+        assertEquals(1, count("SELECT COUNT(*) FROM transactions"));
+        assertEquals(1, meterRegistry.get("simulator.retention.run.duration")
+            .tag("table", "transactions").tag("outcome", "partial").timer().count());
+    }
+
+    @Test
+    void testPartitionedTableFallsBackToBatchesWithoutPartitionSupport() {
+        properties.getRetention().getTransactions().setPartitioned(true);
+        insertTransaction("OLD-1", NOW.minusDays(40));
+
+        PurgeResult transactions = job(() -> 0).runOnce().get(0);
+
+        assertEquals(1, transactions.getRowsPurged());
+        assertEquals(0, transactions.getPartitionsDropped());
+    }
+
+    @Test
+    void testInsertLatencyIsRecordedPerPhaseWithPercentiles() {
+        insertTransaction("OLD-1", NOW.minusDays(40));
+        AtomicReference<RetentionJob> job = new AtomicReference<>();
+        // La purga consulta el backlog entre batches: simula ahí un flush concurrente
+        job.set(job(() -> {
+            job.get().recordInsertLatency(TimeUnit.MILLISECONDS.toNanos(40));
+            return 0;
+        }));
+
+        for (int i = 1; i <= 100; i++) {
+            job.get().recordInsertLatency(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        job.get().runOnce();
+
+        Timer idle = meterRegistry.get("simulator.retention.insert.latency").tag("phase", "idle").timer();
+        Timer purging = meterRegistry.get("simulator.retention.insert.latency").tag("phase", "purging").timer();
+        assertEquals(100, idle.count());
+        assertTrue(purging.count() > 0);
+        ValueAtPercentile[] percentiles = idle.takeSnapshot().percentileValues();
+        assertEquals(3, percentiles.length);
+        assertEquals(0.99, percentiles[2].percentile());
+        assertTrue(percentiles[2].value(TimeUnit.MILLISECONDS) >= 90, "p99 " + percentiles[2]);
+        assertTrue(percentiles[0].value(TimeUnit.MILLISECONDS) < percentiles[2].value(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testPartitionNaming() {
+        LocalDate day = LocalDate.of(2024, 2, 29);
+        String name = PartitionManager.partitionName(RetentionTable.AUDIT_LOG, day);
+
+        assertEquals("audit_log_p20240229", name);
+        assertEquals(day, PartitionManager.partitionDay(RetentionTable.AUDIT_LOG, name));
+        assertNull(PartitionManager.partitionDay(RetentionTable.AUDIT_LOG, "audit_log_default"));
+        assertNull(PartitionManager.partitionDay(RetentionTable.TRANSACTIONS, name));
+    }
+
+    @Test
+    void testDetachIsOnlyConcurrentWithoutDefaultPartition() {
+        assertTrue(PartitionManager.canDetachConcurrently(16, false, true));
+        // docker/partitioning.sql crea particiones DEFAULT
+        assertFalse(PartitionManager.canDetachConcurrently(16, true, true));
+        assertFalse(PartitionManager.canDetachConcurrently(16, false, false));
+        assertFalse(PartitionManager.canDetachConcurrently(13, false, true));
+        assertEquals("ALTER TABLE transactions DETACH PARTITION transactions_p20240101",
+            PartitionManager.detachStatement(RetentionTable.TRANSACTIONS, "transactions_p20240101", false));
+    }
+
+    private RetentionJob job(IntSupplier backlog) {
+        return new RetentionJob(dataSource, properties, meterRegistry, backlog, CLOCK);
+    }
+
+    private void insertTransaction(String id, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, message_type, sender, receiver, created_at) "
+            + "VALUES (?, 'pacs.008.001.08', 'S', 'R', ?)", id, Timestamp.valueOf(createdAt));
+    }
+
+    private void insertAudit(LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO audit_log (transaction_id, action, details, timestamp) VALUES (?, ?, ?, ?)",
+            "TX", "VALIDATION", "VALID", Timestamp.valueOf(timestamp));
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
@@ -0,0 +1,342 @@
+package com.kuvasz.iso20022.simulator.service;
+
+import com.kuvasz.iso20022.simulator.audit.AuditPipeline;
+import com.kuvasz.iso20022.simulator.codec.PayloadCodec;
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.core.generator.ISO20022ResponseGenerator;
+import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
+import com.kuvasz.iso20022.simulator.core.parser.MessageParser;
+import com.kuvasz.iso20022.simulator.core.parser.ParseOutcome;
+import com.kuvasz.iso20022.simulator.core.validator.SimpleBusinessRuleValidator;
+import com.kuvasz.iso20022.simulator.core.validator.StructuralValidator;
+import com.kuvasz.iso20022.simulator.journal.MessageJournal;
+import com.kuvasz.iso20022.simulator.ledger.SettlementLedger;
+import com.kuvasz.iso20022.simulator.metrics.PipelineMetrics;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.persistence.TransactionPersistence;
+import com.kuvasz.iso20022.simulator.status.StatusInquiryHandler;
+import com.kuvasz.iso20022.simulator.status.TransactionStatusStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para MessageProcessingService
+ */
+class MessageProcessingServiceTest {
+
+    private static final String VALID_PACS_008 = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">
+            <FIToFICstmrCdtTrf>
+                <GrpHdr>
+                    <MsgId>SVC123456789</MsgId>
+                    <CreDtTm>2024-01-15T10:30:00</CreDtTm>
+                </GrpHdr>
+                <CdtTrfTxInf>
+                    <InstdAmt Ccy="USD">1000.00</InstdAmt>
+                    <PmtInf>
+                        <PmtInfId>PMT123</PmtInfId>
+                    </PmtInf>
+                </CdtTrfTxInf>
+            </FIToFICstmrCdtTrf>
+        </Document>
+        """;
+
+    private static final String STATUS_REQUEST = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.028.001.03">
+            <FIToFIPmtStsReq>
+                <GrpHdr>
+                    <MsgId>STSREQ-1</MsgId>
+                    <CreDtTm>2024-01-15T10:35:00</CreDtTm>
+                </GrpHdr>
+                <OrgnlGrpInf>
+                    <OrgnlMsgId>SVC123456789</OrgnlMsgId>
+                    <OrgnlMsgNmId>pacs.008.001.08</OrgnlMsgNmId>
+                </OrgnlGrpInf>
+            </FIToFIPmtStsReq>
+        </Document>
+        """;
+
+    @TempDir
+    Path directory;
+
+    private MessageProcessingService service;
+    private SimulatorProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SimulatorProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        properties.getStatusStore().setCapacity(1024);
+        service = newService(new GenericXMLParser());
+    }
+
+    private MessageProcessingService newService(MessageParser parser) {
+        return newService(parser, null);
+    }
+
+    private MessageProcessingService newService(MessageParser parser, MessageJournal journal) {
+        TransactionStatusStore statusStore = new TransactionStatusStore(properties, new SimpleMeterRegistry());
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("statusStore", statusStore);
+        beanFactory.addBean("statusInquiryHandler", new StatusInquiryHandler(statusStore));
+        if (journal != null) {
+            beanFactory.addBean("journal", journal);
+        }
+
+        MessageProcessingService service = new MessageProcessingService(
+            parser,
+            List.of(new StructuralValidator(), new SimpleBusinessRuleValidator()),
+            new ISO20022ResponseGenerator(),
+            new StaticListableBeanFactory().getBeanProvider(TransactionPersistence.class),
+            beanFactory.getBeanProvider(MessageJournal.class),
+            new StaticListableBeanFactory().getBeanProvider(SettlementLedger.class),
+            beanFactory.getBeanProvider(TransactionStatusStore.class),
+            beanFactory.getBeanProvider(StatusInquiryHandler.class),
+            new StaticListableBeanFactory().getBeanProvider(AuditPipeline.class),
+            new PipelineMetrics(meterRegistry, properties));
+        service.setProperties(properties);
+        return service;
+    }
+
+    @Test
+    void testProcessValidMessage() {
+        StepVerifier.create(service.process(VALID_PACS_008))
+            .assertNext(result -> {
+                assertEquals(ProcessingResult.Status.SUCCESS, result.getStatus());
+                assertEquals("SVC123456789", result.getMessageId());
+                assertTrue(result.getProcessedMessage().contains("pacs.002.001.10"));
+                assertTrue(result.getProcessedMessage().contains("ACCP"));
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void testPipelineRunsOffTheSubscribingThread() {
+        String thread = service.process(VALID_PACS_008)
+            .map(result -> Thread.currentThread().getName())
+            .block();
+
+        assertTrue(thread.startsWith("parallel"), thread);
+    }
+
+    @Test
+    void testGroupCommitThreadDoesNotCompleteTheMessage() throws Exception {
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getJournal().setFsyncPolicy(SimulatorProperties.Journal.FsyncPolicy.GROUP);
+        MessageJournal journal = new MessageJournal(properties, new PayloadCodec(properties), meterRegistry);
+        journal.open();
+        try {
+            String thread = newService(new GenericXMLParser(), journal).process(VALID_PACS_008)
+                .map(result -> Thread.currentThread().getName())
+                .block();
+
+            assertTrue(journal.findByMessageId("SVC123456789").isPresent());
+            assertTrue(thread.startsWith("parallel"), thread);
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    void testLargePayloadsRunOnBoundedElastic() {
+        String large = VALID_PACS_008.replace("<PmtInfId>PMT123</PmtInfId>",
+            "<PmtInfId>PMT123</PmtInfId>" + "<!-- padding -->".repeat(MessageProcessingService.LARGE_PAYLOAD_CHARS / 16));
+
+        String thread = service.process(large)
+            .map(result -> Thread.currentThread().getName())
+            .block();
+
+        assertTrue(thread.startsWith("boundedElastic"), thread);
+    }
+
+    @Test
+    void testProcessInvalidMessageIsRejected() {
+        String invalid = VALID_PACS_008.replace("USD", "XYZ");
+
+        ProcessingResult result = service.processMessage(invalid);
+
+        assertEquals(ProcessingResult.Status.VALIDATION_FAILED, result.getStatus());
+        assertTrue(result.hasErrors());
+        assertTrue(result.getProcessedMessage().contains("RJCT"));
+    }
+
+    @Test
+    void testProcessMalformedXmlProducesRejection() {
+        ProcessingResult result = service.processMessage("<Document><Unclosed></Document>");
+
+        assertEquals(ProcessingResult.Status.ERROR, result.getStatus());
+        assertTrue(result.getProcessedMessage().contains("MsgRjct"));
+    }
+
+    @Test
+    void testStatusInquiryIsAnsweredFromStatusStore() {
+        service.processMessage(VALID_PACS_008);
+
+        ProcessingResult result = service.processMessage(STATUS_REQUEST);
+
+        assertEquals(ProcessingResult.Status.SUCCESS, result.getStatus());
+        assertEquals("pacs.028.001.03", result.getMessageType());
+        assertTrue(result.getProcessedMessage().contains("<GrpSts>ACCP</GrpSts>"));
+    }
+
+    @Test
+    void testEveryTransactionOfAMessageIsQueryable() {
+        String batch = VALID_PACS_008
+            .replace("<CdtTrfTxInf>", "<CdtTrfTxInf><PmtId><EndToEndId>E2E-FIRST</EndToEndId></PmtId>")
+            .replace("</CdtTrfTxInf>", "</CdtTrfTxInf><CdtTrfTxInf><PmtId><EndToEndId>E2E-SECOND</EndToEndId></PmtId>"
+                + "<InstdAmt Ccy=\"USD\">5.00</InstdAmt></CdtTrfTxInf>");
+        assertEquals(ProcessingResult.Status.SUCCESS, service.processMessage(batch).getStatus());
+
+        String response = service.processMessage(STATUS_REQUEST.replace("</OrgnlGrpInf>",
+            "</OrgnlGrpInf><TxInf><OrgnlEndToEndId>E2E-FIRST</OrgnlEndToEndId></TxInf>"
+                + "<TxInf><OrgnlEndToEndId>E2E-SECOND</OrgnlEndToEndId></TxInf>"
+                + "<TxInf><OrgnlEndToEndId>SVC123456789</OrgnlEndToEndId></TxInf>")).getProcessedMessage();
+
+        assertTrue(response.matches("(?s).*E2E-FIRST</OrgnlEndToEndId>\\s*<TxSts>ACCP</TxSts>.*"), response);
+        assertTrue(response.matches("(?s).*E2E-SECOND</OrgnlEndToEndId>\\s*<TxSts>ACCP</TxSts>.*"), response);
+        // El MsgId del grupo no responde como si fuera un EndToEndId
+        assertTrue(response.matches("(?s).*SVC123456789</OrgnlEndToEndId>\\s*<TxSts>RJCT</TxSts>.*"), response);
+    }
+
+    @Test
+    void testPipelineStagesAreTimed() {
+        service.processMessage(VALID_PACS_008);
+        service.processMessage(VALID_PACS_008.replace("USD", "XYZ").replace("SVC123456789", "SVC2"));
+
+        assertEquals(2, meterRegistry.get("simulator.pipeline.stage.duration")
+            .tags("stage", "parse", "type", "pacs.008", "version", "001.08", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("simulator.pipeline.stage.duration")
+            .tags("stage", "business", "outcome", "invalid").timer().count());
+        assertEquals(2, meterRegistry.get("simulator.pipeline.stage.duration")
+            .tags("stage", "generate").timer().count());
+        assertEquals(1, meterRegistry.get("simulator.pipeline.duration")
+            .tags("outcome", "validation_failed").timer().count());
+        assertEquals(2, meterRegistry.get("simulator.message.payload.size").tag("type", "pacs.008").summary().count());
+        assertTrue(meterRegistry.find("simulator.validation.errors").tag("type", "pacs.008").counters().stream()
+            .mapToDouble(c -> c.count()).sum() >= 1.0);
+    }
+
+    @Test
+    void testMalformedXmlIsTimedAsParseError() {
+        service.processMessage("<Document><Unclosed></Document>");
+
+        assertEquals(1, meterRegistry.get("simulator.pipeline.stage.duration")
+            .tags("stage", "parse", "type", "unknown", "outcome", "error").timer().count());
+        assertEquals(1, meterRegistry.get("simulator.pipeline.duration")
+            .tags("type", "unknown", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void testLazyContextGivesSameResults() {
+        MessageProcessingService lazy = newService(new GenericXMLParser(true));
+
+        ProcessingResult valid = lazy.processMessage(VALID_PACS_008);
+        ProcessingResult invalid = lazy.processMessage(VALID_PACS_008.replace("USD", "XYZ"));
+
+        assertEquals(ProcessingResult.Status.SUCCESS, valid.getStatus());
+        assertTrue(valid.getProcessedMessage().contains("ACCP"));
+        assertEquals(ProcessingResult.Status.VALIDATION_FAILED, invalid.getStatus());
+        assertEquals(service.processMessage(VALID_PACS_008.replace("USD", "XYZ")).getErrors().size(),
+            invalid.getErrors().size());
+        assertEquals(ProcessingResult.Status.ERROR, lazy.processMessage("<Document><Unclosed></Document>").getStatus());
+    }
+
+    @Test
+    void testParsedDocumentAndPayloadAreReleasedAfterUse() {
+        List<MessageContext> contexts = new ArrayList<>();
+        MessageProcessingService recording = newService(recordingParser(contexts));
+
+        ProcessingResult result = recording.processMessage(VALID_PACS_008);
+
+        assertEquals(ProcessingResult.Status.SUCCESS, result.getStatus());
+        assertTrue(result.getProcessedMessage().contains("ACCP"));
+        MessageContext context = contexts.get(0);
+        assertNull(context.getParsedDocument());
+        assertNull(context.getOriginalXml());
+        assertEquals("SVC123456789", context.getMessageId());
+        assertNotNull(context.getProperties());
+    }
+
+    @Test
+    void testPayloadIsUnreachableWhileWaitingForTheJournal() throws Exception {
+        MessageJournal journal = mock(MessageJournal.class);
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        when(journal.append(any())).thenReturn(durable);
+        MessageProcessingService journaled = newService(new GenericXMLParser(), journal);
+        // El payload solo lo referencia el servicio; el test conserva una referencia débil
+        String payload = new String(VALID_PACS_008.toCharArray());
+        WeakReference<String> reference = new WeakReference<>(payload);
+
+        Mono<ProcessingResult> processing = journaled.process(payload);
+        payload = null;
+        CompletableFuture<ProcessingResult> result = processing.toFuture();
+        verify(journal, timeout(5_000)).append(any());
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get());
+
+        durable.complete(null);
+        ProcessingResult processed = result.get(5, TimeUnit.SECONDS);
+        assertEquals(ProcessingResult.Status.SUCCESS, processed.getStatus());
+        assertNull(processed.getOriginalMessage());
+    }
+
+    @Test
+    void testProcessingMonoCanOnlyBeSubscribedOnce() {
+        Mono<ProcessingResult> processing = service.process(VALID_PACS_008);
+
+        assertEquals(ProcessingResult.Status.SUCCESS, processing.block().getStatus());
+        assertThrows(IllegalStateException.class, processing::block);
+    }
+
+    @Test
+    void testReleaseCanBeDisabled() {
+        properties.getPerformance().setReleaseAfterUse(false);
+        List<MessageContext> contexts = new ArrayList<>();
+        MessageProcessingService recording = newService(recordingParser(contexts));
+
+        assertEquals(ProcessingResult.Status.SUCCESS, recording.processMessage(VALID_PACS_008).getStatus());
+
+        assertNotNull(contexts.get(0).getParsedDocument());
+        assertEquals(VALID_PACS_008, contexts.get(0).getOriginalXml());
+    }
+
+    private static MessageParser recordingParser(List<MessageContext> contexts) {
+        return new GenericXMLParser() {
+            @Override
+            public ParseOutcome tryParse(String xmlContent) {
+                ParseOutcome outcome = super.tryParse(xmlContent);
+                if (outcome instanceof ParseOutcome.Parsed parsed) {
+                    contexts.add(parsed.context());
+                }
+                return outcome;
+            }
+        };
+    }
+}
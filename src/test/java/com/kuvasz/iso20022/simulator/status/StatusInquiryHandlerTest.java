@@ -0,0 +1,125 @@
+package com.kuvasz.iso20022.simulator.status;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import com.kuvasz.iso20022.simulator.core.parser.GenericXMLParser;
+import com.kuvasz.iso20022.simulator.model.MessageContext;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.status.TransactionStatusStore.KeySpace;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para StatusInquiryHandler
+ */
+class StatusInquiryHandlerTest {
+
+    private static final String STATUS_REQUEST = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.028.001.03">
+            <FIToFIPmtStsReq>
+                <GrpHdr>
+                    <MsgId>STSREQ-1</MsgId>
+                    <CreDtTm>2024-01-15T10:35:00</CreDtTm>
+                </GrpHdr>
+                <OrgnlGrpInf>
+                    <OrgnlMsgId>MSG-1</OrgnlMsgId>
+                    <OrgnlMsgNmId>pacs.008.001.08</OrgnlMsgNmId>
+                </OrgnlGrpInf>
+                <TxInf>
+                    <OrgnlEndToEndId>E2E-ACCEPTED</OrgnlEndToEndId>
+                </TxInf>
+                <TxInf>
+                    <OrgnlEndToEndId>E2E-REJECTED</OrgnlEndToEndId>
+                </TxInf>
+                <TxInf>
+                    <OrgnlEndToEndId>E2E-UNKNOWN</OrgnlEndToEndId>
+                </TxInf>
+            </FIToFIPmtStsReq>
+        </Document>
+        """;
+
+    private final GenericXMLParser parser = new GenericXMLParser();
+    private TransactionStatusStore store;
+    private StatusInquiryHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.getStatusStore().setCapacity(1024);
+        store = new TransactionStatusStore(properties, new SimpleMeterRegistry());
+        handler = new StatusInquiryHandler(store);
+    }
+
+    @Test
+    void testParserDetectsStatusRequest() throws Exception {
+        MessageContext context = parser.parse(STATUS_REQUEST);
+
+        assertEquals("pacs.028.001.03", context.getMessageType());
+        assertTrue(handler.canHandle(context.getMessageType()));
+        assertFalse(handler.canHandle("pacs.008.001.08"));
+    }
+
+    @Test
+    void testAnswersEachTransactionFromStore() throws Exception {
+        Instant now = Instant.now();
+        store.put(KeySpace.MESSAGE, "MSG-1", "RJCT", "AM04", now, now);
+        store.put(KeySpace.TRANSACTION, "E2E-ACCEPTED", "ACCP", null, now, now);
+        store.put(KeySpace.TRANSACTION, "E2E-REJECTED", "RJCT", "AM04", now, now);
+
+        ProcessingResult result = handler.handle(parser.parse(STATUS_REQUEST));
+        String response = result.getProcessedMessage();
+
+        assertEquals(ProcessingResult.Status.SUCCESS, result.getStatus());
+        assertTrue(response.contains("pacs.002.001.10"));
+        assertTrue(response.contains("<OrgnlMsgId>MSG-1</OrgnlMsgId>"));
+        assertTrue(response.contains("<GrpSts>RJCT</GrpSts>"));
+        assertTrue(response.matches("(?s).*E2E-ACCEPTED</OrgnlEndToEndId>\\s*<TxSts>ACCP</TxSts>.*"));
+        assertTrue(response.matches("(?s).*E2E-REJECTED</OrgnlEndToEndId>\\s*<TxSts>RJCT</TxSts>\\s*"
+            + "<StsRsnInf>\\s*<Rsn>\\s*<Cd>AM04</Cd>.*"));
+        assertTrue(response.matches("(?s).*E2E-UNKNOWN</OrgnlEndToEndId>\\s*<TxSts>RJCT</TxSts>\\s*"
+            + "<StsRsnInf>\\s*<Rsn>\\s*<Cd>NARR</Cd>.*"));
+    }
+
+    @Test
+    void testConcurrentInquiriesResolveTheirOwnIds() throws Exception {
+        Instant now = Instant.now();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> answers = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String endToEndId = "E2E-" + i;
+                store.put(KeySpace.TRANSACTION, endToEndId, "ACCP", null, now, now);
+                String request = STATUS_REQUEST.replace("MSG-1", "MSG-" + i).replace("E2E-ACCEPTED", endToEndId);
+                answers.add(executor.submit(() -> {
+                    String response = handler.handle(parser.parse(request)).getProcessedMessage();
+                    return response.contains("<OrgnlMsgId>MSG-" + endToEndId.substring(4) + "</OrgnlMsgId>")
+                        && response.matches("(?s).*" + endToEndId + "</OrgnlEndToEndId>\\s*<TxSts>ACCP</TxSts>.*");
+                }));
+            }
+            for (Future<Boolean> answer : answers) {
+                assertTrue(answer.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUnknownGroupIsReportedAsNotFound() throws Exception {
+        ProcessingResult result = handler.handle(parser.parse(STATUS_REQUEST));
+
+        assertTrue(result.getProcessedMessage().contains("<GrpSts>RJCT</GrpSts>"));
+        assertTrue(result.getProcessedMessage().contains("Transaction not found"));
+    }
+}
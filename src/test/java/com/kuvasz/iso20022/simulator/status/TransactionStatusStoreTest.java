@@ -0,0 +1,154 @@
+package com.kuvasz.iso20022.simulator.status;
+
+import com.kuvasz.iso20022.simulator.config.SimulatorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.kuvasz.iso20022.simulator.status.TransactionStatusStore.KeySpace.MESSAGE;
+import static com.kuvasz.iso20022.simulator.status.TransactionStatusStore.KeySpace.TRANSACTION;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para TransactionStatusStore
+ */
+class TransactionStatusStoreTest {
+
+    private static final Instant RECEIVED = Instant.parse("2024-01-15T10:30:00Z");
+    private static final Instant UPDATED = Instant.parse("2024-01-15T10:31:00Z");
+
+    private SimulatorProperties properties;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SimulatorProperties();
+        properties.getStatusStore().setCapacity(1024);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testPutAndGet() {
+        TransactionStatusStore store = new TransactionStatusStore(properties, meterRegistry);
+
+        assertTrue(store.put(TRANSACTION, "E2E-0001", "RJCT", "AM04", RECEIVED, RECEIVED));
+
+        TransactionStatus status = store.get(TRANSACTION, "E2E-0001").orElseThrow();
+        assertEquals("RJCT", status.getStatusCode());
+        assertEquals("AM04", status.getReasonCode());
+        assertEquals(RECEIVED, status.getReceivedAt());
+        assertTrue(store.get(TRANSACTION, "E2E-0002").isEmpty());
+        assertEquals(1, store.size());
+        assertEquals(1.0, meterRegistry.get("simulator.status.store.lookups").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("simulator.status.store.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testUpdateKeepsReceivedTimestamp() {
+        TransactionStatusStore store = new TransactionStatusStore(properties, meterRegistry);
+        store.put(TRANSACTION, "E2E-0001", "ACSP", null, RECEIVED, RECEIVED);
+
+        assertTrue(store.put(TRANSACTION, "E2E-0001", "ACCP", "", UPDATED, UPDATED));
+
+        TransactionStatus status = store.get(TRANSACTION, "E2E-0001").orElseThrow();
+        assertEquals("ACCP", status.getStatusCode());
+        assertFalse(status.hasReasonCode());
+        assertEquals(RECEIVED, status.getReceivedAt());
+        assertEquals(UPDATED, status.getUpdatedAt());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testCapacityIsRoundedAndLoadFactorEnforced() {
+        properties.getStatusStore().setCapacity(100);
+        properties.getStatusStore().setMaxLoadFactor(0.5);
+        TransactionStatusStore store = new TransactionStatusStore(properties, meterRegistry);
+
+        assertEquals(128, store.getCapacity());
+        for (int i = 0; i < 64; i++) {
+            assertTrue(store.put(TRANSACTION, "E2E-" + i, "ACCP", null, RECEIVED, RECEIVED));
+        }
+        assertFalse(store.put(TRANSACTION, "E2E-NEW", "ACCP", null, RECEIVED, RECEIVED));
+        // Las claves existentes se siguen pudiendo actualizar con la tabla llena
+        assertTrue(store.put(TRANSACTION, "E2E-7", "RJCT", "AC01", RECEIVED, UPDATED));
+
+        assertEquals(0.5, store.getLoadFactor());
+        assertEquals(1.0, meterRegistry.get("simulator.status.store.rejected").counter().count());
+        assertEquals(128.0 * 80, meterRegistry.get("simulator.status.store.memory.bytes").gauge().value());
+        for (int i = 0; i < 64; i++) {
+            assertTrue(store.get(TRANSACTION, "E2E-" + i).isPresent(), "missing E2E-" + i);
+        }
+    }
+
+    @Test
+    void testKeysLongerThanMax35TextAreRejected() {
+        TransactionStatusStore store = new TransactionStatusStore(properties, meterRegistry);
+
+        assertTrue(store.put(TRANSACTION, "X".repeat(35), "ACCP", null, RECEIVED, RECEIVED));
+        assertFalse(store.put(TRANSACTION, "X".repeat(36), "ACCP", null, RECEIVED, RECEIVED));
+        assertTrue(store.get(TRANSACTION, "X".repeat(36)).isEmpty());
+    }
+
+    @Test
+    void testMessageAndTransactionKeysDoNotShadowEachOther() {
+        TransactionStatusStore store = new TransactionStatusStore(properties, meterRegistry);
+
+        assertTrue(store.put(TRANSACTION, "SAME-ID", "ACCP", null, RECEIVED, RECEIVED));
+        assertTrue(store.put(MESSAGE, "SAME-ID", "RJCT", "AM04", RECEIVED, UPDATED));
+
+        assertEquals("ACCP", store.get(TRANSACTION, "SAME-ID").orElseThrow().getStatusCode());
+        assertEquals("RJCT", store.get(MESSAGE, "SAME-ID").orElseThrow().getStatusCode());
+        assertEquals(2, store.size());
+        assertTrue(store.put(MESSAGE, "X".repeat(35), "ACCP", null, RECEIVED, RECEIVED));
+    }
+
+    @Test
+    void testConcurrentInsertsAndUpdates() throws Exception {
+        properties.getStatusStore().setCapacity(65_536);
+        TransactionStatusStore store = new TransactionStatusStore(properties, meterRegistry);
+        int threads = 8;
+        int keys = 20_000;
+        AtomicInteger tornReads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Todos los hilos escriben las mismas claves para forzar carreras en la reclamación de slots
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String status = t % 2 == 0 ? "ACCP" : "RJCT";
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < keys; i++) {
+                    store.put(TRANSACTION, "E2E-" + i, status, status.equals("RJCT") ? "AM04" : null, RECEIVED, UPDATED);
+                    TransactionStatus read = store.get(TRANSACTION, "E2E-" + i).orElse(null);
+                    // Nunca debe observarse un estado mezclado entre dos escritores
+                    if (read == null || read.getStatusCode().equals("RJCT") != read.hasReasonCode()) {
+                        tornReads.incrementAndGet();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(0, tornReads.get());
+        assertEquals(keys, store.size());
+        for (int i = 0; i < keys; i++) {
+            assertTrue(store.get(TRANSACTION, "E2E-" + i).isPresent());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.kuvasz.iso20022.simulator.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kuvasz.iso20022.simulator.audit.AuditPipeline;
+import com.kuvasz.iso20022.simulator.logging.LogRateLimiter;
+import com.kuvasz.iso20022.simulator.model.ProcessingResult;
+import com.kuvasz.iso20022.simulator.model.ValidationError;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitarios para StructuredLogger y StructuredEvent
+ */
+class StructuredLoggerTest {
+
+    private LoggerContext context;
+    private Logger logbackLogger;
+    private ListAppender<ILoggingEvent> appender;
+    private StructuredLogger structuredLogger;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+        logbackLogger = context.getLogger("structured");
+        logbackLogger.setAdditive(false);
+        logbackLogger.addAppender(appender);
+        structuredLogger = new StructuredLogger(logbackLogger);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        context.stop();
+    }
+
+    @Test
+    void testEventIsPassedAsArgumentWithoutTouchingMdc() throws Exception {
+        MDC.put("tenant", "bank-a");
+
+        structuredLogger.logMessageSuccess(LogContext.forRequest("corr-1", "10.0.0.1", "curl"),
+            "MSG-1", "pacs.008.001.08", 42);
+
+        // Las claves puestas por otros componentes sobreviven a la llamada
+        assertEquals("bank-a", MDC.get("tenant"));
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertFalse(event.getMDCPropertyMap().containsKey(StructuredEvent.MESSAGE_ID));
+
+        JsonNode fields = toJson(structuredEvent(event));
+        assertEquals("MSG-1", fields.get("messageId").asText());
+        assertEquals("corr-1", fields.get("correlationId").asText());
+        assertEquals("10.0.0.1", fields.get("clientIp").asText());
+        assertEquals("SUCCESS", fields.get("status").asText());
+        // Los tiempos se escriben como números, no como cadenas
+        assertTrue(fields.get("processingTimeMs").isNumber());
+        assertEquals(42, fields.get("processingTimeMs").asLong());
+        // El mensaje no formatea el evento en el hilo que registra
+        assertEquals("Message processed successfully MSG-1", event.getFormattedMessage());
+    }
+
+    @Test
+    void testDisabledLevelBuildsNoEvent() {
+        logbackLogger.setLevel(Level.WARN);
+
+        structuredLogger.logMessageSuccess(LogContext.empty(), "MSG-1", "pacs.008.001.08", 5);
+        structuredLogger.logDatabaseOperation("batch-insert", "transactions", 3, true);
+
+        assertTrue(appender.list.isEmpty());
+    }
+
+    @Test
+    void testResultIsLoggedWithReactorContextAcrossThreads() throws Exception {
+        LogContext logContext = LogContext.forRequest(null, "10.0.0.2", null);
+        ProcessingResult result = new ProcessingResult(ProcessingResult.Status.VALIDATION_FAILED, "MSG-2", "pacs.008.001.08");
+        result.setErrors(List.of(ValidationError.businessRuleError("BR001", "Invalid currency", "Ccy")));
+
+        Mono.fromCallable(() -> result)
+            .subscribeOn(Schedulers.boundedElastic())
+            .publishOn(Schedulers.parallel())
+            .doOnEach(structuredLogger.onResult(System.nanoTime()))
+            .contextWrite(logContext.write())
+            .block();
+
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        // Un rechazo de validación es un resultado esperado, no un error
+        assertEquals(Level.INFO, event.getLevel());
+        JsonNode fields = toJson(structuredEvent(event));
+        assertEquals(logContext.getCorrelationId(), fields.get("correlationId").asText());
+        assertEquals(16, logContext.getCorrelationId().length());
+        assertEquals("BR001", fields.get("errorCode").asText());
+        assertEquals("process-rejected", fields.get("operation").asText());
+        assertEquals("Message rejected MSG-2 BR001", event.getFormattedMessage());
+    }
+
+    @Test
+    void testUnexpectedFailureIsLoggedAsError() {
+        Mono.<ProcessingResult>error(new IllegalStateException("boom"))
+            .doOnEach(structuredLogger.onResult(System.nanoTime()))
+            .onErrorResume(e -> Mono.empty())
+            .block();
+
+        assertEquals(1, appender.list.size());
+        assertEquals(Level.ERROR, appender.list.get(0).getLevel());
+        assertNotNull(appender.list.get(0).getThrowableProxy());
+    }
+
+    @Test
+    void testRepeatedFailuresGoThroughTheRateLimiter() {
+        structuredLogger.setLogRateLimiter(new LogRateLimiter(new LogRateLimiter.Policy(true, 3,
+            Duration.ofMinutes(1), Duration.ofMinutes(1), 16)));
+
+        for (int i = 0; i < 20; i++) {
+            structuredLogger.logMessageError(LogContext.empty(), "MSG-" + i, "pacs.008.001.08", "PROCESSING_FAILED",
+                "boom", 1, new IllegalStateException("boom"));
+        }
+
+        assertEquals(3, appender.list.size());
+        assertTrue(appender.list.stream().allMatch(e -> e.getLevel() == Level.ERROR));
+    }
+
+    @Test
+    void testInvalidCorrelationIdIsReplaced() {
+        assertEquals("abc-123_X.y:z", LogContext.forRequest("abc-123_X.y:z", null, null).getCorrelationId());
+        for (String invalid : new String[] {"", "a b", "x\r\nSet-Cookie: y", "<script>", "a".repeat(65)}) {
+            String id = LogContext.forRequest(invalid, null, null).getCorrelationId();
+            assertNotEquals(invalid, id);
+            assertEquals(16, id.length());
+        }
+        assertEquals(64, LogContext.forRequest("a".repeat(64), null, null).getCorrelationId().length());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testDeprecatedApiIsKept() throws Exception {
+        assertEquals(StructuredEvent.MESSAGE_ID, StructuredLogger.MESSAGE_ID);
+        assertEquals(StructuredEvent.CORRELATION_ID, StructuredLogger.CORRELATION_ID);
+
+        structuredLogger.logMessageStart("MSG-5", "pacs.008.001.08", "10.0.0.5");
+        structuredLogger.logMessageSuccess("MSG-5", "pacs.008.001.08", 7);
+        structuredLogger.logMessageError("MSG-5", "pacs.008.001.08", "E1", "failed", 9, null);
+
+        assertEquals(3, appender.list.size());
+        assertEquals("10.0.0.5", toJson(structuredEvent(appender.list.get(0))).get("clientIp").asText());
+        assertEquals(Level.ERROR, appender.list.get(2).getLevel());
+    }
+
+    @Test
+    void testMissingContextIsTolerated() {
+        Mono.just(new ProcessingResult(ProcessingResult.Status.SUCCESS, "MSG-3", "pacs.008.001.08"))
+            .doOnEach(structuredLogger.onResult(System.nanoTime()))
+            .block();
+
+        assertEquals(1, appender.list.size());
+        assertFalse(appender.list.get(0).getFormattedMessage().contains("correlationId"));
+    }
+
+    @Test
+    void testBatchFlushesAreNotAudited() {
+        AuditPipeline auditPipeline = mock(AuditPipeline.class);
+        structuredLogger.setAuditPipeline(auditPipeline);
+
+        structuredLogger.logDatabaseOperation("batch-insert", "transactions", 3, true);
+        structuredLogger.logValidationEvent("MSG-4", "SCHEMA", true, null);
+
+        verify(auditPipeline).publish("MSG-4", "SCHEMA", "VALID");
+        verifyNoMoreInteractions(auditPipeline);
+    }
+
+    private static StructuredEvent structuredEvent(ILoggingEvent event) {
+        for (Object argument : event.getArgumentArray()) {
+            if (argument instanceof StructuredEvent structured) {
+                return structured;
+            }
+        }
+        throw new AssertionError("No structured event in " + event);
+    }
+
+    private static JsonNode toJson(StructuredEvent event) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+            generator.writeStartObject();
+            event.writeTo(generator);
+            generator.writeEndObject();
+        }
+        return new ObjectMapper().readTree(writer.toString());
+    }
+}